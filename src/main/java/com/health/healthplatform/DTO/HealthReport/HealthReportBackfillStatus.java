@@ -0,0 +1,23 @@
+package com.health.healthplatform.DTO.HealthReport;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+public class HealthReportBackfillStatus {
+    private String jobId;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private List<Integer> userIds;       // 为空表示全部用户
+    private String state;                // queued、running、finished、partial（部分用户写入失败）、failed
+    private int processedUsers;
+    private int writtenReports;          // 实际写入成功的报告数
+    private int failedUsers;
+    private List<Integer> failedUserIds; // 只保留前若干个
+    private LocalDateTime startTime;
+    private LocalDateTime finishTime;
+    private String error;
+}
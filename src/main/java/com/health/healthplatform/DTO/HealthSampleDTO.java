@@ -0,0 +1,12 @@
+package com.health.healthplatform.DTO;
+
+import lombok.Data;
+import java.time.LocalDateTime;
+
+// 可穿戴设备批量上传的一条采样
+@Data
+public class HealthSampleDTO {
+    private String type;          // 指标：heart_rate, steps
+    private Double value;
+    private LocalDateTime time;   // 采样时间，为空时取接收时间
+}
@@ -0,0 +1,13 @@
+package com.health.healthplatform.DTO;
+
+import lombok.Data;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class HealthSampleIngestResult {
+    private int accepted;   // 已写入的采样
+    private int rejected;   // 校验未通过的采样
+    private int failed;     // 校验通过但所在批次写入失败的采样，可以重新提交
+    private List<String> errors = new ArrayList<>();   // 被拒绝的采样、写入失败的批次及原因，只保留前若干条
+}
@@ -0,0 +1,14 @@
+package com.health.healthplatform.DTO;
+
+import lombok.Data;
+import java.time.LocalDateTime;
+
+// 心率趋势图上的一个点
+@Data
+public class HeartRateTrendDTO {
+    private LocalDateTime time;
+    private Double avg;
+    private Double min;
+    private Double max;
+    private Integer count;
+}
@@ -1,13 +1,19 @@
 package com.health.healthplatform.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
 public class SpringMvcConfig implements WebMvcConfigurer {
+
+    // 异步请求（健康历史导出的流式响应）的超时，Tomcat 默认 30 秒不够导出大量历史
+    @Value("${health.export.timeout-ms:1800000}")
+    private long asyncRequestTimeoutMs = 1800000;
     
     @Bean
     public RestTemplate restTemplate() {
@@ -23,5 +29,10 @@ public class SpringMvcConfig implements WebMvcConfigurer {
                 .maxAge(3600)
                 .allowedHeaders("*");
     }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setDefaultTimeout(asyncRequestTimeoutMs);
+    }
 }
 
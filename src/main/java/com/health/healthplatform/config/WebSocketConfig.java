@@ -1,7 +1,7 @@
 package com.health.healthplatform.config;
 
 import com.health.healthplatform.websocket.NotificationWebSocketHandler;
-import org.springframework.context.annotation.Bean;
+import jakarta.annotation.Resource;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.socket.config.annotation.EnableWebSocket;
 import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
@@ -11,14 +11,12 @@ import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry
 @EnableWebSocket
 public class WebSocketConfig implements WebSocketConfigurer {
 
-    @Bean
-    public NotificationWebSocketHandler notificationWebSocketHandler() {
-        return new NotificationWebSocketHandler();
-    }
+    @Resource
+    private NotificationWebSocketHandler notificationWebSocketHandler;
 
     @Override
     public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
-        registry.addHandler(notificationWebSocketHandler(), "/ws/notifications/{userId}")
+        registry.addHandler(notificationWebSocketHandler, "/ws/notifications/{userId}")
                 .setAllowedOrigins("*");
     }
 }
\ No newline at end of file
@@ -2,9 +2,10 @@ package com.health.healthplatform.controller;
 
 import com.health.healthplatform.service.IntelligentAnalysisService;
 import com.health.healthplatform.service.DeepSeekService;
+import com.health.healthplatform.service.HealthReport.HealthStatusClassifier;
+import com.health.healthplatform.service.health_data.LatestVitalsCache;
 import com.health.healthplatform.entity.healthdata.HealthData;
 import com.health.healthplatform.entity.healthdata.SleepHistory;
-import com.health.healthplatform.mapper.health_data.HealthDataMapper;
 import com.health.healthplatform.mapper.health_data.SleepHistoryMapper;
 import com.health.healthplatform.result.Result;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -25,7 +26,7 @@ public class AIAnalysisController {
     private DeepSeekService deepSeekService;
 
     @Autowired
-    private HealthDataMapper healthDataMapper;
+    private LatestVitalsCache latestVitalsCache;
 
     @Autowired
     private SleepHistoryMapper sleepHistoryMapper;
@@ -49,7 +50,7 @@ public class AIAnalysisController {
     @GetMapping("/analyze/{userId}")
     public Result analyzeUserHealth(@PathVariable Integer userId) {
         try {
-            HealthData latestData = healthDataMapper.findLatestByUserId(userId);
+            HealthData latestData = latestVitalsCache.get(userId);
             if (latestData == null) {
                 return Result.failure(404, "未找到健康数据，请先记录健康信息。");
             }
@@ -136,7 +137,7 @@ public class AIAnalysisController {
             
             // 如果提供了用户ID，可以结合用户的健康数据给出个性化建议
             if (userId != null) {
-                HealthData healthData = healthDataMapper.findLatestByUserId(userId);
+                HealthData healthData = latestVitalsCache.get(userId);
                 if (healthData != null) {
                     prompt.append("用户健康状况参考：\n");
                     prompt.append("- 身高：").append(healthData.getHeight()).append("cm\n");
@@ -170,7 +171,7 @@ public class AIAnalysisController {
     @GetMapping("/health-assessment/{userId}")
     public Result getHealthAssessment(@PathVariable Integer userId) {
         try {
-            HealthData healthData = healthDataMapper.findLatestByUserId(userId);
+            HealthData healthData = latestVitalsCache.get(userId);
             if (healthData == null) {
                 return Result.failure(404, "未找到健康数据，请先记录健康信息。");
             }
@@ -184,36 +185,18 @@ public class AIAnalysisController {
                 assessment.put("bmi", Math.round(bmi * 100.0) / 100.0);
                 
                 // BMI评估
-                String bmiStatus;
-                if (bmi < 18.5) bmiStatus = "偏瘦";
-                else if (bmi < 24) bmiStatus = "正常";
-                else if (bmi < 28) bmiStatus = "偏重";
-                else bmiStatus = "肥胖";
-                assessment.put("bmiStatus", bmiStatus);
+                assessment.put("bmiStatus", HealthStatusClassifier.bmi(bmi));
             }
             
             // 血压评估
             if (healthData.getBloodPressureSystolic() != null && healthData.getBloodPressureDiastolic() != null) {
-                String bpStatus;
-                int systolic = healthData.getBloodPressureSystolic();
-                int diastolic = healthData.getBloodPressureDiastolic();
-                
-                if (systolic < 120 && diastolic < 80) bpStatus = "正常";
-                else if (systolic < 130 && diastolic < 85) bpStatus = "正常偏高";
-                else if (systolic < 140 && diastolic < 90) bpStatus = "轻度高血压";
-                else bpStatus = "高血压";
-                
-                assessment.put("bloodPressureStatus", bpStatus);
+                assessment.put("bloodPressureStatus", HealthStatusClassifier.bloodPressure(
+                        healthData.getBloodPressureSystolic(), healthData.getBloodPressureDiastolic()));
             }
             
             // 心率评估
             if (healthData.getHeartRate() != null) {
-                String hrStatus;
-                int hr = healthData.getHeartRate();
-                if (hr < 60) hrStatus = "偏慢";
-                else if (hr <= 100) hrStatus = "正常";
-                else hrStatus = "偏快";
-                assessment.put("heartRateStatus", hrStatus);
+                assessment.put("heartRateStatus", HealthStatusClassifier.heartRate(healthData.getHeartRate()));
             }
             
             return Result.success(assessment);
@@ -264,7 +247,7 @@ public class AIAnalysisController {
             @RequestParam String message,
             @RequestParam(required = false) String context) {
         try {
-            HealthData latestData = healthDataMapper.findLatestByUserId(userId);
+            HealthData latestData = latestVitalsCache.get(userId);
 
             String systemPrompt = """
                 你是一个专业的AI健康教练，具有丰富的健康管理经验。
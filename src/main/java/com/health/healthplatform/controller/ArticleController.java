@@ -3,6 +3,7 @@ package com.health.healthplatform.controller;
 import com.health.healthplatform.entity.Article;
 import com.health.healthplatform.entity.Comment;
 import com.health.healthplatform.mapper.ArticleMapper;
+import com.health.healthplatform.service.ArticleDetailCache;
 import com.health.healthplatform.service.ArticleService;
 import com.health.healthplatform.service.FileService;
 import com.health.healthplatform.result.Result;
@@ -29,6 +30,9 @@ public class ArticleController {
     @Resource
     private ArticleMapper articleMapper;
 
+    @Resource
+    private ArticleDetailCache articleDetailCache;
+
     @Autowired
     private FileService fileService;
 
@@ -119,9 +123,17 @@ public class ArticleController {
             @RequestParam(required = false) Integer categoryId,
             @RequestParam(required = false) String search,
             @RequestParam(defaultValue = "1") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean withTotal) {
         try {
-            Map<String, Object> result = articleService.getArticles(categoryId, search, page, size, userId);
+            Map<String, Object> result;
+            if (cursor != null && (search == null || search.trim().isEmpty())) {
+                // 带 cursor 参数（首页传空串）时走游标分页，搜索仍按相关度分页
+                result = articleService.getArticlesByCursor(categoryId, cursor, size, withTotal, userId);
+            } else {
+                result = articleService.getArticles(categoryId, search, page, size, userId);
+            }
             return Result.success(result);
         } catch (Exception e) {
             return Result.failure(500, "获取文章列表失败: " + e.getMessage());
@@ -308,6 +320,21 @@ public class ArticleController {
         }
     }
 
+    // 加载更多回复
+    @GetMapping("/{userId}/comments/{commentId}/replies")
+    public Result getCommentReplies(
+            @PathVariable Integer userId,
+            @PathVariable Long commentId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size
+    ) {
+        try {
+            return Result.success(articleService.getCommentReplies(commentId, cursor, size));
+        } catch (Exception e) {
+            return Result.failure(500, "获取回复失败: " + e.getMessage());
+        }
+    }
+
     @Transactional
     @DeleteMapping("/{userId}/delete-draft")
     public Result deleteDraft(@PathVariable Integer userId, @RequestBody Map<String, Object> draftData) {
@@ -333,6 +360,7 @@ public class ArticleController {
 
                 // 删除文章
                 int articlesDeleted = articleMapper.deleteArticle(draft.getId());
+                articleDetailCache.markChanged(draft.getId());
 
                 if (articlesDeleted == 0) {
                     throw new RuntimeException("删除草稿失败，未找到匹配的记录");
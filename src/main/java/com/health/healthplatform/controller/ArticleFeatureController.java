@@ -33,6 +33,18 @@ public class ArticleFeatureController {
         }
     }
 
+    // 从数据库重建文章全文索引
+    @PostMapping("/search-index/rebuild")
+    public Result rebuildSearchIndex() {
+        try {
+            int count = articleService.rebuildSearchIndex();
+            return Result.success(count);
+        } catch (Exception e) {
+            log.error("重建搜索索引失败", e);
+            return Result.failure(500, e.getMessage());
+        }
+    }
+
     @GetMapping("/recommended/{userId}")
     public Result getRecommendedArticles(@PathVariable Integer userId) {
         try {
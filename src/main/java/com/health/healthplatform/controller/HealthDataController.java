@@ -1,14 +1,20 @@
 package com.health.healthplatform.controller;
 
 import com.health.healthplatform.DTO.*;
+import com.health.healthplatform.service.HealthReport.HealthStatusClassifier;
 import com.health.healthplatform.service.health_data.*;
 import jakarta.annotation.Resource;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/health")
@@ -37,6 +43,15 @@ public class HealthDataController {
     @Resource
     BmiService bmiService;
 
+    @Resource
+    HealthSampleIngestService healthSampleIngestService;
+
+    @Resource
+    HealthExportService healthExportService;
+
+    @Resource
+    HeartRateTrendService heartRateTrendService;
+
     public HealthDataController(HealthDataService healthDataService) {
         this.healthDataService = healthDataService;
     }
@@ -58,6 +73,37 @@ public class HealthDataController {
                 .body(healthData);
     }
 
+    // 导出全部健康历史，边查边写，可选 gzip 压缩
+    @GetMapping("/{id}/export")
+    public ResponseEntity<StreamingResponseBody> exportHealthHistory(
+            @PathVariable("id") Integer userId,
+            @RequestParam(value = "format", defaultValue = "ndjson") String format,
+            @RequestParam(value = "gzip", defaultValue = "false") boolean gzip) {
+
+        if (userId <= 0 || !("ndjson".equals(format) || "csv".equals(format))) {
+            log.warn("Invalid export request: user {}, format {}", userId, format);
+            return ResponseEntity.badRequest().build();
+        }
+
+        String filename = "health-history-" + userId + "." + format + (gzip ? ".gz" : "");
+        MediaType contentType = gzip ? MediaType.parseMediaType("application/gzip")
+                : "csv".equals(format) ? MediaType.parseMediaType("text/csv;charset=UTF-8")
+                : MediaType.parseMediaType("application/x-ndjson");
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream gzipOut = new GZIPOutputStream(out, true);
+                healthExportService.export(userId, format, gzipOut);
+                gzipOut.finish();
+            } else {
+                healthExportService.export(userId, format, out);
+            }
+        };
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .contentType(contentType)
+                .body(body);
+    }
+
     //心率详情
     @GetMapping("/{id}/heart-rate")
     public ResponseEntity<List<HeartRateDTO>> getHeartRateHistory(
@@ -80,6 +126,26 @@ public class HealthDataController {
                 .body(heartRateData);
     }
 
+    // 心率趋势：基于预聚合，最多返回 maxPoints 个点，mode 为 bucket（最小/最大/平均）或 lttb
+    @GetMapping("/{id}/heart-rate/trend")
+    public ResponseEntity<List<HeartRateTrendDTO>> getHeartRateTrend(
+            @PathVariable("id") Integer userId,
+            @RequestParam(value = "period", defaultValue = "day") String period,
+            @RequestParam(value = "maxPoints", defaultValue = "300") int maxPoints,
+            @RequestParam(value = "mode", defaultValue = "bucket") String mode) {
+
+        if (userId <= 0 || maxPoints <= 0) {
+            log.warn("Invalid trend request: user {}, maxPoints {}", userId, maxPoints);
+            return ResponseEntity.badRequest().build();
+        }
+
+        List<HeartRateTrendDTO> trend = heartRateTrendService.getTrend(userId, period, maxPoints, mode);
+        return ResponseEntity
+                .ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(trend);
+    }
+
     @PostMapping("/{id}/heart-rate")
     public ResponseEntity<HeartRateDTO> recordHeartRate(
             @PathVariable("id") Integer userId,
@@ -144,6 +210,34 @@ public class HealthDataController {
         }
     }
 
+    // 可穿戴设备批量上传：心率、步数混合的采样数组
+    @PostMapping(value = "/{id}/samples", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<HealthSampleIngestResult> ingestSamples(
+            @PathVariable("id") Integer userId,
+            @RequestBody List<HealthSampleDTO> samples) {
+
+        if (userId <= 0) {
+            log.warn("Invalid user id: {}", userId);
+            return ResponseEntity.badRequest().build();
+        }
+
+        return ResponseEntity.ok(healthSampleIngestService.ingest(userId, samples));
+    }
+
+    // 同上，NDJSON 流式上传，每行一条采样
+    @PostMapping(value = "/{id}/samples", consumes = "application/x-ndjson")
+    public ResponseEntity<HealthSampleIngestResult> ingestSampleStream(
+            @PathVariable("id") Integer userId,
+            HttpServletRequest request) throws IOException {
+
+        if (userId <= 0) {
+            log.warn("Invalid user id: {}", userId);
+            return ResponseEntity.badRequest().build();
+        }
+
+        return ResponseEntity.ok(healthSampleIngestService.ingest(userId, request.getInputStream()));
+    }
+
     //睡眠
     @GetMapping("/{id}/sleep")
     public ResponseEntity<List<SleepDTO>> getSleepHistory(
@@ -393,19 +487,21 @@ public class HealthDataController {
             BmiCategoryDTO category = new BmiCategoryDTO();
             category.setBmi(latestBmi.getBmi());
 
-            // 根据WHO标准设置BMI分类
-            if (latestBmi.getBmi() < 18.5) {
-                category.setCategory("偏瘦");
-                category.setAdvice("建议适当增加营养摄入，保持均衡饮食");
-            } else if (latestBmi.getBmi() < 24) {
-                category.setCategory("正常");
-                category.setAdvice("恭喜！请继续保持健康的生活方式");
-            } else if (latestBmi.getBmi() < 28) {
-                category.setCategory("偏胖");
-                category.setAdvice("建议适当控制饮食，增加运动量");
-            } else {
-                category.setCategory("肥胖");
-                category.setAdvice("建议咨询医生，制定科学的减重计划");
+            // 与健康报告使用同一套BMI分级
+            String bmiStatus = HealthStatusClassifier.bmi(latestBmi.getBmi());
+            category.setCategory(bmiStatus);
+            switch (bmiStatus) {
+                case HealthStatusClassifier.BMI_UNDERWEIGHT:
+                    category.setAdvice("建议适当增加营养摄入，保持均衡饮食");
+                    break;
+                case HealthStatusClassifier.NORMAL:
+                    category.setAdvice("恭喜！请继续保持健康的生活方式");
+                    break;
+                case HealthStatusClassifier.BMI_OVERWEIGHT:
+                    category.setAdvice("建议适当控制饮食，增加运动量");
+                    break;
+                default:
+                    category.setAdvice("建议咨询医生，制定科学的减重计划");
             }
 
             return ResponseEntity.ok(category);
@@ -1,11 +1,13 @@
 package com.health.healthplatform.controller;
 
 import com.health.healthplatform.DTO.*;
+import com.health.healthplatform.DTO.HealthReport.HealthReportBackfillStatus;
 import com.health.healthplatform.entity.HealthReport.HealthReport;
 import com.health.healthplatform.result.Result;
 import com.health.healthplatform.service.health_data.*;
 import com.health.healthplatform.service.HealthReport.HealthReportAnalysisService;
 import com.health.healthplatform.service.HealthReport.HealthDataSyncService;
+import com.health.healthplatform.service.HealthReport.HealthReportBackfillService;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.*;
@@ -33,6 +35,8 @@ public class HealthReportController {
     private HealthReportAnalysisService healthReportAnalysisService;
     @Resource
     private HealthDataSyncService healthDataSyncService;
+    @Resource
+    private HealthReportBackfillService healthReportBackfillService;
 
     @GetMapping("/{userId}/score")
     public Result getHealthScore(@PathVariable Integer userId) {
@@ -260,7 +264,7 @@ public class HealthReportController {
     @PostMapping("/admin/sync-all")
     public Result syncAllHealthData() {
         try {
-            // 触发昨天的数据同步
+            // 触发昨天的数据同步，并续跑最近几天没有完成的日期
             healthDataSyncService.autoSyncHealthData();
             return Result.success("全局健康数据同步成功");
         } catch (Exception e) {
@@ -269,6 +273,44 @@ public class HealthReportController {
         }
     }
 
+    /**
+     * 按日期范围回填健康报告（管理员功能），后台执行并限速
+     * @param startDate 开始日期（YYYY-MM-DD格式）
+     * @param endDate 结束日期（YYYY-MM-DD格式）
+     * @param userIds 只回填这些用户，不传则回填全部用户
+     * @return 回填任务状态
+     */
+    @PostMapping("/admin/backfill")
+    public Result backfillHealthReports(
+            @RequestParam String startDate,
+            @RequestParam String endDate,
+            @RequestBody(required = false) List<Integer> userIds) {
+        try {
+            HealthReportBackfillStatus status = healthReportBackfillService.start(
+                    LocalDate.parse(startDate), LocalDate.parse(endDate), userIds);
+            return Result.success(status);
+        } catch (IllegalArgumentException e) {
+            return Result.failure(400, e.getMessage());
+        } catch (Exception e) {
+            log.error("提交健康报告回填失败: ", e);
+            return Result.failure(500, "提交健康报告回填失败：" + e.getMessage());
+        }
+    }
+
+    /**
+     * 查询回填任务进度
+     * @param jobId 任务ID
+     * @return 回填任务状态
+     */
+    @GetMapping("/admin/backfill/{jobId}")
+    public Result getBackfillStatus(@PathVariable String jobId) {
+        HealthReportBackfillStatus status = healthReportBackfillService.get(jobId);
+        if (status == null) {
+            return Result.failure(404, "回填任务不存在");
+        }
+        return Result.success(status);
+    }
+
     private Map<String, Object> calculateSubScores(Integer userId) {
         Map<String, Object> scores = new HashMap<>();
 
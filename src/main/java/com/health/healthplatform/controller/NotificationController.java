@@ -16,8 +16,15 @@ public class NotificationController {
     private NotificationService notificationService;
 
     @GetMapping("/{userId}")
-    public Result getNotifications(@PathVariable Integer userId) {
+    public Result getNotifications(
+            @PathVariable Integer userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
         try {
+            if (cursor != null || size != null) {
+                // 分页模式：返回 notifications、nextCursor、hasMore
+                return Result.success(notificationService.getUserNotifications(userId, cursor, size == null ? 20 : size));
+            }
             List<Notification> notifications = notificationService.getUserNotifications(userId);
             return Result.success(notifications);
         } catch (Exception e) {
@@ -191,13 +191,20 @@ public class UserController {
             @PathVariable Integer userId,
             @RequestParam(required = false) String search,
             @RequestParam(defaultValue = "1") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean withTotal) {
         try {
             if (userId == null) {
                 return Result.failure(401, "请先登录");
             }
 
-            Map<String, Object> result = articleService.getUserFavorites(userId, search, page, size);
+            Map<String, Object> result;
+            if (cursor != null && (search == null || search.trim().isEmpty())) {
+                result = articleService.getUserFavoritesByCursor(userId, cursor, size, withTotal);
+            } else {
+                result = articleService.getUserFavorites(userId, search, page, size);
+            }
             return Result.success(result);
         } catch (Exception e) {
             return Result.failure(500, "获取收藏列表失败: " + e.getMessage());
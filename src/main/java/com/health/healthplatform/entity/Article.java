@@ -41,5 +41,7 @@ public class Article {
     private User author;
     private Boolean isLiked;
     private Boolean isFavorited;
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", timezone = "GMT+8")
+    private LocalDateTime favoritedAt;  // 收藏时间，仅收藏列表有值
     private Integer category;
 }
\ No newline at end of file
@@ -0,0 +1,9 @@
+package com.health.healthplatform.entity;
+
+import lombok.Data;
+
+@Data
+public class ArticleInteraction {
+    private Long articleId;
+    private Integer flag;   // 1 点赞，2 收藏
+}
@@ -0,0 +1,17 @@
+package com.health.healthplatform.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// 用户阅读记录，对应 user_read_history
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArticleRead {
+    private Integer userId;
+    private Long articleId;
+    private LocalDateTime readTime;
+}
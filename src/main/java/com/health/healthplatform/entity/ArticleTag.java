@@ -0,0 +1,10 @@
+package com.health.healthplatform.entity;
+
+import lombok.Data;
+
+@Data
+public class ArticleTag {
+    private Long articleId;
+    private Long tagId;
+    private String name;
+}
@@ -18,4 +18,5 @@ public class Comment {
     private User user;
     private User replyToUser;
     private List<Comment> replies;  // 子评论列表
+    private String repliesCursor;  // 加载更多回复的游标，没有更多回复时为空
 }
\ No newline at end of file
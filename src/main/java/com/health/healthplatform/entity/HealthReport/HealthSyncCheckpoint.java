@@ -0,0 +1,20 @@
+package com.health.healthplatform.entity.HealthReport;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 批量同步任务的断点：某天的同步已连续完成到哪个用户
+ */
+@Data
+public class HealthSyncCheckpoint {
+    private String job;
+    private LocalDate syncDate;
+    private Integer lastUserId;
+    private Boolean finished;
+    // 重试后仍写入失败的用户ID，逗号分隔
+    private String failedUserIds;
+    private LocalDateTime updateTime;
+}
@@ -13,5 +13,6 @@ public class Notification {
     private Long articleId;      // 相关文章ID
     private Boolean isRead;      // 是否已读
     private LocalDateTime createTime;
+    private LocalDateTime lastEventTime;  // 合并通知最近一次计入事件的时间
     private User sender;         // 发送者信息（非数据库字段）
 }
\ No newline at end of file
@@ -0,0 +1,18 @@
+package com.health.healthplatform.entity.healthdata;
+
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+// 心率预聚合：每个用户每个时间桶一行，写入时增量累加
+@Data
+@TableName("heart_rate_rollups")
+public class HeartRateRollup {
+    private Integer userId;
+    private Integer resolution;      // 桶宽（秒）：60、3600、86400
+    private LocalDateTime bucketStart;
+    private Double minRate;
+    private Double maxRate;
+    private Double sumRate;
+    private Integer sampleCount;
+}
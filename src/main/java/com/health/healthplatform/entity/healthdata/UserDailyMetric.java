@@ -0,0 +1,23 @@
+package com.health.healthplatform.entity.healthdata;
+
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// 每日指标聚合：每个用户每项指标每天一行，写入记录时增量累加
+@Data
+@TableName("user_daily_metrics")
+public class UserDailyMetric {
+    private Integer userId;
+    private String metric;           // 指标名，见 UserDailyMetricsService 中的常量
+    private LocalDate recordDate;
+    private Integer sampleCount;
+    private Double sumValue;
+    private Double minValue;
+    private Double maxValue;
+    private Double firstValue;       // 当天最早一条的取值
+    private LocalDateTime firstTime;
+    private Double lastValue;        // 当天最晚一条的取值
+    private LocalDateTime lastTime;
+}
@@ -1,33 +1,21 @@
 package com.health.healthplatform.mapper;
 
 import com.health.healthplatform.entity.Article;
+import com.health.healthplatform.entity.ArticleInteraction;
+import com.health.healthplatform.entity.ArticleRead;
+import com.health.healthplatform.entity.ArticleTag;
 import com.health.healthplatform.entity.Comment;
 import org.apache.ibatis.annotations.*;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 @Mapper
 public interface ArticleMapper {
 
-    @Select("SELECT c.*, u.username, u.avatar " +
-            "FROM comments c " +
-            "LEFT JOIN user u ON c.user_id = u.id " +
-            "WHERE c.article_id = #{articleId} " +
-            "ORDER BY " +
-            "CASE WHEN c.parent_id IS NULL THEN c.created_at ELSE " +
-            "(SELECT created_at FROM comments WHERE id = c.parent_id) END DESC, " +
-            "c.parent_id ASC, " +
-            "c.created_at ASC")
-    @Results({
-            @Result(property = "user", column = "user_id",
-                    one = @One(select = "com.health.healthplatform.mapper.UserMapper.selectById")),
-            @Result(property = "replies", column = "id",
-                    many = @Many(select = "selectCommentReplies"))
-    })
-    List<Comment> selectAllComments(@Param("articleId") Long articleId);
-
     @Insert("INSERT INTO articles(title, content, html_content, cover_image, category_id, user_id, " +
             "status, visibility, allow_comment, view_count, like_count, comment_count, " +
             "created_at, updated_at, publish_time) " +
@@ -74,12 +62,23 @@ public interface ArticleMapper {
             "(a.title LIKE CONCAT('%', #{search}, '%') OR a.content LIKE CONCAT('%', #{search}, '%')), 1=1) " +
             "ORDER BY a.created_at DESC " +
             "LIMIT #{offset}, #{size}")
-    @Results({
-            @Result(property = "id", column = "id"),
-            @Result(property = "tags", column = "id",
-                    many = @Many(select = "selectArticleTags")),
-            @Result(property = "author", column = "user_id",
-                    one = @One(select = "com.health.healthplatform.mapper.UserMapper.selectById"))
+    @Results(id = "articleListMap", value = {
+            @Result(property = "id", column = "id", id = true),
+            @Result(property = "htmlContent", column = "html_content"),
+            @Result(property = "coverImage", column = "cover_image"),
+            @Result(property = "categoryId", column = "category_id"),
+            @Result(property = "userId", column = "user_id"),
+            @Result(property = "allowComment", column = "allow_comment"),
+            @Result(property = "viewCount", column = "view_count"),
+            @Result(property = "likeCount", column = "like_count"),
+            @Result(property = "commentCount", column = "comment_count"),
+            @Result(property = "favoriteCount", column = "favorite_count"),
+            @Result(property = "pointsAwarded", column = "points_awarded"),
+            @Result(property = "hotScore", column = "hot_score"),
+            @Result(property = "createdAt", column = "created_at"),
+            @Result(property = "updatedAt", column = "updated_at"),
+            @Result(property = "publishTime", column = "publish_time"),
+            @Result(property = "favoritedAt", column = "favorited_at")
     })
     List<Article> selectArticles(
             @Param("categoryId") Integer categoryId,
@@ -88,6 +87,23 @@ public interface ArticleMapper {
             @Param("size") int size
     );
 
+    // 游标分页：按 (created_at, id) 倒序，从上一页最后一条之后开始取
+    @Select("<script>" +
+            "SELECT a.* FROM articles a " +
+            "WHERE a.status = 1 " +
+            "<if test='categoryId != null'>AND a.category_id = #{categoryId} </if>" +
+            "<if test='cursorTime != null'>" +
+            "AND (a.created_at &lt; #{cursorTime} OR (a.created_at = #{cursorTime} AND a.id &lt; #{cursorId})) " +
+            "</if>" +
+            "ORDER BY a.created_at DESC, a.id DESC " +
+            "LIMIT #{limit}" +
+            "</script>")
+    @ResultMap("articleListMap")
+    List<Article> selectArticlesAfter(@Param("categoryId") Integer categoryId,
+                                      @Param("cursorTime") LocalDateTime cursorTime,
+                                      @Param("cursorId") Long cursorId,
+                                      @Param("limit") int limit);
+
     @Select("SELECT COUNT(*) FROM articles " +
             "WHERE status = 1 " +
             "AND IF(#{categoryId} IS NOT NULL, category_id = #{categoryId}, 1=1) " +
@@ -101,6 +117,22 @@ public interface ArticleMapper {
             "WHERE at.article_id = #{articleId}")
     List<String> selectArticleTags(Long articleId);
 
+    // 批量查询多篇文章的标签，列表页用一条 IN 查询代替每篇文章一次的 selectArticleTags
+    @Select("<script>" +
+            "SELECT at.article_id, at.tag_id, t.name FROM article_tags at " +
+            "INNER JOIN tags t ON t.id = at.tag_id " +
+            "WHERE at.article_id IN " +
+            "<foreach collection='articleIds' item='articleId' open='(' separator=',' close=')'>" +
+            "#{articleId}" +
+            "</foreach>" +
+            "</script>")
+    @Results({
+            @Result(property = "articleId", column = "article_id"),
+            @Result(property = "tagId", column = "tag_id"),
+            @Result(property = "name", column = "name")
+    })
+    List<ArticleTag> selectTagsByArticleIds(@Param("articleIds") Collection<Long> articleIds);
+
     @Insert("INSERT INTO article_tags(article_id, tag_id) "+
             "SELECT #{articleId}, #{tagId} FROM DUAL "+
             "WHERE NOT EXISTS ("+
@@ -109,15 +141,55 @@ public interface ArticleMapper {
             ")")
     void insertArticleTag(@Param("articleId") Long articleId, @Param("tagId") Long tagId);
 
+    @Select("SELECT tag_id FROM article_tags WHERE article_id = #{articleId}")
+    List<Long> selectTagIdsByArticleId(@Param("articleId") Long articleId);
+
+    // 一条语句写入文章的多个标签，重复行依赖 (article_id, tag_id) 唯一索引跳过
+    @Insert("<script>" +
+            "INSERT IGNORE INTO article_tags(article_id, tag_id) VALUES " +
+            "<foreach collection='tagIds' item='tagId' separator=','>(#{articleId}, #{tagId})</foreach>" +
+            "</script>")
+    int batchInsertArticleTags(@Param("articleId") Long articleId, @Param("tagIds") Collection<Long> tagIds);
+
+    @Delete("<script>" +
+            "DELETE FROM article_tags WHERE article_id = #{articleId} AND tag_id IN " +
+            "<foreach collection='tagIds' item='tagId' open='(' separator=',' close=')'>#{tagId}</foreach>" +
+            "</script>")
+    int deleteArticleTagsByIds(@Param("articleId") Long articleId, @Param("tagIds") Collection<Long> tagIds);
+
     @Update("UPDATE articles SET view_count = view_count + 1 WHERE id = #{id}")
     void incrementViewCount(Long id);
 
+    // 批量累加浏览量，deltas: 文章ID -> 增量
+    @Update("<script>" +
+            "UPDATE articles SET view_count = view_count + CASE id " +
+            "<foreach collection='deltas' index='id' item='delta'>WHEN #{id} THEN #{delta} </foreach>" +
+            "ELSE 0 END WHERE id IN " +
+            "<foreach collection='deltas' index='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    int batchIncrementViewCount(@Param("deltas") Map<Long, Long> deltas);
+
     @Select("SELECT COUNT(*) > 0 FROM likes WHERE article_id = #{articleId} AND user_id = #{userId}")
     boolean checkUserLiked(@Param("articleId") Long articleId, @Param("userId") Integer userId);
 
     @Select("SELECT COUNT(*) > 0 FROM favorites WHERE article_id = #{articleId} AND user_id = #{userId}")
     boolean checkUserFavorited(@Param("articleId") Long articleId, @Param("userId") Integer userId);
 
+    // 一次查出用户对一组文章的点赞/收藏状态，flag: 1 点赞，2 收藏
+    @Select("<script>" +
+            "SELECT article_id, 1 AS flag FROM likes WHERE user_id = #{userId} AND article_id IN " +
+            "<foreach collection='articleIds' item='articleId' open='(' separator=',' close=')'>#{articleId}</foreach> " +
+            "UNION ALL " +
+            "SELECT article_id, 2 AS flag FROM favorites WHERE user_id = #{userId} AND article_id IN " +
+            "<foreach collection='articleIds' item='articleId' open='(' separator=',' close=')'>#{articleId}</foreach>" +
+            "</script>")
+    @Results({
+            @Result(property = "articleId", column = "article_id"),
+            @Result(property = "flag", column = "flag")
+    })
+    List<ArticleInteraction> selectInteractions(@Param("userId") Integer userId,
+                                                @Param("articleIds") Collection<Long> articleIds);
+
     @Insert("INSERT INTO likes(article_id, user_id) VALUES(#{articleId}, #{userId})")
     void insertLike(@Param("articleId") Long articleId, @Param("userId") Integer userId);
 
@@ -155,44 +227,57 @@ public interface ArticleMapper {
     })
     Comment selectCommentById(Long id);
 
-    @Select("SELECT c.*, u.username, u.avatar, " +
-            "ru.id as reply_to_user_id, ru.username as reply_to_username, ru.avatar as reply_to_avatar " +
-            "FROM comments c " +
-            "LEFT JOIN user u ON c.user_id = u.id " +
-            "LEFT JOIN user ru ON c.reply_to_user_id = ru.id " +
-            "WHERE c.article_id = #{articleId} AND c.parent_id IS NULL " +
-            "ORDER BY c.created_at DESC LIMIT #{offset}, #{size}")
-    @Results({
-            @Result(property = "user", column = "user_id",
-                    one = @One(select = "com.health.healthplatform.mapper.UserMapper.selectById")),
-            @Result(property = "replyToUser", column = "reply_to_user_id",
-                    one = @One(select = "com.health.healthplatform.mapper.UserMapper.selectById")),
-            @Result(property = "replies", column = "id",
-                    many = @Many(select = "selectCommentReplies"))
-    })
-    List<Comment> selectComments(@Param("articleId") Long articleId, @Param("offset") int offset, @Param("size") int size);
-
     @Select("SELECT COUNT(*) FROM comments WHERE article_id = #{articleId} AND parent_id IS NULL")
     int countComments(Long articleId);
 
+    // 一页根评论，不带用户和回复，由 CommentTreeLoader 批量装配
+    @Select("SELECT * FROM comments " +
+            "WHERE article_id = #{articleId} AND parent_id IS NULL " +
+            "ORDER BY created_at DESC, id DESC LIMIT #{offset}, #{size}")
+    @Results(id = "commentMap", value = {
+            @Result(property = "id", column = "id", id = true),
+            @Result(property = "articleId", column = "article_id"),
+            @Result(property = "userId", column = "user_id"),
+            @Result(property = "parentId", column = "parent_id"),
+            @Result(property = "replyToUserId", column = "reply_to_user_id"),
+            @Result(property = "likeCount", column = "like_count"),
+            @Result(property = "replyCount", column = "reply_count"),
+            @Result(property = "createdAt", column = "created_at")
+    })
+    List<Comment> selectRootComments(@Param("articleId") Long articleId,
+                                     @Param("offset") int offset,
+                                     @Param("size") int size);
+
+    // 一批父评论各自最早的 limit 条回复，一条 SQL 取回
+    @Select("<script>" +
+            "SELECT * FROM (" +
+            "SELECT c.*, ROW_NUMBER() OVER (PARTITION BY c.parent_id ORDER BY c.created_at ASC, c.id ASC) AS rn " +
+            "FROM comments c WHERE c.parent_id IN " +
+            "<foreach collection='parentIds' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            ") t WHERE t.rn &lt;= #{limit} " +
+            "ORDER BY t.parent_id, t.created_at ASC, t.id ASC" +
+            "</script>")
+    @ResultMap("commentMap")
+    List<Comment> selectFirstReplies(@Param("parentIds") Collection<Long> parentIds, @Param("limit") int limit);
+
+    // 加载更多回复：从游标之后按时间正序取
+    @Select("<script>" +
+            "SELECT * FROM comments " +
+            "WHERE parent_id = #{parentId} " +
+            "<if test='cursorTime != null'>" +
+            "AND (created_at &gt; #{cursorTime} OR (created_at = #{cursorTime} AND id &gt; #{cursorId})) " +
+            "</if>" +
+            "ORDER BY created_at ASC, id ASC LIMIT #{limit}" +
+            "</script>")
+    @ResultMap("commentMap")
+    List<Comment> selectRepliesAfter(@Param("parentId") Long parentId,
+                                     @Param("cursorTime") LocalDateTime cursorTime,
+                                     @Param("cursorId") Long cursorId,
+                                     @Param("limit") int limit);
+
     @Update("UPDATE articles SET comment_count = comment_count + 1 WHERE id = #{id}")
     void increaseCommentCount(Long id);
 
-    @Select("SELECT c.*, u.username, u.avatar, " +
-            "ru.id as reply_to_user_id, ru.username as reply_to_username, ru.avatar as reply_to_avatar " +
-            "FROM comments c " +
-            "LEFT JOIN user u ON c.user_id = u.id " +
-            "LEFT JOIN user ru ON c.reply_to_user_id = ru.id " +
-            "WHERE c.parent_id = #{parentId} " +
-            "ORDER BY c.created_at ASC")
-    @Results({
-            @Result(property = "user", column = "user_id",
-                    one = @One(select = "com.health.healthplatform.mapper.UserMapper.selectById")),
-            @Result(property = "replyToUser", column = "reply_to_user_id",
-                    one = @One(select = "com.health.healthplatform.mapper.UserMapper.selectById"))
-    })
-    List<Comment> selectCommentReplies(Long parentId);
-
     @Update("UPDATE comments SET reply_count = reply_count + 1 WHERE id = #{id}")
     void increaseReplyCount(Long id);
 
@@ -219,71 +304,72 @@ public interface ArticleMapper {
             @Result(property = "commentCount", column = "comment_count"),
             @Result(property = "favoriteCount", column = "favorite_count"),
             @Result(property = "pointsAwarded", column = "points_awarded"),
-            @Result(property = "author", column = "user_id",
-                    one = @One(select = "com.health.healthplatform.mapper.UserMapper.selectById"))
+            @Result(property = "userId", column = "user_id")
     })
     List<Article> selectHotArticles(@Param("limit") int limit);
 
-    @Select("SELECT DISTINCT a.* FROM articles a " +
-            "LEFT JOIN article_tags at ON a.id = at.article_id " +
-            "LEFT JOIN user_read_history urh ON a.id = urh.article_id " +
-            "WHERE a.status = 1 " +
-            "AND (at.tag_id IN (SELECT tag_id FROM article_tags WHERE article_id IN " +
-            "   (SELECT article_id FROM user_read_history WHERE user_id = #{userId})) " +
-            "OR a.category_id IN (SELECT DISTINCT category_id FROM articles " +
-            "   WHERE id IN (SELECT article_id FROM user_read_history WHERE user_id = #{userId}))) " +
-            "ORDER BY a.hot_score DESC LIMIT 10")
-    List<Article> selectRecommendedArticles(@Param("userId") Integer userId);
+    // 批量写入阅读记录
+    @Insert("<script>" +
+            "INSERT INTO user_read_history(user_id, article_id, read_time) VALUES " +
+            "<foreach collection='reads' item='r' separator=','>" +
+            "(#{r.userId}, #{r.articleId}, #{r.readTime})" +
+            "</foreach>" +
+            "</script>")
+    int batchInsertReadHistory(@Param("reads") List<ArticleRead> reads);
+
+    // 用户最近读过的文章及其分类，用于冷启动时重建偏好
+    @Select("SELECT a.id, a.category_id FROM articles a " +
+            "INNER JOIN (SELECT article_id, MAX(read_time) AS last_read FROM user_read_history " +
+            "WHERE user_id = #{userId} GROUP BY article_id " +
+            "ORDER BY last_read DESC LIMIT #{limit}) h ON h.article_id = a.id")
+    @ResultMap("articleListMap")
+    List<Article> selectRecentlyRead(@Param("userId") Integer userId, @Param("limit") int limit);
 
     @Update("UPDATE articles SET hot_score = " +
             "(view_count + like_count * 3 + comment_count * 5) WHERE id = #{id}")
     void updateHotScore(Long id);
 
+    // 批量写回热度分数，一条 UPDATE ... CASE 覆盖一批文章
+    @Update("<script>" +
+            "UPDATE articles SET hot_score = CASE id " +
+            "<foreach collection='scores' index='id' item='score'>WHEN #{id} THEN #{score} </foreach>" +
+            "END WHERE id IN " +
+            "<foreach collection='scores' index='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    int batchUpdateHotScore(@Param("scores") Map<Long, Integer> scores);
+
+    // 热度榜启动时加载的候选文章：最近发布的已发布文章，只取计分需要的列
+    @Select("SELECT id, user_id, view_count, like_count, comment_count, publish_time FROM articles " +
+            "WHERE status = 1 AND publish_time >= #{since}")
+    @ResultMap("articleListMap")
+    List<Article> selectPublishedSince(@Param("since") LocalDateTime since);
+
+    // 按 ID 顺序分批扫描已发布文章，用于重建搜索索引
+    @Select("SELECT * FROM articles WHERE status = 1 AND id > #{afterId} ORDER BY id LIMIT #{limit}")
+    @ResultMap("articleListMap")
+    List<Article> selectPublishedAfterId(@Param("afterId") Long afterId, @Param("limit") int limit);
+
+    @Select("SELECT article_id FROM favorites WHERE user_id = #{userId}")
+    List<Long> selectFavoriteArticleIds(@Param("userId") Integer userId);
+
+    // 按 ID 批量取文章（不保证顺序）
+    @Select("<script>" +
+            "SELECT a.* FROM articles a WHERE a.id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    @ResultMap("articleListMap")
+    List<Article> selectByIds(@Param("ids") Collection<Long> ids);
+
     @Select("SELECT a.*, u.username as author_name, u.avatar as author_avatar " +
             "FROM articles a " +
             "LEFT JOIN user u ON a.user_id = u.id " +
             "WHERE a.status = 1 " +
             "ORDER BY a.created_at DESC")
-    @Results({
-            @Result(property = "id", column = "id"),
-            @Result(property = "htmlContent", column = "html_content"),
-            @Result(property = "coverImage", column = "cover_image"),
-            @Result(property = "categoryId", column = "category_id"),
-            @Result(property = "userId", column = "user_id"),
-            @Result(property = "allowComment", column = "allow_comment"),
-            @Result(property = "viewCount", column = "view_count"),
-            @Result(property = "likeCount", column = "like_count"),
-            @Result(property = "commentCount", column = "comment_count"),
-            @Result(property = "createdAt", column = "created_at"),
-            @Result(property = "updatedAt", column = "updated_at"),
-            @Result(property = "publishTime", column = "publish_time"),
-            @Result(property = "tags", column = "id",
-                    javaType = List.class,
-                    many = @Many(select = "selectArticleTags")),
-            @Result(property = "author", column = "user_id",
-                    one = @One(select = "com.health.healthplatform.mapper.UserMapper.selectById"))
-    })
+    @ResultMap("articleListMap")
     List<Article> selectAll();
 
     @Select("SELECT * FROM articles WHERE user_id = #{userId} AND status = #{status}")
-    @Results({
-            @Result(property = "htmlContent", column = "html_content"),
-            @Result(property = "coverImage", column = "cover_image"),
-            @Result(property = "categoryId", column = "category_id"),
-            @Result(property = "userId", column = "user_id"),
-            @Result(property = "allowComment", column = "allow_comment"),
-            @Result(property = "viewCount", column = "view_count"),
-            @Result(property = "likeCount", column = "like_count"),
-            @Result(property = "commentCount", column = "comment_count"),
-            @Result(property = "createdAt", column = "created_at"),
-            @Result(property = "updatedAt", column = "updated_at"),
-            @Result(property = "publishTime", column = "publish_time"),
-            @Result(property = "tags", column = "id",
-                    javaType = List.class,
-                    many = @Many(select = "selectArticleTags")),
-            @Result(property = "author", column = "user_id",
-                    one = @One(select = "com.health.healthplatform.mapper.UserMapper.selectById"))
-    })
+    @ResultMap("articleListMap")
     List<Article> selectUserArticles(@Param("userId") Integer userId, @Param("status") Integer status);
 
     // 查找草稿
@@ -331,30 +417,30 @@ public interface ArticleMapper {
             "(a.title LIKE CONCAT('%', #{search}, '%') OR a.content LIKE CONCAT('%', #{search}, '%')), 1=1) " +
             "ORDER BY f.created_at DESC " +
             "LIMIT #{offset}, #{size}")
-    @Results({
-            @Result(property = "id", column = "id"),
-            @Result(property = "htmlContent", column = "html_content"),
-            @Result(property = "coverImage", column = "cover_image"),
-            @Result(property = "categoryId", column = "category_id"),
-            @Result(property = "userId", column = "user_id"),
-            @Result(property = "allowComment", column = "allow_comment"),
-            @Result(property = "viewCount", column = "view_count"),
-            @Result(property = "likeCount", column = "like_count"),
-            @Result(property = "commentCount", column = "comment_count"),
-            @Result(property = "createdAt", column = "created_at"),
-            @Result(property = "updatedAt", column = "updated_at"),
-            @Result(property = "publishTime", column = "publish_time"),
-            @Result(property = "tags", column = "id",
-                    javaType = List.class,
-                    many = @Many(select = "selectArticleTags")),
-            @Result(property = "author", column = "user_id",
-                    one = @One(select = "com.health.healthplatform.mapper.UserMapper.selectById"))
-    })
+    @ResultMap("articleListMap")
     List<Article> selectUserFavorites(@Param("userId") Integer userId,
                                       @Param("search") String search,
                                       @Param("offset") int offset,
                                       @Param("size") int size);
 
+    // 收藏列表游标分页：按 (收藏时间, 文章ID) 倒序
+    @Select("<script>" +
+            "SELECT a.*, f.created_at AS favorited_at " +
+            "FROM favorites f " +
+            "INNER JOIN articles a ON a.id = f.article_id " +
+            "WHERE f.user_id = #{userId} " +
+            "<if test='cursorTime != null'>" +
+            "AND (f.created_at &lt; #{cursorTime} OR (f.created_at = #{cursorTime} AND f.article_id &lt; #{cursorId})) " +
+            "</if>" +
+            "ORDER BY f.created_at DESC, f.article_id DESC " +
+            "LIMIT #{limit}" +
+            "</script>")
+    @ResultMap("articleListMap")
+    List<Article> selectUserFavoritesAfter(@Param("userId") Integer userId,
+                                           @Param("cursorTime") LocalDateTime cursorTime,
+                                           @Param("cursorId") Long cursorId,
+                                           @Param("limit") int limit);
+
     // 获取用户收藏文章的总数
     @Select("SELECT COUNT(*) FROM favorites f " +
             "INNER JOIN articles a ON f.article_id = a.id " +
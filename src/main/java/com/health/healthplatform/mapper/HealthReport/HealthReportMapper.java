@@ -8,6 +8,7 @@ import org.apache.ibatis.annotations.Select;
 import org.apache.ibatis.annotations.Insert;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 
@@ -65,5 +66,49 @@ public interface HealthReportMapper extends BaseMapper<HealthReport> {
         @Param("startDate") Date startDate,
         @Param("endDate") Date endDate
     );
-    
-}
\ No newline at end of file
+
+    @Select("<script>" +
+            "SELECT * FROM health_reports WHERE deleted = 0 " +
+            "AND report_time BETWEEN #{startTime} AND #{endTime} " +
+            "AND user_id IN <foreach collection='userIds' item='id' open='(' separator=',' close=')'>#{id}</foreach> " +
+            "ORDER BY id" +
+            "</script>")
+    List<HealthReport> findByUserIdsAndTimeRange(
+        @Param("userIds") Collection<Integer> userIds,
+        @Param("startTime") LocalDateTime startTime,
+        @Param("endTime") LocalDateTime endTime
+    );
+
+    // id 为空的行新增，已有 id 的行整行覆盖指标（按主键冲突更新）
+    @Insert("<script>" +
+            "INSERT INTO health_reports (id, user_id, report_time, " +
+            "bmi, bmi_status, weight, height, " +
+            "systolic, diastolic, blood_pressure_status, " +
+            "heart_rate, heart_rate_status, " +
+            "weekly_exercise_duration, weekly_exercise_count, weekly_calories_burned, exercise_goal_achieved, " +
+            "daily_steps, daily_distance, steps_goal_achieved, " +
+            "average_sleep_duration, deep_sleep_percentage, light_sleep_percentage, rem_sleep_percentage, sleep_quality, " +
+            "overall_score, health_suggestions, abnormal_indicators, " +
+            "create_time, update_time, deleted) VALUES " +
+            "<foreach collection='reports' item='r' separator=','>" +
+            "(#{r.id}, #{r.userId}, #{r.reportTime}, " +
+            "#{r.bmi}, #{r.bmiStatus}, #{r.weight}, #{r.height}, " +
+            "#{r.systolic}, #{r.diastolic}, #{r.bloodPressureStatus}, " +
+            "#{r.heartRate}, #{r.heartRateStatus}, " +
+            "#{r.weeklyExerciseDuration}, #{r.weeklyExerciseCount}, #{r.weeklyCaloriesBurned}, #{r.exerciseGoalAchieved}, " +
+            "#{r.dailySteps}, #{r.dailyDistance}, #{r.stepsGoalAchieved}, " +
+            "#{r.averageSleepDuration}, #{r.deepSleepPercentage}, #{r.lightSleepPercentage}, #{r.remSleepPercentage}, #{r.sleepQuality}, " +
+            "#{r.overallScore}, #{r.healthSuggestions}, #{r.abnormalIndicators}, " +
+            "NOW(), NOW(), 0)" +
+            "</foreach>" +
+            " ON DUPLICATE KEY UPDATE " +
+            "bmi = VALUES(bmi), bmi_status = VALUES(bmi_status), weight = VALUES(weight), height = VALUES(height), " +
+            "systolic = VALUES(systolic), diastolic = VALUES(diastolic), blood_pressure_status = VALUES(blood_pressure_status), " +
+            "heart_rate = VALUES(heart_rate), heart_rate_status = VALUES(heart_rate_status), " +
+            "daily_steps = VALUES(daily_steps), daily_distance = VALUES(daily_distance), steps_goal_achieved = VALUES(steps_goal_achieved), " +
+            "average_sleep_duration = VALUES(average_sleep_duration), sleep_quality = VALUES(sleep_quality), " +
+            "overall_score = VALUES(overall_score), health_suggestions = VALUES(health_suggestions), " +
+            "abnormal_indicators = VALUES(abnormal_indicators), update_time = NOW()" +
+            "</script>")
+    int upsertBatch(@Param("reports") List<HealthReport> reports);
+}
@@ -0,0 +1,32 @@
+package com.health.healthplatform.mapper.HealthReport;
+
+import com.health.healthplatform.entity.HealthReport.HealthSyncCheckpoint;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Mapper
+public interface HealthSyncCheckpointMapper {
+
+    @Select("SELECT * FROM health_sync_checkpoints WHERE job = #{job} AND sync_date = #{syncDate}")
+    HealthSyncCheckpoint find(@Param("job") String job, @Param("syncDate") LocalDate syncDate);
+
+    // 某日期之后（含）还没完成的日期，从早到晚
+    @Select("SELECT sync_date FROM health_sync_checkpoints " +
+            "WHERE job = #{job} AND sync_date >= #{since} AND finished = false ORDER BY sync_date")
+    List<LocalDate> findUnfinishedDates(@Param("job") String job, @Param("since") LocalDate since);
+
+    @Insert("INSERT INTO health_sync_checkpoints (job, sync_date, last_user_id, finished, failed_user_ids, update_time) " +
+            "VALUES (#{job}, #{syncDate}, #{lastUserId}, #{finished}, #{failedUserIds}, NOW()) " +
+            "ON DUPLICATE KEY UPDATE last_user_id = VALUES(last_user_id), finished = VALUES(finished), " +
+            "failed_user_ids = VALUES(failed_user_ids), update_time = NOW()")
+    int save(@Param("job") String job,
+             @Param("syncDate") LocalDate syncDate,
+             @Param("lastUserId") Integer lastUserId,
+             @Param("finished") boolean finished,
+             @Param("failedUserIds") String failedUserIds);
+}
@@ -3,7 +3,9 @@ package com.health.healthplatform.mapper;
 import com.health.healthplatform.entity.Notification;
 import org.apache.ibatis.annotations.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 @Mapper
 public interface NotificationMapper {
@@ -13,27 +15,127 @@ public interface NotificationMapper {
     @Options(useGeneratedKeys = true, keyProperty = "id")
     void insert(Notification notification);
 
-    @Select("SELECT n.*, u.username as sender_name, u.avatar as sender_avatar " +
-            "FROM notifications n " +
-            "LEFT JOIN user u ON n.sender_id = u.id " +
-            "WHERE n.user_id = #{userId} " +
-            "ORDER BY n.create_time DESC")
-    @Results({
-            @Result(property = "id", column = "id"),
-            @Result(property = "sender", column = "sender_id",
-                    one = @One(select = "com.health.healthplatform.mapper.UserMapper.selectById"))
-    })
+    // 多行写入一批通知，回填自增 ID
+    @Insert("<script>" +
+            "INSERT INTO notifications(user_id, sender_id, type, message, article_id, is_read, create_time) VALUES " +
+            "<foreach collection='notifications' item='n' separator=','>" +
+            "(#{n.userId}, #{n.senderId}, #{n.type}, #{n.message}, #{n.articleId}, #{n.isRead}, #{n.createTime})" +
+            "</foreach>" +
+            "</script>")
+    @Options(useGeneratedKeys = true, keyProperty = "notifications.id", keyColumn = "id")
+    int batchInsert(@Param("notifications") List<Notification> notifications);
+
+    // 主表中的全部通知（保留期内的和仍未读的），发送者信息由调用方批量填充
+    @Select("SELECT * FROM notifications " +
+            "WHERE user_id = #{userId} " +
+            "ORDER BY create_time DESC, id DESC")
+    @ResultMap("notificationMap")
     List<Notification> selectByUserId(Integer userId);
 
+    // 游标分页：按 (create_time, id) 倒序，发送者信息由调用方批量填充
+    @Select("<script>" +
+            "SELECT * FROM notifications " +
+            "WHERE user_id = #{userId} " +
+            "<if test='cursorTime != null'>" +
+            "AND (create_time &lt; #{cursorTime} OR (create_time = #{cursorTime} AND id &lt; #{cursorId})) " +
+            "</if>" +
+            "ORDER BY create_time DESC, id DESC " +
+            "LIMIT #{limit}" +
+            "</script>")
+    @Results(id = "notificationMap", value = {
+            @Result(property = "id", column = "id", id = true),
+            @Result(property = "userId", column = "user_id"),
+            @Result(property = "senderId", column = "sender_id"),
+            @Result(property = "articleId", column = "article_id"),
+            @Result(property = "isRead", column = "is_read"),
+            @Result(property = "createTime", column = "create_time"),
+            @Result(property = "lastEventTime", column = "last_event_time")
+    })
+    List<Notification> selectPageByUserId(@Param("userId") Integer userId,
+                                          @Param("cursorTime") LocalDateTime cursorTime,
+                                          @Param("cursorId") Long cursorId,
+                                          @Param("limit") int limit);
+
+    // 归档表的游标分页，条件与主表一致
+    @Select("<script>" +
+            "SELECT * FROM notifications_archive " +
+            "WHERE user_id = #{userId} " +
+            "<if test='cursorTime != null'>" +
+            "AND (create_time &lt; #{cursorTime} OR (create_time = #{cursorTime} AND id &lt; #{cursorId})) " +
+            "</if>" +
+            "ORDER BY create_time DESC, id DESC " +
+            "LIMIT #{limit}" +
+            "</script>")
+    @ResultMap("notificationMap")
+    List<Notification> selectArchivePageByUserId(@Param("userId") Integer userId,
+                                                 @Param("cursorTime") LocalDateTime cursorTime,
+                                                 @Param("cursorId") Long cursorId,
+                                                 @Param("limit") int limit);
+
+    // 归档：按主键顺序找出一段保留期外的已读通知
+    @Select("SELECT id FROM notifications " +
+            "WHERE id > #{afterId} AND is_read = true AND create_time < #{cutoff} " +
+            "ORDER BY id LIMIT #{limit}")
+    List<Long> selectArchivableIds(@Param("cutoff") LocalDateTime cutoff,
+                                   @Param("afterId") long afterId,
+                                   @Param("limit") int limit);
+
+    // 重复执行时已归档的行跳过
+    @Insert("<script>" +
+            "INSERT IGNORE INTO notifications_archive(id, user_id, sender_id, type, message, article_id, is_read, create_time, last_event_time) " +
+            "SELECT id, user_id, sender_id, type, message, article_id, is_read, create_time, last_event_time FROM notifications " +
+            "WHERE id IN <foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    int copyToArchive(@Param("ids") List<Long> ids);
+
+    @Delete("<script>" +
+            "DELETE FROM notifications WHERE is_read = true AND id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    int deleteArchived(@Param("ids") List<Long> ids);
+
+    // 合并通知：仅在用户尚未读过时原地更新发送者、内容和最近事件时间；create_time 是分页游标的一部分，保持不变
+    @Update("UPDATE notifications SET sender_id = #{senderId}, message = #{message}, last_event_time = #{lastEventTime} " +
+            "WHERE id = #{id} AND user_id = #{userId} AND is_read = false")
+    int updateUnreadAggregate(Notification notification);
+
+    // 返回实际由未读变为已读的行数
     @Update("UPDATE notifications SET is_read = true " +
-            "WHERE user_id = #{userId} AND id = #{notificationId}")
-    void markAsRead(@Param("userId") Integer userId, @Param("notificationId") Long notificationId);
+            "WHERE user_id = #{userId} AND id = #{notificationId} AND is_read = false")
+    int markAsRead(@Param("userId") Integer userId, @Param("notificationId") Long notificationId);
 
     @Update("UPDATE notifications SET is_read = true " +
-            "WHERE user_id = #{userId}")
-    void markAllAsRead(Integer userId);
+            "WHERE user_id = #{userId} AND is_read = false")
+    int markAllAsRead(Integer userId);
 
     @Select("SELECT COUNT(*) FROM notifications " +
             "WHERE user_id = #{userId} AND is_read = false")
     int countUnread(Integer userId);
+
+    // 未读计数表
+    @Select("SELECT unread_count FROM notification_unread_counts WHERE user_id = #{userId}")
+    Integer selectUnreadCounter(Integer userId);
+
+    @Insert("INSERT IGNORE INTO notification_unread_counts(user_id, unread_count) VALUES(#{userId}, #{count})")
+    void insertUnreadCounter(@Param("userId") Integer userId, @Param("count") int count);
+
+    // 一批用户的未读数各自加上增量（用户ID -> 新增条数）
+    @Insert("<script>" +
+            "INSERT INTO notification_unread_counts(user_id, unread_count) VALUES " +
+            "<foreach collection='deltas' index='userId' item='delta' separator=','>" +
+            "(#{userId}, #{delta})" +
+            "</foreach>" +
+            " ON DUPLICATE KEY UPDATE unread_count = unread_count + VALUES(unread_count)" +
+            "</script>")
+    int incrementUnreadCounters(@Param("deltas") Map<Integer, Integer> deltas);
+
+    @Update("UPDATE notification_unread_counts SET unread_count = GREATEST(unread_count - 1, 0) " +
+            "WHERE user_id = #{userId}")
+    int decrementUnreadCounter(Integer userId);
+
+    // 按 notifications 实际未读条数重写计数
+    @Insert("INSERT INTO notification_unread_counts(user_id, unread_count) " +
+            "SELECT #{userId}, COUNT(*) FROM notifications WHERE user_id = #{userId} AND is_read = false " +
+            "ON DUPLICATE KEY UPDATE unread_count = VALUES(unread_count)")
+    int recountUnreadCounter(Integer userId);
 }
\ No newline at end of file
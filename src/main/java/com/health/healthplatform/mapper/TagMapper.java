@@ -4,6 +4,9 @@ import com.health.healthplatform.entity.Tag;
 import org.apache.ibatis.annotations.*;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
+
 @Mapper
 public interface TagMapper {
     @Insert("INSERT INTO tags(name) VALUES(#{name})")
@@ -22,6 +25,23 @@ public interface TagMapper {
     @Options(useGeneratedKeys = true, keyProperty = "id")
     void insertIfNotExists(Tag tag);
 
+    @Select("SELECT id, name FROM tags")
+    List<Tag> selectAll();
+
+    @Select("<script>" +
+            "SELECT id, name FROM tags WHERE name IN " +
+            "<foreach collection='names' item='name' open='(' separator=',' close=')'>#{name}</foreach>" +
+            " ORDER BY id" +
+            "</script>")
+    List<Tag> selectByNames(@Param("names") Collection<String> names);
+
+    // 多行写入新标签，已存在的名称依赖 tags.name 唯一索引跳过
+    @Insert("<script>" +
+            "INSERT IGNORE INTO tags(name) VALUES " +
+            "<foreach collection='names' item='name' separator=','>(#{name})</foreach>" +
+            "</script>")
+    int batchInsertIgnore(@Param("names") Collection<String> names);
+
     @Transactional
     default Long getOrCreateTag(String name) {
         Long tagId = findTagId(name);
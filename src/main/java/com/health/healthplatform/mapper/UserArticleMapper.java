@@ -21,12 +21,7 @@ public interface UserArticleMapper {
             @Result(property = "commentCount", column = "comment_count"),
             @Result(property = "createdAt", column = "created_at"),
             @Result(property = "updatedAt", column = "updated_at"),
-            @Result(property = "publishTime", column = "publish_time"),
-            @Result(property = "tags", column = "id",
-                    javaType = List.class,
-                    many = @Many(select = "com.health.healthplatform.mapper.ArticleMapper.selectArticleTags")),
-            @Result(property = "author", column = "user_id",
-                    one = @One(select = "com.health.healthplatform.mapper.UserMapper.selectById"))
+            @Result(property = "publishTime", column = "publish_time")
     })
     List<Article> selectUserArticles(@Param("userId") Integer userId, @Param("status") Integer status);
 
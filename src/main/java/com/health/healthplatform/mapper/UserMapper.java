@@ -6,10 +6,14 @@ import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 
 @Mapper
 public interface UserMapper {
     public User selectById(Integer integer);
+    // 批量查找用户，用于列表页一次性填充作者信息
+    public List<User> selectByIds(@Param("ids") Collection<Integer> ids);
     // 通过用户名和密码查找对应用户
     public User findUserByNameAndPwd(User user);
     // 通过用户名查找用户
@@ -3,6 +3,7 @@ package com.health.healthplatform.mapper.health_data;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.health.healthplatform.entity.healthdata.ExerciseRecord;
 import com.health.healthplatform.DTO.UserRankDTO;
+import com.health.healthplatform.DTO.WeeklyStats;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
@@ -49,29 +50,15 @@ public interface ExerciseRecordMapper extends BaseMapper<ExerciseRecord> {
             "ORDER BY record_date DESC")
     List<ExerciseRecord> findAllByUserId(@Param("userId") Integer userId);
 
-    @Select("SELECT SUM(duration) FROM exercise_records WHERE user_id = #{userId} " +
+    // 时长、热量、次数一次查出，时长由分钟换算为小时
+    @Select("SELECT COALESCE(SUM(duration), 0) / 60.0 AS totalDuration, " +
+            "COALESCE(SUM(calories), 0) AS totalCalories, " +
+            "COUNT(*) AS exerciseCount " +
+            "FROM exercise_records WHERE user_id = #{userId} " +
             "AND record_date BETWEEN #{startDate} AND #{endDate}")
-    Integer getTotalDuration(
+    WeeklyStats getWeeklyStats(
             @Param("userId") Integer userId,
             @Param("startDate") LocalDate startDate,
             @Param("endDate") LocalDate endDate
     );
-
-    @Select("SELECT SUM(calories) FROM exercise_records WHERE user_id = #{userId} " +
-            "AND record_date BETWEEN #{startDate} AND #{endDate}")
-    Integer getTotalCalories(
-            @Param("userId") Integer userId,
-            @Param("startDate") LocalDate startDate,
-            @Param("endDate") LocalDate endDate
-    );
-
-    @Select("SELECT COUNT(*) FROM exercise_records WHERE user_id = #{userId} " +
-            "AND record_date BETWEEN #{startDate} AND #{endDate} ")
-    Integer getExerciseCount(
-            @Param("userId") Integer userId,
-            @Param("startDate") LocalDate startDate,
-            @Param("endDate") LocalDate endDate
-    );
-
-
-}
\ No newline at end of file
+}
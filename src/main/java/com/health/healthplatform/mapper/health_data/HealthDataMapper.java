@@ -3,10 +3,14 @@ package com.health.healthplatform.mapper.health_data;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.health.healthplatform.entity.healthdata.HealthData;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.mapping.ResultSetType;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 @Mapper
@@ -45,4 +49,43 @@ public interface HealthDataMapper extends BaseMapper<HealthData> {
     @Select("SELECT * FROM health_data WHERE user_id = #{userId} AND record_date = #{recordDate} ORDER BY create_time")
     List<HealthData> findByUserIdAndDate(@Param("userId") Integer userId,
                                          @Param("recordDate") LocalDate recordDate);
-}
\ No newline at end of file
+
+    /**
+     * 按用户顺序流式读出某天全部健康数据，同一用户的行相邻；必须在事务内消费
+     * @param recordDate 记录日期
+     * @param afterUserId 从该用户之后开始（断点续跑）
+     */
+    @Select("SELECT * FROM health_data WHERE record_date = #{recordDate} AND user_id > #{afterUserId} ORDER BY user_id, create_time")
+    @Options(fetchSize = Integer.MIN_VALUE, resultSetType = ResultSetType.FORWARD_ONLY)
+    Cursor<HealthData> streamByDate(@Param("recordDate") LocalDate recordDate,
+                                    @Param("afterUserId") Integer afterUserId);
+
+    /**
+     * 日期范围内有数据的用户，按用户ID升序取 afterUserId 之后的 limit 个（键集分页，不占用游标）；userIds 为空时取全部用户
+     */
+    @Select("<script>" +
+            "SELECT DISTINCT user_id FROM health_data WHERE record_date BETWEEN #{startDate} AND #{endDate} " +
+            "AND user_id &gt; #{afterUserId} " +
+            "<if test='userIds != null and !userIds.isEmpty()'>" +
+            "AND user_id IN <foreach collection='userIds' item='id' open='(' separator=',' close=')'>#{id}</foreach> " +
+            "</if>" +
+            "ORDER BY user_id LIMIT #{limit}" +
+            "</script>")
+    List<Integer> findUserIdsByDateRange(@Param("startDate") LocalDate startDate,
+                                         @Param("endDate") LocalDate endDate,
+                                         @Param("userIds") Collection<Integer> userIds,
+                                         @Param("afterUserId") Integer afterUserId,
+                                         @Param("limit") int limit);
+
+    /**
+     * 一批用户在日期范围内的健康数据，按用户、日期、创建时间排序
+     */
+    @Select("<script>" +
+            "SELECT * FROM health_data WHERE record_date BETWEEN #{startDate} AND #{endDate} " +
+            "AND user_id IN <foreach collection='userIds' item='id' open='(' separator=',' close=')'>#{id}</foreach> " +
+            "ORDER BY user_id, record_date, create_time" +
+            "</script>")
+    List<HealthData> findByUserIdsAndDateRange(@Param("userIds") Collection<Integer> userIds,
+                                               @Param("startDate") LocalDate startDate,
+                                               @Param("endDate") LocalDate endDate);
+}
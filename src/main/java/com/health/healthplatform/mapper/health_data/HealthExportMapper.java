@@ -0,0 +1,45 @@
+package com.health.healthplatform.mapper.health_data;
+
+import com.health.healthplatform.entity.healthdata.*;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.mapping.ResultSetType;
+
+/**
+ * 健康数据导出：逐行流式读取（MySQL 下 fetchSize = Integer.MIN_VALUE 即按行流式返回），
+ * 必须在事务内消费，同一连接上同时只能打开一个
+ */
+@Mapper
+public interface HealthExportMapper {
+
+    @Select("SELECT * FROM health_data WHERE user_id = #{userId} ORDER BY id")
+    @Options(fetchSize = Integer.MIN_VALUE, resultSetType = ResultSetType.FORWARD_ONLY)
+    Cursor<HealthData> streamHealthData(@Param("userId") Integer userId);
+
+    @Select("SELECT * FROM heart_rate_history WHERE user_id = #{userId} AND deleted = 0 ORDER BY id")
+    @Options(fetchSize = Integer.MIN_VALUE, resultSetType = ResultSetType.FORWARD_ONLY)
+    Cursor<HeartRateHistory> streamHeartRates(@Param("userId") Integer userId);
+
+    @Select("SELECT * FROM steps_history WHERE user_id = #{userId} AND deleted = 0 ORDER BY id")
+    @Options(fetchSize = Integer.MIN_VALUE, resultSetType = ResultSetType.FORWARD_ONLY)
+    Cursor<StepsHistory> streamSteps(@Param("userId") Integer userId);
+
+    @Select("SELECT * FROM sleep_history WHERE user_id = #{userId} AND deleted = 0 ORDER BY id")
+    @Options(fetchSize = Integer.MIN_VALUE, resultSetType = ResultSetType.FORWARD_ONLY)
+    Cursor<SleepHistory> streamSleep(@Param("userId") Integer userId);
+
+    @Select("SELECT * FROM weight_history WHERE user_id = #{userId} AND deleted = 0 ORDER BY id")
+    @Options(fetchSize = Integer.MIN_VALUE, resultSetType = ResultSetType.FORWARD_ONLY)
+    Cursor<WeightHistory> streamWeights(@Param("userId") Integer userId);
+
+    @Select("SELECT * FROM blood_pressure_history WHERE user_id = #{userId} AND deleted = 0 ORDER BY id")
+    @Options(fetchSize = Integer.MIN_VALUE, resultSetType = ResultSetType.FORWARD_ONLY)
+    Cursor<BloodPressureHistory> streamBloodPressures(@Param("userId") Integer userId);
+
+    @Select("SELECT * FROM exercise_records WHERE user_id = #{userId} ORDER BY id")
+    @Options(fetchSize = Integer.MIN_VALUE, resultSetType = ResultSetType.FORWARD_ONLY)
+    Cursor<ExerciseRecord> streamExerciseRecords(@Param("userId") Integer userId);
+}
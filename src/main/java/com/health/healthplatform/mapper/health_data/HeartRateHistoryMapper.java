@@ -2,6 +2,7 @@ package com.health.healthplatform.mapper.health_data;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.health.healthplatform.entity.healthdata.HeartRateHistory;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
@@ -18,4 +19,13 @@ public interface HeartRateHistoryMapper extends BaseMapper<HeartRateHistory> {
             @Param("startTime") LocalDateTime startTime,
             @Param("endTime") LocalDateTime endTime
     );
+
+    // 多行写入一批采样
+    @Insert("<script>" +
+            "INSERT INTO heart_rate_history(user_id, heart_rate, measurement_time, create_time, update_time, deleted) VALUES " +
+            "<foreach collection='rows' item='r' separator=','>" +
+            "(#{r.userId}, #{r.heartRate}, #{r.measurementTime}, #{r.createTime}, #{r.updateTime}, 0)" +
+            "</foreach>" +
+            "</script>")
+    int batchInsert(@Param("rows") List<HeartRateHistory> rows);
 }
@@ -0,0 +1,36 @@
+package com.health.healthplatform.mapper.health_data;
+
+import com.health.healthplatform.entity.healthdata.HeartRateRollup;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Mapper
+public interface HeartRateRollupMapper {
+
+    // 一批桶的增量合并进已有的聚合
+    @Insert("<script>" +
+            "INSERT INTO heart_rate_rollups(user_id, resolution, bucket_start, min_rate, max_rate, sum_rate, sample_count) VALUES " +
+            "<foreach collection='rollups' item='r' separator=','>" +
+            "(#{r.userId}, #{r.resolution}, #{r.bucketStart}, #{r.minRate}, #{r.maxRate}, #{r.sumRate}, #{r.sampleCount})" +
+            "</foreach>" +
+            " ON DUPLICATE KEY UPDATE min_rate = LEAST(min_rate, VALUES(min_rate)), " +
+            "max_rate = GREATEST(max_rate, VALUES(max_rate)), " +
+            "sum_rate = sum_rate + VALUES(sum_rate), " +
+            "sample_count = sample_count + VALUES(sample_count)" +
+            "</script>")
+    int upsertBatch(@Param("rollups") List<HeartRateRollup> rollups);
+
+    @Select("SELECT * FROM heart_rate_rollups " +
+            "WHERE user_id = #{userId} AND resolution = #{resolution} " +
+            "AND bucket_start BETWEEN #{startTime} AND #{endTime} " +
+            "ORDER BY bucket_start")
+    List<HeartRateRollup> findByRange(@Param("userId") Integer userId,
+                                      @Param("resolution") int resolution,
+                                      @Param("startTime") LocalDateTime startTime,
+                                      @Param("endTime") LocalDateTime endTime);
+}
@@ -2,6 +2,7 @@ package com.health.healthplatform.mapper.health_data;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.health.healthplatform.entity.healthdata.StepsHistory;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
@@ -18,4 +19,13 @@ public interface StepsHistoryMapper extends BaseMapper<StepsHistory> {
     List<StepsHistory> findByDateRange(@Param("userId") Integer userId,
                                        @Param("startDate") LocalDate startDate,
                                        @Param("endDate") LocalDate endDate);
-}
\ No newline at end of file
+
+    // 多行写入一批采样
+    @Insert("<script>" +
+            "INSERT INTO steps_history(user_id, steps, distance, calories, record_date, target, create_time, update_time, deleted) VALUES " +
+            "<foreach collection='rows' item='r' separator=','>" +
+            "(#{r.userId}, #{r.steps}, #{r.distance}, #{r.calories}, #{r.recordDate}, #{r.target}, #{r.createTime}, #{r.updateTime}, 0)" +
+            "</foreach>" +
+            "</script>")
+    int batchInsert(@Param("rows") List<StepsHistory> rows);
+}
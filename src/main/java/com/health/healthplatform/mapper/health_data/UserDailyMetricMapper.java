@@ -0,0 +1,50 @@
+package com.health.healthplatform.mapper.health_data;
+
+import com.health.healthplatform.entity.healthdata.UserDailyMetric;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Mapper
+public interface UserDailyMetricMapper {
+
+    // 一批增量合并进已有的聚合；first/last 要在 first_time/last_time 更新前赋值
+    @Insert("<script>" +
+            "INSERT INTO user_daily_metrics(user_id, metric, record_date, sample_count, sum_value, min_value, max_value, " +
+            "first_value, first_time, last_value, last_time) VALUES " +
+            "<foreach collection='metrics' item='m' separator=','>" +
+            "(#{m.userId}, #{m.metric}, #{m.recordDate}, #{m.sampleCount}, #{m.sumValue}, #{m.minValue}, #{m.maxValue}, " +
+            "#{m.firstValue}, #{m.firstTime}, #{m.lastValue}, #{m.lastTime})" +
+            "</foreach>" +
+            " ON DUPLICATE KEY UPDATE sample_count = sample_count + VALUES(sample_count), " +
+            "sum_value = sum_value + VALUES(sum_value), " +
+            "min_value = LEAST(min_value, VALUES(min_value)), " +
+            "max_value = GREATEST(max_value, VALUES(max_value)), " +
+            "first_value = IF(VALUES(first_time) < first_time, VALUES(first_value), first_value), " +
+            "first_time = LEAST(first_time, VALUES(first_time)), " +
+            "last_value = IF(VALUES(last_time) >= last_time, VALUES(last_value), last_value), " +
+            "last_time = GREATEST(last_time, VALUES(last_time))" +
+            "</script>")
+    int upsertBatch(@Param("metrics") List<UserDailyMetric> metrics);
+
+    // 指标名以 prefix 开头的当天聚合全部删除，用于按原始记录重建
+    @Delete("DELETE FROM user_daily_metrics WHERE user_id = #{userId} AND record_date = #{date} " +
+            "AND metric LIKE CONCAT(#{prefix}, '%')")
+    int deleteDay(@Param("userId") Integer userId,
+                  @Param("date") LocalDate date,
+                  @Param("prefix") String prefix);
+
+    @Select("SELECT * FROM user_daily_metrics " +
+            "WHERE user_id = #{userId} AND metric LIKE CONCAT(#{prefix}, '%') " +
+            "AND record_date BETWEEN #{startDate} AND #{endDate} " +
+            "ORDER BY metric, record_date")
+    List<UserDailyMetric> findByRange(@Param("userId") Integer userId,
+                                      @Param("prefix") String prefix,
+                                      @Param("startDate") LocalDate startDate,
+                                      @Param("endDate") LocalDate endDate);
+}
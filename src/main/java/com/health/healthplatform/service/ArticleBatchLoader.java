@@ -0,0 +1,87 @@
+package com.health.healthplatform.service;
+
+import com.health.healthplatform.entity.Article;
+import com.health.healthplatform.entity.ArticleTag;
+import com.health.healthplatform.entity.User;
+import com.health.healthplatform.mapper.ArticleMapper;
+import com.health.healthplatform.mapper.UserMapper;
+import jakarta.annotation.Resource;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 文章列表批量装配
+ * 列表查询只取文章本身，标签和作者各用一条 IN 查询取回后在内存中拼接，
+ * 一页文章固定 3 条 SQL，与页大小无关
+ */
+@Service
+public class ArticleBatchLoader {
+
+    @Resource
+    private ArticleMapper articleMapper;
+
+    @Resource
+    private UserMapper userMapper;
+
+    /**
+     * 按给定 ID 顺序取文章并填充标签和作者，已不存在的 ID 会被跳过
+     */
+    public List<Article> loadByIds(List<Long> ids) {
+        List<Article> ordered = new ArrayList<>();
+        if (ids == null || ids.isEmpty()) {
+            return ordered;
+        }
+        Map<Long, Article> byId = new HashMap<>();
+        for (Article article : articleMapper.selectByIds(ids)) {
+            byId.put(article.getId(), article);
+        }
+        for (Long id : ids) {
+            Article article = byId.get(id);
+            if (article != null) {
+                ordered.add(article);
+            }
+        }
+        return fillTagsAndAuthors(ordered);
+    }
+
+    public List<Article> fillTagsAndAuthors(List<Article> articles) {
+        if (articles == null || articles.isEmpty()) {
+            return articles;
+        }
+
+        Set<Long> articleIds = new LinkedHashSet<>();
+        Set<Integer> authorIds = new LinkedHashSet<>();
+        for (Article article : articles) {
+            articleIds.add(article.getId());
+            if (article.getUserId() != null) {
+                authorIds.add(article.getUserId());
+            }
+        }
+
+        // 标签：article_id -> 标签名列表
+        Map<Long, List<String>> tagsByArticle = new HashMap<>();
+        for (ArticleTag row : articleMapper.selectTagsByArticleIds(articleIds)) {
+            tagsByArticle.computeIfAbsent(row.getArticleId(), k -> new ArrayList<>()).add(row.getName());
+        }
+
+        // 作者：user_id -> 用户
+        Map<Integer, User> authors = new HashMap<>();
+        if (!authorIds.isEmpty()) {
+            for (User user : userMapper.selectByIds(authorIds)) {
+                authors.put(user.getId(), user);
+            }
+        }
+
+        for (Article article : articles) {
+            article.setTags(tagsByArticle.getOrDefault(article.getId(), new ArrayList<>()));
+            article.setAuthor(authors.get(article.getUserId()));
+        }
+        return articles;
+    }
+}
@@ -0,0 +1,144 @@
+package com.health.healthplatform.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.health.healthplatform.entity.Article;
+import com.health.healthplatform.entity.User;
+import com.health.healthplatform.mapper.ArticleMapper;
+import com.health.healthplatform.util.TransactionUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 文章详情读缓存
+ * selectById 连带标签和作者共 3 条查询，这里按文章 ID 缓存结果，容量和存活时间有上限。
+ * 每次读取返回副本，调用方可以随意修改（浏览量、点赞状态等）。
+ * 文章修改、删除、发布、点赞/收藏/评论计数变化在事务结束后失效；
+ * 事务内改过的文章在该事务里绕过缓存直接查库，保证读到自己的写入。
+ * 浏览量由 ArticleViewCounter 在读取时补上未写回的部分，写回后失效对应条目
+ */
+@Service
+public class ArticleDetailCache {
+
+    private static final Object CHANGED_KEY = new Object();
+
+    @Resource
+    private ArticleMapper articleMapper;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    @Value("${article.detail.cache.max-size:5000}")
+    private long maxSize = 5000;
+
+    @Value("${article.detail.cache.ttl-minutes:10}")
+    private long ttlMinutes = 10;
+
+    private Cache<Long, Article> cache;
+    // 每次失效加一，加载期间发生过失效的结果不落缓存
+    private final AtomicLong generation = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        cache = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttlMinutes, TimeUnit.MINUTES)
+                .recordStats()
+                .build();
+        GuavaCacheMetrics.monitor(meterRegistry, cache, "article.detail");
+    }
+
+    /**
+     * 取文章详情副本，不存在返回 null
+     */
+    public Article get(Long id) {
+        if (changedInTransaction(id)) {
+            return articleMapper.selectById(id);
+        }
+        Article cached = cache.getIfPresent(id);
+        if (cached == null) {
+            long before = generation.get();
+            cached = articleMapper.selectById(id);
+            if (cached == null) {
+                return null;
+            }
+            if (generation.get() == before) {
+                cache.put(id, cached);
+            }
+        }
+        return copy(cached);
+    }
+
+    /**
+     * 文章在当前事务中被修改：事务结束（提交或回滚）后失效，事务内的读取不走缓存
+     */
+    @SuppressWarnings("unchecked")
+    public void markChanged(Long id) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidate(id);
+            return;
+        }
+        Set<Long> changed = (Set<Long>) TransactionSynchronizationManager.getResource(CHANGED_KEY);
+        if (changed == null) {
+            Set<Long> ids = new HashSet<>();
+            TransactionSynchronizationManager.bindResource(CHANGED_KEY, ids);
+            TransactionUtils.afterCompletion(() -> {
+                TransactionSynchronizationManager.unbindResourceIfPossible(CHANGED_KEY);
+                invalidateAll(ids);
+            });
+            changed = ids;
+        }
+        changed.add(id);
+    }
+
+    public void invalidate(Long id) {
+        generation.incrementAndGet();
+        cache.invalidate(id);
+    }
+
+    public void invalidateAll(Collection<Long> ids) {
+        generation.incrementAndGet();
+        cache.invalidateAll(ids);
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean changedInTransaction(Long id) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return false;
+        }
+        Set<Long> changed = (Set<Long>) TransactionSynchronizationManager.getResource(CHANGED_KEY);
+        return changed != null && changed.contains(id);
+    }
+
+    // 可变的字段（标签列表、作者）也各复制一份，调用方改返回值不会改到缓存里的对象
+    private static Article copy(Article source) {
+        Article target = new Article();
+        BeanUtils.copyProperties(source, target);
+        if (source.getTags() != null) {
+            target.setTags(new ArrayList<>(source.getTags()));
+        }
+        if (source.getAuthor() != null) {
+            User author = new User();
+            BeanUtils.copyProperties(source.getAuthor(), author);
+            target.setAuthor(author);
+        }
+        return target;
+    }
+}
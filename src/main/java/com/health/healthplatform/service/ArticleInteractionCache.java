@@ -0,0 +1,191 @@
+package com.health.healthplatform.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.health.healthplatform.entity.Article;
+import com.health.healthplatform.entity.ArticleInteraction;
+import com.health.healthplatform.mapper.ArticleMapper;
+import com.health.healthplatform.util.TransactionUtils;
+import jakarta.annotation.Resource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 用户点赞/收藏状态缓存
+ * 每个用户一张 articleId -> 位标记 的表（1 点赞，2 收藏），只记录查过的文章。
+ * 缓存未命中的文章用一条 selectInteractions 批量补齐；点赞、收藏操作在事务提交后直接改位（回滚则不改），
+ * 缓存热时列表页装饰不产生任何查询。
+ * 事务内点赞、收藏过的文章在该事务里绕过缓存直接查库（读到自己的写入），查到的结果也不落缓存，回滚后不会留下未提交的状态
+ */
+@Service
+public class ArticleInteractionCache {
+
+    public static final byte LIKED = 1;
+    public static final byte FAVORITED = 2;
+
+    private static final Object CHANGED_KEY = new Object();
+
+    @Resource
+    private ArticleMapper articleMapper;
+
+    private final Cache<Integer, UserState> cache = CacheBuilder.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterAccess(30, TimeUnit.MINUTES)
+            .build();
+
+    /**
+     * 返回用户对给定文章的状态位，缺失的文章一次性从数据库补齐
+     */
+    public Map<Long, Byte> getStates(Integer userId, Collection<Long> articleIds) {
+        Map<Long, Byte> result = new HashMap<>();
+        if (userId == null || articleIds == null || articleIds.isEmpty()) {
+            return result;
+        }
+
+        UserState state = stateOf(userId);
+        Set<Long> missing = new LinkedHashSet<>();
+        // 当前事务里改过的文章：查库但不落缓存
+        Set<Long> changed = new HashSet<>();
+        for (Long articleId : articleIds) {
+            Byte flags = state.flags.get(articleId);
+            if (changedInTransaction(userId, articleId)) {
+                missing.add(articleId);
+                changed.add(articleId);
+            } else if (flags == null) {
+                missing.add(articleId);
+            } else {
+                result.put(articleId, flags);
+            }
+        }
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        // 查询前记下版本号，期间若有点赞/收藏写入则本次结果不落缓存，避免旧数据覆盖新状态
+        long version = state.version.get();
+        Map<Long, Byte> loaded = new HashMap<>();
+        for (Long articleId : missing) {
+            loaded.put(articleId, (byte) 0);
+        }
+        for (ArticleInteraction row : articleMapper.selectInteractions(userId, missing)) {
+            loaded.merge(row.getArticleId(), row.getFlag().byteValue(), (a, b) -> (byte) (a | b));
+        }
+        if (state.version.get() == version) {
+            loaded.forEach((articleId, flags) -> {
+                if (!changed.contains(articleId)) {
+                    state.flags.putIfAbsent(articleId, flags);
+                }
+            });
+        }
+        result.putAll(loaded);
+        return result;
+    }
+
+    /**
+     * 填充文章列表的 isLiked / isFavorited
+     */
+    public void decorate(List<Article> articles, Integer userId) {
+        if (userId == null || articles == null || articles.isEmpty()) {
+            return;
+        }
+        List<Long> articleIds = new ArrayList<>(articles.size());
+        for (Article article : articles) {
+            articleIds.add(article.getId());
+        }
+        Map<Long, Byte> states = getStates(userId, articleIds);
+        for (Article article : articles) {
+            byte flags = states.getOrDefault(article.getId(), (byte) 0);
+            article.setIsLiked((flags & LIKED) != 0);
+            article.setIsFavorited((flags & FAVORITED) != 0);
+        }
+    }
+
+    public boolean isLiked(Integer userId, Long articleId) {
+        return (getStates(userId, List.of(articleId)).getOrDefault(articleId, (byte) 0) & LIKED) != 0;
+    }
+
+    public boolean isFavorited(Integer userId, Long articleId) {
+        return (getStates(userId, List.of(articleId)).getOrDefault(articleId, (byte) 0) & FAVORITED) != 0;
+    }
+
+    public void setLiked(Integer userId, Long articleId, boolean liked) {
+        markChanged(userId, articleId);
+        TransactionUtils.afterCommit(() -> update(userId, articleId, LIKED, liked));
+    }
+
+    public void setFavorited(Integer userId, Long articleId, boolean favorited) {
+        markChanged(userId, articleId);
+        TransactionUtils.afterCommit(() -> update(userId, articleId, FAVORITED, favorited));
+    }
+
+    /**
+     * 文章删除后清掉所有用户对它的状态
+     */
+    public void evictArticle(Long articleId) {
+        TransactionUtils.afterCommit(() -> {
+            for (UserState state : cache.asMap().values()) {
+                state.version.incrementAndGet();
+                state.flags.remove(articleId);
+            }
+        });
+    }
+
+    private void update(Integer userId, Long articleId, byte bit, boolean on) {
+        UserState state = cache.getIfPresent(userId);
+        if (state == null) {
+            return;
+        }
+        state.version.incrementAndGet();
+        // 只修改已知状态；未知的文章下次读取时从数据库加载
+        state.flags.computeIfPresent(articleId, (k, flags) -> on ? (byte) (flags | bit) : (byte) (flags & ~bit));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void markChanged(Integer userId, Long articleId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        Set<String> changed = (Set<String>) TransactionSynchronizationManager.getResource(CHANGED_KEY);
+        if (changed == null) {
+            changed = new HashSet<>();
+            TransactionSynchronizationManager.bindResource(CHANGED_KEY, changed);
+            TransactionUtils.afterCompletion(() -> TransactionSynchronizationManager.unbindResourceIfPossible(CHANGED_KEY));
+        }
+        changed.add(userId + ":" + articleId);
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean changedInTransaction(Integer userId, Long articleId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return false;
+        }
+        Set<String> changed = (Set<String>) TransactionSynchronizationManager.getResource(CHANGED_KEY);
+        return changed != null && changed.contains(userId + ":" + articleId);
+    }
+
+    private UserState stateOf(Integer userId) {
+        try {
+            return cache.get(userId, UserState::new);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("加载用户互动状态失败", e);
+        }
+    }
+
+    private static class UserState {
+        final ConcurrentHashMap<Long, Byte> flags = new ConcurrentHashMap<>();
+        final AtomicLong version = new AtomicLong();
+    }
+}
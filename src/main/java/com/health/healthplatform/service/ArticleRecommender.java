@@ -0,0 +1,328 @@
+package com.health.healthplatform.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.health.healthplatform.entity.Article;
+import com.health.healthplatform.entity.ArticleRead;
+import com.health.healthplatform.entity.ArticleTag;
+import com.health.healthplatform.mapper.ArticleMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 个性化文章推荐
+ * 每个用户在内存中维护标签和分类的偏好权重，阅读时增量更新（旧权重按系数衰减，近期阅读占比更高）。
+ * 候选集取热门排行前若干篇，后台定时刷新候选集并为缓存中的用户重算前 N 篇推荐，
+ * 请求时只读缓存结果；没有阅读记录的用户直接返回热门文章。
+ * 阅读记录先进内存队列，随后台刷新批量写入 user_read_history，用户首次访问时从中重建偏好
+ */
+@Slf4j
+@Service
+public class ArticleRecommender {
+
+    public static final int RECOMMEND_SIZE = 10;
+    // 参与打分的候选文章数
+    private static final int CANDIDATE_POOL = 200;
+    // 重建偏好时读取的最近阅读篇数，也是去重用的已读集合上限
+    private static final int HISTORY_LIMIT = 200;
+    // 分类偏好相对标签偏好的权重
+    private static final double CATEGORY_WEIGHT = 0.5;
+    // 每次新阅读时旧偏好的衰减系数
+    private static final double DECAY = 0.95;
+    private static final int FLUSH_BATCH_SIZE = 500;
+
+    @Resource
+    private ArticleMapper articleMapper;
+
+    @Resource
+    private ArticleBatchLoader articleBatchLoader;
+
+    @Resource
+    private HotArticleRanking hotArticleRanking;
+
+    private final Cache<Integer, UserProfile> profiles = CacheBuilder.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterAccess(2, TimeUnit.HOURS)
+            .build();
+
+    private final ConcurrentLinkedQueue<ArticleRead> pendingReads = new ConcurrentLinkedQueue<>();
+
+    // 按热度排好序的候选文章，整体替换
+    private volatile List<Candidate> candidates = new ArrayList<>();
+
+    @PostConstruct
+    public void init() {
+        try {
+            refreshCandidates();
+        } catch (Exception e) {
+            log.warn("加载推荐候选文章失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 记录一次阅读：写入队列，并更新已在缓存中的用户偏好
+     * 不在缓存中的用户下次访问时从阅读记录重建，不在阅读路径上查库
+     */
+    public void onRead(Integer userId, Article article) {
+        if (userId == null || article == null || article.getId() == null) {
+            return;
+        }
+        pendingReads.add(new ArticleRead(userId, article.getId(), LocalDateTime.now()));
+        UserProfile profile = profiles.getIfPresent(userId);
+        if (profile != null) {
+            profile.record(article.getId(), article.getCategoryId(), article.getTags());
+        }
+    }
+
+    /**
+     * 用户的推荐列表，冷启动用户返回热门文章
+     */
+    public List<Article> recommend(Integer userId) {
+        UserProfile profile = profileOf(userId);
+        if (profile.isCold()) {
+            return hotFallback();
+        }
+        List<Article> cached = profile.recommendations;
+        if (cached == null) {
+            cached = compute(profile);
+            profile.recommendations = cached;
+        }
+        return cached;
+    }
+
+    /**
+     * 后台刷新：写入阅读记录、刷新候选集、重算缓存中用户的推荐
+     */
+    @Scheduled(fixedDelayString = "${article.recommend.refresh-interval-ms:60000}",
+            initialDelayString = "${article.recommend.refresh-interval-ms:60000}")
+    public void refresh() {
+        flushReads();
+        try {
+            refreshCandidates();
+        } catch (Exception e) {
+            log.error("刷新推荐候选文章失败", e);
+            return;
+        }
+        for (UserProfile profile : profiles.asMap().values()) {
+            if (!profile.isCold()) {
+                profile.recommendations = compute(profile);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flushReads();
+    }
+
+    public void flushReads() {
+        List<ArticleRead> batch = new ArrayList<>();
+        ArticleRead read;
+        while ((read = pendingReads.poll()) != null) {
+            batch.add(read);
+            if (batch.size() >= FLUSH_BATCH_SIZE) {
+                writeReads(batch);
+                batch = new ArrayList<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            writeReads(batch);
+        }
+    }
+
+    void refreshCandidates() {
+        List<Article> articles;
+        List<Long> hotIds = hotArticleRanking.top(CANDIDATE_POOL);
+        if (hotIds.isEmpty()) {
+            articles = articleBatchLoader.fillTagsAndAuthors(articleMapper.selectHotArticles(CANDIDATE_POOL));
+        } else {
+            articles = articleBatchLoader.loadByIds(hotIds);
+        }
+        List<Candidate> fresh = new ArrayList<>(articles.size());
+        for (int i = 0; i < articles.size(); i++) {
+            fresh.add(new Candidate(articles.get(i), i));
+        }
+        candidates = fresh;
+    }
+
+    private List<Article> compute(UserProfile profile) {
+        Snapshot snapshot = profile.snapshot();
+        List<Candidate> pool = candidates;
+
+        List<Scored> scored = new ArrayList<>();
+        for (Candidate candidate : pool) {
+            if (snapshot.readIds.contains(candidate.article.getId())) {
+                continue;
+            }
+            double score = 0;
+            if (snapshot.tagTotal > 0 && candidate.article.getTags() != null) {
+                for (String tag : candidate.article.getTags()) {
+                    score += snapshot.tags.getOrDefault(tag, 0d) / snapshot.tagTotal;
+                }
+            }
+            if (snapshot.categoryTotal > 0 && candidate.article.getCategoryId() != null) {
+                score += CATEGORY_WEIGHT * snapshot.categories.getOrDefault(candidate.article.getCategoryId(), 0d)
+                        / snapshot.categoryTotal;
+            }
+            scored.add(new Scored(candidate, score));
+        }
+        // 偏好分相同的按热度排，没有匹配的文章自然排在后面补足
+        scored.sort(Comparator.comparingDouble((Scored s) -> s.score).reversed()
+                .thenComparingInt(s -> s.candidate.hotRank));
+
+        List<Article> result = new ArrayList<>(RECOMMEND_SIZE);
+        for (Scored s : scored) {
+            if (result.size() >= RECOMMEND_SIZE) {
+                break;
+            }
+            result.add(s.candidate.article);
+        }
+        return result;
+    }
+
+    private List<Article> hotFallback() {
+        List<Candidate> pool = candidates;
+        if (pool.isEmpty()) {
+            return articleBatchLoader.fillTagsAndAuthors(articleMapper.selectHotArticles(RECOMMEND_SIZE));
+        }
+        List<Article> result = new ArrayList<>(RECOMMEND_SIZE);
+        for (Candidate candidate : pool) {
+            if (result.size() >= RECOMMEND_SIZE) {
+                break;
+            }
+            result.add(candidate.article);
+        }
+        return result;
+    }
+
+    private UserProfile profileOf(Integer userId) {
+        try {
+            return profiles.get(userId, () -> loadProfile(userId));
+        } catch (ExecutionException e) {
+            throw new RuntimeException("加载用户推荐偏好失败", e);
+        }
+    }
+
+    /**
+     * 从最近的阅读记录重建偏好：阅读文章及分类 1 条、标签 1 条
+     */
+    private UserProfile loadProfile(Integer userId) {
+        UserProfile profile = new UserProfile();
+        List<Article> reads = articleMapper.selectRecentlyRead(userId, HISTORY_LIMIT);
+        if (reads.isEmpty()) {
+            return profile;
+        }
+        List<Long> ids = new ArrayList<>(reads.size());
+        for (Article article : reads) {
+            ids.add(article.getId());
+        }
+        Map<Long, List<String>> tags = new HashMap<>();
+        for (ArticleTag row : articleMapper.selectTagsByArticleIds(ids)) {
+            tags.computeIfAbsent(row.getArticleId(), k -> new ArrayList<>()).add(row.getName());
+        }
+        for (Article article : reads) {
+            profile.add(article.getId(), article.getCategoryId(), tags.get(article.getId()));
+        }
+        return profile;
+    }
+
+    private void writeReads(List<ArticleRead> batch) {
+        try {
+            articleMapper.batchInsertReadHistory(batch);
+        } catch (Exception e) {
+            // 阅读记录只用于推荐，写失败时丢弃，不影响内存中的偏好
+            log.error("写入阅读记录失败，丢弃 {} 条", batch.size(), e);
+        }
+    }
+
+    private static final class UserProfile {
+        private final Map<String, Double> tags = new HashMap<>();
+        private final Map<Integer, Double> categories = new HashMap<>();
+        private final LinkedHashSet<Long> readIds = new LinkedHashSet<>();
+        volatile List<Article> recommendations;
+
+        synchronized void record(Long articleId, Integer categoryId, Collection<String> articleTags) {
+            tags.replaceAll((k, v) -> v * DECAY);
+            categories.replaceAll((k, v) -> v * DECAY);
+            add(articleId, categoryId, articleTags);
+        }
+
+        synchronized void add(Long articleId, Integer categoryId, Collection<String> articleTags) {
+            readIds.remove(articleId);
+            readIds.add(articleId);
+            if (readIds.size() > HISTORY_LIMIT) {
+                readIds.remove(readIds.iterator().next());
+            }
+            if (categoryId != null) {
+                categories.merge(categoryId, 1d, Double::sum);
+            }
+            if (articleTags != null) {
+                for (String tag : articleTags) {
+                    tags.merge(tag, 1d, Double::sum);
+                }
+            }
+        }
+
+        synchronized boolean isCold() {
+            return readIds.isEmpty();
+        }
+
+        synchronized Snapshot snapshot() {
+            return new Snapshot(new HashMap<>(tags), new HashMap<>(categories), new HashSet<>(readIds));
+        }
+    }
+
+    private static final class Snapshot {
+        final Map<String, Double> tags;
+        final Map<Integer, Double> categories;
+        final Set<Long> readIds;
+        final double tagTotal;
+        final double categoryTotal;
+
+        Snapshot(Map<String, Double> tags, Map<Integer, Double> categories, Set<Long> readIds) {
+            this.tags = tags;
+            this.categories = categories;
+            this.readIds = readIds;
+            this.tagTotal = tags.values().stream().mapToDouble(Double::doubleValue).sum();
+            this.categoryTotal = categories.values().stream().mapToDouble(Double::doubleValue).sum();
+        }
+    }
+
+    private static final class Candidate {
+        final Article article;
+        final int hotRank;
+
+        Candidate(Article article, int hotRank) {
+            this.article = article;
+            this.hotRank = hotRank;
+        }
+    }
+
+    private static final class Scored {
+        final Candidate candidate;
+        final double score;
+
+        Scored(Candidate candidate, double score) {
+            this.candidate = candidate;
+            this.score = score;
+        }
+    }
+}
@@ -0,0 +1,326 @@
+package com.health.healthplatform.service;
+
+import com.health.healthplatform.entity.Article;
+import com.health.healthplatform.entity.ArticleTag;
+import com.health.healthplatform.mapper.ArticleMapper;
+import com.health.healthplatform.util.TransactionUtils;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.LowerCaseFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.cjk.CJKBigramFilter;
+import org.apache.lucene.analysis.cjk.CJKWidthFilter;
+import org.apache.lucene.analysis.standard.StandardTokenizer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermInSetQuery;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 文章全文检索
+ * 在本地磁盘维护一份 Lucene 倒排索引，覆盖标题、正文和标签，使用 CJK 二元分词。
+ * 只收录已发布文章，随创建、修改、发布、删除增量更新；索引为空时启动后从数据库重建
+ */
+@Slf4j
+@Service
+public class ArticleSearchIndex {
+
+    private static final String FIELD_ID = "id";
+    private static final String FIELD_CATEGORY = "category";
+    private static final String FIELD_TITLE = "title";
+    private static final String FIELD_CONTENT = "content";
+    private static final String FIELD_TAGS = "tags";
+
+    private static final float TITLE_BOOST = 3f;
+    private static final float TAGS_BOOST = 2f;
+    private static final int REBUILD_BATCH_SIZE = 500;
+
+    @Resource
+    private ArticleMapper articleMapper;
+
+    @Value("${article.search.index-dir:data/article-index}")
+    private String indexDir;
+
+    // 建索引时同时输出单字和二元词，单字搜索也能命中；查询时只用二元词（孤立的单字会按单字输出）
+    private final Analyzer indexAnalyzer = cjkAnalyzer(true);
+    private final Analyzer queryAnalyzer = cjkAnalyzer(false);
+    private IndexWriter writer;
+    private SearcherManager searcherManager;
+    private volatile boolean available;
+    // 索引已有内容或已完成一次重建，之前的搜索仍走数据库
+    private volatile boolean searchable;
+
+    @PostConstruct
+    public void init() {
+        try {
+            open(Paths.get(indexDir));
+        } catch (IOException e) {
+            // 索引不可用时搜索回退到数据库 LIKE 查询
+            log.error("打开文章搜索索引失败: {}", indexDir, e);
+            return;
+        }
+        searchable = writer.getDocStats().numDocs > 0;
+        if (!searchable) {
+            Thread rebuilder = new Thread(() -> {
+                try {
+                    rebuild();
+                } catch (Exception e) {
+                    log.warn("初始化文章搜索索引失败: {}", e.getMessage());
+                }
+            }, "article-index-rebuild");
+            rebuilder.setDaemon(true);
+            rebuilder.start();
+        }
+    }
+
+    public void open(Path path) throws IOException {
+        IndexWriterConfig config = new IndexWriterConfig(indexAnalyzer);
+        config.setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
+        writer = new IndexWriter(FSDirectory.open(path), config);
+        searcherManager = new SearcherManager(writer, null);
+        available = true;
+    }
+
+    @PreDestroy
+    public void close() {
+        available = false;
+        try {
+            if (searcherManager != null) {
+                searcherManager.close();
+            }
+            if (writer != null) {
+                writer.close();
+            }
+        } catch (IOException e) {
+            log.error("关闭文章搜索索引失败", e);
+        }
+    }
+
+    public boolean isAvailable() {
+        return available && searchable;
+    }
+
+    /**
+     * 事务提交后写入或更新一篇文章；未发布的文章从索引中移除
+     */
+    public void indexAfterCommit(Article article) {
+        TransactionUtils.afterCommit(() -> index(article));
+    }
+
+    public void removeAfterCommit(Long articleId) {
+        TransactionUtils.afterCommit(() -> remove(articleId));
+    }
+
+    // 与 rebuild 共用一把锁：重建时 deleteAll 之后的中间状态不能被增量更新的 commit 提前发布，
+    // 重建期间的增量更新排在重建之后执行，覆盖重建时读到的旧数据
+    public synchronized void index(Article article) {
+        if (!available || article == null || article.getId() == null) {
+            return;
+        }
+        try {
+            if (article.getStatus() == null || article.getStatus() != 1) {
+                writer.deleteDocuments(idTerm(article.getId()));
+            } else {
+                writer.updateDocument(idTerm(article.getId()), toDocument(article));
+            }
+            commit();
+        } catch (IOException e) {
+            log.error("更新文章索引失败, articleId={}", article.getId(), e);
+        }
+    }
+
+    public synchronized void remove(Long articleId) {
+        if (!available) {
+            return;
+        }
+        try {
+            writer.deleteDocuments(idTerm(articleId));
+            commit();
+        } catch (IOException e) {
+            log.error("删除文章索引失败, articleId={}", articleId, e);
+        }
+    }
+
+    /**
+     * 从数据库全量重建索引，按 ID 分批读取已发布文章
+     */
+    public synchronized int rebuild() throws IOException {
+        if (!available) {
+            throw new IllegalStateException("文章搜索索引不可用");
+        }
+        writer.deleteAll();
+        int count = 0;
+        long lastId = 0;
+        while (true) {
+            List<Article> batch = articleMapper.selectPublishedAfterId(lastId, REBUILD_BATCH_SIZE);
+            if (batch.isEmpty()) {
+                break;
+            }
+            Map<Long, List<String>> tags = new HashMap<>();
+            List<Long> ids = new ArrayList<>(batch.size());
+            for (Article article : batch) {
+                ids.add(article.getId());
+            }
+            for (ArticleTag row : articleMapper.selectTagsByArticleIds(ids)) {
+                tags.computeIfAbsent(row.getArticleId(), k -> new ArrayList<>()).add(row.getName());
+            }
+            for (Article article : batch) {
+                article.setTags(tags.getOrDefault(article.getId(), new ArrayList<>()));
+                writer.addDocument(toDocument(article));
+            }
+            count += batch.size();
+            lastId = batch.get(batch.size() - 1).getId();
+        }
+        commit();
+        searchable = true;
+        log.info("文章搜索索引重建完成，共 {} 篇", count);
+        return count;
+    }
+
+    /**
+     * 按相关度分页检索
+     *
+     * @param keyword    搜索词，所有分词都需命中（标题、正文或标签任一字段）
+     * @param categoryId 分类过滤，可为空
+     * @param articleIds 限定在这些文章内检索（如用户收藏），为空表示不限定
+     */
+    public Hits search(String keyword, Integer categoryId, Collection<Long> articleIds, int offset, int size) throws IOException {
+        Hits hits = new Hits();
+        List<String> tokens = tokenize(keyword);
+        if (tokens.isEmpty() || (articleIds != null && articleIds.isEmpty())) {
+            return hits;
+        }
+
+        BooleanQuery.Builder query = new BooleanQuery.Builder();
+        for (String token : tokens) {
+            BooleanQuery.Builder anyField = new BooleanQuery.Builder();
+            anyField.add(new BoostQuery(new TermQuery(new Term(FIELD_TITLE, token)), TITLE_BOOST), BooleanClause.Occur.SHOULD);
+            anyField.add(new BoostQuery(new TermQuery(new Term(FIELD_TAGS, token)), TAGS_BOOST), BooleanClause.Occur.SHOULD);
+            anyField.add(new TermQuery(new Term(FIELD_CONTENT, token)), BooleanClause.Occur.SHOULD);
+            query.add(anyField.build(), BooleanClause.Occur.MUST);
+        }
+        if (categoryId != null) {
+            query.add(new TermQuery(new Term(FIELD_CATEGORY, categoryId.toString())), BooleanClause.Occur.FILTER);
+        }
+        if (articleIds != null) {
+            List<BytesRef> terms = new ArrayList<>(articleIds.size());
+            for (Long id : articleIds) {
+                terms.add(new BytesRef(id.toString()));
+            }
+            query.add(new TermInSetQuery(FIELD_ID, terms), BooleanClause.Occur.FILTER);
+        }
+        Query built = query.build();
+
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            hits.setTotal(searcher.count(built));
+            if (offset < hits.getTotal()) {
+                TopDocs top = searcher.search(built, offset + size);
+                for (int i = offset; i < top.scoreDocs.length; i++) {
+                    ScoreDoc scoreDoc = top.scoreDocs[i];
+                    hits.getIds().add(Long.valueOf(searcher.storedFields().document(scoreDoc.doc).get(FIELD_ID)));
+                }
+            }
+        } finally {
+            searcherManager.release(searcher);
+        }
+        return hits;
+    }
+
+    private Document toDocument(Article article) {
+        Document doc = new Document();
+        doc.add(new StringField(FIELD_ID, article.getId().toString(), Field.Store.YES));
+        if (article.getCategoryId() != null) {
+            doc.add(new StringField(FIELD_CATEGORY, article.getCategoryId().toString(), Field.Store.NO));
+        }
+        doc.add(new TextField(FIELD_TITLE, nullToEmpty(article.getTitle()), Field.Store.NO));
+        doc.add(new TextField(FIELD_CONTENT, nullToEmpty(article.getContent()), Field.Store.NO));
+        if (article.getTags() != null) {
+            doc.add(new TextField(FIELD_TAGS, String.join(" ", article.getTags()), Field.Store.NO));
+        }
+        return doc;
+    }
+
+    private List<String> tokenize(String text) throws IOException {
+        Set<String> tokens = new LinkedHashSet<>();
+        if (text == null || text.trim().isEmpty()) {
+            return new ArrayList<>();
+        }
+        try (TokenStream stream = queryAnalyzer.tokenStream(FIELD_CONTENT, text)) {
+            CharTermAttribute term = stream.addAttribute(CharTermAttribute.class);
+            stream.reset();
+            while (stream.incrementToken()) {
+                tokens.add(term.toString());
+            }
+            stream.end();
+        }
+        return new ArrayList<>(tokens);
+    }
+
+    private void commit() throws IOException {
+        writer.commit();
+        searcherManager.maybeRefresh();
+    }
+
+    private static Analyzer cjkAnalyzer(boolean outputUnigrams) {
+        return new Analyzer() {
+            @Override
+            protected TokenStreamComponents createComponents(String fieldName) {
+                Tokenizer source = new StandardTokenizer();
+                TokenStream result = new CJKWidthFilter(source);
+                result = new LowerCaseFilter(result);
+                result = new CJKBigramFilter(result, CJKBigramFilter.HAN | CJKBigramFilter.HIRAGANA
+                        | CJKBigramFilter.KATAKANA | CJKBigramFilter.HANGUL, outputUnigrams);
+                return new TokenStreamComponents(source, result);
+            }
+        };
+    }
+
+    private static Term idTerm(Long articleId) {
+        return new Term(FIELD_ID, articleId.toString());
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+
+    @Data
+    public static class Hits {
+        private long total;
+        private List<Long> ids = new ArrayList<>();
+    }
+}
@@ -6,17 +6,22 @@ import com.health.healthplatform.entity.Comment;
 import com.health.healthplatform.entity.User;
 import com.health.healthplatform.mapper.ArticleMapper;
 import com.health.healthplatform.mapper.CategoryMapper;
-import com.health.healthplatform.mapper.TagMapper;
+import com.health.healthplatform.util.PageCursor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import jakarta.annotation.Resource;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.List;
+import java.util.Set;
 
 @Slf4j
 @Service
@@ -26,7 +31,7 @@ public class  ArticleService {
     private ArticleMapper articleMapper;
 
     @Resource
-    private TagMapper tagMapper;
+    private TagDictionary tagDictionary;
 
     @Resource
     CategoryMapper categoryMapper;
@@ -37,6 +42,30 @@ public class  ArticleService {
     @Resource
     private NotificationService notificationService;
 
+    @Resource
+    private ArticleBatchLoader articleBatchLoader;
+
+    @Resource
+    private ArticleInteractionCache interactionCache;
+
+    @Resource
+    private HotArticleRanking hotArticleRanking;
+
+    @Resource
+    private ArticleViewCounter viewCounter;
+
+    @Resource
+    private ArticleSearchIndex articleSearchIndex;
+
+    @Resource
+    private CommentTreeLoader commentTreeLoader;
+
+    @Resource
+    private ArticleRecommender articleRecommender;
+
+    @Resource
+    private ArticleDetailCache articleDetailCache;
+
     @Transactional
     public Article createArticle(Article article, Integer userId) {
         System.out.println("Starting createArticle in service");
@@ -67,16 +96,20 @@ public class  ArticleService {
                 throw new RuntimeException("Failed to get generated article ID");
             }
 
-            // 处理标签
-            for (String tagName : article.getTags()) {
-                if (tagName != null && !tagName.trim().isEmpty()) {
-                    Long tagId = tagMapper.getOrCreateTag(tagName.trim());
-                    articleMapper.insertArticleTag(articleId, tagId);
-                }
+            // 处理标签：字典解析 ID，一条语句写入关联
+            Collection<Long> tagIds = tagDictionary.resolve(article.getTags()).values();
+            if (!tagIds.isEmpty()) {
+                articleMapper.batchInsertArticleTags(articleId, tagIds);
+            }
+
+            if (article.getStatus() == 1) {
+                hotArticleRanking.onPublishAfterCommit(articleId, article.getPublishTime());
             }
 
             // 重要：直接使用返回的article对象，确保ID已经设置
-            return articleMapper.selectById(articleId);
+            Article saved = articleMapper.selectById(articleId);
+            articleSearchIndex.indexAfterCommit(saved);
+            return saved;
 
         } catch (Exception e) {
             System.err.println("Error in createArticle service: " + e);
@@ -88,7 +121,7 @@ public class  ArticleService {
     @Transactional
     public Article updateArticle(Article article, Integer userId) {
         // 验证文章所有权
-        Article existingArticle = articleMapper.selectById(article.getId());
+        Article existingArticle = articleDetailCache.get(article.getId());
         if (existingArticle == null) {
             throw new RuntimeException("文章不存在");
         }
@@ -99,40 +132,63 @@ public class  ArticleService {
 
         // 更新文章
         articleMapper.update(article);
+        articleDetailCache.markChanged(article.getId());
 
-        // 更新标签
+        // 更新标签：只删除去掉的、只插入新增的
         if (article.getTags() != null) {
-            articleMapper.deleteArticleTags(article.getId());
-            if (!article.getTags().isEmpty()) {
-                for (String tagName : article.getTags()) {
-                    Long tagId = tagMapper.getOrCreateTag(tagName);
-                    articleMapper.insertArticleTag(article.getId(), tagId);
+            Set<Long> wanted = new LinkedHashSet<>(tagDictionary.resolve(article.getTags()).values());
+            Set<Long> existing = new HashSet<>(articleMapper.selectTagIdsByArticleId(article.getId()));
+
+            List<Long> removed = new ArrayList<>();
+            for (Long tagId : existing) {
+                if (!wanted.contains(tagId)) {
+                    removed.add(tagId);
                 }
             }
+            wanted.removeAll(existing);
+
+            if (!removed.isEmpty()) {
+                articleMapper.deleteArticleTagsByIds(article.getId(), removed);
+            }
+            if (!wanted.isEmpty()) {
+                articleMapper.batchInsertArticleTags(article.getId(), wanted);
+            }
+        }
+
+        // 修改会一并写入 status、publish_time：改为发布的加入热门排行，改回草稿的移出
+        if (Integer.valueOf(1).equals(article.getStatus())) {
+            hotArticleRanking.onPublishAfterCommit(article.getId(), article.getPublishTime());
+        } else {
+            hotArticleRanking.onDeleteAfterCommit(article.getId());
         }
 
-        return getArticle(article.getId(), userId);
+        Article updated = getArticle(article.getId(), userId);
+        articleSearchIndex.indexAfterCommit(updated);
+        return updated;
     }
 
     public Article getArticle(Long id, Integer userId) {
         if (id == null) {
             throw new RuntimeException("文章ID不能为空");
         }
-        Article article = articleMapper.selectById(id);
-        System.out.println(article);
+        Article article = articleDetailCache.get(id);
         if (article == null) {
             System.out.println(id);
             throw new RuntimeException("文章不存在");
         }
 
-        // 增加浏览量
-        articleMapper.incrementViewCount(id);
+        // 增加浏览量：先记入内存缓冲，定时批量写回，返回值补上尚未写回的部分
+        viewCounter.increment(id);
+        hotArticleRanking.onView(id);
+        if (article.getViewCount() != null) {
+            article.setViewCount((int) (article.getViewCount() + viewCounter.pendingFor(id)));
+        }
+
+        // 记录阅读，更新推荐偏好
+        articleRecommender.onRead(userId, article);
 
         // 检查用户是否点赞和收藏
-        if (userId != null) {
-            article.setIsLiked(articleMapper.checkUserLiked(id, userId));
-            article.setIsFavorited(articleMapper.checkUserFavorited(id, userId));
-        }
+        interactionCache.decorate(List.of(article), userId);
 
         return article;
     }
@@ -143,19 +199,23 @@ public class  ArticleService {
         // 计算偏移量
         int offset = (page - 1) * size;
 
-        // 获取文章列表
-        List<Article> articles = articleMapper.selectArticles(categoryId, search, offset, size);
-
-        // 检查用户是否点赞和收藏
-        if (userId != null) {
-            for (Article article : articles) {
-                article.setIsLiked(articleMapper.checkUserLiked(article.getId(), userId));
-                article.setIsFavorited(articleMapper.checkUserFavorited(article.getId(), userId));
-            }
+        List<Article> articles;
+        long total;
+        if (search != null && !search.trim().isEmpty() && articleSearchIndex.isAvailable()) {
+            // 关键词搜索走全文索引，按相关度排序
+            ArticleSearchIndex.Hits hits = searchIndex(search, categoryId, null, offset, size);
+            articles = articleBatchLoader.loadByIds(hits.getIds());
+            total = hits.getTotal();
+        } else {
+            // 获取文章列表
+            articles = articleBatchLoader.fillTagsAndAuthors(
+                    articleMapper.selectArticles(categoryId, search, offset, size));
+            // 获取总数
+            total = articleMapper.countArticles(categoryId, search);
         }
 
-        // 获取总数
-        int total = articleMapper.countArticles(categoryId, search);
+        // 检查用户是否点赞和收藏
+        interactionCache.decorate(articles, userId);
 
         result.put("articles", articles);
         result.put("total", total);
@@ -163,6 +223,41 @@ public class  ArticleService {
         return result;
     }
 
+    /**
+     * 游标分页获取文章列表：按 (created_at, id) 倒序，翻页代价与页码无关。
+     * 总数只在 withTotal 为 true 时才统计（通常只有首屏需要）
+     */
+    public Map<String, Object> getArticlesByCursor(Integer categoryId, String cursor, int size, boolean withTotal, Integer userId) {
+        Map<String, Object> result = new HashMap<>();
+        PageCursor position = PageCursor.decode(cursor);
+
+        // 多取一条判断是否还有下一页
+        List<Article> articles = articleMapper.selectArticlesAfter(categoryId,
+                position == null ? null : position.getTime(),
+                position == null ? null : position.getId(),
+                size + 1);
+        boolean hasMore = articles.size() > size;
+        if (hasMore) {
+            articles = new ArrayList<>(articles.subList(0, size));
+        }
+        articleBatchLoader.fillTagsAndAuthors(articles);
+        interactionCache.decorate(articles, userId);
+
+        String nextCursor = null;
+        if (hasMore) {
+            Article last = articles.get(articles.size() - 1);
+            nextCursor = PageCursor.encode(last.getCreatedAt(), last.getId());
+        }
+
+        result.put("articles", articles);
+        result.put("nextCursor", nextCursor);
+        result.put("hasMore", hasMore);
+        if (withTotal) {
+            result.put("total", articleMapper.countArticles(categoryId, null));
+        }
+        return result;
+    }
+
     @Transactional
     public Article likeArticle(Long articleId, Integer userId) {
         if (userId == null) {
@@ -173,13 +268,16 @@ public class  ArticleService {
             throw new RuntimeException("已经点赞过了");
         }
 
-        Article article = articleMapper.selectById(articleId);
+        Article article = articleDetailCache.get(articleId);
         if (article == null) {
             throw new RuntimeException("文章不存在");
         }
 
         articleMapper.insertLike(articleId, userId);
         articleMapper.increaseLikeCount(articleId);
+        articleDetailCache.markChanged(articleId);
+        interactionCache.setLiked(userId, articleId, true);
+        hotArticleRanking.onLikeAfterCommit(articleId);
 
         // 发送点赞通知
         String message = String.format("%s 点赞了你的文章 《%s》",
@@ -208,6 +306,9 @@ public class  ArticleService {
 
         articleMapper.deleteLike(articleId, userId);
         articleMapper.decreaseLikeCount(articleId);
+        articleDetailCache.markChanged(articleId);
+        interactionCache.setLiked(userId, articleId, false);
+        hotArticleRanking.onUnlikeAfterCommit(articleId);
 
         // 返回更新后的文章信息
         return getArticle(articleId, userId);
@@ -225,6 +326,8 @@ public class  ArticleService {
 
         articleMapper.insertFavorite(articleId, userId);
         articleMapper.increaseFavoriteCount(articleId); // Add this line
+        articleDetailCache.markChanged(articleId);
+        interactionCache.setFavorited(userId, articleId, true);
     }
 
     @Transactional
@@ -239,11 +342,14 @@ public class  ArticleService {
 
         articleMapper.deleteFavorite(articleId, userId);
         articleMapper.decreaseFavoriteCount(articleId); // Add this line
+        articleDetailCache.markChanged(articleId);
+        interactionCache.setFavorited(userId, articleId, false);
     }
 
     // 增加浏览量
     public void incrementViewCount(Long articleId) {
-        articleMapper.incrementViewCount(articleId);
+        viewCounter.increment(articleId);
+        hotArticleRanking.onView(articleId);
     }
 
     // ArticleService.java
@@ -272,9 +378,11 @@ public class  ArticleService {
 
             // 增加文章评论数
             articleMapper.increaseCommentCount(articleId);
+            articleDetailCache.markChanged(articleId);
+            hotArticleRanking.onCommentAfterCommit(articleId);
 
             // 获取文章和评论者信息
-            Article article = articleMapper.selectById(articleId);
+            Article article = articleDetailCache.get(articleId);
             User commenter = userService.selectById(userId);
 
             // 发送评论通知
@@ -326,71 +434,65 @@ public class  ArticleService {
     public Map<String, Object> getComments(Long articleId, int page, int size) {
         Map<String, Object> result = new HashMap<>();
 
-        // 获取所有评论
-        List<Comment> allComments = articleMapper.selectAllComments(articleId);
-
-        // 构建评论树结构
-        Map<Long, Comment> commentMap = new HashMap<>();
-        List<Comment> rootComments = new ArrayList<>();
-
-        for (Comment comment : allComments) {
-            commentMap.put(comment.getId(), comment);
-            if (comment.getReplies() == null) {
-                comment.setReplies(new ArrayList<>());
-            }
-        }
-
-        for (Comment comment : allComments) {
-            if (comment.getParentId() == null) {
-                rootComments.add(comment);
-            } else {
-                Comment parentComment = commentMap.get(comment.getParentId());
-                if (parentComment != null && parentComment.getReplies() != null) {
-                    parentComment.getReplies().add(comment);
-                }
-            }
-        }
-
-        // 分页处理
-        int start = (page - 1) * size;
-        int end = Math.min(start + size, rootComments.size());
-        List<Comment> pagedComments = start < rootComments.size() ?
-                rootComments.subList(start, end) :
-                new ArrayList<>();
+        // 根评论在数据库分页，回复和用户按本页批量装配
+        int total = articleMapper.countComments(articleId);
+        List<Comment> pagedComments = commentTreeLoader.loadPage(articleId, (page - 1) * size, size);
 
         result.put("comments", pagedComments);
-        result.put("total", rootComments.size());
+        result.put("total", total);
         result.put("page", page);
         result.put("size", size);
-        result.put("pages", (rootComments.size() + size - 1) / size);
+        result.put("pages", (total + size - 1) / size);
 
         return result;
     }
 
+    // 加载某条评论的更多回复
+    public Map<String, Object> getCommentReplies(Long commentId, String cursor, int size) {
+        return commentTreeLoader.loadReplies(commentId, cursor, size);
+    }
+
     public List<Article> getHotArticles() {
-        // 更新所有文章的热度分数
         try{
-            List<Article> allArticles = articleMapper.selectAll();
-            for (Article article : allArticles) {
-                int hotScore = article.getViewCount() * 1 +
-                        article.getLikeCount() * 3 +
-                        article.getCommentCount() * 5;
-                article.setHotScore(hotScore);
-                article.setIsHot(hotScore > 1000);
-                articleMapper.updateHotScore(article.getId());
+            // 热度分数由 HotArticleRanking 随浏览、点赞、评论增量维护，这里只取前10篇
+            List<Long> hotIds = hotArticleRanking.top(10);
+            if (hotIds.isEmpty()) {
+                // 排行榜尚未加载时按数据库中的 hot_score 返回
+                return articleBatchLoader.fillTagsAndAuthors(articleMapper.selectHotArticles(10));
             }
 
-            // 获取热门文章
-            return articleMapper.selectHotArticles(10);  // 返回前10篇热门文章
+            List<Article> hotArticles = articleBatchLoader.loadByIds(hotIds);
+            for (Article article : hotArticles) {
+                Integer hotScore = hotArticleRanking.currentScore(article.getId());
+                article.setHotScore(hotScore);
+                article.setIsHot(hotScore != null && hotScore > 1000);
+            }
+            return hotArticles;
         }catch (Exception e) {
             log.error("获取热门文章失败", e);
             throw new RuntimeException("获取热门文章失败: " + e.getMessage());
         }
     }
 
+    public int rebuildSearchIndex() {
+        try {
+            return articleSearchIndex.rebuild();
+        } catch (IOException e) {
+            throw new RuntimeException("重建搜索索引失败: " + e.getMessage(), e);
+        }
+    }
+
+    private ArticleSearchIndex.Hits searchIndex(String search, Integer categoryId, List<Long> articleIds, int offset, int size) {
+        try {
+            return articleSearchIndex.search(search, categoryId, articleIds, offset, size);
+        } catch (IOException e) {
+            throw new RuntimeException("搜索文章失败: " + e.getMessage(), e);
+        }
+    }
+
     public List<Article> getRecommendedArticles(Integer userId) {
-        // 基于用户阅读历史和标签推荐文章
-        return articleMapper.selectRecommendedArticles(userId);
+        // 基于用户阅读偏好推荐文章，结果由 ArticleRecommender 后台预计算
+        return articleRecommender.recommend(userId);
     }
 
     public Map<String, Object> getUserArticles(Integer userId) {
@@ -401,9 +503,11 @@ public class  ArticleService {
         Map<String, Object> result = new HashMap<>();
         try {
             // 获取已发布的文章
-            List<Article> publishedArticles = articleMapper.selectUserArticles(userId, 1);
+            List<Article> publishedArticles = articleBatchLoader.fillTagsAndAuthors(
+                    articleMapper.selectUserArticles(userId, 1));
             // 获取草稿箱的文章
-            List<Article> draftArticles = articleMapper.selectUserArticles(userId, 0);
+            List<Article> draftArticles = articleBatchLoader.fillTagsAndAuthors(
+                    articleMapper.selectUserArticles(userId, 0));
 
             result.put("published", publishedArticles);
             result.put("drafts", draftArticles);
@@ -426,18 +530,28 @@ public class  ArticleService {
             // 计算偏移量
             int offset = (page - 1) * size;
 
-            // 获取收藏文章列表
-            List<Article> articles = articleMapper.selectUserFavorites(userId, search, offset, size);
+            List<Article> articles;
+            long total;
+            if (search != null && !search.trim().isEmpty() && articleSearchIndex.isAvailable()) {
+                // 在用户收藏范围内做全文检索
+                List<Long> favoriteIds = articleMapper.selectFavoriteArticleIds(userId);
+                ArticleSearchIndex.Hits hits = searchIndex(search, null, favoriteIds, offset, size);
+                articles = articleBatchLoader.loadByIds(hits.getIds());
+                total = hits.getTotal();
+            } else {
+                // 获取收藏文章列表
+                articles = articleBatchLoader.fillTagsAndAuthors(
+                        articleMapper.selectUserFavorites(userId, search, offset, size));
+                // 获取总数
+                total = articleMapper.countUserFavorites(userId, search);
+            }
 
             // 检查文章的点赞和收藏状态
+            interactionCache.decorate(articles, userId);
             for (Article article : articles) {
-                article.setIsLiked(articleMapper.checkUserLiked(article.getId(), userId));
                 article.setIsFavorited(true); // 这是收藏列表，所以都是已收藏的
             }
 
-            // 获取总数
-            int total = articleMapper.countUserFavorites(userId, search);
-
             result.put("articles", articles);
             result.put("total", total);
 
@@ -447,4 +561,42 @@ public class  ArticleService {
             throw new RuntimeException("获取用户收藏文章失败: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    // 游标分页获取用户收藏：按收藏时间倒序
+    public Map<String, Object> getUserFavoritesByCursor(Integer userId, String cursor, int size, boolean withTotal) {
+        if (userId == null) {
+            throw new RuntimeException("用户ID不能为空");
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        PageCursor position = PageCursor.decode(cursor);
+
+        List<Article> articles = articleMapper.selectUserFavoritesAfter(userId,
+                position == null ? null : position.getTime(),
+                position == null ? null : position.getId(),
+                size + 1);
+        boolean hasMore = articles.size() > size;
+        if (hasMore) {
+            articles = new ArrayList<>(articles.subList(0, size));
+        }
+        articleBatchLoader.fillTagsAndAuthors(articles);
+        interactionCache.decorate(articles, userId);
+        for (Article article : articles) {
+            article.setIsFavorited(true);
+        }
+
+        String nextCursor = null;
+        if (hasMore) {
+            Article last = articles.get(articles.size() - 1);
+            nextCursor = PageCursor.encode(last.getFavoritedAt(), last.getId());
+        }
+
+        result.put("articles", articles);
+        result.put("nextCursor", nextCursor);
+        result.put("hasMore", hasMore);
+        if (withTotal) {
+            result.put("total", articleMapper.countUserFavorites(userId, null));
+        }
+        return result;
+    }
+}
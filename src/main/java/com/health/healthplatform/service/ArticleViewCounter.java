@@ -0,0 +1,142 @@
+package com.health.healthplatform.service;
+
+import com.health.healthplatform.mapper.ArticleMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 文章浏览量写缓冲
+ * 阅读时只在内存里给对应文章的 LongAdder 加一，定时把累计增量用一条 UPDATE ... CASE 批量写回，
+ * 热门文章不再在同一行上串行加锁。进程崩溃最多丢失一个刷新间隔内的浏览量，正常停机时会先刷盘
+ */
+@Slf4j
+@Service
+public class ArticleViewCounter {
+
+    private static final int FLUSH_BATCH_SIZE = 500;
+
+    @Resource
+    private ArticleMapper articleMapper;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    @Resource
+    private ArticleDetailCache articleDetailCache;
+
+    private final ConcurrentHashMap<Long, LongAdder> pending = new ConcurrentHashMap<>();
+
+    private Timer flushTimer;
+    private Counter flushedViews;
+    private Counter flushFailures;
+
+    @PostConstruct
+    public void initMetrics() {
+        Gauge.builder("article.view.buffer.pending", this, ArticleViewCounter::pendingTotal)
+                .description("尚未写回数据库的浏览量增量")
+                .register(meterRegistry);
+        Gauge.builder("article.view.buffer.articles", pending, Map::size)
+                .description("缓冲中的文章数")
+                .register(meterRegistry);
+        flushTimer = Timer.builder("article.view.flush")
+                .description("浏览量批量写回耗时")
+                .register(meterRegistry);
+        flushedViews = Counter.builder("article.view.flushed")
+                .description("已写回的浏览量")
+                .register(meterRegistry);
+        flushFailures = Counter.builder("article.view.flush.failures")
+                .register(meterRegistry);
+    }
+
+    public void increment(Long articleId) {
+        while (true) {
+            LongAdder adder = pending.computeIfAbsent(articleId, id -> new LongAdder());
+            adder.increment();
+            // 加之前这个 adder 已被 flush 判为空闲移出时，这次加一落在了没人再读的 adder 上，换新的重加
+            if (pending.get(articleId) == adder) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 某篇文章尚未写回的浏览量，用于在读取时补到数据库值上
+     */
+    public long pendingFor(Long articleId) {
+        LongAdder adder = pending.get(articleId);
+        return adder == null ? 0 : adder.sum();
+    }
+
+    public long pendingTotal() {
+        long total = 0;
+        for (LongAdder adder : pending.values()) {
+            total += adder.sum();
+        }
+        return total;
+    }
+
+    @Scheduled(fixedDelayString = "${article.view.flush-interval-ms:5000}")
+    public synchronized void flush() {
+        Map<Long, Long> batch = new HashMap<>();
+        Map<Long, LongAdder> adders = new HashMap<>();
+        for (Map.Entry<Long, LongAdder> entry : pending.entrySet()) {
+            LongAdder adder = entry.getValue();
+            long delta = adder.sum();
+            if (delta == 0) {
+                // 一个周期内没有新浏览的文章移出缓冲；在 compute 里重新确认为空再移除，期间有新浏览的保留
+                pending.compute(entry.getKey(), (id, current) -> current == adder && current.sum() == 0 ? null : current);
+                continue;
+            }
+            batch.put(entry.getKey(), delta);
+            adders.put(entry.getKey(), adder);
+            if (batch.size() >= FLUSH_BATCH_SIZE) {
+                write(batch, adders);
+                batch = new HashMap<>();
+                adders = new HashMap<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(batch, adders);
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        log.info("停机前写回浏览量缓冲，共 {} 次浏览", pendingTotal());
+        flush();
+    }
+
+    /**
+     * 写入成功后才从缓冲里减去已写回的部分（减而不是 reset，期间并发的增量留到下一轮）；
+     * 写入失败时缓冲不动，下一轮连同新增量一起重试
+     */
+    private void write(Map<Long, Long> batch, Map<Long, LongAdder> adders) {
+        long start = System.nanoTime();
+        try {
+            articleMapper.batchIncrementViewCount(batch);
+            batch.forEach((id, delta) -> adders.get(id).add(-delta));
+            // 已写回的浏览量进了数据库，缓存的详情需要重新加载
+            articleDetailCache.invalidateAll(batch.keySet());
+            flushedViews.increment(batch.values().stream().mapToLong(Long::longValue).sum());
+        } catch (Exception e) {
+            log.error("写回浏览量失败，{} 篇文章的增量将在下次重试", batch.size(), e);
+            flushFailures.increment();
+        } finally {
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
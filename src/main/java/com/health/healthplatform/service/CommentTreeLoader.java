@@ -0,0 +1,135 @@
+package com.health.healthplatform.service;
+
+import com.health.healthplatform.entity.Comment;
+import com.health.healthplatform.entity.User;
+import com.health.healthplatform.mapper.ArticleMapper;
+import com.health.healthplatform.mapper.UserMapper;
+import com.health.healthplatform.util.PageCursor;
+import jakarta.annotation.Resource;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 评论树分页装配
+ * 根评论在 SQL 里分页，每层回复对本页所有父评论只查一次（每个父评论只取前几条），
+ * 评论者和被回复者最后用一条 IN 查询补齐。查询次数取决于页大小和回复层数，与评论总数无关；
+ * 其余回复通过 repliesCursor 按需加载
+ */
+@Service
+public class CommentTreeLoader {
+
+    // 每个父评论首次展示的回复数
+    public static final int PREVIEW_REPLIES = 3;
+    // 回复嵌套最多展开的层数
+    private static final int MAX_DEPTH = 3;
+
+    @Resource
+    private ArticleMapper articleMapper;
+
+    @Resource
+    private UserMapper userMapper;
+
+    /**
+     * 一页根评论，每条带前几条回复
+     */
+    public List<Comment> loadPage(Long articleId, int offset, int size) {
+        List<Comment> roots = articleMapper.selectRootComments(articleId, offset, size);
+        List<Comment> all = new ArrayList<>(roots);
+        attachReplies(roots, all);
+        fillUsers(all);
+        return roots;
+    }
+
+    /**
+     * 加载某条评论游标之后的更多回复，游标为空时从第一条开始
+     */
+    public Map<String, Object> loadReplies(Long parentId, String cursor, int size) {
+        PageCursor position = PageCursor.decode(cursor);
+        List<Comment> replies = articleMapper.selectRepliesAfter(parentId,
+                position == null ? null : position.getTime(),
+                position == null ? null : position.getId(),
+                size + 1);
+        boolean hasMore = replies.size() > size;
+        if (hasMore) {
+            replies = new ArrayList<>(replies.subList(0, size));
+        }
+        List<Comment> all = new ArrayList<>(replies);
+        attachReplies(replies, all);
+        fillUsers(all);
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("replies", replies);
+        result.put("nextCursor", hasMore ? cursorOf(replies.get(replies.size() - 1)) : null);
+        result.put("hasMore", hasMore);
+        return result;
+    }
+
+    private void attachReplies(List<Comment> parents, List<Comment> all) {
+        List<Comment> level = parents;
+        for (int depth = 0; depth < MAX_DEPTH && !level.isEmpty(); depth++) {
+            Map<Long, Comment> byId = new HashMap<>();
+            for (Comment parent : level) {
+                parent.setReplies(new ArrayList<>());
+                // reply_count 为 0 的评论不必查
+                if (parent.getReplyCount() == null || parent.getReplyCount() > 0) {
+                    byId.put(parent.getId(), parent);
+                }
+            }
+            if (byId.isEmpty()) {
+                break;
+            }
+
+            // 多取一条，用来判断是否还有更多回复
+            List<Comment> next = new ArrayList<>();
+            for (Comment reply : articleMapper.selectFirstReplies(byId.keySet(), PREVIEW_REPLIES + 1)) {
+                Comment parent = byId.get(reply.getParentId());
+                if (parent.getReplies().size() < PREVIEW_REPLIES) {
+                    parent.getReplies().add(reply);
+                    next.add(reply);
+                } else {
+                    parent.setRepliesCursor(cursorOf(parent.getReplies().get(PREVIEW_REPLIES - 1)));
+                }
+            }
+            all.addAll(next);
+            level = next;
+        }
+        for (Comment comment : level) {
+            if (comment.getReplies() == null) {
+                comment.setReplies(new ArrayList<>());
+            }
+        }
+    }
+
+    private void fillUsers(List<Comment> comments) {
+        Set<Integer> userIds = new LinkedHashSet<>();
+        for (Comment comment : comments) {
+            if (comment.getUserId() != null) {
+                userIds.add(comment.getUserId());
+            }
+            if (comment.getReplyToUserId() != null) {
+                userIds.add(comment.getReplyToUserId());
+            }
+        }
+        if (userIds.isEmpty()) {
+            return;
+        }
+        Map<Integer, User> users = new HashMap<>();
+        for (User user : userMapper.selectByIds(userIds)) {
+            users.put(user.getId(), user);
+        }
+        for (Comment comment : comments) {
+            comment.setUser(users.get(comment.getUserId()));
+            comment.setReplyToUser(users.get(comment.getReplyToUserId()));
+        }
+    }
+
+    private static String cursorOf(Comment comment) {
+        return PageCursor.encode(comment.getCreatedAt(), comment.getId());
+    }
+}
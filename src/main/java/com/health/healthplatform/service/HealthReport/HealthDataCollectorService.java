@@ -6,18 +6,37 @@ import org.springframework.stereotype.Service;
 import com.health.healthplatform.DTO.BmiDTO;
 import com.health.healthplatform.DTO.BloodPressureDTO;
 import com.health.healthplatform.DTO.HeartRateDTO;
-import com.health.healthplatform.DTO.StepsDTO;
-import com.health.healthplatform.DTO.SleepDTO;
 import com.health.healthplatform.entity.HealthReport.HealthMetrics;
 import com.health.healthplatform.entity.healthdata.HealthData;
-import com.health.healthplatform.mapper.health_data.HealthDataMapper;
+import com.health.healthplatform.entity.healthdata.UserDailyMetric;
 
 import lombok.extern.slf4j.Slf4j;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.annotation.Resource;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.beans.factory.annotation.Value;
 
-import java.util.DoubleSummaryStatistics;
+import java.beans.PropertyDescriptor;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
 
+/**
+ * 生成报告前收集用户的各项健康数据
+ * 基础体征、运动、步数、睡眠四个数据源在线程池里同时查询，耗时取最慢的一个而不是相加；步数和睡眠读 user_daily_metrics 的每日聚合。
+ * 超过超时时间的数据源跳过，对应字段留空
+ */
 @Slf4j
 @Service
 public class HealthDataCollectorService {
@@ -30,17 +49,45 @@ public class HealthDataCollectorService {
     @Resource
     private ExerciseRecordService exerciseRecordService;
     @Resource
-    private StepsService stepsService;
-    @Resource
-    private SleepService sleepService;
-    @Resource
     private WeightService weightService;
     @Resource
-    private HealthDataMapper healthDataMapper;
+    private LatestVitalsCache latestVitalsCache;
+    @Resource
+    private UserDailyMetricsService userDailyMetricsService;
+
+    // 同时执行的数据源查询数，超出的排队，队列满时由调用线程自己查
+    @Value("${health.collector.threads:8}")
+    private int collectorThreads = 8;
+
+    @Value("${health.collector.queue-size:100}")
+    private int collectorQueueSize = 100;
+
+    // 单个数据源的超时时间，从开始收集算起
+    @Value("${health.collector.timeout-ms:2000}")
+    private long timeoutMs = 2000;
+
+    private ExecutorService collectorExecutor;
+
+    @PostConstruct
+    public void init() {
+        collectorExecutor = new ThreadPoolExecutor(collectorThreads, collectorThreads,
+                60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(collectorQueueSize), r -> {
+                    Thread thread = new Thread(r, "health-collector");
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (collectorExecutor != null) {
+            collectorExecutor.shutdownNow();
+        }
+    }
 
     private void collectBasicHealthData(Integer userId, HealthMetrics metrics) {
         // 获取最新的基础健康数据
-        HealthData latestData = healthDataMapper.findLatestByUserId(userId);
+        HealthData latestData = latestVitalsCache.get(userId);
         if (latestData != null) {
             // 设置基础健康指标
             metrics.setWeight(latestData.getWeight());
@@ -75,33 +122,62 @@ public class HealthDataCollectorService {
             throw new IllegalArgumentException("无效的用户ID");
         }
 
-
         log.info("开始收集用户{}的健康数据", userId);
-        HealthMetrics metrics = new HealthMetrics();
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
 
-        try {
-            // 收集各项数据
-             // 收集基础健康数据
-            collectBasicHealthData(userId, metrics);
-            
-            // 收集运动数据
-            collectExerciseData(userId, metrics);
-            
-            // 收集步数数据
-            collectStepsData(userId, metrics);
-            
-            // 收集睡眠数据
-            collectSleepData(userId, metrics);
+        // 各数据源互不依赖，同时查询；每个数据源写自己的 HealthMetrics，全部返回后再合并
+        Map<String, Future<HealthMetrics>> sources = new LinkedHashMap<>();
+        sources.put("基础健康数据", submit(metrics -> collectBasicHealthData(userId, metrics)));
+        sources.put("运动数据", submit(metrics -> collectExerciseData(userId, metrics)));
+        sources.put("步数数据", submit(metrics -> collectStepsData(userId, metrics)));
+        sources.put("睡眠数据", submit(metrics -> collectSleepData(userId, metrics)));
 
+        HealthMetrics metrics = new HealthMetrics();
+        try {
+            for (Map.Entry<String, Future<HealthMetrics>> source : sources.entrySet()) {
+                long remaining = deadline - System.nanoTime();
+                try {
+                    merge(source.getValue().get(Math.max(remaining, 0), TimeUnit.NANOSECONDS), metrics);
+                } catch (TimeoutException e) {
+                    // 超时的数据源留空，报告照常生成
+                    source.getValue().cancel(true);
+                    log.warn("收集用户{}的{}超时（{}ms），已跳过", userId, source.getKey(), timeoutMs);
+                }
+            }
+            log.info("用户{}的健康数据收集完成，耗时{}ms", userId, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
             return metrics;
-        } catch (Exception e) {
-            log.error("收集健康数据时发生错误", e);
-            throw new RuntimeException("健康数据收集失败: " + e.getMessage(), e);
+        } catch (ExecutionException e) {
+            sources.values().forEach(future -> future.cancel(true));
+            log.error("收集健康数据时发生错误", e.getCause());
+            throw new RuntimeException("健康数据收集失败: " + e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            sources.values().forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("健康数据收集被中断", e);
         }
     }
 
+    private Future<HealthMetrics> submit(Consumer<HealthMetrics> collector) {
+        return collectorExecutor.submit(() -> {
+            HealthMetrics partial = new HealthMetrics();
+            collector.accept(partial);
+            return partial;
+        });
+    }
+
+    // 把数据源填了的字段复制到结果上
+    private static void merge(HealthMetrics partial, HealthMetrics target) {
+        BeanWrapper source = new BeanWrapperImpl(partial);
+        BeanWrapper destination = new BeanWrapperImpl(target);
+        for (PropertyDescriptor property : source.getPropertyDescriptors()) {
+            String name = property.getName();
+            if (destination.isWritableProperty(name) && source.getPropertyValue(name) != null) {
+                destination.setPropertyValue(name, source.getPropertyValue(name));
+            }
+        }
+    }
 
-    
     private void collectBmiData(Integer userId, HealthMetrics metrics) {
         List<BmiDTO> bmiHistory = bmiService.getUserBmiHistory(userId, "day");
         if (!bmiHistory.isEmpty()) {
@@ -141,57 +217,53 @@ public class HealthDataCollectorService {
         metrics.setWeeklyExerciseDuration(weeklyStats.getTotalDuration());
         metrics.setWeeklyExerciseCount(weeklyStats.getExerciseCount());
         metrics.setWeeklyCaloriesBurned(weeklyStats.getTotalCalories().doubleValue());
-        log.info("收集到运动数据: 时长{}分钟, 次数{}, 消耗{}卡路里", 
+        log.info("收集到运动数据: 时长{}小时, 次数{}, 消耗{}卡路里", 
             weeklyStats.getTotalDuration(), weeklyStats.getExerciseCount(), weeklyStats.getTotalCalories());
     }
 
+    // 今天的步数聚合行：取当天最晚一条记录，与原先取当天步数记录的口径一致
     private void collectStepsData(Integer userId, HealthMetrics metrics) {
-        List<StepsDTO> stepsHistory = stepsService.getUserStepsHistory(userId, "all");
-        if (!stepsHistory.isEmpty()) {
-            StepsDTO latest = stepsHistory.get(0);
-            metrics.setDailySteps(latest.getSteps());
-            metrics.setDailyDistance(latest.getDistance());
-            log.info("收集到步数数据: {}步, {}公里", latest.getSteps(), latest.getDistance());
+        LocalDate today = LocalDate.now();
+        Map<String, List<UserDailyMetric>> daily =
+                userDailyMetricsService.findRange(userId, UserDailyMetricsService.STEPS, today, today);
+        UserDailyMetric steps = UserDailyMetricsService.combine(daily.get(UserDailyMetricsService.STEPS_COUNT));
+        if (steps != null) {
+            UserDailyMetric distance = UserDailyMetricsService.combine(daily.get(UserDailyMetricsService.STEPS_DISTANCE));
+            metrics.setDailySteps(steps.getLastValue().intValue());
+            metrics.setDailyDistance(distance == null ? null : distance.getLastValue());
+            log.info("收集到步数数据: {}步, {}公里", metrics.getDailySteps(), metrics.getDailyDistance());
         } else {
             log.warn("未找到用户{}的步数数据", userId);
         }
     }
 
+    // 最近一周的睡眠聚合：时长按记录取平均，各阶段占比按阶段总时长占睡眠总时长计算
     private void collectSleepData(Integer userId, HealthMetrics metrics) {
-        List<SleepDTO> sleepHistory = sleepService.getUserSleepHistory(userId, "week");
-        if (!sleepHistory.isEmpty()) {
-            // 计算一周的平均睡眠数据
-            DoubleSummaryStatistics durationStats = sleepHistory.stream()
-                .mapToDouble(SleepDTO::getDuration)
-                .summaryStatistics();
-            
-            DoubleSummaryStatistics deepSleepStats = sleepHistory.stream()
-                .mapToDouble(SleepDTO::getDeepSleepPercentage)
-                .summaryStatistics();
-                
-            DoubleSummaryStatistics lightSleepStats = sleepHistory.stream()
-                .mapToDouble(SleepDTO::getLightSleepPercentage)
-                .summaryStatistics();
-                
-            DoubleSummaryStatistics remSleepStats = sleepHistory.stream()
-                .mapToDouble(SleepDTO::getRemSleepPercentage)
-                .summaryStatistics();
-
-            metrics.setAverageSleepDuration(durationStats.getAverage());
-            metrics.setDeepSleepPercentage(deepSleepStats.getAverage());
-            metrics.setLightSleepPercentage(lightSleepStats.getAverage());
-            metrics.setRemSleepPercentage(remSleepStats.getAverage());
-            
-            log.info("收集到睡眠数据: 平均时长{}小时, 深睡{}%, 浅睡{}%, REM睡眠{}%", 
-                durationStats.getAverage(),
-                deepSleepStats.getAverage(),
-                lightSleepStats.getAverage(),
-                remSleepStats.getAverage());
+        LocalDate today = LocalDate.now();
+        Map<String, List<UserDailyMetric>> daily =
+                userDailyMetricsService.findRange(userId, UserDailyMetricsService.SLEEP, today.minusDays(7), today);
+        UserDailyMetric duration = UserDailyMetricsService.combine(daily.get(UserDailyMetricsService.SLEEP_DURATION));
+        if (duration != null && duration.getSumValue() > 0) {
+            metrics.setAverageSleepDuration(UserDailyMetricsService.average(duration));
+            metrics.setDeepSleepPercentage(percentage(daily.get(UserDailyMetricsService.SLEEP_DEEP), duration));
+            metrics.setLightSleepPercentage(percentage(daily.get(UserDailyMetricsService.SLEEP_LIGHT), duration));
+            metrics.setRemSleepPercentage(percentage(daily.get(UserDailyMetricsService.SLEEP_REM), duration));
+
+            log.info("收集到睡眠数据: 平均时长{}小时, 深睡{}%, 浅睡{}%, REM睡眠{}%",
+                metrics.getAverageSleepDuration(),
+                metrics.getDeepSleepPercentage(),
+                metrics.getLightSleepPercentage(),
+                metrics.getRemSleepPercentage());
         } else {
             log.warn("未找到用户{}的睡眠数据", userId);
         }
     }
 
+    private static Double percentage(List<UserDailyMetric> stage, UserDailyMetric duration) {
+        UserDailyMetric total = UserDailyMetricsService.combine(stage);
+        return total == null ? null : total.getSumValue() / duration.getSumValue() * 100;
+    }
+
     private void validateMetrics(HealthMetrics metrics) {
         if (metrics.getBmi() != null && (metrics.getBmi() < 10 || metrics.getBmi() > 50)) {
             log.warn("异常的BMI值: {}", metrics.getBmi());
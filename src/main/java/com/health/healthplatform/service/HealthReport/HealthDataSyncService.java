@@ -3,19 +3,41 @@ package com.health.healthplatform.service.HealthReport;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.health.healthplatform.entity.healthdata.HealthData;
 import com.health.healthplatform.entity.HealthReport.HealthReport;
+import com.health.healthplatform.entity.HealthReport.HealthSyncCheckpoint;
 import com.health.healthplatform.mapper.health_data.HealthDataMapper;
 import com.health.healthplatform.mapper.HealthReport.HealthReportMapper;
+import com.health.healthplatform.mapper.HealthReport.HealthSyncCheckpointMapper;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cursor.Cursor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 /**
  * 健康数据自动同步服务
@@ -25,6 +47,8 @@ import java.util.List;
 @Service
 public class HealthDataSyncService {
 
+    private static final String SYNC_JOB = "health_report_daily";
+
     @Autowired
     private HealthDataMapper healthDataMapper;
     
@@ -34,6 +58,41 @@ public class HealthDataSyncService {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private HealthSyncCheckpointMapper checkpointMapper;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // 每块的用户数，一块一个事务、一条批量写入
+    @Value("${health.sync.chunk-size:500}")
+    private int chunkSize = 500;
+
+    @Value("${health.sync.threads:4}")
+    private int syncThreads = 4;
+
+    // 每日任务回头续跑最近多少天里中断或有失败的日期
+    @Value("${health.sync.resume-days:7}")
+    private int resumeDays = 7;
+
+    private ExecutorService syncExecutor;
+
+    @PostConstruct
+    public void init() {
+        syncExecutor = Executors.newFixedThreadPool(syncThreads, r -> {
+            Thread thread = new Thread(r, "health-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (syncExecutor != null) {
+            syncExecutor.shutdownNow();
+        }
+    }
+
     /**
      * 手动触发数据同步
      * @param userId 用户ID
@@ -78,33 +137,302 @@ public class HealthDataSyncService {
     }
 
     /**
-     * 定时任务：每日凌晨2点自动同步前一天的数据
+     * 定时任务：每日凌晨2点自动同步前一天的数据，之前先续跑最近几天没有完成的日期
      */
     @Scheduled(cron = "0 0 2 * * ?")
-    @Transactional
     public void autoSyncHealthData() {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        resumeUnfinished(yesterday);
         try {
-            LocalDate yesterday = LocalDate.now().minusDays(1);
             log.info("开始自动同步{}的健康数据", yesterday);
-            
-            // 获取昨天有健康数据记录的所有用户
-            QueryWrapper<HealthData> query = new QueryWrapper<>();
-            query.eq("record_date", yesterday)
-                 .select("DISTINCT user_id");
-            
-            List<HealthData> userList = healthDataMapper.selectList(query);
-              for (HealthData data : userList) {
-                try {
-                    syncHealthDataToReport(data.getUserId().intValue(), yesterday);
-                } catch (Exception e) {
-                    log.error("自动同步用户{}的健康数据失败", data.getUserId(), e);
+            int users = syncDate(yesterday);
+            log.info("自动同步{}的健康数据完成，共处理{}个用户", yesterday, users);
+        } catch (Exception e) {
+            log.error("自动同步健康数据失败", e);
+        }
+    }
+
+    /**
+     * 续跑 before 之前 resumeDays 天内断点未完成的日期（进程中途退出、或有用户写入失败），各日期从各自的断点继续；
+     * 一个日期失败不影响其他日期
+     */
+    public void resumeUnfinished(LocalDate before) {
+        List<LocalDate> dates;
+        try {
+            dates = checkpointMapper.findUnfinishedDates(SYNC_JOB, before.minusDays(resumeDays));
+        } catch (Exception e) {
+            log.error("查询未完成的同步日期失败", e);
+            return;
+        }
+        for (LocalDate date : dates) {
+            if (!date.isBefore(before)) {
+                continue;
+            }
+            try {
+                log.info("续跑{}未完成的健康数据同步", date);
+                int users = syncDate(date);
+                log.info("续跑{}的健康数据同步完成，共处理{}个用户", date, users);
+            } catch (Exception e) {
+                log.error("续跑{}的健康数据同步失败", date, e);
+            }
+        }
+    }
+
+    /**
+     * 同步某天所有用户的健康报告：一次流式读出当天的 health_data（按用户相邻），每 chunkSize 个用户一块，
+     * 在线程池上并发处理，每块一个事务、一次查出已有报告、一条批量 upsert 写回。
+     * 断点记录全部写入成功、且连续的最后一个用户，任务中途退出后再次运行从断点之后继续；已完成的日期再次运行则全部重做。
+     * 有用户写入失败时断点停在失败块之前、日期不标记完成，失败的用户记在断点上，再次运行会从失败块开始重做
+     * @return 本次处理的用户数
+     */
+    public int syncDate(LocalDate date) {
+        HealthSyncCheckpoint checkpoint = checkpointMapper.find(SYNC_JOB, date);
+        int afterUserId = checkpoint == null || Boolean.TRUE.equals(checkpoint.getFinished())
+                ? 0 : checkpoint.getLastUserId();
+        if (afterUserId > 0) {
+            log.info("{}的同步从用户{}之后继续", date, afterUserId);
+        }
+        SyncProgress progress = new SyncProgress(date, afterUserId);
+        int users = streamChunks(() -> healthDataMapper.streamByDate(date, afterUserId), syncThreads * 2,
+                (seq, chunk) -> progress.complete(seq, new ArrayList<>(chunk.keySet()).get(chunk.size() - 1),
+                        syncChunk(date, date, chunk)));
+        progress.finish();
+        return users;
+    }
+
+    /**
+     * 按日期范围重建健康报告（评分规则调整后回填历史等）：按用户ID键集分页，每次取 chunkSize 个用户及其范围内的 health_data，
+     * 每块一个事务按天算出报告后一条批量 upsert 写回。块在调用线程上逐个写入，listener 在每块前后被调用，用于限速和进度；
+     * 每页都是一次普通查询，listener 阻塞限速时不占用数据库游标或连接。重试后仍写入失败的用户通过 afterChunk 报告，不中断后续块
+     * @param userIds 只处理这些用户，为空时处理范围内的全部用户
+     * @return 处理的用户数
+     */
+    public int syncRange(LocalDate startDate, LocalDate endDate, Collection<Integer> userIds, ChunkListener listener) {
+        int users = 0;
+        int afterUserId = 0;
+        while (true) {
+            List<Integer> page = healthDataMapper.findUserIdsByDateRange(startDate, endDate, userIds, afterUserId, chunkSize);
+            if (page.isEmpty()) {
+                break;
+            }
+            afterUserId = page.get(page.size() - 1);
+            Map<Integer, List<HealthData>> chunk = new LinkedHashMap<>();
+            for (HealthData data : healthDataMapper.findByUserIdsAndDateRange(page, startDate, endDate)) {
+                chunk.computeIfAbsent(data.getUserId().intValue(), k -> new ArrayList<>()).add(data);
+            }
+            if (!chunk.isEmpty()) {
+                int reports = countReports(chunk);
+                listener.beforeChunk(chunk.size(), reports);
+                List<Integer> failed = syncChunk(startDate, endDate, chunk);
+                if (!failed.isEmpty()) {
+                    reports -= countReports(failed.stream().collect(Collectors.toMap(id -> id, chunk::get)));
                 }
+                listener.afterChunk(chunk.size() - failed.size(), reports, failed);
+                users += chunk.size();
             }
-            
-            log.info("自动同步{}的健康数据完成，共处理{}个用户", yesterday, userList.size());
-            
+            if (page.size() < chunkSize) {
+                break;
+            }
+        }
+        return users;
+    }
+
+    /**
+     * 批量同步每块写入前后的回调
+     */
+    public interface ChunkListener {
+        ChunkListener NONE = new ChunkListener() {
+        };
+
+        // 可以阻塞，用于限速
+        default void beforeChunk(int users, int reports) {
+        }
+
+        // users、reports 为实际写入成功的用户数和报告数，failedUsers 为重试后仍失败的用户
+        default void afterChunk(int users, int reports, List<Integer> failedUsers) {
+        }
+    }
+
+    @FunctionalInterface
+    private interface ChunkTask {
+        void run(int seq, Map<Integer, List<HealthData>> chunk);
+    }
+
+    /**
+     * 在调用线程的事务里流式读出 query 的结果（同一用户的行相邻），每 chunkSize 个用户一块交给线程池，
+     * 最多 maxInFlight 块在途，写入跟不上时读取等待。等所有块执行完才返回，有块失败时抛出
+     */
+    private int streamChunks(Supplier<Cursor<HealthData>> query, int maxInFlight, ChunkTask task) {
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        List<Future<?>> futures = new ArrayList<>();
+        // 读取占着这个线程的连接直到读完，各块在线程池上用各自的连接和事务写入
+        Integer users = transactionTemplate.execute(status -> {
+            int count = 0;
+            Map<Integer, List<HealthData>> chunk = new LinkedHashMap<>();
+            try (Cursor<HealthData> cursor = query.get()) {
+                for (HealthData data : cursor) {
+                    Integer userId = data.getUserId().intValue();
+                    if (chunk.size() >= chunkSize && !chunk.containsKey(userId)) {
+                        count += chunk.size();
+                        futures.add(submitChunk(inFlight, task, futures.size(), chunk));
+                        chunk = new LinkedHashMap<>();
+                    }
+                    chunk.computeIfAbsent(userId, k -> new ArrayList<>()).add(data);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (!chunk.isEmpty()) {
+                count += chunk.size();
+                futures.add(submitChunk(inFlight, task, futures.size(), chunk));
+            }
+            return count;
+        });
+
+        RuntimeException failure = null;
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("健康数据同步被中断", e);
+            } catch (ExecutionException e) {
+                log.error("健康数据同步分块执行失败", e.getCause());
+                if (failure == null) {
+                    failure = new RuntimeException("健康数据同步失败", e.getCause());
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return users == null ? 0 : users;
+    }
+
+    private Future<?> submitChunk(Semaphore inFlight, ChunkTask task, int seq, Map<Integer, List<HealthData>> chunk) {
+        inFlight.acquireUninterruptibly();
+        return syncExecutor.submit(() -> {
+            try {
+                task.run(seq, chunk);
+            } finally {
+                inFlight.release();
+            }
+        });
+    }
+
+    /**
+     * 整块在一个事务里写入；失败时逐个用户重试，个别用户的坏数据不影响同块其他用户
+     * @return 重试后仍失败的用户，全部成功时为空
+     */
+    private List<Integer> syncChunk(LocalDate startDate, LocalDate endDate, Map<Integer, List<HealthData>> chunk) {
+        List<Integer> failed = new ArrayList<>();
+        try {
+            transactionTemplate.executeWithoutResult(status -> writeReports(startDate, endDate, chunk));
         } catch (Exception e) {
-            log.error("自动同步健康数据失败", e);
+            log.warn("{}至{}的健康数据分块同步失败，逐个用户重试: {}", startDate, endDate, e.getMessage());
+            for (Map.Entry<Integer, List<HealthData>> entry : chunk.entrySet()) {
+                try {
+                    transactionTemplate.executeWithoutResult(status ->
+                            writeReports(startDate, endDate, Map.of(entry.getKey(), entry.getValue())));
+                } catch (Exception ex) {
+                    log.error("自动同步用户{}的健康数据失败", entry.getKey(), ex);
+                    failed.add(entry.getKey());
+                }
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * 每个用户每天一份报告：已有的（同一天多份时取最新一份）在原报告上更新，没有的新建，一条语句写回
+     */
+    private void writeReports(LocalDate startDate, LocalDate endDate, Map<Integer, List<HealthData>> chunk) {
+        Map<String, HealthReport> existing = new HashMap<>();
+        for (HealthReport report : healthReportMapper.findByUserIdsAndTimeRange(
+                chunk.keySet(), startDate.atStartOfDay(), endDate.atTime(23, 59, 59))) {
+            existing.put(report.getUserId() + "|" + report.getReportTime().toLocalDate(), report);
+        }
+        List<HealthReport> reports = new ArrayList<>();
+        for (Map.Entry<Integer, List<HealthData>> entry : chunk.entrySet()) {
+            Integer userId = entry.getKey();
+            for (Map.Entry<LocalDate, List<HealthData>> day : byDate(entry.getValue()).entrySet()) {
+                HealthReport report = existing.get(userId + "|" + day.getKey());
+                if (report == null) {
+                    report = createHealthReportFromData(userId, day.getKey(), day.getValue());
+                } else {
+                    updateHealthReportFromData(report, day.getValue());
+                }
+                reports.add(report);
+            }
+        }
+        healthReportMapper.upsertBatch(reports);
+    }
+
+    // 同一用户的行按日期分组，保持读出的时间顺序
+    private static Map<LocalDate, List<HealthData>> byDate(List<HealthData> rows) {
+        Map<LocalDate, List<HealthData>> days = new LinkedHashMap<>();
+        for (HealthData row : rows) {
+            days.computeIfAbsent(row.getRecordDate(), k -> new ArrayList<>()).add(row);
+        }
+        return days;
+    }
+
+    private static int countReports(Map<Integer, List<HealthData>> chunk) {
+        int reports = 0;
+        for (List<HealthData> rows : chunk.values()) {
+            reports += byDate(rows).size();
+        }
+        return reports;
+    }
+
+    /**
+     * 每日同步的进度：各块可能乱序完成，断点只推进到连续全部成功的位置；有用户失败的块挡住断点，失败的用户一并记下
+     */
+    private final class SyncProgress {
+        final LocalDate date;
+        final Map<Integer, Integer> completed = new HashMap<>();
+        final Set<Integer> failedUsers = new TreeSet<>();
+        int nextSeq;
+        int watermark;
+
+        SyncProgress(LocalDate date, int watermark) {
+            this.date = date;
+            this.watermark = watermark;
+        }
+
+        synchronized void complete(int seq, Integer lastUserId, List<Integer> failed) {
+            int before = watermark;
+            if (failed.isEmpty()) {
+                completed.put(seq, lastUserId);
+                while (completed.containsKey(nextSeq)) {
+                    watermark = completed.remove(nextSeq++);
+                }
+            } else {
+                failedUsers.addAll(failed);
+            }
+            if (watermark != before || !failed.isEmpty()) {
+                save(false);
+            }
+        }
+
+        synchronized void finish() {
+            if (!failedUsers.isEmpty()) {
+                log.warn("{}的同步有{}个用户失败，断点停在用户{}: {}", date, failedUsers.size(), watermark, failedUsers);
+            }
+            checkpointMapper.save(SYNC_JOB, date, watermark, failedUsers.isEmpty(), failedUserIds());
+        }
+
+        private void save(boolean finished) {
+            try {
+                checkpointMapper.save(SYNC_JOB, date, watermark, finished, failedUserIds());
+            } catch (Exception e) {
+                log.warn("保存同步断点失败: {}", e.getMessage());
+            }
+        }
+
+        private String failedUserIds() {
+            return failedUsers.isEmpty() ? null
+                    : failedUsers.stream().map(String::valueOf).collect(Collectors.joining(","));
         }
     }
 
@@ -112,17 +440,22 @@ public class HealthDataSyncService {
      * 同步指定用户的健康数据（默认同步最近7天的数据）
      * @param userId 用户ID
      */
-    @Transactional
     public void syncUserData(Integer userId) {
         try {
             log.info("开始同步用户{}的健康数据", userId);
             
-            // 同步最近7天的数据
+            // 同步最近7天的数据，一次读出、一次写回
             LocalDate endDate = LocalDate.now();
             LocalDate startDate = endDate.minusDays(7);
-            
-            for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
-                syncHealthDataToReport(userId, date);
+            List<Integer> failed = new ArrayList<>();
+            syncRange(startDate, endDate, List.of(userId), new ChunkListener() {
+                @Override
+                public void afterChunk(int users, int reports, List<Integer> failedUsers) {
+                    failed.addAll(failedUsers);
+                }
+            });
+            if (!failed.isEmpty()) {
+                throw new IllegalStateException("健康报告写入失败");
             }
             
             log.info("用户{}的健康数据同步完成", userId);
@@ -164,7 +497,7 @@ public class HealthDataSyncService {
         // 更新基础健康指标
         if (latestData.getBmi() != null) {
             report.setBmi(latestData.getBmi().doubleValue());
-            report.setBmiStatus(getBmiStatus(latestData.getBmi().doubleValue()));
+            report.setBmiStatus(HealthStatusClassifier.bmi(latestData.getBmi().doubleValue()));
             
             if (!"正常".equals(report.getBmiStatus())) {
                 abnormalIndicators.add("BMI: " + report.getBmiStatus());
@@ -184,7 +517,7 @@ public class HealthDataSyncService {
             report.setSystolic(latestData.getBloodPressureSystolic().doubleValue());
             report.setDiastolic(latestData.getBloodPressureDiastolic().doubleValue());
             
-            String bpStatus = getBloodPressureStatus(
+            String bpStatus = HealthStatusClassifier.bloodPressure(
                 latestData.getBloodPressureSystolic().doubleValue(), 
                 latestData.getBloodPressureDiastolic().doubleValue()
             );
@@ -199,7 +532,7 @@ public class HealthDataSyncService {
         if (latestData.getHeartRate() != null) {
             report.setHeartRate(latestData.getHeartRate().doubleValue());
             
-            String hrStatus = getHeartRateStatus(latestData.getHeartRate().doubleValue());
+            String hrStatus = HealthStatusClassifier.heartRate(latestData.getHeartRate().doubleValue());
             report.setHeartRateStatus(hrStatus);
             
             if (!"正常".equals(hrStatus)) {
@@ -259,46 +592,6 @@ public class HealthDataSyncService {
         report.setUpdateTime(LocalDateTime.now());
     }
 
-    /**
-     * 获取BMI状态
-     */    private String getBmiStatus(double bmi) {
-        if (bmi <= 18.4) {
-            return "偏瘦";
-        } else if (bmi < 24.0) {
-            return "正常";
-        } else if (bmi >= 24.0 && bmi <= 27.9) {
-            return "超重";
-        } else if (bmi >= 28.0) {
-            return "肥胖";
-        }
-        return "正常";
-    }
-
-    /**
-     * 获取血压状态
-     */    private String getBloodPressureStatus(double systolic, double diastolic) {
-        if (systolic < 90 || diastolic < 60) {
-            return "血压偏低";
-        } else if (systolic >= 140) {
-            return "血压偏高";
-        } else {
-            return "正常";
-        }
-    }
-
-    /**
-     * 获取心率状态
-     */
-    private String getHeartRateStatus(double heartRate) {
-        if (heartRate < 60) {
-            return "偏低";
-        } else if (heartRate <= 100) {
-            return "正常";
-        } else {
-            return "偏高";
-        }
-    }
-
     /**
      * 计算整体健康评分
      */
@@ -75,16 +75,13 @@ public class HealthReportAnalysisService {
             report.setBmi(metrics.getBmi());
             report.setWeight(metrics.getWeight());
             report.setHeight(metrics.getHeight());
-              if (metrics.getBmi() <= 18.4) {
-                report.setBmiStatus("偏瘦");
+            String bmiStatus = HealthStatusClassifier.bmi(metrics.getBmi());
+            report.setBmiStatus(bmiStatus);
+            if (HealthStatusClassifier.BMI_UNDERWEIGHT.equals(bmiStatus)) {
                 abnormalIndicators.add("体重偏轻");
-            } else if (metrics.getBmi() < 24.0) {
-                report.setBmiStatus("正常");
-            } else if (metrics.getBmi() >= 24.0 && metrics.getBmi() <= 27.9) {
-                report.setBmiStatus("超重");
+            } else if (HealthStatusClassifier.BMI_OVERWEIGHT.equals(bmiStatus)) {
                 abnormalIndicators.add("体重超重");
-            } else if (metrics.getBmi() >= 28.0) {
-                report.setBmiStatus("肥胖");
+            } else if (HealthStatusClassifier.BMI_OBESE.equals(bmiStatus)) {
                 abnormalIndicators.add("体重肥胖");
             }
             
@@ -102,7 +99,7 @@ public class HealthReportAnalysisService {
             report.setDiastolic(metrics.getDiastolic());
             
             // 改进血压状态判断
-            String bloodPressureStatus = getBloodPressureStatus(metrics.getSystolic(), metrics.getDiastolic());
+            String bloodPressureStatus = HealthStatusClassifier.bloodPressure(metrics.getSystolic(), metrics.getDiastolic());
             report.setBloodPressureStatus(bloodPressureStatus);
             
             if (!"正常".equals(bloodPressureStatus)) {
@@ -118,25 +115,14 @@ public class HealthReportAnalysisService {
         }
     }
 
-    /**
-     * 获取血压状态
-     */    
-    private String getBloodPressureStatus(double systolic, double diastolic) {
-        if (systolic < 90 || diastolic < 60) {
-            return "血压偏低";
-        } else if (systolic >= 140) {
-            return "血压偏高";
-        } else {
-            return "正常";
-        }
-    }    private void analyzeHeartRate(HealthMetrics metrics, HealthReport report) {
+    private void analyzeHeartRate(HealthMetrics metrics, HealthReport report) {
         List<String> abnormalIndicators = new ArrayList<>();
         
         if (metrics.getHeartRate() != null) {
             report.setHeartRate(metrics.getHeartRate());
             
             // 改进心率状态判断
-            String heartRateStatus = getHeartRateStatus(metrics.getHeartRate());
+            String heartRateStatus = HealthStatusClassifier.heartRate(metrics.getHeartRate());
             report.setHeartRateStatus(heartRateStatus);
             
             if (!"正常".equals(heartRateStatus)) {
@@ -152,18 +138,7 @@ public class HealthReportAnalysisService {
         }
     }
 
-    /**
-     * 获取心率状态
-     */
-    private String getHeartRateStatus(double heartRate) {
-        if (heartRate < 60) {
-            return "偏低";
-        } else if (heartRate <= 100) {
-            return "正常";
-        } else {
-            return "偏高";
-        }
-    }private void analyzeExercise(HealthMetrics metrics, HealthReport report, ExerciseGoalDTO goal) {        // 设置运动数据
+    private void analyzeExercise(HealthMetrics metrics, HealthReport report, ExerciseGoalDTO goal) {        // 设置运动数据
         report.setWeeklyExerciseDuration(metrics.getWeeklyExerciseDuration() != null ? metrics.getWeeklyExerciseDuration().doubleValue() : 0.0);
         report.setWeeklyExerciseCount(metrics.getWeeklyExerciseCount() != null ? metrics.getWeeklyExerciseCount() : 0);
         report.setWeeklyCaloriesBurned(metrics.getWeeklyCaloriesBurned() != null ? metrics.getWeeklyCaloriesBurned() : 0.0);
@@ -0,0 +1,167 @@
+package com.health.healthplatform.service.HealthReport;
+
+import com.google.common.util.concurrent.RateLimiter;
+import com.health.healthplatform.DTO.HealthReport.HealthReportBackfillStatus;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 健康报告历史回填
+ * 按日期范围（可选指定用户）在后台重建 health_reports：按用户ID分页读取范围内的 health_data，
+ * 按用户分块、逐块批量 upsert。同一时间只跑一个回填任务，写入按每秒报告数限速，避免影响线上请求；
+ * 进度按任务 ID 查询，只保留最近若干个任务；重试后仍写入失败的用户计入任务状态，有失败的任务不标记为 finished
+ */
+@Slf4j
+@Service
+public class HealthReportBackfillService {
+
+    private static final int MAX_JOBS = 50;
+
+    // 任务状态里最多列出的失败用户
+    private static final int MAX_FAILED_IDS = 100;
+
+    @Autowired
+    private HealthDataSyncService healthDataSyncService;
+
+    @Value("${health.backfill.reports-per-second:200}")
+    private double reportsPerSecond = 200;
+
+    @Value("${health.backfill.max-days:366}")
+    private int maxDays = 366;
+
+    private final Map<String, HealthReportBackfillStatus> jobs = Collections.synchronizedMap(
+            new LinkedHashMap<>() {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, HealthReportBackfillStatus> eldest) {
+                    return size() > MAX_JOBS;
+                }
+            });
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void init() {
+        executor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "health-backfill");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 提交回填任务，立即返回任务状态
+     */
+    public HealthReportBackfillStatus start(LocalDate startDate, LocalDate endDate, List<Integer> userIds) {
+        if (startDate == null || endDate == null || startDate.isAfter(endDate)) {
+            throw new IllegalArgumentException("无效的日期范围");
+        }
+        if (ChronoUnit.DAYS.between(startDate, endDate) >= maxDays) {
+            throw new IllegalArgumentException("回填范围不能超过" + maxDays + "天");
+        }
+        HealthReportBackfillStatus status = new HealthReportBackfillStatus();
+        status.setJobId(UUID.randomUUID().toString());
+        status.setStartDate(startDate);
+        status.setEndDate(endDate);
+        status.setUserIds(userIds == null || userIds.isEmpty() ? null : List.copyOf(userIds));
+        status.setState("queued");
+        status.setFailedUserIds(new ArrayList<>());
+        jobs.put(status.getJobId(), status);
+        executor.execute(() -> run(status));
+        log.info("健康报告回填任务{}已提交: {}至{}, 用户{}", status.getJobId(), startDate, endDate,
+                status.getUserIds() == null ? "全部" : status.getUserIds().size() + "个");
+        return snapshot(status);
+    }
+
+    /**
+     * 任务进度，不存在返回 null
+     */
+    public HealthReportBackfillStatus get(String jobId) {
+        HealthReportBackfillStatus status = jobs.get(jobId);
+        return status == null ? null : snapshot(status);
+    }
+
+    private void run(HealthReportBackfillStatus status) {
+        synchronized (status) {
+            status.setState("running");
+            status.setStartTime(LocalDateTime.now());
+        }
+        RateLimiter limiter = RateLimiter.create(reportsPerSecond);
+        try {
+            healthDataSyncService.syncRange(status.getStartDate(), status.getEndDate(), status.getUserIds(),
+                    new HealthDataSyncService.ChunkListener() {
+                        @Override
+                        public void beforeChunk(int users, int reports) {
+                            limiter.acquire(Math.max(reports, 1));
+                        }
+
+                        @Override
+                        public void afterChunk(int users, int reports, List<Integer> failedUsers) {
+                            synchronized (status) {
+                                status.setProcessedUsers(status.getProcessedUsers() + users + failedUsers.size());
+                                status.setWrittenReports(status.getWrittenReports() + reports);
+                                status.setFailedUsers(status.getFailedUsers() + failedUsers.size());
+                                for (Integer userId : failedUsers) {
+                                    if (status.getFailedUserIds().size() < MAX_FAILED_IDS) {
+                                        status.getFailedUserIds().add(userId);
+                                    }
+                                }
+                            }
+                        }
+                    });
+            synchronized (status) {
+                // 有用户写入失败时不算完成；一份都没写成功算失败
+                if (status.getFailedUsers() == 0) {
+                    status.setState("finished");
+                } else if (status.getWrittenReports() == 0) {
+                    status.setState("failed");
+                    status.setError(status.getFailedUsers() + "个用户的健康报告写入失败");
+                } else {
+                    status.setState("partial");
+                }
+                status.setFinishTime(LocalDateTime.now());
+            }
+            log.info("健康报告回填任务{}结束({}): {}个用户, {}份报告, {}个用户失败", status.getJobId(), status.getState(),
+                    status.getProcessedUsers(), status.getWrittenReports(), status.getFailedUsers());
+        } catch (Exception e) {
+            log.error("健康报告回填任务{}失败", status.getJobId(), e);
+            synchronized (status) {
+                status.setState("failed");
+                status.setError(e.getMessage());
+                status.setFinishTime(LocalDateTime.now());
+            }
+        }
+    }
+
+    private static HealthReportBackfillStatus snapshot(HealthReportBackfillStatus status) {
+        HealthReportBackfillStatus copy = new HealthReportBackfillStatus();
+        synchronized (status) {
+            BeanUtils.copyProperties(status, copy);
+            copy.setFailedUserIds(List.copyOf(status.getFailedUserIds()));
+        }
+        return copy;
+    }
+}
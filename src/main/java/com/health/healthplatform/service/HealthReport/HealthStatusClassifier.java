@@ -0,0 +1,99 @@
+package com.health.healthplatform.service.HealthReport;
+
+/**
+ * BMI、血压、心率的状态分级，报告同步、报告分析、健康评估、BMI 分类共用这一份规则
+ * 每项指标是一组升序阈值和对应的状态：取值小于第一个阈值为第一档，依次类推。
+ * 类加载时把 0 到上限之间的整数取值预先算成档位表，整数取值（库里的心率、血压都是整数）直接查表，
+ * 其他取值按阈值比较；返回的都是常量字符串，调用时不分配对象
+ */
+public final class HealthStatusClassifier {
+
+    public static final String NORMAL = "正常";
+
+    public static final String BMI_UNDERWEIGHT = "偏瘦";
+    public static final String BMI_OVERWEIGHT = "超重";
+    public static final String BMI_OBESE = "肥胖";
+
+    public static final String BP_LOW = "低血压";
+    public static final String BP_ELEVATED = "偏高";
+    public static final String BP_HIGH = "高血压";
+
+    public static final String HR_LOW = "偏低";
+    public static final String HR_HIGH = "偏高";
+
+    // BMI（中国成人标准）：< 18.5 偏瘦，< 24 正常，< 28 超重，其余肥胖
+    private static final Rule BMI = new Rule(new double[]{18.5, 24, 28},
+            new String[]{BMI_UNDERWEIGHT, NORMAL, BMI_OVERWEIGHT, BMI_OBESE}, 100);
+
+    // 血压：收缩压、舒张压各自分档（低、正常、正常高值、高），任一项偏低为低血压，否则取两项中较高的一档。
+    // 与原触发器一致，上限含边界：收缩压 < 90 低，<= 120 正常，<= 140 偏高；舒张压 < 60 低，<= 80 正常，<= 90 偏高
+    private static final String[] BP_LABELS = {BP_LOW, NORMAL, BP_ELEVATED, BP_HIGH};
+    private static final Rule SYSTOLIC = new Rule(new double[]{90, Math.nextUp(120.0), Math.nextUp(140.0)}, BP_LABELS, 300);
+    private static final Rule DIASTOLIC = new Rule(new double[]{60, Math.nextUp(80.0), Math.nextUp(90.0)}, BP_LABELS, 200);
+
+    // 心率：< 60 偏低，60 到 100（含）正常，> 100 偏高
+    private static final Rule HEART_RATE = new Rule(new double[]{60, Math.nextUp(100.0)},
+            new String[]{HR_LOW, NORMAL, HR_HIGH}, 300);
+
+    private HealthStatusClassifier() {
+    }
+
+    public static String bmi(double bmi) {
+        return BMI.classify(bmi);
+    }
+
+    public static String bloodPressure(double systolic, double diastolic) {
+        int systolicBand = SYSTOLIC.band(systolic);
+        int diastolicBand = DIASTOLIC.band(diastolic);
+        if (systolicBand == 0 || diastolicBand == 0) {
+            return BP_LOW;
+        }
+        return BP_LABELS[Math.max(systolicBand, diastolicBand)];
+    }
+
+    public static String heartRate(double heartRate) {
+        return HEART_RATE.classify(heartRate);
+    }
+
+    /**
+     * 一项指标的阈值表
+     */
+    static final class Rule {
+        final double[] bounds;
+        final String[] labels;
+        // 整数取值 i 的档位
+        final byte[] lookup;
+
+        Rule(double[] bounds, String[] labels, int maxValue) {
+            if (labels.length != bounds.length + 1) {
+                throw new IllegalArgumentException("状态数必须比阈值数多一个");
+            }
+            this.bounds = bounds;
+            this.labels = labels;
+            this.lookup = new byte[maxValue + 1];
+            for (int i = 0; i <= maxValue; i++) {
+                lookup[i] = (byte) scan(i);
+            }
+        }
+
+        String classify(double value) {
+            return labels[band(value)];
+        }
+
+        int band(double value) {
+            int index = (int) value;
+            if (index == value && index >= 0 && index < lookup.length) {
+                return lookup[index];
+            }
+            return scan(value);
+        }
+
+        int scan(double value) {
+            int band = 0;
+            while (band < bounds.length && value >= bounds[band]) {
+                band++;
+            }
+            return band;
+        }
+    }
+}
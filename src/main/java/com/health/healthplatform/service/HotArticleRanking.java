@@ -0,0 +1,287 @@
+package com.health.healthplatform.service;
+
+import com.health.healthplatform.entity.Article;
+import com.health.healthplatform.mapper.ArticleMapper;
+import com.health.healthplatform.util.TransactionUtils;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 热门文章增量排行
+ * 浏览发生时、点赞和评论所在事务提交后给对应文章加分，排行榜是按分数排序的跳表，取前 K 篇不需要扫表。
+ * 分数按半衰期做时间衰减，采用前向衰减：事件权重乘以 e^(λ·(事件时间 - 基准时间))，
+ * 所有文章共享同一个衰减因子，因此排序不随时间变化，也就不需要定时重算全部分数。
+ * 衰减后的分数定期批量写回 articles.hot_score
+ */
+@Slf4j
+@Service
+public class HotArticleRanking {
+
+    // 权重与原 hot_score 公式保持一致：浏览 1、点赞 3、评论 5
+    public static final double VIEW_WEIGHT = 1;
+    public static final double LIKE_WEIGHT = 3;
+    public static final double COMMENT_WEIGHT = 5;
+
+    // 只有最近 7 天发布的文章参与排行，与 selectHotArticles 一致
+    private static final Duration WINDOW = Duration.ofDays(7);
+    // 分数半衰期
+    private static final Duration HALF_LIFE = Duration.ofHours(24);
+    // 基准时间最多滚动这么久后重新归一化，避免指数过大
+    private static final Duration REBASE_AFTER = Duration.ofDays(30);
+    private static final int FLUSH_BATCH_SIZE = 500;
+
+    private static final double LAMBDA = Math.log(2) / HALF_LIFE.toMillis();
+
+    @Resource
+    private ArticleMapper articleMapper;
+
+    private Clock clock = Clock.systemDefaultZone();
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<Entry> ranking = new ConcurrentSkipListSet<>(
+            Comparator.comparingDouble((Entry e) -> e.score).reversed().thenComparingLong(e -> e.articleId));
+    // 事件加分拿读锁，基准时间重置拿写锁
+    private final ReadWriteLock rebaseLock = new ReentrantReadWriteLock();
+    private volatile long landmark;
+
+    @PostConstruct
+    public void init() {
+        landmark = clock.millis();
+        try {
+            reload();
+        } catch (Exception e) {
+            // 数据库不可用时不影响启动，排行榜为空时读取会回退到数据库查询
+            log.warn("加载热门文章排行失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 从数据库重建排行：最近发布文章的已有计数视为发生在发布时间
+     */
+    public void reload() {
+        entries.clear();
+        ranking.clear();
+        LocalDateTime since = LocalDateTime.now(clock).minus(WINDOW);
+        for (Article article : articleMapper.selectPublishedSince(since)) {
+            double base = nullToZero(article.getViewCount()) * VIEW_WEIGHT
+                    + nullToZero(article.getLikeCount()) * LIKE_WEIGHT
+                    + nullToZero(article.getCommentCount()) * COMMENT_WEIGHT;
+            long publishedAt = toMillis(article.getPublishTime());
+            track(article.getId(), publishedAt);
+            add(article.getId(), base, publishedAt);
+        }
+        log.info("热门文章排行已加载 {} 篇文章", entries.size());
+    }
+
+    /**
+     * 文章发布后加入排行
+     */
+    public void onPublish(Long articleId, LocalDateTime publishTime) {
+        track(articleId, toMillis(publishTime));
+    }
+
+    /**
+     * 事务提交后加入或移出排行，事务回滚时排行不变
+     */
+    public void onPublishAfterCommit(Long articleId, LocalDateTime publishTime) {
+        TransactionUtils.afterCommit(() -> onPublish(articleId, publishTime));
+    }
+
+    public void onDeleteAfterCommit(Long articleId) {
+        TransactionUtils.afterCommit(() -> onDelete(articleId));
+    }
+
+    public void onLikeAfterCommit(Long articleId) {
+        TransactionUtils.afterCommit(() -> onLike(articleId));
+    }
+
+    public void onUnlikeAfterCommit(Long articleId) {
+        TransactionUtils.afterCommit(() -> onUnlike(articleId));
+    }
+
+    public void onCommentAfterCommit(Long articleId) {
+        TransactionUtils.afterCommit(() -> onComment(articleId));
+    }
+
+    public void onView(Long articleId) {
+        add(articleId, VIEW_WEIGHT, clock.millis());
+    }
+
+    public void onLike(Long articleId) {
+        add(articleId, LIKE_WEIGHT, clock.millis());
+    }
+
+    public void onUnlike(Long articleId) {
+        add(articleId, -LIKE_WEIGHT, clock.millis());
+    }
+
+    public void onComment(Long articleId) {
+        add(articleId, COMMENT_WEIGHT, clock.millis());
+    }
+
+    public void onDelete(Long articleId) {
+        entries.computeIfPresent(articleId, (id, entry) -> {
+            ranking.remove(entry);
+            return null;
+        });
+    }
+
+    /**
+     * 当前分数最高的 limit 篇文章 ID
+     * 加分是先删旧节点再插新节点，遍历时可能同时看到同一篇文章的新旧两个节点，按 ID 去重
+     */
+    public List<Long> top(int limit) {
+        Set<Long> ids = new LinkedHashSet<>();
+        for (Entry entry : ranking) {
+            if (ids.size() >= limit) {
+                break;
+            }
+            ids.add(entry.articleId);
+        }
+        return new ArrayList<>(ids);
+    }
+
+    /**
+     * 文章当前衰减后的分数，未在排行中返回 null
+     */
+    public Integer currentScore(Long articleId) {
+        Entry entry = entries.get(articleId);
+        return entry == null ? null : decayed(entry.score);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * 定期维护：移出超过窗口的文章、必要时重置基准时间，并把衰减后的分数批量写回数据库
+     */
+    @Scheduled(fixedDelayString = "${article.hot.flush-interval-ms:60000}",
+            initialDelayString = "${article.hot.flush-interval-ms:60000}")
+    public void flush() {
+        long now = clock.millis();
+        long cutoff = now - WINDOW.toMillis();
+        for (Long articleId : entries.keySet()) {
+            entries.computeIfPresent(articleId, (id, entry) -> {
+                if (entry.publishedAt < cutoff) {
+                    ranking.remove(entry);
+                    return null;
+                }
+                return entry;
+            });
+        }
+
+        if (now - landmark > REBASE_AFTER.toMillis()) {
+            rebase(now);
+        }
+
+        Map<Long, Integer> batch = new HashMap<>();
+        for (Entry entry : entries.values()) {
+            batch.put(entry.articleId, decayed(entry.score));
+            if (batch.size() >= FLUSH_BATCH_SIZE) {
+                writeBatch(batch);
+                batch = new HashMap<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            writeBatch(batch);
+        }
+    }
+
+    private void writeBatch(Map<Long, Integer> batch) {
+        try {
+            articleMapper.batchUpdateHotScore(batch);
+        } catch (Exception e) {
+            log.error("写回热度分数失败", e);
+        }
+    }
+
+    private void track(Long articleId, long publishedAt) {
+        entries.computeIfAbsent(articleId, id -> {
+            Entry entry = new Entry(id, 0, publishedAt);
+            ranking.add(entry);
+            return entry;
+        });
+    }
+
+    private void add(Long articleId, double weight, long eventTime) {
+        rebaseLock.readLock().lock();
+        try {
+            double delta = weight * Math.exp(LAMBDA * (eventTime - landmark));
+            // 跳表元素的排序键不可变，改分数时先删旧节点再插入新节点；compute 保证同一篇文章串行
+            entries.computeIfPresent(articleId, (id, entry) -> {
+                ranking.remove(entry);
+                Entry updated = new Entry(id, entry.score + delta, entry.publishedAt);
+                ranking.add(updated);
+                return updated;
+            });
+        } finally {
+            rebaseLock.readLock().unlock();
+        }
+    }
+
+    private void rebase(long now) {
+        rebaseLock.writeLock().lock();
+        try {
+            double factor = Math.exp(-LAMBDA * (now - landmark));
+            // 跳表和 entries 的改动都在 compute 里做，同时被删除或移出窗口的文章不会被写回来
+            for (Long articleId : entries.keySet()) {
+                entries.computeIfPresent(articleId, (id, entry) -> {
+                    ranking.remove(entry);
+                    Entry updated = new Entry(id, entry.score * factor, entry.publishedAt);
+                    ranking.add(updated);
+                    return updated;
+                });
+            }
+            landmark = now;
+        } finally {
+            rebaseLock.writeLock().unlock();
+        }
+    }
+
+    private int decayed(double score) {
+        return (int) Math.round(score * Math.exp(-LAMBDA * (clock.millis() - landmark)));
+    }
+
+    private long toMillis(LocalDateTime time) {
+        if (time == null) {
+            return clock.millis();
+        }
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static int nullToZero(Integer value) {
+        return value == null ? 0 : value;
+    }
+
+    private static final class Entry {
+        final long articleId;
+        final double score;
+        final long publishedAt;
+
+        Entry(long articleId, double score, long publishedAt) {
+            this.articleId = articleId;
+            this.score = score;
+            this.publishedAt = publishedAt;
+        }
+    }
+}
@@ -3,16 +3,16 @@ package com.health.healthplatform.service;
 import com.health.healthplatform.entity.healthdata.*;
 import com.health.healthplatform.entity.HealthReport.HealthReport;
 import com.health.healthplatform.mapper.health_data.*;
+import com.health.healthplatform.service.health_data.LatestVitalsCache;
+import com.health.healthplatform.service.health_data.UserDailyMetricsService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.time.LocalDate;
-import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 public class IntelligentAnalysisService {
@@ -27,31 +27,19 @@ public class IntelligentAnalysisService {
     private HealthDataMapper healthDataMapper;
 
     @Autowired
-    private WeightHistoryMapper weightHistoryMapper;
+    private LatestVitalsCache latestVitalsCache;
 
     @Autowired
     private HeightHistoryMapper heightHistoryMapper;
 
-    @Autowired
-    private HeartRateHistoryMapper heartRateHistoryMapper;
-
-    @Autowired
-    private BloodPressureHistoryMapper bloodPressureHistoryMapper;
-
     @Autowired
     private BmiHistoryMapper bmiHistoryMapper;
 
     @Autowired
-    private SleepHistoryMapper sleepHistoryMapper;
-
-    @Autowired
-    private StepsHistoryMapper stepsHistoryMapper;
-
-    @Autowired
-    private ExerciseRecordMapper exerciseRecordMapper;
+    private ExerciseGoalMapper exerciseGoalMapper;
 
     @Autowired
-    private ExerciseGoalMapper exerciseGoalMapper;
+    private UserDailyMetricsService userDailyMetricsService;
 
     /**
      * 智能分析用户的综合健康数据
@@ -63,8 +51,6 @@ public class IntelligentAnalysisService {
             // 获取最近30天的数据进行分析
             LocalDate endDate = LocalDate.now();
             LocalDate startDate = endDate.minusDays(30);
-            LocalDateTime startDateTime = startDate.atStartOfDay();
-            LocalDateTime endDateTime = endDate.atTime(23, 59, 59);
 
             // 构建综合健康数据
             Map<String, Object> healthAnalysisData = new HashMap<>();
@@ -77,30 +63,31 @@ public class IntelligentAnalysisService {
                 healthAnalysisData.put("healthDataTrend", analyzeHealthDataTrend(healthDataList));
             }
 
+            // 各项历史按每日聚合分析，读取量与天数成正比
             // 体重历史分析
-            List<WeightHistory> weightHistory = weightHistoryMapper.findByTimeRange(userId, startDateTime, endDateTime);
-            healthAnalysisData.put("weightAnalysis", analyzeWeightTrend(weightHistory));
+            healthAnalysisData.put("weightAnalysis", analyzeWeightTrend(
+                    userDailyMetricsService.findRange(userId, UserDailyMetricsService.WEIGHT, startDate, endDate)));
 
             // 血压历史分析
-            List<BloodPressureHistory> bpHistory = bloodPressureHistoryMapper.findByTimeRange(userId, startDateTime, endDateTime);
-            healthAnalysisData.put("bloodPressureAnalysis", analyzeBloodPressureTrend(bpHistory));
+            healthAnalysisData.put("bloodPressureAnalysis", analyzeBloodPressureTrend(
+                    userDailyMetricsService.findRange(userId, UserDailyMetricsService.BLOOD_PRESSURE, startDate, endDate)));
 
             // 心率历史分析
-            List<HeartRateHistory> hrHistory = heartRateHistoryMapper.findByTimeRange(userId, startDateTime, endDateTime);
-            healthAnalysisData.put("heartRateAnalysis", analyzeHeartRateTrend(hrHistory));
+            healthAnalysisData.put("heartRateAnalysis", analyzeHeartRateTrend(
+                    userDailyMetricsService.findRange(userId, UserDailyMetricsService.HEART_RATE, startDate, endDate)));
 
             // 睡眠历史分析
-            List<SleepHistory> sleepHistory = sleepHistoryMapper.findByTimeRange(userId, startDateTime, endDateTime);
-            healthAnalysisData.put("sleepAnalysis", analyzeSleepTrend(sleepHistory));
+            healthAnalysisData.put("sleepAnalysis", analyzeSleepTrend(
+                    userDailyMetricsService.findRange(userId, UserDailyMetricsService.SLEEP, startDate, endDate)));
 
             // 步数历史分析
-            List<StepsHistory> stepsHistory = stepsHistoryMapper.findByDateRange(userId, startDate, endDate);
-            healthAnalysisData.put("activityAnalysis", analyzeActivityTrend(stepsHistory));
+            healthAnalysisData.put("activityAnalysis", analyzeActivityTrend(
+                    userDailyMetricsService.findRange(userId, UserDailyMetricsService.STEPS, startDate, endDate)));
 
             // 运动记录分析
-            List<ExerciseRecord> exerciseRecords = exerciseRecordMapper.findByDateRange(userId, startDate, endDate);
             ExerciseGoal exerciseGoal = exerciseGoalMapper.findByUserId(userId);
-            healthAnalysisData.put("exerciseAnalysis", analyzeExerciseTrend(exerciseRecords, exerciseGoal));
+            healthAnalysisData.put("exerciseAnalysis", analyzeExerciseTrend(
+                    userDailyMetricsService.findRange(userId, UserDailyMetricsService.EXERCISE, startDate, endDate), exerciseGoal));
 
             String healthDataJson = objectMapper.writeValueAsString(healthAnalysisData);
 
@@ -157,7 +144,7 @@ public class IntelligentAnalysisService {
     public String generateExercisePlan(Integer userId, String goal) {
         try {
             // 获取用户最新健康数据
-            HealthData latestData = healthDataMapper.findLatestByUserId(userId);
+            HealthData latestData = latestVitalsCache.get(userId);
             if (latestData == null) {
                 return "未找到健康数据，请先记录基础健康信息。";
             }
@@ -165,7 +152,8 @@ public class IntelligentAnalysisService {
             // 获取用户运动历史
             LocalDate endDate = LocalDate.now();
             LocalDate startDate = endDate.minusDays(30);
-            List<ExerciseRecord> exerciseHistory = exerciseRecordMapper.findByDateRange(userId, startDate, endDate);
+            Map<String, List<UserDailyMetric>> exerciseHistory =
+                    userDailyMetricsService.findRange(userId, UserDailyMetricsService.EXERCISE, startDate, endDate);
             ExerciseGoal exerciseGoal = exerciseGoalMapper.findByUserId(userId);
 
             // 构建用户档案
@@ -192,10 +180,11 @@ public class IntelligentAnalysisService {
      */
     public String analyzeSleepQuality(Integer userId) {
         try {
-            LocalDateTime endTime = LocalDateTime.now();
-            LocalDateTime startTime = endTime.minusDays(30);
+            LocalDate endDate = LocalDate.now();
+            LocalDate startDate = endDate.minusDays(30);
 
-            List<SleepHistory> sleepHistory = sleepHistoryMapper.findByTimeRange(userId, startTime, endTime);
+            Map<String, List<UserDailyMetric>> sleepHistory =
+                    userDailyMetricsService.findRange(userId, UserDailyMetricsService.SLEEP, startDate, endDate);
 
             if (sleepHistory.isEmpty()) {
                 return "未找到睡眠数据，请先记录睡眠信息。";
@@ -220,7 +209,7 @@ public class IntelligentAnalysisService {
      */
     public String generateNutritionAdvice(Integer userId, String dietaryGoal) {
         try {
-            HealthData latestData = healthDataMapper.findLatestByUserId(userId);
+            HealthData latestData = latestVitalsCache.get(userId);
             if (latestData == null) {
                 return "未找到健康数据，请先记录基础健康信息。";
             }
@@ -228,8 +217,10 @@ public class IntelligentAnalysisService {
             // 获取运动数据以评估能量消耗
             LocalDate endDate = LocalDate.now();
             LocalDate startDate = endDate.minusDays(7);
-            List<ExerciseRecord> exerciseRecords = exerciseRecordMapper.findByDateRange(userId, startDate, endDate);
-            List<StepsHistory> stepsHistory = stepsHistoryMapper.findByDateRange(userId, startDate, endDate);
+            Map<String, List<UserDailyMetric>> exerciseRecords =
+                    userDailyMetricsService.findRange(userId, UserDailyMetricsService.EXERCISE, startDate, endDate);
+            Map<String, List<UserDailyMetric>> stepsHistory =
+                    userDailyMetricsService.findRange(userId, UserDailyMetricsService.STEPS, startDate, endDate);
 
             Map<String, Object> nutritionData = new HashMap<>();
             nutritionData.put("basicHealthData", buildHealthDataMap(latestData));
@@ -331,21 +322,20 @@ public class IntelligentAnalysisService {
     }
 
     // 辅助方法：分析体重趋势
-    private Map<String, Object> analyzeWeightTrend(List<WeightHistory> weightHistory) {
+    private Map<String, Object> analyzeWeightTrend(Map<String, List<UserDailyMetric>> daily) {
         Map<String, Object> analysis = new HashMap<>();
 
-        if (weightHistory.isEmpty()) {
+        UserDailyMetric weight = UserDailyMetricsService.combine(daily.get(UserDailyMetricsService.WEIGHT));
+        if (weight == null) {
             analysis.put("status", "无体重数据");
             return analysis;
         }
 
-        double avgWeight = weightHistory.stream().mapToDouble(WeightHistory::getWeight).average().orElse(0);
-        analysis.put("averageWeight", avgWeight);
-        analysis.put("dataPoints", weightHistory.size());
+        analysis.put("averageWeight", UserDailyMetricsService.average(weight));
+        analysis.put("dataPoints", weight.getSampleCount());
 
-        if (weightHistory.size() >= 2) {
-            double weightChange = weightHistory.get(weightHistory.size() - 1).getWeight() -
-                    weightHistory.get(0).getWeight();
+        if (weight.getSampleCount() >= 2) {
+            double weightChange = weight.getLastValue() - weight.getFirstValue();
             analysis.put("weightChange", weightChange);
             analysis.put("trend", weightChange > 0 ? "上升" : weightChange < 0 ? "下降" : "稳定");
         }
@@ -354,126 +344,122 @@ public class IntelligentAnalysisService {
     }
 
     // 辅助方法：分析血压趋势
-    private Map<String, Object> analyzeBloodPressureTrend(List<BloodPressureHistory> bpHistory) {
+    private Map<String, Object> analyzeBloodPressureTrend(Map<String, List<UserDailyMetric>> daily) {
         Map<String, Object> analysis = new HashMap<>();
 
-        if (bpHistory.isEmpty()) {
+        UserDailyMetric systolic = UserDailyMetricsService.combine(daily.get(UserDailyMetricsService.BP_SYSTOLIC));
+        UserDailyMetric diastolic = UserDailyMetricsService.combine(daily.get(UserDailyMetricsService.BP_DIASTOLIC));
+        if (systolic == null) {
             analysis.put("status", "无血压数据");
             return analysis;
         }
 
-        double avgSystolic = bpHistory.stream().mapToDouble(BloodPressureHistory::getSystolic).average().orElse(0);
-        double avgDiastolic = bpHistory.stream().mapToDouble(BloodPressureHistory::getDiastolic).average().orElse(0);
-
         analysis.put("averages", Map.of(
-                "systolic", avgSystolic,
-                "diastolic", avgDiastolic
+                "systolic", UserDailyMetricsService.average(systolic),
+                "diastolic", UserDailyMetricsService.average(diastolic)
         ));
-        analysis.put("dataPoints", bpHistory.size());
+        analysis.put("dataPoints", systolic.getSampleCount());
 
         return analysis;
     }
 
     // 辅助方法：分析心率趋势
-    private Map<String, Object> analyzeHeartRateTrend(List<HeartRateHistory> hrHistory) {
+    private Map<String, Object> analyzeHeartRateTrend(Map<String, List<UserDailyMetric>> daily) {
         Map<String, Object> analysis = new HashMap<>();
 
-        if (hrHistory.isEmpty()) {
+        UserDailyMetric heartRate = UserDailyMetricsService.combine(daily.get(UserDailyMetricsService.HEART_RATE));
+        if (heartRate == null) {
             analysis.put("status", "无心率数据");
             return analysis;
         }
 
-        double avgHeartRate = hrHistory.stream().mapToDouble(HeartRateHistory::getHeartRate).average().orElse(0);
-        analysis.put("averageHeartRate", avgHeartRate);
-        analysis.put("dataPoints", hrHistory.size());
+        analysis.put("averageHeartRate", UserDailyMetricsService.average(heartRate));
+        analysis.put("dataPoints", heartRate.getSampleCount());
 
         return analysis;
     }
 
     // 辅助方法：分析睡眠趋势
-    private Map<String, Object> analyzeSleepTrend(List<SleepHistory> sleepHistory) {
+    private Map<String, Object> analyzeSleepTrend(Map<String, List<UserDailyMetric>> daily) {
         Map<String, Object> analysis = new HashMap<>();
 
-        if (sleepHistory.isEmpty()) {
+        UserDailyMetric duration = UserDailyMetricsService.combine(daily.get(UserDailyMetricsService.SLEEP_DURATION));
+        if (duration == null) {
             analysis.put("status", "无睡眠数据");
             return analysis;
         }
 
-        double avgDuration = sleepHistory.stream().mapToDouble(SleepHistory::getSleepDuration).average().orElse(0);
-        double avgDeepSleep = sleepHistory.stream().mapToDouble(SleepHistory::getDeepSleep).average().orElse(0);
-        double avgLightSleep = sleepHistory.stream().mapToDouble(SleepHistory::getLightSleep).average().orElse(0);
-        double avgRemSleep = sleepHistory.stream().mapToDouble(SleepHistory::getRemSleep).average().orElse(0);
-
         analysis.put("averages", Map.of(
-                "duration", avgDuration,
-                "deepSleep", avgDeepSleep,
-                "lightSleep", avgLightSleep,
-                "remSleep", avgRemSleep
+                "duration", UserDailyMetricsService.average(duration),
+                "deepSleep", UserDailyMetricsService.average(
+                        UserDailyMetricsService.combine(daily.get(UserDailyMetricsService.SLEEP_DEEP))),
+                "lightSleep", UserDailyMetricsService.average(
+                        UserDailyMetricsService.combine(daily.get(UserDailyMetricsService.SLEEP_LIGHT))),
+                "remSleep", UserDailyMetricsService.average(
+                        UserDailyMetricsService.combine(daily.get(UserDailyMetricsService.SLEEP_REM)))
         ));
 
         // 计算睡眠质量分布
-        Map<String, Long> qualityDistribution = sleepHistory.stream()
-                .collect(Collectors.groupingBy(SleepHistory::getSleepQuality, Collectors.counting()));
-        analysis.put("qualityDistribution", qualityDistribution);
+        analysis.put("qualityDistribution",
+                UserDailyMetricsService.distribution(daily, UserDailyMetricsService.SLEEP_QUALITY));
 
-        analysis.put("dataPoints", sleepHistory.size());
+        analysis.put("dataPoints", duration.getSampleCount());
 
         return analysis;
     }
 
     // 辅助方法：分析活动趋势
-    private Map<String, Object> analyzeActivityTrend(List<StepsHistory> stepsHistory) {
+    private Map<String, Object> analyzeActivityTrend(Map<String, List<UserDailyMetric>> daily) {
         Map<String, Object> analysis = new HashMap<>();
 
-        if (stepsHistory.isEmpty()) {
+        UserDailyMetric steps = UserDailyMetricsService.combine(daily.get(UserDailyMetricsService.STEPS_COUNT));
+        if (steps == null) {
             analysis.put("status", "无步数数据");
             return analysis;
         }
 
-        double avgSteps = stepsHistory.stream().mapToInt(StepsHistory::getSteps).average().orElse(0);
-        double avgDistance = stepsHistory.stream().mapToDouble(StepsHistory::getDistance).average().orElse(0);
-        double avgCalories = stepsHistory.stream().mapToDouble(StepsHistory::getCalories).average().orElse(0);
-
         analysis.put("averages", Map.of(
-                "steps", avgSteps,
-                "distance", avgDistance,
-                "calories", avgCalories
+                "steps", UserDailyMetricsService.average(steps),
+                "distance", UserDailyMetricsService.average(
+                        UserDailyMetricsService.combine(daily.get(UserDailyMetricsService.STEPS_DISTANCE))),
+                "calories", UserDailyMetricsService.average(
+                        UserDailyMetricsService.combine(daily.get(UserDailyMetricsService.STEPS_CALORIES)))
         ));
 
         // 计算目标达成率
-        long goalAchievedDays = stepsHistory.stream()
-                .mapToLong(sh -> sh.getSteps() >= sh.getTarget() ? 1L : 0L)
-                .sum();
-        double achievementRate = (double) goalAchievedDays / stepsHistory.size() * 100;
+        UserDailyMetric goalMet = UserDailyMetricsService.combine(daily.get(UserDailyMetricsService.STEPS_GOAL_MET));
+        double achievementRate = goalMet == null ? 0 : goalMet.getSumValue() / steps.getSampleCount() * 100;
         analysis.put("goalAchievementRate", achievementRate);
 
-        analysis.put("dataPoints", stepsHistory.size());
+        analysis.put("dataPoints", steps.getSampleCount());
 
         return analysis;
     }
 
     // 辅助方法：分析运动趋势
-    private Map<String, Object> analyzeExerciseTrend(List<ExerciseRecord> exerciseRecords, ExerciseGoal exerciseGoal) {
+    private Map<String, Object> analyzeExerciseTrend(Map<String, List<UserDailyMetric>> daily, ExerciseGoal exerciseGoal) {
         Map<String, Object> analysis = new HashMap<>();
 
-        if (exerciseRecords.isEmpty()) {
+        UserDailyMetric duration = UserDailyMetricsService.combine(daily.get(UserDailyMetricsService.EXERCISE_DURATION));
+        if (duration == null) {
             analysis.put("status", "无运动数据");
             return analysis;
         }
 
-        int totalDuration = exerciseRecords.stream().mapToInt(ExerciseRecord::getDuration).sum();
-        int totalCalories = exerciseRecords.stream().mapToInt(ExerciseRecord::getCalories).sum();
+        UserDailyMetric calories = UserDailyMetricsService.combine(daily.get(UserDailyMetricsService.EXERCISE_CALORIES));
+        int totalDuration = duration.getSumValue().intValue();
+        int totalCalories = calories == null ? 0 : calories.getSumValue().intValue();
+        int exerciseCount = duration.getSampleCount();
 
         analysis.put("totals", Map.of(
                 "duration", totalDuration,
                 "calories", totalCalories,
-                "exerciseCount", exerciseRecords.size()
+                "exerciseCount", exerciseCount
         ));
 
         // 运动类型分布
-        Map<String, Long> exerciseTypeDistribution = exerciseRecords.stream()
-                .collect(Collectors.groupingBy(ExerciseRecord::getExerciseType, Collectors.counting()));
-        analysis.put("exerciseTypeDistribution", exerciseTypeDistribution);
+        analysis.put("exerciseTypeDistribution",
+                UserDailyMetricsService.distribution(daily, UserDailyMetricsService.EXERCISE_TYPE));
 
         // 目标达成情况
         if (exerciseGoal != null) {
@@ -483,7 +469,7 @@ public class IntelligentAnalysisService {
                     "weeklyCaloriesGoal", exerciseGoal.getWeeklyCaloriesGoal(),
                     "actualCalories", totalCalories,
                     "weeklyCountGoal", exerciseGoal.getWeeklyCountGoal(),
-                    "actualCount", exerciseRecords.size()
+                    "actualCount", exerciseCount
             ));
         }
 
@@ -491,15 +477,19 @@ public class IntelligentAnalysisService {
     }
 
     // 辅助方法：分析活动水平
-    private Map<String, Object> analyzeActivityLevel(List<ExerciseRecord> exerciseRecords, List<StepsHistory> stepsHistory) {
+    private Map<String, Object> analyzeActivityLevel(Map<String, List<UserDailyMetric>> exerciseDaily,
+                                                     Map<String, List<UserDailyMetric>> stepsDaily) {
         Map<String, Object> activityLevel = new HashMap<>();
 
         // 运动活动水平
-        int totalExerciseDuration = exerciseRecords.stream().mapToInt(ExerciseRecord::getDuration).sum();
+        UserDailyMetric exerciseDuration = UserDailyMetricsService.combine(
+                exerciseDaily.get(UserDailyMetricsService.EXERCISE_DURATION));
+        int totalExerciseDuration = exerciseDuration == null ? 0 : exerciseDuration.getSumValue().intValue();
         activityLevel.put("weeklyExerciseDuration", totalExerciseDuration);
 
         // 日常活动水平
-        double avgDailySteps = stepsHistory.stream().mapToDouble(StepsHistory::getSteps).average().orElse(0);
+        double avgDailySteps = UserDailyMetricsService.average(
+                UserDailyMetricsService.combine(stepsDaily.get(UserDailyMetricsService.STEPS_COUNT)));
         activityLevel.put("averageDailySteps", avgDailySteps);
 
         // 活动水平评估
@@ -515,4 +505,4 @@ public class IntelligentAnalysisService {
 
         return activityLevel;
     }
-}
\ No newline at end of file
+}
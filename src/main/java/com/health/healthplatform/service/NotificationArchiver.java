@@ -0,0 +1,133 @@
+package com.health.healthplatform.service;
+
+import com.health.healthplatform.mapper.NotificationMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 通知归档
+ * 主表只保留最近一段时间（默认 90 天）的通知和所有未读通知，更早的已读通知每天夜里移到 notifications_archive。
+ * 按主键分段处理，每段在独立的短事务里先复制再删除，段与段之间停顿一下，不长时间锁住主表。
+ * 归档在自己的线程上执行，不占用定时任务线程（浏览量刷盘、通知合并、WebSocket 心跳都在上面）。
+ * 读取时由 NotificationServiceImpl 在两张表之间接续翻页
+ */
+@Slf4j
+@Service
+public class NotificationArchiver {
+
+    @Resource
+    private NotificationMapper notificationMapper;
+
+    @Resource
+    private TransactionTemplate transactionTemplate;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    @Value("${notification.retention-days:90}")
+    private int retentionDays = 90;
+
+    @Value("${notification.archive.chunk-size:1000}")
+    private int chunkSize = 1000;
+
+    @Value("${notification.archive.pause-ms:50}")
+    private long pauseMs = 50;
+
+    private Counter archived;
+
+    private ExecutorService executor;
+
+    // 上一次归档还没跑完时不再排队
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @PostConstruct
+    public void init() {
+        archived = Counter.builder("notification.archived")
+                .description("移入归档表的通知数")
+                .register(meterRegistry);
+        executor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "notification-archive");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 早于这个时间的已读通知不在主表
+     */
+    public LocalDateTime cutoff() {
+        return LocalDateTime.now().minusDays(retentionDays);
+    }
+
+    @Scheduled(cron = "${notification.archive.cron:0 30 3 * * ?}")
+    public void scheduleArchive() {
+        if (!running.compareAndSet(false, true)) {
+            log.warn("上一次通知归档尚未结束，跳过本次");
+            return;
+        }
+        executor.execute(() -> {
+            try {
+                archive();
+            } catch (Exception e) {
+                log.error("通知归档失败", e);
+            } finally {
+                running.set(false);
+            }
+        });
+    }
+
+    public void archive() {
+        LocalDateTime cutoff = cutoff();
+        long afterId = 0;
+        int total = 0;
+        while (true) {
+            List<Long> ids = notificationMapper.selectArchivableIds(cutoff, afterId, chunkSize);
+            if (ids.isEmpty()) {
+                break;
+            }
+            try {
+                Integer moved = transactionTemplate.execute(status -> {
+                    notificationMapper.copyToArchive(ids);
+                    return notificationMapper.deleteArchived(ids);
+                });
+                total += moved == null ? 0 : moved;
+                archived.increment(moved == null ? 0 : moved);
+            } catch (Exception e) {
+                // 这一段留在主表，下次再归档
+                log.error("归档通知失败, id {} ~ {}", ids.get(0), ids.get(ids.size() - 1), e);
+            }
+            afterId = ids.get(ids.size() - 1);
+            if (ids.size() < chunkSize) {
+                break;
+            }
+            try {
+                Thread.sleep(pauseMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        log.info("通知归档完成，共移出 {} 条 {} 之前的已读通知", total, cutoff);
+    }
+}
@@ -0,0 +1,345 @@
+package com.health.healthplatform.service;
+
+import com.health.healthplatform.entity.Article;
+import com.health.healthplatform.entity.Notification;
+import com.health.healthplatform.entity.User;
+import com.health.healthplatform.mapper.NotificationMapper;
+import com.health.healthplatform.mapper.UserMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 通知合并
+ * 同一接收人、同一文章、同一类型的通知，第一条照常投递；之后的只在内存里计数，
+ * 每个窗口结束时把累计结果原地更新到那一条未读通知上（“张三 等 153 人点赞了你的文章”）并推送一次。
+ * 人数按不同的发送者计；原地更新只改内容和 last_event_time，create_time 不变，通知在分页里的位置不动。
+ * 一篇爆款文章对作者只保留一条未读通知，未读数保持准确；用户读过之后重新开始计数，下一次点赞产生新通知
+ */
+@Slf4j
+@Service
+public class NotificationCoalescer {
+
+    // 可合并的通知类型及合并后的文案：发送者、人数、文章标题
+    private static final Map<String, String> TEMPLATES = Map.of(
+            "like", "%s 等 %d 人点赞了你的文章 《%s》",
+            "comment", "%s 等 %d 人评论了你的文章《%s》");
+
+    // 一条合并通知在没有新事件多久后不再跟踪
+    private static final long IDLE_MILLIS = 60 * 60 * 1000L;
+
+    // 首条通知投递后这么久仍没有回填 ID，视为写库失败
+    private static final long HEAD_WRITE_TIMEOUT_MILLIS = 60 * 1000L;
+
+    @Resource
+    private NotificationDispatcher notificationDispatcher;
+
+    @Resource
+    private NotificationMapper notificationMapper;
+
+    @Resource
+    private UserMapper userMapper;
+
+    @Resource
+    private ArticleDetailCache articleDetailCache;
+
+    @Value("${notification.coalesce.types:like}")
+    private Set<String> coalescedTypes = Set.of("like");
+
+    // 接收人 -> (文章ID:类型 -> 合并组)
+    private final ConcurrentHashMap<Integer, ConcurrentHashMap<String, Group>> groups = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        notificationDispatcher.addWriteListener(this::onWritten);
+    }
+
+    /**
+     * 接收一条通知：不可合并的直接投递，可合并的首条投递、后续计数
+     */
+    public void offer(Notification notification) {
+        if (notification.getArticleId() == null || !coalescedTypes.contains(notification.getType())
+                || !TEMPLATES.containsKey(notification.getType())) {
+            notificationDispatcher.enqueue(notification);
+            return;
+        }
+        String key = key(notification);
+        boolean[] first = new boolean[1];
+        groups.computeIfAbsent(notification.getUserId(), k -> new ConcurrentHashMap<>())
+                .compute(key, (k, group) -> {
+                    if (group == null) {
+                        first[0] = true;
+                        return new Group(notification);
+                    }
+                    group.add(notification);
+                    return group;
+                });
+        if (first[0]) {
+            notificationDispatcher.enqueue(notification);
+        }
+    }
+
+    /**
+     * 一批通知写库后，把各组首条回填的 ID 经 volatile 字段发布给 flush 和 onRead 所在的线程
+     */
+    void onWritten(List<Notification> batch) {
+        for (Notification notification : batch) {
+            if (notification.getId() == null) {
+                continue;
+            }
+            Map<String, Group> userGroups = groups.get(notification.getUserId());
+            Group group = userGroups == null ? null : userGroups.get(key(notification));
+            if (group != null && group.head == notification) {
+                group.headId = notification.getId();
+            }
+        }
+    }
+
+    /**
+     * 用户读了某条通知，对应的合并组结束
+     */
+    public void onRead(Integer userId, Long notificationId) {
+        Map<String, Group> userGroups = groups.get(userId);
+        if (userGroups != null) {
+            userGroups.values().removeIf(group -> notificationId.equals(group.headId));
+        }
+    }
+
+    public void onReadAll(Integer userId) {
+        groups.remove(userId);
+    }
+
+    public int trackedGroups() {
+        int total = 0;
+        for (Map<String, Group> userGroups : groups.values()) {
+            total += userGroups.size();
+        }
+        return total;
+    }
+
+    /**
+     * 每个窗口把有新事件的组写回并推送；首条超时仍未写入数据库的组不再等待，积攒的事件作为新通知投递
+     */
+    @Scheduled(fixedDelayString = "${notification.coalesce.window-ms:10000}")
+    public void flush() {
+        long now = System.currentTimeMillis();
+        List<Group> dirty = new ArrayList<>();
+        List<Group> orphaned = new ArrayList<>();
+        for (Map<String, Group> userGroups : groups.values()) {
+            userGroups.values().removeIf(group -> !group.isDirty() && now - group.lastEventAt > IDLE_MILLIS);
+            for (Group group : userGroups.values()) {
+                if (group.headId != null) {
+                    if (group.isDirty()) {
+                        dirty.add(group);
+                    }
+                } else if (now - group.createdAt > HEAD_WRITE_TIMEOUT_MILLIS
+                        && userGroups.remove(key(group.head), group) && group.isDirty()) {
+                    // 首条写库失败：移除后不会再有事件计入这个组
+                    orphaned.add(group);
+                }
+            }
+        }
+        groups.values().removeIf(Map::isEmpty);
+        if (dirty.isEmpty() && orphaned.isEmpty()) {
+            return;
+        }
+
+        // 所有组的最新发送者一次查出
+        Set<Integer> senderIds = new HashSet<>();
+        for (Group group : dirty) {
+            senderIds.add(group.latestSenderId);
+        }
+        for (Group group : orphaned) {
+            senderIds.add(group.latestSenderId);
+        }
+        Map<Integer, User> senders = new HashMap<>();
+        for (User user : userMapper.selectByIds(senderIds)) {
+            senders.put(user.getId(), user);
+        }
+
+        for (Group group : dirty) {
+            try {
+                write(group, senders.get(group.latestSenderId));
+            } catch (Exception e) {
+                log.error("更新合并通知失败, notificationId={}，本窗口的事件留到下个窗口", group.headId, e);
+            }
+        }
+        for (Group group : orphaned) {
+            log.warn("合并通知首条未能写入, userId={}, articleId={}，积攒的事件改为新通知投递",
+                    group.head.getUserId(), group.head.getArticleId());
+            // 这些发送者一个都没有进过数据库，新通知把他们全部算上
+            Notification aggregated = group.snapshot();
+            deliverFresh(group, aggregated, senders.get(aggregated.getSenderId()), group.senders());
+        }
+    }
+
+    private void write(Group group, User sender) {
+        Notification aggregated = group.snapshot();
+        int updated;
+        try {
+            aggregated.setMessage(message(aggregated, sender, group.total()));
+            updated = notificationMapper.updateUnreadAggregate(aggregated);
+        } catch (RuntimeException e) {
+            // 没写进去：取出的发送者放回待写回，下个窗口重试
+            group.restore();
+            throw e;
+        }
+
+        if (updated > 0) {
+            aggregated.setCreateTime(group.head.getCreateTime());
+            notificationDispatcher.push(aggregated);
+            return;
+        }
+        // 原通知已被读过（或已删除）：本窗口的事件作为一条新通知投递，并以它为新的合并起点
+        deliverFresh(group, aggregated, sender, group.lastBatch());
+    }
+
+    /**
+     * 把 group 最近一次取出的事件作为新通知投递；map 里仍是 group（或已无组）时由新组接替，
+     * 替换在同一个 compute 里完成，期间 offer 计入旧组的事件一并转给新组
+     */
+    private void deliverFresh(Group group, Notification aggregated, User sender, Set<Integer> people) {
+        aggregated.setMessage(message(aggregated, sender, people.size()));
+        Group fresh = group.restart(aggregated, people);
+        groups.computeIfAbsent(aggregated.getUserId(), k -> new ConcurrentHashMap<>())
+                .compute(key(aggregated), (k, current) -> {
+                    if (current == null || current == group) {
+                        fresh.absorb(group);
+                        return fresh;
+                    }
+                    return current;
+                });
+        notificationDispatcher.enqueue(fresh.head);
+    }
+
+    private String message(Notification aggregated, User sender, int people) {
+        Article article = articleDetailCache.get(aggregated.getArticleId());
+        String senderName = sender == null ? "有人" : sender.getUsername();
+        String title = article == null ? "" : article.getTitle();
+        return String.format(TEMPLATES.get(aggregated.getType()), senderName, people, title);
+    }
+
+    private static String key(Notification notification) {
+        return notification.getArticleId() + ":" + notification.getType();
+    }
+
+    private static final class Group {
+        final Notification head;
+        // head 写库后回填的 ID，由写库线程发布；为空表示还没写入
+        volatile Long headId;
+        // 已写入 head 的发送者，和之后新增但尚未写回的发送者；同一人重复点赞只算一次
+        final Set<Integer> written = new HashSet<>();
+        Set<Integer> pending = new HashSet<>();
+        // 最近一次写回新增的发送者
+        Set<Integer> lastBatch = Set.of();
+        volatile Integer latestSenderId;
+        final long createdAt;
+        volatile long lastEventAt;
+
+        Group(Notification head) {
+            this.head = head;
+            this.written.add(head.getSenderId());
+            this.latestSenderId = head.getSenderId();
+            this.createdAt = System.currentTimeMillis();
+            this.lastEventAt = createdAt;
+        }
+
+        synchronized void add(Notification notification) {
+            Integer senderId = notification.getSenderId();
+            if (!written.contains(senderId) && pending.add(senderId)) {
+                latestSenderId = senderId;
+            }
+            lastEventAt = System.currentTimeMillis();
+        }
+
+        synchronized boolean isDirty() {
+            return !pending.isEmpty();
+        }
+
+        synchronized int total() {
+            return written.size();
+        }
+
+        synchronized Set<Integer> lastBatch() {
+            return lastBatch;
+        }
+
+        synchronized Set<Integer> senders() {
+            return new HashSet<>(written);
+        }
+
+        /**
+         * 取出待写回的内容，并把新增的发送者计入已写回
+         */
+        synchronized Notification snapshot() {
+            lastBatch = pending;
+            written.addAll(pending);
+            pending = new HashSet<>();
+            Notification aggregated = new Notification();
+            aggregated.setId(headId);
+            aggregated.setUserId(head.getUserId());
+            aggregated.setSenderId(latestSenderId);
+            aggregated.setType(head.getType());
+            aggregated.setArticleId(head.getArticleId());
+            aggregated.setIsRead(false);
+            aggregated.setLastEventTime(LocalDateTime.now());
+            return aggregated;
+        }
+
+        /**
+         * 撤销最近一次 snapshot：那批发送者没有写回，放回待写回
+         */
+        synchronized void restore() {
+            written.removeAll(lastBatch);
+            pending.addAll(lastBatch);
+            lastBatch = Set.of();
+        }
+
+        /**
+         * 原通知不可再更新时，以本次合并结果开一个新组，新组已包含 people 这些发送者
+         */
+        synchronized Group restart(Notification aggregated, Set<Integer> people) {
+            Notification fresh = new Notification();
+            fresh.setUserId(aggregated.getUserId());
+            fresh.setSenderId(aggregated.getSenderId());
+            fresh.setType(aggregated.getType());
+            fresh.setArticleId(aggregated.getArticleId());
+            fresh.setMessage(aggregated.getMessage());
+            fresh.setIsRead(false);
+            fresh.setCreateTime(aggregated.getLastEventTime());
+            Group group = new Group(fresh);
+            group.written.clear();
+            group.written.addAll(people);
+            return group;
+        }
+
+        /**
+         * 接收 old 在取出之后又计入的事件
+         */
+        synchronized void absorb(Group old) {
+            for (Integer senderId : old.drainPending()) {
+                if (!written.contains(senderId) && pending.add(senderId)) {
+                    latestSenderId = senderId;
+                }
+            }
+        }
+
+        synchronized Set<Integer> drainPending() {
+            Set<Integer> drained = pending;
+            pending = new HashSet<>();
+            return drained;
+        }
+    }
+}
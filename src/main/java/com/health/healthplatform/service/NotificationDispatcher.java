@@ -0,0 +1,328 @@
+package com.health.healthplatform.service;
+
+import com.health.healthplatform.entity.Notification;
+import com.health.healthplatform.mapper.NotificationMapper;
+import com.health.healthplatform.websocket.NotificationWebSocketHandler;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 通知异步投递
+ * 业务事务提交后（经 NotificationCoalescer 合并）才把通知放进有界队列，后台线程每隔几毫秒攒一批，用一条多行 INSERT 写库，
+ * 写库后交给推送线程池逐个发到 WebSocket。点赞、评论请求只做一次入队，不等数据库也不等套接字。
+ * 队列满时由调用线程直接写库（不推送），以此反压而不丢通知。
+ * 开启摘要模式后，推送按接收人缓冲，每个周期合并成一条。
+ * 写库后同时更新接收人的未读计数，并把计数变化推给客户端
+ */
+@Slf4j
+@Service
+public class NotificationDispatcher {
+
+    @Resource
+    private NotificationMapper notificationMapper;
+
+    @Resource
+    private NotificationWebSocketHandler webSocketHandler;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    @Resource
+    private NotificationUnreadCounter unreadCounter;
+
+    @Value("${notification.queue.capacity:10000}")
+    private int capacity = 10000;
+
+    @Value("${notification.batch.max-size:500}")
+    private int maxBatchSize = 500;
+
+    // 收到第一条后最多再等这么久凑批
+    @Value("${notification.batch.linger-ms:5}")
+    private long lingerMs = 5;
+
+    @Value("${notification.push.threads:2}")
+    private int pushThreads = 2;
+
+    // 摘要模式：推送按接收人攒起来，每个周期每人只发一条
+    @Value("${notification.digest.enabled:false}")
+    private boolean digestEnabled;
+
+    private final ConcurrentHashMap<Integer, List<Notification>> digestBuffer = new ConcurrentHashMap<>();
+
+    // 通知写库回填 ID 后的回调，在写库线程上调用
+    private final List<Consumer<List<Notification>>> writeListeners = new CopyOnWriteArrayList<>();
+
+    private BlockingQueue<Notification> queue;
+    private ThreadPoolExecutor pushExecutor;
+    private Thread worker;
+    private volatile boolean running;
+
+    private Counter enqueued;
+    private Counter overflowed;
+    private Counter insertFailures;
+    private Counter pushDropped;
+    private Timer insertTimer;
+    private DistributionSummary batchSizes;
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(capacity);
+        pushExecutor = new ThreadPoolExecutor(pushThreads, pushThreads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capacity), r -> {
+                    Thread thread = new Thread(r, "notification-push");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        Gauge.builder("notification.queue.size", queue, BlockingQueue::size)
+                .description("等待写库的通知数")
+                .register(meterRegistry);
+        Gauge.builder("notification.queue.remaining", queue, BlockingQueue::remainingCapacity)
+                .register(meterRegistry);
+        Gauge.builder("notification.push.pending", pushExecutor, e -> e.getQueue().size())
+                .description("等待推送的通知数")
+                .register(meterRegistry);
+        enqueued = Counter.builder("notification.enqueued").register(meterRegistry);
+        overflowed = Counter.builder("notification.queue.overflow")
+                .description("队列已满、由调用线程直接写库的通知数")
+                .register(meterRegistry);
+        insertFailures = Counter.builder("notification.insert.failures").register(meterRegistry);
+        pushDropped = Counter.builder("notification.push.dropped")
+                .description("推送队列已满被丢弃的推送数（通知已入库）")
+                .register(meterRegistry);
+        insertTimer = Timer.builder("notification.batch.insert").register(meterRegistry);
+        batchSizes = DistributionSummary.builder("notification.batch.size").register(meterRegistry);
+
+        running = true;
+        worker = new Thread(this::runWorker, "notification-writer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    public void enqueue(Notification notification) {
+        if (queue.offer(notification)) {
+            enqueued.increment();
+            return;
+        }
+        // 队列已满：调用方自己写库，保证通知不丢，推送跳过
+        overflowed.increment();
+        try {
+            notificationMapper.insert(notification);
+            written(List.of(notification));
+            countUnread(List.of(notification));
+        } catch (Exception e) {
+            insertFailures.increment();
+            log.error("写入通知失败, userId={}", notification.getUserId(), e);
+        }
+    }
+
+    /**
+     * 注册写库回调：每批通知写库（回填 ID）后调用，批里写入失败的通知 ID 仍为空
+     */
+    public void addWriteListener(Consumer<List<Notification>> listener) {
+        writeListeners.add(listener);
+    }
+
+    public int pending() {
+        return queue.size();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+            try {
+                worker.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // 停机前把剩余通知写库
+        List<Notification> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        for (int from = 0; from < rest.size(); from += maxBatchSize) {
+            List<Notification> batch = rest.subList(from, Math.min(from + maxBatchSize, rest.size()));
+            if (write(batch)) {
+                written(batch);
+                countUnread(batch);
+            }
+        }
+        if (pushExecutor != null) {
+            pushExecutor.shutdown();
+        }
+    }
+
+    private void runWorker() {
+        while (running) {
+            try {
+                Notification first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                List<Notification> batch = new ArrayList<>(maxBatchSize);
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMs);
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    Notification next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                if (write(batch)) {
+                    written(batch);
+                    countUnread(batch);
+                    push(batch);
+                }
+            } catch (InterruptedException e) {
+                if (!running) {
+                    return;
+                }
+            } catch (Exception e) {
+                log.error("通知投递线程异常", e);
+            }
+        }
+    }
+
+    private boolean write(List<Notification> batch) {
+        long start = System.nanoTime();
+        try {
+            notificationMapper.batchInsert(batch);
+            batchSizes.record(batch.size());
+            return true;
+        } catch (Exception e) {
+            // 整批失败时逐条重试，避免一条坏数据拖累整批
+            log.warn("批量写入通知失败，改为逐条写入: {}", e.getMessage());
+            boolean any = false;
+            for (Notification notification : batch) {
+                try {
+                    notificationMapper.insert(notification);
+                    any = true;
+                } catch (Exception single) {
+                    insertFailures.increment();
+                    log.error("写入通知失败, userId={}", notification.getUserId(), single);
+                }
+            }
+            return any;
+        } finally {
+            insertTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void written(List<Notification> batch) {
+        for (Consumer<List<Notification>> listener : writeListeners) {
+            try {
+                listener.accept(batch);
+            } catch (Exception e) {
+                log.error("通知写库回调失败", e);
+            }
+        }
+    }
+
+    /**
+     * 按接收人汇总这批成功入库的通知，加到未读计数上并推送变化
+     */
+    private void countUnread(List<Notification> batch) {
+        Map<Integer, Integer> deltas = new HashMap<>();
+        for (Notification notification : batch) {
+            if (notification.getId() != null) {
+                deltas.merge(notification.getUserId(), 1, Integer::sum);
+            }
+        }
+        try {
+            Map<Integer, Integer> counts = unreadCounter.increment(deltas);
+            deltas.forEach((userId, delta) -> pushUnreadCount(userId, delta, counts.get(userId)));
+        } catch (Exception e) {
+            log.error("更新未读计数失败", e);
+        }
+    }
+
+    /**
+     * 推送未读数变化，不参与摘要合并；count 为空时客户端只按 delta 累加
+     */
+    public void pushUnreadCount(Integer userId, int delta, Integer count) {
+        Map<String, Object> message = new HashMap<>();
+        message.put("type", "unread_count");
+        message.put("delta", delta);
+        message.put("count", count);
+        submit(userId, message);
+    }
+
+    private void push(List<Notification> batch) {
+        for (Notification notification : batch) {
+            if (notification.getId() != null) {
+                push(notification);
+            }
+        }
+    }
+
+    /**
+     * 推送一条已入库的通知；摘要模式下先放进接收人的缓冲
+     */
+    public void push(Notification notification) {
+        if (digestEnabled) {
+            digestBuffer.compute(notification.getUserId(), (userId, pending) -> {
+                List<Notification> list = pending == null ? new ArrayList<>() : pending;
+                list.add(notification);
+                return list;
+            });
+            return;
+        }
+        submit(notification.getUserId(), notification);
+    }
+
+    /**
+     * 摘要模式下定期把每个接收人攒下的通知合成一条推送
+     */
+    @Scheduled(fixedDelayString = "${notification.digest.window-ms:10000}")
+    public void flushDigest() {
+        for (Integer userId : digestBuffer.keySet()) {
+            List<Notification> pending = digestBuffer.remove(userId);
+            if (pending == null || pending.isEmpty()) {
+                continue;
+            }
+            if (pending.size() == 1) {
+                submit(userId, pending.get(0));
+                continue;
+            }
+            Map<String, Object> digest = new HashMap<>();
+            digest.put("type", "digest");
+            digest.put("count", pending.size());
+            digest.put("notifications", pending);
+            submit(userId, digest);
+        }
+    }
+
+    private void submit(Integer userId, Object payload) {
+        try {
+            pushExecutor.execute(() -> webSocketHandler.sendNotificationToUser(userId, payload));
+        } catch (RejectedExecutionException e) {
+            pushDropped.increment();
+        }
+    }
+}
@@ -2,10 +2,12 @@ package com.health.healthplatform.service;
 
 import com.health.healthplatform.entity.Notification;
 import java.util.List;
+import java.util.Map;
 
 public interface NotificationService {
     void createNotification(Integer userId, Integer senderId, String type, String message, Long articleId);
     List<Notification> getUserNotifications(Integer userId);
+    Map<String, Object> getUserNotifications(Integer userId, String cursor, int size);
     void markAsRead(Integer userId, Long notificationId);
     void markAllAsRead(Integer userId);
     int getUnreadCount(Integer userId);
@@ -0,0 +1,111 @@
+package com.health.healthplatform.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.health.healthplatform.mapper.NotificationMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 未读通知计数
+ * 计数持久化在 notification_unread_counts，内存里按用户缓存一份，角标查询不再 COUNT(*)。
+ * 新通知入库时加、单条已读时减，数据库和内存同时改。
+ * 全部已读时不直接清零，而是按 notifications 的实际未读条数重写计数表并丢弃内存值，
+ * 和已读更新并发写入的新通知不会被清掉，之前累积的偏差也在这里修正
+ */
+@Service
+public class NotificationUnreadCounter {
+
+    @Resource
+    private NotificationMapper notificationMapper;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    @Value("${notification.unread.cache.max-size:100000}")
+    private long maxSize = 100000;
+
+    @Value("${notification.unread.cache.ttl-minutes:30}")
+    private long ttlMinutes = 30;
+
+    private Cache<Integer, AtomicInteger> cache;
+
+    @PostConstruct
+    public void init() {
+        cache = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttlMinutes, TimeUnit.MINUTES)
+                .recordStats()
+                .build();
+        GuavaCacheMetrics.monitor(meterRegistry, cache, "notification.unread");
+    }
+
+    public int get(Integer userId) {
+        try {
+            return cache.get(userId, () -> new AtomicInteger(load(userId))).get();
+        } catch (ExecutionException e) {
+            throw new RuntimeException("获取未读数量失败", e.getCause());
+        }
+    }
+
+    /**
+     * 新通知入库后批量加计数（用户ID -> 新增条数），返回内存里已有的用户的最新未读数
+     */
+    public Map<Integer, Integer> increment(Map<Integer, Integer> deltas) {
+        Map<Integer, Integer> counts = new HashMap<>();
+        if (deltas.isEmpty()) {
+            return counts;
+        }
+        notificationMapper.incrementUnreadCounters(deltas);
+        deltas.forEach((userId, delta) -> {
+            AtomicInteger cached = cache.getIfPresent(userId);
+            if (cached != null) {
+                counts.put(userId, cached.addAndGet(delta));
+            }
+        });
+        return counts;
+    }
+
+    /**
+     * 一条通知被读，返回最新未读数
+     */
+    public int decrement(Integer userId) {
+        notificationMapper.decrementUnreadCounter(userId);
+        AtomicInteger cached = cache.getIfPresent(userId);
+        if (cached == null) {
+            return get(userId);
+        }
+        return cached.updateAndGet(count -> Math.max(count - 1, 0));
+    }
+
+    /**
+     * 按通知表重新统计未读数，返回最新未读数
+     */
+    public int recount(Integer userId) {
+        notificationMapper.recountUnreadCounter(userId);
+        // 并发的 increment 可能还在改旧的内存值，直接丢弃，下次从计数表加载
+        cache.invalidate(userId);
+        return get(userId);
+    }
+
+    private int load(Integer userId) {
+        Integer stored = notificationMapper.selectUnreadCounter(userId);
+        if (stored != null) {
+            return stored;
+        }
+        // 计数表里还没有这个用户：统计一次作为初值
+        int counted = notificationMapper.countUnread(userId);
+        notificationMapper.insertUnreadCounter(userId, counted);
+        return counted;
+    }
+}
@@ -0,0 +1,97 @@
+package com.health.healthplatform.service;
+
+import com.health.healthplatform.entity.Tag;
+import com.health.healthplatform.mapper.TagMapper;
+import com.health.healthplatform.util.TransactionUtils;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 标签字典缓存：标签名 -> ID
+ * 启动时整表加载，解析文章标签时命中缓存的不查库，缺失的用一条 INSERT IGNORE 多行写入后再一条 IN 查询取回 ID。
+ * 新标签在事务提交后才进入缓存，回滚不会留下不存在的 ID
+ */
+@Slf4j
+@Service
+public class TagDictionary {
+
+    @Resource
+    private TagMapper tagMapper;
+
+    private final ConcurrentHashMap<String, Long> ids = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        try {
+            for (Tag tag : tagMapper.selectAll()) {
+                ids.putIfAbsent(tag.getName(), tag.getId());
+            }
+            log.info("标签字典已加载 {} 个标签", ids.size());
+        } catch (Exception e) {
+            // 加载失败时按需从数据库补齐
+            log.warn("加载标签字典失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 把标签名解析为 ID，不存在的标签会被创建
+     *
+     * @return 去除首尾空白、去重后的 标签名 -> ID，保持输入顺序，空白名称被忽略
+     */
+    public Map<String, Long> resolve(Collection<String> names) {
+        Map<String, Long> result = new LinkedHashMap<>();
+        if (names == null) {
+            return result;
+        }
+
+        Set<String> missing = new LinkedHashSet<>();
+        for (String raw : names) {
+            if (raw == null || raw.trim().isEmpty()) {
+                continue;
+            }
+            String name = raw.trim();
+            Long id = ids.get(name);
+            result.put(name, id);
+            if (id == null) {
+                missing.add(name);
+            }
+        }
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        tagMapper.batchInsertIgnore(missing);
+        // 数据库排序规则可能不区分大小写，按小写名称匹配回来
+        Map<String, Long> found = new HashMap<>();
+        for (Tag tag : tagMapper.selectByNames(missing)) {
+            // 按 ID 升序返回，历史重复数据取最早的一条
+            found.putIfAbsent(tag.getName().toLowerCase(Locale.ROOT), tag.getId());
+        }
+        Map<String, Long> created = new HashMap<>();
+        for (String name : missing) {
+            Long id = found.get(name.toLowerCase(Locale.ROOT));
+            if (id == null) {
+                throw new RuntimeException("创建标签失败: " + name);
+            }
+            created.put(name, id);
+            result.put(name, id);
+        }
+        TransactionUtils.afterCommit(() -> created.forEach(ids::putIfAbsent));
+        return result;
+    }
+
+    public int size() {
+        return ids.size();
+    }
+}
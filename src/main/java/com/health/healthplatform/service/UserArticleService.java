@@ -23,6 +23,21 @@ public class UserArticleService {
     @Resource
     private ArticleMapper articleMapper;
 
+    @Resource
+    private ArticleBatchLoader articleBatchLoader;
+
+    @Resource
+    private ArticleInteractionCache interactionCache;
+
+    @Resource
+    private HotArticleRanking hotArticleRanking;
+
+    @Resource
+    private ArticleSearchIndex articleSearchIndex;
+
+    @Resource
+    private ArticleDetailCache articleDetailCache;
+
     public Map<String, Object> getUserArticles(Integer userId) {
         if (userId == null) {
             throw new RuntimeException("用户ID不能为空");
@@ -31,9 +46,11 @@ public class UserArticleService {
         Map<String, Object> result = new HashMap<>();
         try {
             // 获取已发布的文章
-            List<Article> publishedArticles = userArticleMapper.selectUserArticles(userId, 1);
+            List<Article> publishedArticles = articleBatchLoader.fillTagsAndAuthors(
+                    userArticleMapper.selectUserArticles(userId, 1));
             // 获取草稿箱的文章
-            List<Article> draftArticles = userArticleMapper.selectUserArticles(userId, 0);
+            List<Article> draftArticles = articleBatchLoader.fillTagsAndAuthors(
+                    userArticleMapper.selectUserArticles(userId, 0));
 
             result.put("published", publishedArticles);
             result.put("drafts", draftArticles);
@@ -50,7 +67,7 @@ public class UserArticleService {
             if (id == null) {
                 throw new RuntimeException("文章ID不能为空");
             }
-            return articleMapper.selectById(id);
+            return articleDetailCache.get(id);
         } catch (Exception e) {
             log.error("获取文章详情失败", e);
             throw new RuntimeException("获取文章详情失败: " + e.getMessage());
@@ -61,8 +78,12 @@ public class UserArticleService {
     public Article publishArticle(Long id, LocalDateTime publishTime) {
         try {
             userArticleMapper.updateArticleStatus(id, 1, publishTime);
+            hotArticleRanking.onPublishAfterCommit(id, publishTime);
+            articleDetailCache.markChanged(id);
             // 可以返回更新后的文章信息
-            return articleMapper.selectById(id);
+            Article published = articleMapper.selectById(id);
+            articleSearchIndex.indexAfterCommit(published);
+            return published;
         } catch (Exception e) {
             log.error("发布文章失败", e);
             throw new RuntimeException("发布文章失败: " + e.getMessage());
@@ -78,6 +99,10 @@ public class UserArticleService {
             userArticleMapper.deleteArticleFavorites(id);
             articleMapper.deleteArticleTags(id);
             userArticleMapper.deleteArticle(id);
+            articleDetailCache.markChanged(id);
+            interactionCache.evictArticle(id);
+            hotArticleRanking.onDeleteAfterCommit(id);
+            articleSearchIndex.removeAfterCommit(id);
         } catch (Exception e) {
             log.error("删除文章失败", e);
             throw new RuntimeException("删除文章失败: " + e.getMessage());
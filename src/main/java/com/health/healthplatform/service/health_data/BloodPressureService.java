@@ -24,6 +24,12 @@ public class BloodPressureService {
     @Resource
     HealthDataMapper healthDataMapper;
 
+    @Resource
+    LatestVitalsCache latestVitalsCache;
+
+    @Resource
+    UserDailyMetricsService userDailyMetricsService;
+
     public BloodPressureService(BloodPressureHistoryMapper bloodPressureHistoryMapper) {
         this.bloodPressureHistoryMapper = bloodPressureHistoryMapper;
     }
@@ -84,9 +90,15 @@ public class BloodPressureService {
         bloodPressureHistoryMapper.insert(bloodPressureHistory);
         log.info("Successfully recorded blood pressure with id: {}", bloodPressureHistory.getId());
 
+        try {
+            userDailyMetricsService.onBloodPressure(bloodPressureHistory);
+        } catch (Exception e) {
+            log.error("Error updating daily metrics: {}", e.getMessage());
+        }
+
         // 更新健康数据总表
         try {
-            HealthData healthData = healthDataMapper.findByUserId(userId);
+            HealthData healthData = latestVitalsCache.get(userId);
 
             if (healthData == null) {
                 log.info("No existing health data found for user: {}", userId);
@@ -98,6 +110,10 @@ public class BloodPressureService {
                         .set("update_time", LocalDateTime.now());
 
                 healthDataMapper.update(null, updateWrapper);
+                latestVitalsCache.update(userId, data -> {
+                    data.setBloodPressureSystolic(systolic.intValue());
+                    data.setBloodPressureDiastolic(diastolic.intValue());
+                });
                 log.info("Updated blood pressure in health data for user: {}", userId);
             }
         } catch (Exception e) {
@@ -24,6 +24,9 @@ public class BmiService {
     @Resource
     private HealthDataMapper healthDataMapper;
 
+    @Resource
+    private LatestVitalsCache latestVitalsCache;
+
     public BmiService(BmiHistoryMapper bmiHistoryMapper) {
         this.bmiHistoryMapper = bmiHistoryMapper;
     }
@@ -95,6 +98,7 @@ public class BmiService {
                     .set("update_time", LocalDateTime.now());
 
             healthDataMapper.update(null, updateWrapper);
+            latestVitalsCache.update(userId, data -> data.setBmi(bmi));
             log.info("Updated BMI in health data for user: {}", userId);
         } catch (Exception e) {
             log.error("Error updating health data BMI: {}", e.getMessage());
@@ -14,6 +14,7 @@ import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
 import java.time.temporal.WeekFields;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
 import java.util.stream.Collectors;
@@ -26,6 +27,9 @@ public class ExerciseRecordService {
     @Resource
     ExerciseGoalMapper exerciseGoalMapper;
 
+    @Resource
+    UserDailyMetricsService userDailyMetricsService;
+
     public ExerciseRecordService(ExerciseRecordMapper exerciseRecordMapper,
                                  ExerciseGoalMapper exerciseGoalMapper) {
         this.exerciseRecordMapper = exerciseRecordMapper;
@@ -79,6 +83,12 @@ public class ExerciseRecordService {
         record.setUserId(userId);
 
         exerciseRecordMapper.insert(record);
+
+        try {
+            userDailyMetricsService.onExercise(record);
+        } catch (Exception e) {
+            log.error("Error updating daily metrics: {}", e.getMessage());
+        }
         return convertToDTO(record);
     }
 
@@ -86,6 +96,12 @@ public class ExerciseRecordService {
         ExerciseRecord record = exerciseRecordMapper.selectById(recordId);
         if (record != null && record.getUserId().equals(userId)) {
             exerciseRecordMapper.deleteById(recordId);
+
+            try {
+                userDailyMetricsService.rebuildExercise(userId, List.of(record.getRecordDate()));
+            } catch (Exception e) {
+                log.error("Error updating daily metrics: {}", e.getMessage());
+            }
         } else {
             throw new IllegalArgumentException("Record not found or unauthorized");
         }
@@ -98,8 +114,15 @@ public class ExerciseRecordService {
         }
 
         validateExerciseData(dto);
+        LocalDate previousDate = existing.getRecordDate();
         BeanUtils.copyProperties(dto, existing);
         exerciseRecordMapper.updateById(existing);
+
+        try {
+            userDailyMetricsService.rebuildExercise(userId, Arrays.asList(previousDate, existing.getRecordDate()));
+        } catch (Exception e) {
+            log.error("Error updating daily metrics: {}", e.getMessage());
+        }
         return convertToDTO(existing);
     }
 
@@ -107,17 +130,11 @@ public class ExerciseRecordService {
         LocalDate today = LocalDate.now();
         LocalDate startOfWeek = today.with(WeekFields.of(Locale.getDefault()).dayOfWeek(), 1);
         
-        WeeklyStats stats = new WeeklyStats();
-
-        // 添加空值处理
-        Integer totalDurationMinutes = exerciseRecordMapper.getTotalDuration(userId, startOfWeek, today);
-        Integer totalCalories = exerciseRecordMapper.getTotalCalories(userId, startOfWeek, today);
-        Integer exerciseCount = exerciseRecordMapper.getExerciseCount(userId, startOfWeek, today);
-
-        // 将数据转换为安全值，Minutes转换为Hours
-        stats.setTotalDuration(totalDurationMinutes != null ? totalDurationMinutes / 60.0 : 0.0);
-        stats.setTotalCalories(totalCalories != null ? totalCalories : 0);
-        stats.setExerciseCount(exerciseCount != null ? exerciseCount : 0);
+        // 一条聚合查询，没有记录时各项为0
+        WeeklyStats stats = exerciseRecordMapper.getWeeklyStats(userId, startOfWeek, today);
+        if (stats == null) {
+            stats = new WeeklyStats(0.0, 0, 0);
+        }
 
         log.debug("Weekly stats for user {}: duration={} hours, calories={}, count={}",
                 userId, stats.getTotalDuration(), stats.getTotalCalories(), stats.getExerciseCount());
@@ -0,0 +1,143 @@
+package com.health.healthplatform.service.health_data;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.health.healthplatform.mapper.health_data.HealthExportMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 导出用户的全部健康历史
+ * 各表依次用 MyBatis Cursor 逐行读出、逐行写到输出流，每写一段就 flush 一次交给分块响应，
+ * 不在内存里攒结果，用户有一百行还是一千万行占用的内存都一样。
+ * 每张表在各自的只读事务里读完就提交，连接不会在整个下载期间一直占着同一个事务。
+ * NDJSON 每行一条记录，带 table 字段；CSV 每张表一段，段首是该表的表头
+ */
+@Service
+@Slf4j
+public class HealthExportService {
+
+    // 每写这么多行 flush 一次
+    private static final int FLUSH_EVERY = 1000;
+
+    @Resource
+    private HealthExportMapper healthExportMapper;
+
+    @Resource
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    @Resource
+    private ObjectMapper objectMapper;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * 导出到输出流，format 为 ndjson 或 csv；不关闭输出流，返回导出的行数
+     */
+    public long export(Integer userId, String format, OutputStream out) {
+        boolean csv = "csv".equalsIgnoreCase(format);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        Map<String, Function<Integer, Cursor<?>>> tables = new LinkedHashMap<>();
+        tables.put("health_data", healthExportMapper::streamHealthData);
+        tables.put("heart_rate_history", healthExportMapper::streamHeartRates);
+        tables.put("steps_history", healthExportMapper::streamSteps);
+        tables.put("sleep_history", healthExportMapper::streamSleep);
+        tables.put("weight_history", healthExportMapper::streamWeights);
+        tables.put("blood_pressure_history", healthExportMapper::streamBloodPressures);
+        tables.put("exercise_records", healthExportMapper::streamExerciseRecords);
+
+        // Cursor 只在事务（同一个连接）内有效，每张表一个事务
+        long total = 0;
+        for (Map.Entry<String, Function<Integer, Cursor<?>>> table : tables.entrySet()) {
+            Long rows = transactionTemplate.execute(status -> exportTable(writer, csv, table.getKey(), table.getValue().apply(userId)));
+            total += rows == null ? 0 : rows;
+        }
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        log.info("Exported {} health records for user {} as {}", total, userId, csv ? "csv" : "ndjson");
+        return total;
+    }
+
+    private long exportTable(Writer writer, boolean csv, String table, Cursor<?> query) {
+        long rows = 0;
+        try (Cursor<?> cursor = query) {
+            for (Object entity : cursor) {
+                Map<String, Object> row = toRow(entity);
+                if (csv) {
+                    if (rows == 0) {
+                        writeCsvLine(writer, "table", row.keySet());
+                    }
+                    writeCsvLine(writer, table, row.values());
+                } else {
+                    writeJsonLine(writer, table, row);
+                }
+                if (++rows % FLUSH_EVERY == 0) {
+                    writer.flush();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return rows;
+    }
+
+    // 实体转成有序的字段表，空值字段保留，CSV 各行列数一致
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> toRow(Object entity) {
+        Map<String, Object> row = objectMapper.convertValue(entity, LinkedHashMap.class);
+        row.remove("deleted");
+        return row;
+    }
+
+    private void writeJsonLine(Writer writer, String table, Map<String, Object> row) throws IOException {
+        Map<String, Object> record = new LinkedHashMap<>();
+        record.put("table", table);
+        record.putAll(row);
+        writer.write(objectMapper.writeValueAsString(record));
+        writer.write('\n');
+    }
+
+    private static void writeCsvLine(Writer writer, String first, Iterable<?> values) throws IOException {
+        writer.write(first);
+        for (Object value : values) {
+            writer.write(',');
+            writer.write(csvField(value));
+        }
+        writer.write('\n');
+    }
+
+    private static String csvField(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+}
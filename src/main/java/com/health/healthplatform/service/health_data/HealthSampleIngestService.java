@@ -0,0 +1,269 @@
+package com.health.healthplatform.service.health_data;
+
+import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.health.healthplatform.DTO.HealthSampleDTO;
+import com.health.healthplatform.DTO.HealthSampleIngestResult;
+import com.health.healthplatform.entity.healthdata.HealthData;
+import com.health.healthplatform.entity.healthdata.HeartRateHistory;
+import com.health.healthplatform.entity.healthdata.StepsHistory;
+import com.health.healthplatform.mapper.health_data.HealthDataMapper;
+import com.health.healthplatform.mapper.health_data.HeartRateHistoryMapper;
+import com.health.healthplatform.mapper.health_data.StepsHistoryMapper;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 可穿戴设备数据批量写入
+ * 一次请求可带上千条心率、步数采样（JSON 数组或 NDJSON 流）。逐条校验后按指标分组，
+ * 每攒够一批用一条多行 INSERT 写入对应的历史表；health_data 里的当前心率在整个请求结束后只更新一次。
+ * NDJSON 边读边写，内存里最多只有一批采样。各批独立提交，某批写入失败不影响其他批，
+ * 结果里分别给出已写入、校验未通过和写入失败的条数
+ */
+@Service
+@Slf4j
+public class HealthSampleIngestService {
+
+    public static final String HEART_RATE = "heart_rate";
+    public static final String STEPS = "steps";
+
+    // 错误明细最多返回的条数
+    private static final int MAX_ERRORS = 20;
+
+    @Resource
+    private HeartRateHistoryMapper heartRateHistoryMapper;
+
+    @Resource
+    private StepsHistoryMapper stepsHistoryMapper;
+
+    @Resource
+    private HealthDataMapper healthDataMapper;
+
+    @Resource
+    private HeartRateTrendService heartRateTrendService;
+
+    @Resource
+    private LatestVitalsCache latestVitalsCache;
+
+    @Resource
+    private UserDailyMetricsService userDailyMetricsService;
+
+    @Resource
+    private ObjectMapper objectMapper;
+
+    @Value("${health.ingest.batch-size:1000}")
+    private int batchSize = 1000;
+
+    public HealthSampleIngestResult ingest(Integer userId, List<HealthSampleDTO> samples) {
+        Batch batch = new Batch(userId);
+        for (int i = 0; i < samples.size(); i++) {
+            batch.add(i, samples.get(i));
+        }
+        return batch.finish();
+    }
+
+    /**
+     * 每行一个 JSON 对象，空行跳过
+     */
+    public HealthSampleIngestResult ingest(Integer userId, InputStream ndjson) throws IOException {
+        Batch batch = new Batch(userId);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(ndjson, StandardCharsets.UTF_8));
+        String line;
+        int index = 0;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            HealthSampleDTO sample;
+            try {
+                sample = objectMapper.readValue(line, HealthSampleDTO.class);
+            } catch (IOException e) {
+                batch.reject(index++, "无法解析");
+                continue;
+            }
+            batch.add(index++, sample);
+        }
+        return batch.finish();
+    }
+
+    /**
+     * 校验一条采样，合法返回 null
+     */
+    private static String validate(HealthSampleDTO sample, LocalDateTime now) {
+        if (sample == null || sample.getType() == null || sample.getValue() == null) {
+            return "缺少指标或数值";
+        }
+        if (sample.getTime() != null && sample.getTime().isAfter(now.plusMinutes(5))) {
+            return "采样时间晚于当前时间";
+        }
+        double value = sample.getValue();
+        switch (sample.getType()) {
+            case HEART_RATE:
+                return value < 0 || value > 250 ? "心率数据必须在0到250之间" : null;
+            case STEPS:
+                return value < 0 || value > 100000 ? "步数必须在0到100000之间" : null;
+            default:
+                return "不支持的指标: " + sample.getType();
+        }
+    }
+
+    /**
+     * 一次请求的写入状态：按指标缓冲、分批落库、记录最新心率
+     */
+    private final class Batch {
+        final Integer userId;
+        final LocalDateTime now = LocalDateTime.now();
+        final HealthSampleIngestResult result = new HealthSampleIngestResult();
+        List<HeartRateHistory> heartRates = new ArrayList<>();
+        List<StepsHistory> steps = new ArrayList<>();
+        // 已写入的采样里最新的一条心率
+        HeartRateHistory latestHeartRate;
+
+        Batch(Integer userId) {
+            this.userId = userId;
+        }
+
+        void add(int index, HealthSampleDTO sample) {
+            String error = validate(sample, now);
+            if (error != null) {
+                reject(index, error);
+                return;
+            }
+            LocalDateTime time = sample.getTime() == null ? now : sample.getTime();
+            if (HEART_RATE.equals(sample.getType())) {
+                HeartRateHistory row = new HeartRateHistory();
+                row.setUserId(userId);
+                row.setHeartRate(sample.getValue());
+                row.setMeasurementTime(time);
+                row.setCreateTime(now);
+                row.setUpdateTime(now);
+                heartRates.add(row);
+                if (heartRates.size() >= batchSize) {
+                    flushHeartRates();
+                }
+            } else {
+                int count = sample.getValue().intValue();
+                StepsHistory row = new StepsHistory();
+                row.setUserId(userId);
+                row.setSteps(count);
+                // 与单条记录一致：每1000步消耗40卡路里，每步0.7米
+                row.setCalories(count * 0.04);
+                row.setDistance(count * 0.7);
+                row.setRecordDate(time.toLocalDate());
+                row.setTarget(12000);
+                row.setCreateTime(now);
+                row.setUpdateTime(now);
+                steps.add(row);
+                if (steps.size() >= batchSize) {
+                    flushSteps();
+                }
+            }
+        }
+
+        void reject(int index, String error) {
+            result.setRejected(result.getRejected() + 1);
+            addError("#" + index + ": " + error);
+        }
+
+        void addError(String error) {
+            if (result.getErrors().size() < MAX_ERRORS) {
+                result.getErrors().add(error);
+            }
+        }
+
+        void flushHeartRates() {
+            if (heartRates.isEmpty()) {
+                return;
+            }
+            List<HeartRateHistory> rows = heartRates;
+            heartRates = new ArrayList<>();
+            if (!write(HEART_RATE, rows, () -> heartRateHistoryMapper.batchInsert(rows))) {
+                return;
+            }
+            for (HeartRateHistory row : rows) {
+                if (latestHeartRate == null || !row.getMeasurementTime().isBefore(latestHeartRate.getMeasurementTime())) {
+                    latestHeartRate = row;
+                }
+            }
+            accumulateRollups(rows);
+            accumulateDailyMetrics(() -> userDailyMetricsService.onHeartRates(rows));
+        }
+
+        void flushSteps() {
+            if (steps.isEmpty()) {
+                return;
+            }
+            List<StepsHistory> rows = steps;
+            steps = new ArrayList<>();
+            if (write(STEPS, rows, () -> stepsHistoryMapper.batchInsert(rows))) {
+                accumulateDailyMetrics(() -> userDailyMetricsService.onSteps(rows));
+            }
+        }
+
+        // 一批一条语句，失败时整批计为写入失败，继续处理后面的采样
+        boolean write(String type, List<?> rows, Runnable insert) {
+            try {
+                insert.run();
+                result.setAccepted(result.getAccepted() + rows.size());
+                return true;
+            } catch (Exception e) {
+                log.error("Error inserting {} {} samples for user {}", rows.size(), type, userId, e);
+                result.setFailed(result.getFailed() + rows.size());
+                addError(type + " 写入失败 " + rows.size() + " 条，可重新提交");
+                return false;
+            }
+        }
+
+        void accumulateRollups(List<HeartRateHistory> rows) {
+            try {
+                heartRateTrendService.accumulate(rows);
+            } catch (Exception e) {
+                log.error("Error updating heart rate rollups: {}", e.getMessage());
+            }
+        }
+
+        void accumulateDailyMetrics(Runnable update) {
+            try {
+                update.run();
+            } catch (Exception e) {
+                log.error("Error updating daily metrics: {}", e.getMessage());
+            }
+        }
+
+        HealthSampleIngestResult finish() {
+            flushHeartRates();
+            flushSteps();
+            if (latestHeartRate != null) {
+                updateSnapshot(latestHeartRate.getHeartRate());
+            }
+            log.info("Ingested {} samples for user {}, rejected {}, failed {}",
+                    result.getAccepted(), userId, result.getRejected(), result.getFailed());
+            return result;
+        }
+
+        // 和单条记录一样，只在用户已有 health_data 时更新
+        void updateSnapshot(Double heartRate) {
+            try {
+                UpdateWrapper<HealthData> updateWrapper = new UpdateWrapper<>();
+                updateWrapper.eq("user_id", userId)
+                        .set("heart_rate", heartRate.intValue())
+                        .set("update_time", LocalDateTime.now());
+                healthDataMapper.update(null, updateWrapper);
+                latestVitalsCache.update(userId, data -> data.setHeartRate(heartRate.intValue()));
+            } catch (Exception e) {
+                log.error("Error updating health data heart rate: {}", e.getMessage());
+            }
+        }
+    }
+}
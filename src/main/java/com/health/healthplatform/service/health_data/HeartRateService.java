@@ -24,6 +24,15 @@ public class HeartRateService {
     @Resource
     HealthDataMapper healthDataMapper;
 
+    @Resource
+    HeartRateTrendService heartRateTrendService;
+
+    @Resource
+    LatestVitalsCache latestVitalsCache;
+
+    @Resource
+    UserDailyMetricsService userDailyMetricsService;
+
     public HeartRateService(HeartRateHistoryMapper heartRateHistoryMapper) {
         this.heartRateHistoryMapper = heartRateHistoryMapper;
     }
@@ -89,7 +98,19 @@ public class HeartRateService {
         log.info("Successfully recorded heart rate with id: {}", heartRateHistory.getId());
 
         try {
-            HealthData healthData = healthDataMapper.findByUserId(userId);
+            heartRateTrendService.accumulate(List.of(heartRateHistory));
+        } catch (Exception e) {
+            log.error("Error updating heart rate rollups: {}", e.getMessage());
+        }
+
+        try {
+            userDailyMetricsService.onHeartRates(List.of(heartRateHistory));
+        } catch (Exception e) {
+            log.error("Error updating daily metrics: {}", e.getMessage());
+        }
+
+        try {
+            HealthData healthData = latestVitalsCache.get(userId);
 
             if (healthData == null) {
                 // TODO:如果当天没有记录，创建新记录
@@ -101,6 +122,7 @@ public class HeartRateService {
                         .set("update_time", LocalDateTime.now());
 
                 healthDataMapper.update(null, updateWrapper);
+                latestVitalsCache.update(userId, data -> data.setHeartRate(heartRate.intValue()));
                 log.info("Updated heart rate in health data for user: {}", userId);
             }
         } catch (Exception e) {
@@ -0,0 +1,222 @@
+package com.health.healthplatform.service.health_data;
+
+import com.health.healthplatform.DTO.HeartRateTrendDTO;
+import com.health.healthplatform.entity.healthdata.HeartRateHistory;
+import com.health.healthplatform.entity.healthdata.HeartRateRollup;
+import com.health.healthplatform.mapper.health_data.HeartRateRollupMapper;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 心率趋势
+ * 写入心率时把样本累加进 1 分钟、1 小时、1 天三种桶宽的预聚合表；
+ * 查询时选桶数不超过上限的最细桶宽，读出的行数与时间范围无关，再压缩到 maxPoints 个点：
+ * bucket 模式把相邻的桶合并（保留最小、最大、平均），lttb 模式按平均值挑出最能保持曲线形状的桶
+ */
+@Service
+@Slf4j
+public class HeartRateTrendService {
+
+    public static final int MINUTE = 60;
+    public static final int HOUR = 3600;
+    public static final int DAY = 86400;
+    private static final int[] RESOLUTIONS = {MINUTE, HOUR, DAY};
+
+    @Resource
+    private HeartRateRollupMapper heartRateRollupMapper;
+
+    // 一次趋势查询最多读取的桶数
+    @Value("${health.heart-rate.trend.max-buckets:2000}")
+    private int maxBuckets = 2000;
+
+    /**
+     * 把新写入的心率样本累加进各级预聚合，同一个桶的样本先在内存里合并
+     */
+    public void accumulate(Collection<HeartRateHistory> samples) {
+        if (samples.isEmpty()) {
+            return;
+        }
+        Map<String, HeartRateRollup> buckets = new LinkedHashMap<>();
+        for (HeartRateHistory sample : samples) {
+            for (int resolution : RESOLUTIONS) {
+                LocalDateTime start = bucketStart(sample.getMeasurementTime(), resolution);
+                String key = sample.getUserId() + "|" + resolution + "|" + start;
+                HeartRateRollup rollup = buckets.computeIfAbsent(key, k -> {
+                    HeartRateRollup r = new HeartRateRollup();
+                    r.setUserId(sample.getUserId());
+                    r.setResolution(resolution);
+                    r.setBucketStart(start);
+                    r.setMinRate(sample.getHeartRate());
+                    r.setMaxRate(sample.getHeartRate());
+                    r.setSumRate(0.0);
+                    r.setSampleCount(0);
+                    return r;
+                });
+                rollup.setMinRate(Math.min(rollup.getMinRate(), sample.getHeartRate()));
+                rollup.setMaxRate(Math.max(rollup.getMaxRate(), sample.getHeartRate()));
+                rollup.setSumRate(rollup.getSumRate() + sample.getHeartRate());
+                rollup.setSampleCount(rollup.getSampleCount() + 1);
+            }
+        }
+        heartRateRollupMapper.upsertBatch(new ArrayList<>(buckets.values()));
+    }
+
+    public List<HeartRateTrendDTO> getTrend(Integer userId, String period, int maxPoints, String mode) {
+        LocalDateTime endTime = LocalDateTime.now();
+        LocalDateTime startTime;
+        switch (period) {
+            case "week":
+                startTime = endTime.minus(7, ChronoUnit.DAYS);
+                break;
+            case "month":
+                startTime = endTime.minus(30, ChronoUnit.DAYS);
+                break;
+            case "day":
+            default:
+                startTime = endTime.minus(24, ChronoUnit.HOURS);
+        }
+
+        int resolution = chooseResolution(Duration.between(startTime, endTime), maxBuckets);
+        List<HeartRateRollup> rollups = heartRateRollupMapper.findByRange(userId, resolution,
+                bucketStart(startTime, resolution), endTime);
+        log.info("Heart rate trend for user {}: {} buckets of {}s, period {}", userId, rollups.size(), resolution, period);
+
+        List<HeartRateTrendDTO> points = new ArrayList<>(rollups.size());
+        for (HeartRateRollup rollup : rollups) {
+            HeartRateTrendDTO point = new HeartRateTrendDTO();
+            point.setTime(rollup.getBucketStart());
+            point.setMin(rollup.getMinRate());
+            point.setMax(rollup.getMaxRate());
+            point.setCount(rollup.getSampleCount());
+            point.setAvg(rollup.getSumRate() / rollup.getSampleCount());
+            points.add(point);
+        }
+        return "lttb".equals(mode) ? lttb(points, maxPoints) : mergeBuckets(points, maxPoints);
+    }
+
+    /**
+     * 桶数不超过上限的最细桶宽
+     */
+    static int chooseResolution(Duration range, int maxBuckets) {
+        for (int resolution : RESOLUTIONS) {
+            if (range.getSeconds() / resolution <= maxBuckets) {
+                return resolution;
+            }
+        }
+        return DAY;
+    }
+
+    static LocalDateTime bucketStart(LocalDateTime time, int resolution) {
+        switch (resolution) {
+            case MINUTE:
+                return time.truncatedTo(ChronoUnit.MINUTES);
+            case HOUR:
+                return time.truncatedTo(ChronoUnit.HOURS);
+            default:
+                return time.truncatedTo(ChronoUnit.DAYS);
+        }
+    }
+
+    /**
+     * 按时间等分成不超过 maxPoints 段，每段合并为一个点：最小取最小、最大取最大、平均按样本数加权
+     */
+    static List<HeartRateTrendDTO> mergeBuckets(List<HeartRateTrendDTO> points, int maxPoints) {
+        if (points.size() <= maxPoints || maxPoints <= 0) {
+            return points;
+        }
+        long first = epochSecond(points.get(0).getTime());
+        long last = epochSecond(points.get(points.size() - 1).getTime());
+        double span = (double) (last - first + 1) / maxPoints;
+
+        List<HeartRateTrendDTO> merged = new ArrayList<>(maxPoints);
+        HeartRateTrendDTO current = null;
+        long currentSegment = -1;
+        double sum = 0;
+        for (HeartRateTrendDTO point : points) {
+            long segment = (long) ((epochSecond(point.getTime()) - first) / span);
+            if (current == null || segment != currentSegment) {
+                if (current != null) {
+                    current.setAvg(sum / current.getCount());
+                }
+                current = new HeartRateTrendDTO();
+                current.setTime(point.getTime());
+                current.setMin(point.getMin());
+                current.setMax(point.getMax());
+                current.setCount(0);
+                sum = 0;
+                currentSegment = segment;
+                merged.add(current);
+            }
+            current.setMin(Math.min(current.getMin(), point.getMin()));
+            current.setMax(Math.max(current.getMax(), point.getMax()));
+            current.setCount(current.getCount() + point.getCount());
+            sum += point.getAvg() * point.getCount();
+        }
+        current.setAvg(sum / current.getCount());
+        return merged;
+    }
+
+    /**
+     * Largest-Triangle-Three-Buckets：保留首尾两点，中间每段挑出与前一个选中点、下一段均值构成三角形面积最大的点
+     */
+    static List<HeartRateTrendDTO> lttb(List<HeartRateTrendDTO> points, int maxPoints) {
+        int n = points.size();
+        if (maxPoints >= n || maxPoints < 3) {
+            return points;
+        }
+        List<HeartRateTrendDTO> sampled = new ArrayList<>(maxPoints);
+        double every = (double) (n - 2) / (maxPoints - 2);
+        int selected = 0;
+        sampled.add(points.get(0));
+        for (int i = 0; i < maxPoints - 2; i++) {
+            // 下一段的平均点
+            int nextStart = (int) Math.floor((i + 1) * every) + 1;
+            int nextEnd = Math.min((int) Math.floor((i + 2) * every) + 1, n);
+            double avgX = 0;
+            double avgY = 0;
+            for (int j = nextStart; j < nextEnd; j++) {
+                avgX += epochSecond(points.get(j).getTime());
+                avgY += points.get(j).getAvg();
+            }
+            int nextCount = Math.max(nextEnd - nextStart, 1);
+            avgX /= nextCount;
+            avgY /= nextCount;
+
+            // 当前段里面积最大的点
+            int start = (int) Math.floor(i * every) + 1;
+            int end = (int) Math.floor((i + 1) * every) + 1;
+            double ax = epochSecond(points.get(selected).getTime());
+            double ay = points.get(selected).getAvg();
+            double maxArea = -1;
+            int best = start;
+            for (int j = start; j < end; j++) {
+                double area = Math.abs((ax - avgX) * (points.get(j).getAvg() - ay)
+                        - (ax - epochSecond(points.get(j).getTime())) * (avgY - ay));
+                if (area > maxArea) {
+                    maxArea = area;
+                    best = j;
+                }
+            }
+            sampled.add(points.get(best));
+            selected = best;
+        }
+        sampled.add(points.get(n - 1));
+        return sampled;
+    }
+
+    private static long epochSecond(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+}
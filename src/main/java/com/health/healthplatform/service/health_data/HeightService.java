@@ -24,6 +24,9 @@ public class HeightService {
     @Resource
     private HealthDataMapper healthDataMapper;
 
+    @Resource
+    private LatestVitalsCache latestVitalsCache;
+
     @Resource
     private BmiService bmiService;
 
@@ -90,7 +93,7 @@ public class HeightService {
 
     private void updateHealthDataAndBmi(Integer userId, Double height) {
         try {
-            HealthData healthData = healthDataMapper.findByUserId(userId);
+            HealthData healthData = latestVitalsCache.get(userId);
             if (healthData != null && healthData.getWeight() != null) {
                 // 有体重数据时自动计算BMI
                 double heightM = height / 100.0;
@@ -103,6 +106,7 @@ public class HeightService {
                     .set("height", height)
                     .set("update_time", LocalDateTime.now());
             healthDataMapper.update(null, updateWrapper);
+            latestVitalsCache.update(userId, data -> data.setHeight(height));
         } catch (Exception e) {
             log.error("Error updating health data and BMI: {}", e.getMessage());
         }
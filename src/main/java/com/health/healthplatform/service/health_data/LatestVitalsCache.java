@@ -0,0 +1,105 @@
+package com.health.healthplatform.service.health_data;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.health.healthplatform.entity.healthdata.HealthData;
+import com.health.healthplatform.mapper.health_data.HealthDataMapper;
+import com.health.healthplatform.util.TransactionUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * 用户最新体征快照
+ * AI 问答、健康评估、运动/营养建议、报告数据收集都要读 health_data 里用户最新的一行，
+ * 这里按用户 ID 缓存这一行（没有数据的用户也缓存为空），读取返回副本。
+ * 各 record* 写 health_data 后用同样的字段改动更新缓存里的快照（在事务提交后），删除时失效；
+ * 存活时间兜底其他途径直接改库的情况
+ */
+@Service
+public class LatestVitalsCache {
+
+    @Resource
+    private HealthDataMapper healthDataMapper;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    @Value("${health.vitals.cache.max-size:10000}")
+    private long maxSize = 10000;
+
+    @Value("${health.vitals.cache.ttl-minutes:30}")
+    private long ttlMinutes = 30;
+
+    private Cache<Integer, Optional<HealthData>> cache;
+    // 每次写入或失效加一，加载期间发生过写入的结果不落缓存
+    private final AtomicLong generation = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        cache = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttlMinutes, TimeUnit.MINUTES)
+                .recordStats()
+                .build();
+        GuavaCacheMetrics.monitor(meterRegistry, cache, "health.vitals");
+    }
+
+    /**
+     * 取用户最新健康数据的副本，没有数据返回 null
+     */
+    public HealthData get(Integer userId) {
+        Optional<HealthData> cached = cache.getIfPresent(userId);
+        if (cached == null) {
+            long before = generation.get();
+            cached = Optional.ofNullable(healthDataMapper.findLatestByUserId(userId));
+            if (generation.get() == before) {
+                cache.put(userId, cached);
+            }
+        }
+        return cached.map(LatestVitalsCache::copy).orElse(null);
+    }
+
+    /**
+     * health_data 已按 change 改过：事务提交后把同样的改动作用到缓存的快照上，未缓存或没有数据时不做处理
+     */
+    public void update(Integer userId, Consumer<HealthData> change) {
+        TransactionUtils.afterCommit(() -> {
+            generation.incrementAndGet();
+            cache.asMap().computeIfPresent(userId, (k, snapshot) -> snapshot.map(data -> {
+                HealthData updated = copy(data);
+                change.accept(updated);
+                return updated;
+            }));
+        });
+    }
+
+    /**
+     * health_data 行被删除或整体替换时调用
+     */
+    public void invalidate(Integer userId) {
+        TransactionUtils.afterCommit(() -> {
+            generation.incrementAndGet();
+            cache.invalidate(userId);
+        });
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    private static HealthData copy(HealthData source) {
+        HealthData target = new HealthData();
+        BeanUtils.copyProperties(source, target);
+        return target;
+    }
+}
@@ -3,6 +3,7 @@ package com.health.healthplatform.service.health_data;
 import com.health.healthplatform.DTO.SleepDTO;
 import com.health.healthplatform.entity.healthdata.SleepHistory;
 import com.health.healthplatform.mapper.health_data.SleepHistoryMapper;
+import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import java.time.LocalDateTime;
@@ -15,6 +16,9 @@ import java.util.stream.Collectors;
 public class SleepService {
     private final SleepHistoryMapper sleepHistoryMapper;
 
+    @Resource
+    UserDailyMetricsService userDailyMetricsService;
+
     public SleepService(SleepHistoryMapper sleepHistoryMapper) {
         this.sleepHistoryMapper = sleepHistoryMapper;
     }
@@ -72,6 +76,12 @@ public class SleepService {
         sleepHistoryMapper.insert(sleepHistory);
         log.info("Successfully recorded sleep with id: {}", sleepHistory.getId());
 
+        try {
+            userDailyMetricsService.onSleep(sleepHistory);
+        } catch (Exception e) {
+            log.error("Error updating daily metrics: {}", e.getMessage());
+        }
+
         return convertToDTO(sleepHistory);
     }
 
@@ -3,6 +3,7 @@ package com.health.healthplatform.service.health_data;
 import com.health.healthplatform.DTO.StepsDTO;
 import com.health.healthplatform.entity.healthdata.StepsHistory;
 import com.health.healthplatform.mapper.health_data.StepsHistoryMapper;
+import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
 import org.springframework.stereotype.Service;
@@ -18,6 +19,9 @@ import java.util.stream.Collectors;
 public class StepsService {
     private final StepsHistoryMapper stepsHistoryMapper;
 
+    @Resource
+    UserDailyMetricsService userDailyMetricsService;
+
     public StepsService(StepsHistoryMapper stepsHistoryMapper) {
         this.stepsHistoryMapper = stepsHistoryMapper;
     }
@@ -80,6 +84,12 @@ public class StepsService {
         stepsHistoryMapper.insert(stepsHistory);
         log.info("Successfully recorded steps with id: {}", stepsHistory.getId());
 
+        try {
+            userDailyMetricsService.onSteps(List.of(stepsHistory));
+        } catch (Exception e) {
+            log.error("Error updating daily metrics: {}", e.getMessage());
+        }
+
         return convertToDTO(stepsHistory);
     }
 
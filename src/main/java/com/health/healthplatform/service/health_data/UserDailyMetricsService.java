@@ -0,0 +1,269 @@
+package com.health.healthplatform.service.health_data;
+
+import com.health.healthplatform.entity.healthdata.BloodPressureHistory;
+import com.health.healthplatform.entity.healthdata.ExerciseRecord;
+import com.health.healthplatform.entity.healthdata.HeartRateHistory;
+import com.health.healthplatform.entity.healthdata.SleepHistory;
+import com.health.healthplatform.entity.healthdata.StepsHistory;
+import com.health.healthplatform.entity.healthdata.UserDailyMetric;
+import com.health.healthplatform.entity.healthdata.WeightHistory;
+import com.health.healthplatform.mapper.health_data.ExerciseRecordMapper;
+import com.health.healthplatform.mapper.health_data.UserDailyMetricMapper;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 每日指标聚合
+ * 写入心率、步数、睡眠、体重、血压、运动记录时，把取值累加进 user_daily_metrics 里当天的一行
+ * （条数、总和、最小、最大、当天最早和最晚一条的取值）；运动记录修改或删除时按原始记录重建当天的聚合。
+ * 趋势和汇总按天读聚合行，读取量与天数成正比，与记录条数无关。
+ * 指标名按数据源分组（"steps." 开头的都是步数数据），按前缀查询；分类取值（睡眠质量、运动类型）记为取值 1 的计数指标
+ */
+@Service
+@Slf4j
+public class UserDailyMetricsService {
+
+    public static final String HEART_RATE = "heart.rate";
+
+    public static final String STEPS = "steps.";
+    public static final String STEPS_COUNT = "steps.count";
+    public static final String STEPS_DISTANCE = "steps.distance";
+    public static final String STEPS_CALORIES = "steps.calories";
+    // 达到目标记 1，否则记 0，总和即达标次数
+    public static final String STEPS_GOAL_MET = "steps.goal_met";
+
+    public static final String SLEEP = "sleep.";
+    public static final String SLEEP_DURATION = "sleep.duration";
+    public static final String SLEEP_DEEP = "sleep.deep";
+    public static final String SLEEP_LIGHT = "sleep.light";
+    public static final String SLEEP_REM = "sleep.rem";
+    public static final String SLEEP_QUALITY = "sleep.quality.";
+
+    public static final String WEIGHT = "weight.value";
+
+    public static final String BLOOD_PRESSURE = "bp.";
+    public static final String BP_SYSTOLIC = "bp.systolic";
+    public static final String BP_DIASTOLIC = "bp.diastolic";
+
+    public static final String EXERCISE = "exercise.";
+    public static final String EXERCISE_DURATION = "exercise.duration";
+    public static final String EXERCISE_CALORIES = "exercise.calories";
+    public static final String EXERCISE_TYPE = "exercise.type.";
+
+    @Resource
+    private UserDailyMetricMapper userDailyMetricMapper;
+
+    @Resource
+    private ExerciseRecordMapper exerciseRecordMapper;
+
+    @Resource
+    private TransactionTemplate transactionTemplate;
+
+    public void onHeartRates(Collection<HeartRateHistory> rows) {
+        Delta delta = new Delta();
+        for (HeartRateHistory row : rows) {
+            delta.add(row.getUserId(), HEART_RATE, row.getMeasurementTime(), row.getHeartRate());
+        }
+        delta.flush();
+    }
+
+    public void onSteps(Collection<StepsHistory> rows) {
+        Delta delta = new Delta();
+        for (StepsHistory row : rows) {
+            LocalDateTime time = recordTime(row.getRecordDate(), row.getCreateTime());
+            delta.add(row.getUserId(), STEPS_COUNT, time, row.getSteps());
+            delta.add(row.getUserId(), STEPS_DISTANCE, time, row.getDistance());
+            delta.add(row.getUserId(), STEPS_CALORIES, time, row.getCalories());
+            if (row.getTarget() != null) {
+                delta.add(row.getUserId(), STEPS_GOAL_MET, time, row.getSteps() >= row.getTarget() ? 1 : 0);
+            }
+        }
+        delta.flush();
+    }
+
+    // 睡眠记在入睡那天，与按 sleep_start 查询的口径一致
+    public void onSleep(SleepHistory row) {
+        Delta delta = new Delta();
+        LocalDateTime time = row.getSleepStart();
+        delta.add(row.getUserId(), SLEEP_DURATION, time, row.getSleepDuration());
+        delta.add(row.getUserId(), SLEEP_DEEP, time, row.getDeepSleep());
+        delta.add(row.getUserId(), SLEEP_LIGHT, time, row.getLightSleep());
+        delta.add(row.getUserId(), SLEEP_REM, time, row.getRemSleep());
+        if (row.getSleepQuality() != null) {
+            delta.add(row.getUserId(), SLEEP_QUALITY + row.getSleepQuality(), time, 1);
+        }
+        delta.flush();
+    }
+
+    public void onWeight(WeightHistory row) {
+        Delta delta = new Delta();
+        delta.add(row.getUserId(), WEIGHT, row.getMeasurementTime(), row.getWeight());
+        delta.flush();
+    }
+
+    public void onBloodPressure(BloodPressureHistory row) {
+        Delta delta = new Delta();
+        delta.add(row.getUserId(), BP_SYSTOLIC, row.getMeasurementTime(), row.getSystolic());
+        delta.add(row.getUserId(), BP_DIASTOLIC, row.getMeasurementTime(), row.getDiastolic());
+        delta.flush();
+    }
+
+    public void onExercise(ExerciseRecord row) {
+        Delta delta = new Delta();
+        addExercise(delta, row);
+        delta.flush();
+    }
+
+    /**
+     * 运动记录修改或删除后，按 exercise_records 重建这几天的运动聚合（只读这几天的记录）。
+     * 删除和重写在同一个事务里，重写失败时保留原聚合，不会留下被删空的一天
+     */
+    public void rebuildExercise(Integer userId, Collection<LocalDate> dates) {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (LocalDate date : dates.stream().filter(Objects::nonNull).distinct().toList()) {
+                userDailyMetricMapper.deleteDay(userId, date, EXERCISE);
+                Delta delta = new Delta();
+                for (ExerciseRecord row : exerciseRecordMapper.findByDateRange(userId, date, date)) {
+                    addExercise(delta, row);
+                }
+                delta.flush();
+            }
+        });
+    }
+
+    /**
+     * 读取一组指标（按前缀）在日期范围内的每日聚合，按指标名分组，每组按日期升序
+     */
+    public Map<String, List<UserDailyMetric>> findRange(Integer userId, String prefix, LocalDate startDate, LocalDate endDate) {
+        Map<String, List<UserDailyMetric>> byMetric = new LinkedHashMap<>();
+        for (UserDailyMetric row : userDailyMetricMapper.findByRange(userId, prefix, startDate, endDate)) {
+            byMetric.computeIfAbsent(row.getMetric(), k -> new ArrayList<>()).add(row);
+        }
+        return byMetric;
+    }
+
+    /**
+     * 把多天的聚合合并成整个范围的聚合，没有数据返回 null
+     */
+    public static UserDailyMetric combine(List<UserDailyMetric> days) {
+        if (days == null || days.isEmpty()) {
+            return null;
+        }
+        UserDailyMetric total = null;
+        for (UserDailyMetric day : days) {
+            if (total == null) {
+                total = new UserDailyMetric();
+                total.setUserId(day.getUserId());
+                total.setMetric(day.getMetric());
+                total.setRecordDate(day.getRecordDate());
+                total.setSampleCount(0);
+                total.setSumValue(0.0);
+                total.setMinValue(day.getMinValue());
+                total.setMaxValue(day.getMaxValue());
+                total.setFirstValue(day.getFirstValue());
+                total.setFirstTime(day.getFirstTime());
+                total.setLastValue(day.getLastValue());
+                total.setLastTime(day.getLastTime());
+            }
+            merge(total, day);
+        }
+        return total;
+    }
+
+    /**
+     * 分类指标（如 sleep.quality.*）在范围内各取值的次数
+     */
+    public static Map<String, Long> distribution(Map<String, List<UserDailyMetric>> byMetric, String prefix) {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        byMetric.forEach((metric, days) -> {
+            if (metric.startsWith(prefix)) {
+                counts.put(metric.substring(prefix.length()), (long) combine(days).getSumValue().doubleValue());
+            }
+        });
+        return counts;
+    }
+
+    public static double average(UserDailyMetric total) {
+        return total == null || total.getSampleCount() == 0 ? 0 : total.getSumValue() / total.getSampleCount();
+    }
+
+    private static void addExercise(Delta delta, ExerciseRecord row) {
+        LocalDateTime time = recordTime(row.getRecordDate(), row.getCreateTime());
+        delta.add(row.getUserId(), EXERCISE_DURATION, time, row.getDuration());
+        delta.add(row.getUserId(), EXERCISE_CALORIES, time, row.getCalories());
+        if (row.getExerciseType() != null) {
+            delta.add(row.getUserId(), EXERCISE_TYPE + row.getExerciseType(), time, 1);
+        }
+    }
+
+    // 只有日期的记录：创建时间在当天就用创建时间，否则记为当天零点
+    private static LocalDateTime recordTime(LocalDate recordDate, LocalDateTime createTime) {
+        if (recordDate == null) {
+            return null;
+        }
+        return createTime != null && createTime.toLocalDate().equals(recordDate) ? createTime : recordDate.atStartOfDay();
+    }
+
+    // 把 day 合并进 total
+    private static void merge(UserDailyMetric total, UserDailyMetric day) {
+        total.setSampleCount(total.getSampleCount() + day.getSampleCount());
+        total.setSumValue(total.getSumValue() + day.getSumValue());
+        total.setMinValue(Math.min(total.getMinValue(), day.getMinValue()));
+        total.setMaxValue(Math.max(total.getMaxValue(), day.getMaxValue()));
+        if (day.getFirstTime().isBefore(total.getFirstTime())) {
+            total.setFirstValue(day.getFirstValue());
+            total.setFirstTime(day.getFirstTime());
+        }
+        if (!day.getLastTime().isBefore(total.getLastTime())) {
+            total.setLastValue(day.getLastValue());
+            total.setLastTime(day.getLastTime());
+        }
+    }
+
+    /**
+     * 一次写入涉及的增量，同一用户同一指标同一天的先在内存里合并，再一条多行 upsert 写入
+     */
+    private final class Delta {
+        final Map<String, UserDailyMetric> rows = new LinkedHashMap<>();
+
+        void add(Integer userId, String metric, LocalDateTime time, Number value) {
+            if (userId == null || time == null || value == null) {
+                return;
+            }
+            double v = value.doubleValue();
+            UserDailyMetric sample = new UserDailyMetric();
+            sample.setUserId(userId);
+            sample.setMetric(metric);
+            sample.setRecordDate(time.toLocalDate());
+            sample.setSampleCount(1);
+            sample.setSumValue(v);
+            sample.setMinValue(v);
+            sample.setMaxValue(v);
+            sample.setFirstValue(v);
+            sample.setFirstTime(time);
+            sample.setLastValue(v);
+            sample.setLastTime(time);
+            rows.merge(userId + "|" + metric + "|" + sample.getRecordDate(), sample, (total, s) -> {
+                merge(total, s);
+                return total;
+            });
+        }
+
+        void flush() {
+            if (!rows.isEmpty()) {
+                userDailyMetricMapper.upsertBatch(new ArrayList<>(rows.values()));
+            }
+        }
+    }
+}
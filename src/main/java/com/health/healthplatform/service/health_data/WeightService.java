@@ -24,9 +24,15 @@ public class WeightService {
     @Resource
     private HealthDataMapper healthDataMapper;
 
+    @Resource
+    private LatestVitalsCache latestVitalsCache;
+
     @Resource
     private BmiService bmiService;
 
+    @Resource
+    private UserDailyMetricsService userDailyMetricsService;
+
     public WeightService(WeightHistoryMapper weightHistoryMapper) {
         this.weightHistoryMapper = weightHistoryMapper;
     }
@@ -80,7 +86,7 @@ public class WeightService {
         weightHistory.setUpdateTime(LocalDateTime.now());
 
         // 获取用户身高数据并计算BMI
-        HealthData healthData = healthDataMapper.findByUserId(userId);
+        HealthData healthData = latestVitalsCache.get(userId);
         if (healthData != null && healthData.getHeight() != null) {
             Double height = healthData.getHeight();
             weightHistory.setHeight(height);
@@ -94,6 +100,12 @@ public class WeightService {
         weightHistoryMapper.insert(weightHistory);
         log.info("Successfully recorded weight with id: {}", weightHistory.getId());
 
+        try {
+            userDailyMetricsService.onWeight(weightHistory);
+        } catch (Exception e) {
+            log.error("Error updating daily metrics: {}", e.getMessage());
+        }
+
         // 更新健康数据总表并计算BMI
         updateHealthDataAndBmi(userId, weight);
 
@@ -102,7 +114,7 @@ public class WeightService {
 
     private void updateHealthDataAndBmi(Integer userId, Double weight) {
         try {
-            HealthData healthData = healthDataMapper.findByUserId(userId);
+            HealthData healthData = latestVitalsCache.get(userId);
             if (healthData != null && healthData.getHeight() != null) {
                 // 有身高数据时自动计算BMI
                 double heightM = healthData.getHeight() / 100.0;
@@ -115,6 +127,7 @@ public class WeightService {
                     .set("weight", weight)
                     .set("update_time", LocalDateTime.now());
             healthDataMapper.update(null, updateWrapper);
+            latestVitalsCache.update(userId, data -> data.setWeight(weight));
         } catch (Exception e) {
             log.error("Error updating health data and BMI: {}", e.getMessage());
         }
@@ -1,13 +1,27 @@
 package com.health.healthplatform.service.impl;
 
 import com.health.healthplatform.entity.Notification;
+import com.health.healthplatform.entity.User;
 import com.health.healthplatform.mapper.NotificationMapper;
+import com.health.healthplatform.mapper.UserMapper;
+import com.health.healthplatform.service.NotificationArchiver;
+import com.health.healthplatform.service.NotificationCoalescer;
+import com.health.healthplatform.service.NotificationDispatcher;
 import com.health.healthplatform.service.NotificationService;
+import com.health.healthplatform.service.NotificationUnreadCounter;
+import com.health.healthplatform.util.PageCursor;
+import com.health.healthplatform.util.TransactionUtils;
 import com.health.healthplatform.websocket.NotificationWebSocketHandler;
 import org.springframework.stereotype.Service;
 import org.springframework.beans.factory.annotation.Autowired;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 public class NotificationServiceImpl implements NotificationService {
@@ -18,6 +32,21 @@ public class NotificationServiceImpl implements NotificationService {
     @Autowired
     private NotificationWebSocketHandler webSocketHandler;
 
+    @Autowired
+    private UserMapper userMapper;
+
+    @Autowired
+    private NotificationCoalescer notificationCoalescer;
+
+    @Autowired
+    private NotificationDispatcher notificationDispatcher;
+
+    @Autowired
+    private NotificationUnreadCounter unreadCounter;
+
+    @Autowired
+    private NotificationArchiver notificationArchiver;
+
     @Override
     public void createNotification(Integer userId, Integer senderId, String type, String message, Long articleId) {
         try {
@@ -30,10 +59,8 @@ public class NotificationServiceImpl implements NotificationService {
             notification.setIsRead(false);
             notification.setCreateTime(LocalDateTime.now());
 
-            notificationMapper.insert(notification);
-
-            // 通过WebSocket发送实时通知
-            webSocketHandler.sendNotificationToUser(userId, notification);
+            // 事务提交后进入合并和投递队列，由后台批量写库并推送 WebSocket
+            TransactionUtils.afterCommit(() -> notificationCoalescer.offer(notification));
 
         } catch (Exception e) {
             // 添加错误日志
@@ -45,22 +72,93 @@ public class NotificationServiceImpl implements NotificationService {
 
     @Override
     public List<Notification> getUserNotifications(Integer userId) {
-        return notificationMapper.selectByUserId(userId);
+        // 不分页时只返回主表里的通知，已归档的需要翻页查看
+        List<Notification> notifications = notificationMapper.selectByUserId(userId);
+        fillSenders(notifications);
+        return notifications;
+    }
+
+    @Override
+    public Map<String, Object> getUserNotifications(Integer userId, String cursor, int size) {
+        PageCursor position = PageCursor.decode(cursor);
+        LocalDateTime cursorTime = position == null ? null : position.getTime();
+        Long cursorId = position == null ? null : position.getId();
+        List<Notification> notifications = notificationMapper.selectPageByUserId(userId, cursorTime, cursorId, size + 1);
+
+        // 归档表里只有保留期外的通知：主表这一页取满且最后一条仍在保留期内时，归档部分不会插进这一页
+        if (notifications.size() <= size
+                || notifications.get(notifications.size() - 1).getCreateTime().isBefore(notificationArchiver.cutoff())) {
+            List<Notification> archived = notificationMapper.selectArchivePageByUserId(userId, cursorTime, cursorId, size + 1);
+            if (!archived.isEmpty()) {
+                notifications = new ArrayList<>(notifications);
+                notifications.addAll(archived);
+                notifications.sort(Comparator.comparing(Notification::getCreateTime)
+                        .thenComparing(Notification::getId).reversed());
+            }
+        }
+
+        boolean hasMore = notifications.size() > size;
+        if (hasMore) {
+            notifications = new ArrayList<>(notifications.subList(0, size));
+        }
+        fillSenders(notifications);
+
+        String nextCursor = null;
+        if (hasMore) {
+            Notification last = notifications.get(notifications.size() - 1);
+            nextCursor = PageCursor.encode(last.getCreateTime(), last.getId());
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("notifications", notifications);
+        result.put("nextCursor", nextCursor);
+        result.put("hasMore", hasMore);
+        return result;
+    }
+
+    // 发送者信息一次批量查询
+    private void fillSenders(List<Notification> notifications) {
+        Set<Integer> senderIds = new HashSet<>();
+        for (Notification notification : notifications) {
+            if (notification.getSenderId() != null) {
+                senderIds.add(notification.getSenderId());
+            }
+        }
+        if (senderIds.isEmpty()) {
+            return;
+        }
+        Map<Integer, User> senders = new HashMap<>();
+        for (User user : userMapper.selectByIds(senderIds)) {
+            senders.put(user.getId(), user);
+        }
+        for (Notification notification : notifications) {
+            notification.setSender(senders.get(notification.getSenderId()));
+        }
     }
 
     @Override
     public void markAsRead(Integer userId, Long notificationId) {
-        notificationMapper.markAsRead(userId, notificationId);
+        notificationCoalescer.onRead(userId, notificationId);
+        // 已读过的重复标记不动计数
+        if (notificationMapper.markAsRead(userId, notificationId) > 0) {
+            int count = unreadCounter.decrement(userId);
+            notificationDispatcher.pushUnreadCount(userId, -1, count);
+        }
     }
 
     @Override
     public void markAllAsRead(Integer userId) {
-        notificationMapper.markAllAsRead(userId);
+        notificationCoalescer.onReadAll(userId);
+        int cleared = notificationMapper.markAllAsRead(userId);
+        int count = unreadCounter.recount(userId);
+        if (cleared > 0) {
+            notificationDispatcher.pushUnreadCount(userId, -cleared, count);
+        }
     }
 
     @Override
     public int getUnreadCount(Integer userId) {
-        return notificationMapper.countUnread(userId);
+        return unreadCounter.get(userId);
     }
 
     @Override
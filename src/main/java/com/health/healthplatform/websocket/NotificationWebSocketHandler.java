@@ -1,28 +1,41 @@
 package com.health.healthplatform.websocket;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.health.healthplatform.websocket.bus.NotificationBus;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.PongMessage;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
 
-import java.util.concurrent.ConcurrentHashMap;
-
 @Component("notificationWebSocketHandler")  // 添加具体的bean名称
 public class NotificationWebSocketHandler extends TextWebSocketHandler {
 
-    // 存储WebSocket会话，key是用户ID
-    private static final ConcurrentHashMap<Integer, WebSocketSession> SESSIONS = new ConcurrentHashMap<>();
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    // 本节点的会话，一个用户可有多个
+    @Resource
+    private WebSocketSessionRegistry sessionRegistry;
+
+    // 推送先经过总线，由持有会话的节点投递
+    @Resource
+    private NotificationBus notificationBus;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @PostConstruct
+    public void subscribe() {
+        notificationBus.subscribe((userId, payload) -> sessionRegistry.send(userId, new TextMessage(payload)));
+    }
 
     @Override
     public void afterConnectionEstablished(WebSocketSession session) throws Exception {
         // 获取用户ID（从URL中获取）
         Integer userId = getUserIdFromSession(session);
         if (userId != null) {
-            SESSIONS.put(userId, session);
-            System.out.println("WebSocket连接已建立，用户ID: " + userId);
+            sessionRegistry.register(userId, session);
+            System.out.println("WebSocket连接已建立，用户ID: " + userId + "，当前会话数: " + sessionRegistry.sessionCount(userId));
         }
     }
 
@@ -30,13 +43,20 @@ public class NotificationWebSocketHandler extends TextWebSocketHandler {
     protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
         // 处理接收到的消息（如果需要）
         System.out.println("收到消息: " + message.getPayload());
+        touch(session);
+    }
+
+    // 心跳回应
+    @Override
+    protected void handlePongMessage(WebSocketSession session, PongMessage message) throws Exception {
+        touch(session);
     }
 
     @Override
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) throws Exception {
         Integer userId = getUserIdFromSession(session);
         if (userId != null) {
-            SESSIONS.remove(userId);
+            sessionRegistry.unregister(userId, session);
             System.out.println("WebSocket连接已关闭，用户ID: " + userId);
         }
     }
@@ -49,20 +69,21 @@ public class NotificationWebSocketHandler extends TextWebSocketHandler {
         }
     }
 
-    // 发送通知给指定用户
+    // 发送通知给指定用户：发布到总线，所有节点上该用户的会话都会收到
     public void sendNotificationToUser(Integer userId, Object notification) {
-        WebSocketSession session = SESSIONS.get(userId);
-        if (session != null && session.isOpen()) {
-            try {
-                String message = objectMapper.writeValueAsString(notification);
-                session.sendMessage(new TextMessage(message));
-                System.out.println("已发送通知给用户ID " + userId + ": " + message);
-            } catch (Exception e) {
-                System.out.println("发送通知失败: " + e.getMessage());
-                e.printStackTrace();
-            }
-        } else {
-            System.out.println("用户 " + userId + " 不在线或会话已关闭");
+        try {
+            String message = objectMapper.writeValueAsString(notification);
+            notificationBus.publish(userId, message);
+        } catch (Exception e) {
+            System.out.println("发送通知失败: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    private void touch(WebSocketSession session) {
+        Integer userId = getUserIdFromSession(session);
+        if (userId != null) {
+            sessionRegistry.touch(userId, session);
         }
     }
 
@@ -76,4 +97,4 @@ public class NotificationWebSocketHandler extends TextWebSocketHandler {
             return null;
         }
     }
-}
\ No newline at end of file
+}
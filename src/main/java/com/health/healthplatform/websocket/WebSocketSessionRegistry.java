@@ -0,0 +1,278 @@
+package com.health.healthplatform.websocket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.PingMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 本节点的 WebSocket 会话表
+ * 一个用户可以同时有多个会话（多标签页、多设备）。每个会话有一个有界发件队列：
+ * send 只入队立即返回，由发送线程池逐个会话按顺序写出，调用方线程不会被慢连接或半开连接卡住。
+ * 队列满时按配置丢弃最旧的消息或直接关闭会话；底层再包一层 ConcurrentWebSocketSessionDecorator 限制单次发送耗时。
+ * 定时向每个会话发 ping，超过空闲时限没有任何回应（pong 或客户端消息）的会话被关闭移除
+ */
+@Slf4j
+@Component
+public class WebSocketSessionRegistry {
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    @Value("${notification.ws.send-time-limit-ms:5000}")
+    private int sendTimeLimitMs = 5000;
+
+    @Value("${notification.ws.buffer-size-limit:524288}")
+    private int bufferSizeLimit = 512 * 1024;
+
+    // 每个会话最多积压的消息数
+    @Value("${notification.ws.queue-capacity:100}")
+    private int queueCapacity = 100;
+
+    // 积压满时：drop 丢弃最旧的消息，close 关闭会话
+    @Value("${notification.ws.overflow-policy:drop}")
+    private String overflowPolicy = "drop";
+
+    @Value("${notification.ws.send-threads:4}")
+    private int sendThreads = 4;
+
+    @Value("${notification.ws.idle-timeout-ms:90000}")
+    private long idleTimeoutMs = 90000;
+
+    // 用户ID -> 该用户在本节点的会话（原始会话ID -> 发件队列）
+    private final ConcurrentHashMap<Integer, Map<String, Outbox>> sessions = new ConcurrentHashMap<>();
+
+    private ThreadPoolExecutor sendExecutor;
+    private Timer sendTimer;
+    private Counter dropped;
+    private Counter evicted;
+
+    @PostConstruct
+    public void init() {
+        // 每个会话同一时间最多一个发送任务在排队，任务数不超过会话数
+        sendExecutor = new ThreadPoolExecutor(sendThreads, sendThreads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+                    Thread thread = new Thread(r, "notification-ws-send");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        Gauge.builder("notification.ws.sessions", this, WebSocketSessionRegistry::totalSessions)
+                .description("本节点的 WebSocket 会话数")
+                .register(meterRegistry);
+        Gauge.builder("notification.ws.users", sessions, Map::size)
+                .register(meterRegistry);
+        Gauge.builder("notification.ws.queue.depth", this, WebSocketSessionRegistry::queuedMessages)
+                .description("所有会话积压待发的消息数")
+                .register(meterRegistry);
+        sendTimer = Timer.builder("notification.ws.send").register(meterRegistry);
+        dropped = Counter.builder("notification.ws.dropped")
+                .description("会话积压已满被丢弃的消息数")
+                .register(meterRegistry);
+        evicted = Counter.builder("notification.ws.evicted")
+                .description("因空闲超时、积压或发送失败被关闭的会话数")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (sendExecutor != null) {
+            sendExecutor.shutdownNow();
+        }
+    }
+
+    public WebSocketSession register(Integer userId, WebSocketSession session) {
+        WebSocketSession decorated = new ConcurrentWebSocketSessionDecorator(session, sendTimeLimitMs, bufferSizeLimit);
+        sessions.computeIfAbsent(userId, k -> new ConcurrentHashMap<>())
+                .put(session.getId(), new Outbox(userId, decorated));
+        return decorated;
+    }
+
+    public void unregister(Integer userId, WebSocketSession session) {
+        sessions.computeIfPresent(userId, (k, userSessions) -> {
+            userSessions.remove(session.getId());
+            return userSessions.isEmpty() ? null : userSessions;
+        });
+    }
+
+    /**
+     * 会话有活动（pong 或客户端消息），刷新空闲计时
+     */
+    public void touch(Integer userId, WebSocketSession session) {
+        Map<String, Outbox> userSessions = sessions.get(userId);
+        Outbox outbox = userSessions == null ? null : userSessions.get(session.getId());
+        if (outbox != null) {
+            outbox.lastSeen = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * 放进用户在本节点所有会话的发件队列，返回入队的会话数；不等待实际发出
+     */
+    public int send(Integer userId, WebSocketMessage<?> message) {
+        Map<String, Outbox> userSessions = sessions.get(userId);
+        if (userSessions == null) {
+            return 0;
+        }
+        int queued = 0;
+        for (Outbox outbox : userSessions.values()) {
+            if (!outbox.session.isOpen()) {
+                unregister(userId, outbox.session);
+                continue;
+            }
+            if (outbox.offer(message)) {
+                queued++;
+            }
+        }
+        return queued;
+    }
+
+    /**
+     * 心跳：空闲超时的会话关闭移除，其余的发一个 ping
+     */
+    @Scheduled(fixedDelayString = "${notification.ws.heartbeat-interval-ms:30000}")
+    public void heartbeat() {
+        long now = System.currentTimeMillis();
+        for (Map<String, Outbox> userSessions : sessions.values()) {
+            for (Outbox outbox : userSessions.values()) {
+                if (!outbox.session.isOpen() || now - outbox.lastSeen > idleTimeoutMs) {
+                    outbox.evict(CloseStatus.SESSION_NOT_RELIABLE);
+                } else {
+                    outbox.offer(new PingMessage(ByteBuffer.allocate(0)));
+                }
+            }
+        }
+    }
+
+    public Set<Integer> onlineUsers() {
+        return sessions.keySet();
+    }
+
+    public int sessionCount(Integer userId) {
+        Map<String, Outbox> userSessions = sessions.get(userId);
+        return userSessions == null ? 0 : userSessions.size();
+    }
+
+    public int totalSessions() {
+        int total = 0;
+        for (Map<String, Outbox> userSessions : sessions.values()) {
+            total += userSessions.size();
+        }
+        return total;
+    }
+
+    public int queuedMessages() {
+        int total = 0;
+        for (Map<String, Outbox> userSessions : sessions.values()) {
+            for (Outbox outbox : userSessions.values()) {
+                total += outbox.queue.size();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * 单个会话的发件队列，同一时间只有一个线程在写这个会话，消息按入队顺序发出
+     */
+    private final class Outbox {
+        final Integer userId;
+        final WebSocketSession session;
+        final BlockingQueue<WebSocketMessage<?>> queue = new ArrayBlockingQueue<>(queueCapacity);
+        final AtomicBoolean draining = new AtomicBoolean();
+        final AtomicBoolean closed = new AtomicBoolean();
+        volatile long lastSeen = System.currentTimeMillis();
+
+        Outbox(Integer userId, WebSocketSession session) {
+            this.userId = userId;
+            this.session = session;
+        }
+
+        boolean offer(WebSocketMessage<?> message) {
+            if (!queue.offer(message)) {
+                if ("close".equals(overflowPolicy)) {
+                    evict(CloseStatus.SESSION_NOT_RELIABLE);
+                    return false;
+                }
+                // 丢弃最旧的一条给新消息腾位置
+                queue.poll();
+                dropped.increment();
+                if (!queue.offer(message)) {
+                    dropped.increment();
+                    return false;
+                }
+            }
+            schedule();
+            return true;
+        }
+
+        void schedule() {
+            if (draining.compareAndSet(false, true)) {
+                sendExecutor.execute(this::drain);
+            }
+        }
+
+        void drain() {
+            try {
+                WebSocketMessage<?> message;
+                while ((message = queue.poll()) != null) {
+                    long start = System.nanoTime();
+                    try {
+                        session.sendMessage(message);
+                    } catch (Exception e) {
+                        // 发送超时或缓冲溢出时装饰器会关闭会话，这里一并移除
+                        log.warn("推送到会话 {} 失败: {}", session.getId(), e.getMessage());
+                        evict(CloseStatus.SESSION_NOT_RELIABLE);
+                        return;
+                    } finally {
+                        sendTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    }
+                }
+            } finally {
+                draining.set(false);
+            }
+            // 释放标记与新消息入队之间可能有竞争，补一次调度
+            if (!queue.isEmpty()) {
+                schedule();
+            }
+        }
+
+        void evict(CloseStatus status) {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+            unregister(userId, session);
+            queue.clear();
+            evicted.increment();
+            sendExecutor.execute(() -> {
+                try {
+                    session.close(status);
+                } catch (Exception e) {
+                    log.debug("关闭会话 {} 失败: {}", session.getId(), e.getMessage());
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.health.healthplatform.websocket.bus;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 默认总线：只在本进程内分发，适用于单实例部署
+ */
+@Component
+@ConditionalOnProperty(name = "notification.bus", havingValue = "in-process", matchIfMissing = true)
+public class InProcessNotificationBus implements NotificationBus {
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(Integer userId, String payload) {
+        for (Listener listener : listeners) {
+            listener.onMessage(userId, payload);
+        }
+    }
+
+    @Override
+    public void subscribe(Listener listener) {
+        listeners.add(listener);
+    }
+}
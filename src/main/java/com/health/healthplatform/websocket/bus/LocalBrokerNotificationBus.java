@@ -0,0 +1,44 @@
+package com.health.healthplatform.websocket.bus;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+/**
+ * 同一 JVM 内多个应用上下文共享的总线，模拟消息中间件的广播语义，
+ * 用于本地联调和测试多节点投递；每个上下文是一个节点，发布的消息会送达所有节点
+ */
+@Component
+@ConditionalOnProperty(name = "notification.bus", havingValue = "local-broker")
+public class LocalBrokerNotificationBus implements NotificationBus {
+
+    // 充当“中间件”的共享订阅表
+    private static final Set<Listener> BROKER = new CopyOnWriteArraySet<>();
+
+    private final List<Listener> own = new ArrayList<>();
+
+    @Override
+    public void publish(Integer userId, String payload) {
+        for (Listener listener : BROKER) {
+            listener.onMessage(userId, payload);
+        }
+    }
+
+    @Override
+    public synchronized void subscribe(Listener listener) {
+        own.add(listener);
+        BROKER.add(listener);
+    }
+
+    // 上下文关闭时退出广播，相当于节点下线
+    @PreDestroy
+    public synchronized void close() {
+        own.forEach(BROKER::remove);
+        own.clear();
+    }
+}
@@ -0,0 +1,23 @@
+package com.health.healthplatform.websocket.bus;
+
+/**
+ * 跨节点推送总线
+ * 推送消息先发布到总线，每个节点订阅总线并投递给本机持有的会话。
+ * 单机部署用进程内实现；多实例部署换成基于消息中间件的实现即可，发布方和会话管理不需要改动
+ */
+public interface NotificationBus {
+
+    /**
+     * 发布一条发给指定用户的消息，所有订阅节点都会收到
+     */
+    void publish(Integer userId, String payload);
+
+    /**
+     * 注册本节点的接收方
+     */
+    void subscribe(Listener listener);
+
+    interface Listener {
+        void onMessage(Integer userId, String payload);
+    }
+}
@@ -0,0 +1,12 @@
+-- 每日健康报告批量同步的断点，任务中途退出后从 last_user_id 之后继续
+CREATE TABLE IF NOT EXISTS health_sync_checkpoints (
+    job VARCHAR(64) NOT NULL,
+    sync_date DATE NOT NULL,
+    last_user_id INT NOT NULL DEFAULT 0,
+    finished TINYINT(1) NOT NULL DEFAULT 0,
+    update_time DATETIME NOT NULL,
+    PRIMARY KEY (job, sync_date)
+);
+
+-- 按天、按用户顺序流式读取 health_data
+CREATE INDEX idx_health_data_date_user ON health_data (record_date, user_id);
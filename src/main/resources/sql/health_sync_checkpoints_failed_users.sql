@@ -0,0 +1,2 @@
+-- 每日同步重试后仍失败的用户；有失败时断点停在失败块之前，日期不标记完成
+ALTER TABLE health_sync_checkpoints ADD COLUMN failed_user_ids TEXT NULL;
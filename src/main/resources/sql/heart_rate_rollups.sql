@@ -0,0 +1,30 @@
+-- 心率预聚合：1 分钟、1 小时、1 天三种桶宽，写入心率时增量更新
+CREATE TABLE IF NOT EXISTS heart_rate_rollups (
+    user_id INT NOT NULL,
+    resolution INT NOT NULL,
+    bucket_start DATETIME NOT NULL,
+    min_rate DOUBLE NOT NULL,
+    max_rate DOUBLE NOT NULL,
+    sum_rate DOUBLE NOT NULL,
+    sample_count INT NOT NULL,
+    PRIMARY KEY (user_id, resolution, bucket_start)
+);
+
+-- 按已有的心率记录初始化
+INSERT INTO heart_rate_rollups (user_id, resolution, bucket_start, min_rate, max_rate, sum_rate, sample_count)
+SELECT user_id, 60, DATE_FORMAT(measurement_time, '%Y-%m-%d %H:%i:00'),
+       MIN(heart_rate), MAX(heart_rate), SUM(heart_rate), COUNT(*)
+FROM heart_rate_history WHERE deleted = 0
+GROUP BY user_id, DATE_FORMAT(measurement_time, '%Y-%m-%d %H:%i:00');
+
+INSERT INTO heart_rate_rollups (user_id, resolution, bucket_start, min_rate, max_rate, sum_rate, sample_count)
+SELECT user_id, 3600, DATE_FORMAT(measurement_time, '%Y-%m-%d %H:00:00'),
+       MIN(heart_rate), MAX(heart_rate), SUM(heart_rate), COUNT(*)
+FROM heart_rate_history WHERE deleted = 0
+GROUP BY user_id, DATE_FORMAT(measurement_time, '%Y-%m-%d %H:00:00');
+
+INSERT INTO heart_rate_rollups (user_id, resolution, bucket_start, min_rate, max_rate, sum_rate, sample_count)
+SELECT user_id, 86400, DATE(measurement_time),
+       MIN(heart_rate), MAX(heart_rate), SUM(heart_rate), COUNT(*)
+FROM heart_rate_history WHERE deleted = 0
+GROUP BY user_id, DATE(measurement_time);
@@ -0,0 +1,15 @@
+-- 游标分页索引
+-- 文章列表、收藏列表、通知列表按 (时间, id) 倒序翻页，需要覆盖排序键的联合索引
+
+CREATE INDEX idx_articles_status_created ON articles (status, created_at, id);
+
+CREATE INDEX idx_favorites_user_created ON favorites (user_id, created_at, article_id);
+
+CREATE INDEX idx_notifications_user_time ON notifications (user_id, create_time, id);
+
+CREATE INDEX idx_articles_status_category_created ON articles (status, category_id, created_at, id);
+
+-- 评论：根评论按文章分页，回复按父评论分页
+CREATE INDEX idx_comments_article_root ON comments (article_id, parent_id, created_at, id);
+
+CREATE INDEX idx_comments_parent_created ON comments (parent_id, created_at, id);
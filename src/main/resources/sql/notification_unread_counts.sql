@@ -0,0 +1,13 @@
+-- 每个用户的未读通知数，替代每次角标轮询时的 COUNT(*)
+CREATE TABLE IF NOT EXISTS notification_unread_counts (
+    user_id INT PRIMARY KEY,
+    unread_count INT NOT NULL DEFAULT 0
+);
+
+-- 上线前按现有通知初始化
+INSERT INTO notification_unread_counts (user_id, unread_count)
+SELECT user_id, COUNT(*) FROM notifications WHERE is_read = false GROUP BY user_id
+ON DUPLICATE KEY UPDATE unread_count = VALUES(unread_count);
+
+-- 全部已读只更新未读的行
+CREATE INDEX idx_notifications_user_read ON notifications (user_id, is_read);
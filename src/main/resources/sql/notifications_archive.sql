@@ -0,0 +1,13 @@
+-- 通知归档表：保留期外的已读通知由 NotificationArchiver 分批从 notifications 移入
+CREATE TABLE IF NOT EXISTS notifications_archive (
+    id BIGINT PRIMARY KEY,
+    user_id INT NOT NULL,
+    sender_id INT,
+    type VARCHAR(50) NOT NULL,
+    message TEXT,
+    article_id BIGINT,
+    is_read BOOLEAN NOT NULL DEFAULT TRUE,
+    create_time DATETIME NOT NULL
+);
+
+CREATE INDEX idx_notifications_archive_user_time ON notifications_archive (user_id, create_time, id);
@@ -0,0 +1,3 @@
+-- 合并通知最近一次计入事件的时间；原地更新合并通知时不再改 create_time（游标分页按 create_time, id 排序）
+ALTER TABLE notifications ADD COLUMN last_event_time DATETIME NULL;
+ALTER TABLE notifications_archive ADD COLUMN last_event_time DATETIME NULL;
@@ -0,0 +1,6 @@
+-- 标签写入改为 INSERT IGNORE 后依赖的唯一索引
+-- 执行前需先清理已有的重复数据
+
+ALTER TABLE tags ADD UNIQUE INDEX uk_tags_name (name);
+
+ALTER TABLE article_tags ADD UNIQUE INDEX uk_article_tags (article_id, tag_id);
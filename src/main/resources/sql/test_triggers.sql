@@ -1,4 +1,5 @@
--- 测试数据和触发器验证脚本
+-- 测试数据和报告同步验证脚本
+-- 插入数据后调用 POST /api/health/report/admin/backfill?startDate=2025-05-24&endDate=2025-05-28 生成报告，再执行下面的查询
 
 -- 1. 插入测试数据到health_data表
 INSERT INTO health_data (user_id, heart_rate, sleep_duration, sleep_quality, steps, blood_pressure_systolic, blood_pressure_diastolic, weight, bmi, height, record_date) VALUES
@@ -15,7 +16,7 @@ INSERT INTO health_data (user_id, heart_rate, sleep_duration, sleep_quality, ste
 (3, 65, 8.5, '优秀', 12000, 115, 75, 58.2, 20.1, 170.0, '2025-05-28'),
 (3, 63, 8.2, '良好', 11500, 112, 72, 58.0, 20.0, 170.0, '2025-05-27');
 
--- 3. 验证触发器是否正常工作
+-- 3. 验证报告是否已生成
 -- 查看health_reports表中是否有对应的记录生成
 SELECT 'health_reports表记录数量:' as info, COUNT(*) as count FROM health_reports;
 
@@ -24,7 +25,7 @@ SELECT user_id, DATE(report_time) as report_date, bmi_status, blood_pressure_sta
 FROM health_reports 
 ORDER BY user_id, report_time DESC;
 
--- 4. 测试更新触发器
+-- 4. 更新数据后再次回填 2025-05-28
 UPDATE health_data 
 SET heart_rate = 85, steps = 12000 
 WHERE user_id = 1 AND record_date = '2025-05-28';
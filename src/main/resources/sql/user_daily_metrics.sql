@@ -0,0 +1,146 @@
+-- 每日指标聚合：每个用户每项指标每天一行，写入心率、步数、睡眠、体重、血压、运动记录时增量更新
+CREATE TABLE IF NOT EXISTS user_daily_metrics (
+    user_id INT NOT NULL,
+    metric VARCHAR(64) NOT NULL,
+    record_date DATE NOT NULL,
+    sample_count INT NOT NULL,
+    sum_value DOUBLE NOT NULL,
+    min_value DOUBLE NOT NULL,
+    max_value DOUBLE NOT NULL,
+    first_value DOUBLE NOT NULL,
+    first_time DATETIME NOT NULL,
+    last_value DOUBLE NOT NULL,
+    last_time DATETIME NOT NULL,
+    PRIMARY KEY (user_id, metric, record_date)
+);
+
+-- 按已有的记录初始化（GROUP_CONCAT 取当天最早、最晚一条，需要足够大的 group_concat_max_len）
+SET SESSION group_concat_max_len = 1048576;
+
+INSERT INTO user_daily_metrics (user_id, metric, record_date, sample_count, sum_value, min_value, max_value,
+                                first_value, first_time, last_value, last_time)
+SELECT user_id, 'heart.rate', DATE(measurement_time), COUNT(*), SUM(heart_rate), MIN(heart_rate), MAX(heart_rate),
+       SUBSTRING_INDEX(GROUP_CONCAT(heart_rate ORDER BY measurement_time), ',', 1), MIN(measurement_time),
+       SUBSTRING_INDEX(GROUP_CONCAT(heart_rate ORDER BY measurement_time DESC), ',', 1), MAX(measurement_time)
+FROM heart_rate_history WHERE heart_rate IS NOT NULL AND deleted = 0
+GROUP BY user_id, DATE(measurement_time);
+
+INSERT INTO user_daily_metrics (user_id, metric, record_date, sample_count, sum_value, min_value, max_value,
+                                first_value, first_time, last_value, last_time)
+SELECT user_id, 'steps.count', record_date, COUNT(*), SUM(steps), MIN(steps), MAX(steps),
+       SUBSTRING_INDEX(GROUP_CONCAT(steps ORDER BY IF(DATE(create_time) = record_date, create_time, TIMESTAMP(record_date))), ',', 1), MIN(IF(DATE(create_time) = record_date, create_time, TIMESTAMP(record_date))),
+       SUBSTRING_INDEX(GROUP_CONCAT(steps ORDER BY IF(DATE(create_time) = record_date, create_time, TIMESTAMP(record_date)) DESC), ',', 1), MAX(IF(DATE(create_time) = record_date, create_time, TIMESTAMP(record_date)))
+FROM steps_history WHERE steps IS NOT NULL AND deleted = 0
+GROUP BY user_id, record_date;
+
+INSERT INTO user_daily_metrics (user_id, metric, record_date, sample_count, sum_value, min_value, max_value,
+                                first_value, first_time, last_value, last_time)
+SELECT user_id, 'steps.distance', record_date, COUNT(*), SUM(distance), MIN(distance), MAX(distance),
+       SUBSTRING_INDEX(GROUP_CONCAT(distance ORDER BY IF(DATE(create_time) = record_date, create_time, TIMESTAMP(record_date))), ',', 1), MIN(IF(DATE(create_time) = record_date, create_time, TIMESTAMP(record_date))),
+       SUBSTRING_INDEX(GROUP_CONCAT(distance ORDER BY IF(DATE(create_time) = record_date, create_time, TIMESTAMP(record_date)) DESC), ',', 1), MAX(IF(DATE(create_time) = record_date, create_time, TIMESTAMP(record_date)))
+FROM steps_history WHERE distance IS NOT NULL AND deleted = 0
+GROUP BY user_id, record_date;
+
+INSERT INTO user_daily_metrics (user_id, metric, record_date, sample_count, sum_value, min_value, max_value,
+                                first_value, first_time, last_value, last_time)
+SELECT user_id, 'steps.calories', record_date, COUNT(*), SUM(calories), MIN(calories), MAX(calories),
+       SUBSTRING_INDEX(GROUP_CONCAT(calories ORDER BY IF(DATE(create_time) = record_date, create_time, TIMESTAMP(record_date))), ',', 1), MIN(IF(DATE(create_time) = record_date, create_time, TIMESTAMP(record_date))),
+       SUBSTRING_INDEX(GROUP_CONCAT(calories ORDER BY IF(DATE(create_time) = record_date, create_time, TIMESTAMP(record_date)) DESC), ',', 1), MAX(IF(DATE(create_time) = record_date, create_time, TIMESTAMP(record_date)))
+FROM steps_history WHERE calories IS NOT NULL AND deleted = 0
+GROUP BY user_id, record_date;
+
+INSERT INTO user_daily_metrics (user_id, metric, record_date, sample_count, sum_value, min_value, max_value,
+                                first_value, first_time, last_value, last_time)
+SELECT user_id, 'steps.goal_met', record_date, COUNT(*), SUM(IF(steps >= target, 1, 0)), MIN(IF(steps >= target, 1, 0)), MAX(IF(steps >= target, 1, 0)),
+       SUBSTRING_INDEX(GROUP_CONCAT(IF(steps >= target, 1, 0) ORDER BY IF(DATE(create_time) = record_date, create_time, TIMESTAMP(record_date))), ',', 1), MIN(IF(DATE(create_time) = record_date, create_time, TIMESTAMP(record_date))),
+       SUBSTRING_INDEX(GROUP_CONCAT(IF(steps >= target, 1, 0) ORDER BY IF(DATE(create_time) = record_date, create_time, TIMESTAMP(record_date)) DESC), ',', 1), MAX(IF(DATE(create_time) = record_date, create_time, TIMESTAMP(record_date)))
+FROM steps_history WHERE IF(steps >= target, 1, 0) IS NOT NULL AND deleted = 0 AND target IS NOT NULL
+GROUP BY user_id, record_date;
+
+INSERT INTO user_daily_metrics (user_id, metric, record_date, sample_count, sum_value, min_value, max_value,
+                                first_value, first_time, last_value, last_time)
+SELECT user_id, 'sleep.duration', DATE(sleep_start), COUNT(*), SUM(sleep_duration), MIN(sleep_duration), MAX(sleep_duration),
+       SUBSTRING_INDEX(GROUP_CONCAT(sleep_duration ORDER BY sleep_start), ',', 1), MIN(sleep_start),
+       SUBSTRING_INDEX(GROUP_CONCAT(sleep_duration ORDER BY sleep_start DESC), ',', 1), MAX(sleep_start)
+FROM sleep_history WHERE sleep_duration IS NOT NULL AND deleted = 0
+GROUP BY user_id, DATE(sleep_start);
+
+INSERT INTO user_daily_metrics (user_id, metric, record_date, sample_count, sum_value, min_value, max_value,
+                                first_value, first_time, last_value, last_time)
+SELECT user_id, 'sleep.deep', DATE(sleep_start), COUNT(*), SUM(deep_sleep), MIN(deep_sleep), MAX(deep_sleep),
+       SUBSTRING_INDEX(GROUP_CONCAT(deep_sleep ORDER BY sleep_start), ',', 1), MIN(sleep_start),
+       SUBSTRING_INDEX(GROUP_CONCAT(deep_sleep ORDER BY sleep_start DESC), ',', 1), MAX(sleep_start)
+FROM sleep_history WHERE deep_sleep IS NOT NULL AND deleted = 0
+GROUP BY user_id, DATE(sleep_start);
+
+INSERT INTO user_daily_metrics (user_id, metric, record_date, sample_count, sum_value, min_value, max_value,
+                                first_value, first_time, last_value, last_time)
+SELECT user_id, 'sleep.light', DATE(sleep_start), COUNT(*), SUM(light_sleep), MIN(light_sleep), MAX(light_sleep),
+       SUBSTRING_INDEX(GROUP_CONCAT(light_sleep ORDER BY sleep_start), ',', 1), MIN(sleep_start),
+       SUBSTRING_INDEX(GROUP_CONCAT(light_sleep ORDER BY sleep_start DESC), ',', 1), MAX(sleep_start)
+FROM sleep_history WHERE light_sleep IS NOT NULL AND deleted = 0
+GROUP BY user_id, DATE(sleep_start);
+
+INSERT INTO user_daily_metrics (user_id, metric, record_date, sample_count, sum_value, min_value, max_value,
+                                first_value, first_time, last_value, last_time)
+SELECT user_id, 'sleep.rem', DATE(sleep_start), COUNT(*), SUM(rem_sleep), MIN(rem_sleep), MAX(rem_sleep),
+       SUBSTRING_INDEX(GROUP_CONCAT(rem_sleep ORDER BY sleep_start), ',', 1), MIN(sleep_start),
+       SUBSTRING_INDEX(GROUP_CONCAT(rem_sleep ORDER BY sleep_start DESC), ',', 1), MAX(sleep_start)
+FROM sleep_history WHERE rem_sleep IS NOT NULL AND deleted = 0
+GROUP BY user_id, DATE(sleep_start);
+
+INSERT INTO user_daily_metrics (user_id, metric, record_date, sample_count, sum_value, min_value, max_value,
+                                first_value, first_time, last_value, last_time)
+SELECT user_id, CONCAT('sleep.quality.', sleep_quality), DATE(sleep_start), COUNT(*), SUM(1), MIN(1), MAX(1),
+       SUBSTRING_INDEX(GROUP_CONCAT(1 ORDER BY sleep_start), ',', 1), MIN(sleep_start),
+       SUBSTRING_INDEX(GROUP_CONCAT(1 ORDER BY sleep_start DESC), ',', 1), MAX(sleep_start)
+FROM sleep_history WHERE deleted = 0 AND sleep_quality IS NOT NULL
+GROUP BY user_id, DATE(sleep_start), CONCAT('sleep.quality.', sleep_quality);
+
+INSERT INTO user_daily_metrics (user_id, metric, record_date, sample_count, sum_value, min_value, max_value,
+                                first_value, first_time, last_value, last_time)
+SELECT user_id, 'weight.value', DATE(measurement_time), COUNT(*), SUM(weight), MIN(weight), MAX(weight),
+       SUBSTRING_INDEX(GROUP_CONCAT(weight ORDER BY measurement_time), ',', 1), MIN(measurement_time),
+       SUBSTRING_INDEX(GROUP_CONCAT(weight ORDER BY measurement_time DESC), ',', 1), MAX(measurement_time)
+FROM weight_history WHERE weight IS NOT NULL AND deleted = 0
+GROUP BY user_id, DATE(measurement_time);
+
+INSERT INTO user_daily_metrics (user_id, metric, record_date, sample_count, sum_value, min_value, max_value,
+                                first_value, first_time, last_value, last_time)
+SELECT user_id, 'bp.systolic', DATE(measurement_time), COUNT(*), SUM(systolic), MIN(systolic), MAX(systolic),
+       SUBSTRING_INDEX(GROUP_CONCAT(systolic ORDER BY measurement_time), ',', 1), MIN(measurement_time),
+       SUBSTRING_INDEX(GROUP_CONCAT(systolic ORDER BY measurement_time DESC), ',', 1), MAX(measurement_time)
+FROM blood_pressure_history WHERE systolic IS NOT NULL AND deleted = 0
+GROUP BY user_id, DATE(measurement_time);
+
+INSERT INTO user_daily_metrics (user_id, metric, record_date, sample_count, sum_value, min_value, max_value,
+                                first_value, first_time, last_value, last_time)
+SELECT user_id, 'bp.diastolic', DATE(measurement_time), COUNT(*), SUM(diastolic), MIN(diastolic), MAX(diastolic),
+       SUBSTRING_INDEX(GROUP_CONCAT(diastolic ORDER BY measurement_time), ',', 1), MIN(measurement_time),
+       SUBSTRING_INDEX(GROUP_CONCAT(diastolic ORDER BY measurement_time DESC), ',', 1), MAX(measurement_time)
+FROM blood_pressure_history WHERE diastolic IS NOT NULL AND deleted = 0
+GROUP BY user_id, DATE(measurement_time);
+
+INSERT INTO user_daily_metrics (user_id, metric, record_date, sample_count, sum_value, min_value, max_value,
+                                first_value, first_time, last_value, last_time)
+SELECT user_id, 'exercise.duration', record_date, COUNT(*), SUM(duration), MIN(duration), MAX(duration),
+       SUBSTRING_INDEX(GROUP_CONCAT(duration ORDER BY IF(DATE(create_time) = record_date, create_time, TIMESTAMP(record_date))), ',', 1), MIN(IF(DATE(create_time) = record_date, create_time, TIMESTAMP(record_date))),
+       SUBSTRING_INDEX(GROUP_CONCAT(duration ORDER BY IF(DATE(create_time) = record_date, create_time, TIMESTAMP(record_date)) DESC), ',', 1), MAX(IF(DATE(create_time) = record_date, create_time, TIMESTAMP(record_date)))
+FROM exercise_records WHERE duration IS NOT NULL
+GROUP BY user_id, record_date;
+
+INSERT INTO user_daily_metrics (user_id, metric, record_date, sample_count, sum_value, min_value, max_value,
+                                first_value, first_time, last_value, last_time)
+SELECT user_id, 'exercise.calories', record_date, COUNT(*), SUM(calories), MIN(calories), MAX(calories),
+       SUBSTRING_INDEX(GROUP_CONCAT(calories ORDER BY IF(DATE(create_time) = record_date, create_time, TIMESTAMP(record_date))), ',', 1), MIN(IF(DATE(create_time) = record_date, create_time, TIMESTAMP(record_date))),
+       SUBSTRING_INDEX(GROUP_CONCAT(calories ORDER BY IF(DATE(create_time) = record_date, create_time, TIMESTAMP(record_date)) DESC), ',', 1), MAX(IF(DATE(create_time) = record_date, create_time, TIMESTAMP(record_date)))
+FROM exercise_records WHERE calories IS NOT NULL
+GROUP BY user_id, record_date;
+
+INSERT INTO user_daily_metrics (user_id, metric, record_date, sample_count, sum_value, min_value, max_value,
+                                first_value, first_time, last_value, last_time)
+SELECT user_id, CONCAT('exercise.type.', exercise_type), record_date, COUNT(*), SUM(1), MIN(1), MAX(1),
+       SUBSTRING_INDEX(GROUP_CONCAT(1 ORDER BY IF(DATE(create_time) = record_date, create_time, TIMESTAMP(record_date))), ',', 1), MIN(IF(DATE(create_time) = record_date, create_time, TIMESTAMP(record_date))),
+       SUBSTRING_INDEX(GROUP_CONCAT(1 ORDER BY IF(DATE(create_time) = record_date, create_time, TIMESTAMP(record_date)) DESC), ',', 1), MAX(IF(DATE(create_time) = record_date, create_time, TIMESTAMP(record_date)))
+FROM exercise_records WHERE exercise_type IS NOT NULL
+GROUP BY user_id, record_date, CONCAT('exercise.type.', exercise_type);
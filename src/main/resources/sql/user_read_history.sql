@@ -0,0 +1,9 @@
+-- 用户阅读记录，用于计算推荐的标签/分类偏好
+CREATE TABLE IF NOT EXISTS user_read_history (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    user_id INT NOT NULL,
+    article_id BIGINT NOT NULL,
+    read_time DATETIME NOT NULL
+);
+
+CREATE INDEX idx_read_history_user_time ON user_read_history (user_id, read_time);
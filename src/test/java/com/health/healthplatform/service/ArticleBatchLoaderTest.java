@@ -0,0 +1,106 @@
+package com.health.healthplatform.service;
+
+import com.health.healthplatform.entity.Article;
+import com.health.healthplatform.entity.ArticleTag;
+import com.health.healthplatform.entity.User;
+import com.health.healthplatform.mapper.ArticleMapper;
+import com.health.healthplatform.mapper.UserMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 文章列表查询次数断言：无论页大小多少，一页文章的 SQL 条数固定
+ */
+class ArticleBatchLoaderTest {
+
+    private ArticleMapper articleMapper;
+    private UserMapper userMapper;
+    private ArticleService articleService;
+
+    @BeforeEach
+    void setUp() {
+        articleMapper = mock(ArticleMapper.class);
+        userMapper = mock(UserMapper.class);
+
+        ArticleBatchLoader loader = new ArticleBatchLoader();
+        ReflectionTestUtils.setField(loader, "articleMapper", articleMapper);
+        ReflectionTestUtils.setField(loader, "userMapper", userMapper);
+
+        ArticleInteractionCache interactionCache = new ArticleInteractionCache();
+        ReflectionTestUtils.setField(interactionCache, "articleMapper", articleMapper);
+
+        articleService = new ArticleService();
+        ReflectionTestUtils.setField(articleService, "articleMapper", articleMapper);
+        ReflectionTestUtils.setField(articleService, "articleBatchLoader", loader);
+        ReflectionTestUtils.setField(articleService, "interactionCache", interactionCache);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 20, 200})
+    void articlePageCostsFixedNumberOfStatements(int size) {
+        List<Article> page = new ArrayList<>();
+        List<ArticleTag> tags = new ArrayList<>();
+        List<User> users = new ArrayList<>();
+        for (int i = 1; i <= size; i++) {
+            Article article = new Article();
+            article.setId((long) i);
+            article.setUserId(i % 7);
+            page.add(article);
+
+            ArticleTag tag = new ArticleTag();
+            tag.setArticleId((long) i);
+            tag.setName("tag" + i);
+            tags.add(tag);
+        }
+        for (int i = 0; i < 7; i++) {
+            User user = new User();
+            user.setId(i);
+            users.add(user);
+        }
+
+        when(articleMapper.selectArticles(any(), any(), anyInt(), anyInt())).thenReturn(page);
+        when(articleMapper.countArticles(any(), any())).thenReturn(size);
+        when(articleMapper.selectTagsByArticleIds(anyCollection())).thenReturn(tags);
+        when(userMapper.selectByIds(anyCollection())).thenReturn(users);
+
+        Map<String, Object> result = articleService.getArticles(null, null, 1, size, null);
+
+        // 列表 + 总数 + 标签 + 作者
+        int statements = mockingDetails(articleMapper).getInvocations().size()
+                + mockingDetails(userMapper).getInvocations().size();
+        assertEquals(4, statements);
+        verify(articleMapper, never()).selectArticleTags(anyLong());
+        verify(userMapper, never()).selectById(anyInt());
+
+        @SuppressWarnings("unchecked")
+        List<Article> articles = (List<Article>) result.get("articles");
+        for (Article article : articles) {
+            assertEquals(List.of("tag" + article.getId()), article.getTags());
+            assertNotNull(article.getAuthor());
+            assertEquals(article.getUserId().intValue(), article.getAuthor().getId());
+        }
+    }
+
+    @Test
+    void emptyPageSkipsBatchQueries() {
+        when(articleMapper.selectArticles(any(), any(), anyInt(), anyInt())).thenReturn(new ArrayList<>());
+
+        articleService.getArticles(null, null, 1, 10, null);
+
+        verify(articleMapper, never()).selectTagsByArticleIds(any(Collection.class));
+        verifyNoInteractions(userMapper);
+    }
+}
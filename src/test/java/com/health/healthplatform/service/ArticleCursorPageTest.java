@@ -0,0 +1,92 @@
+package com.health.healthplatform.service;
+
+import com.health.healthplatform.entity.Article;
+import com.health.healthplatform.mapper.ArticleMapper;
+import com.health.healthplatform.mapper.UserMapper;
+import com.health.healthplatform.util.PageCursor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 游标分页：多取一条判断下一页，游标指向本页最后一条，默认不统计总数
+ */
+class ArticleCursorPageTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 5, 1, 12, 0);
+
+    private ArticleMapper articleMapper;
+    private ArticleService articleService;
+
+    @BeforeEach
+    void setUp() {
+        articleMapper = mock(ArticleMapper.class);
+        UserMapper userMapper = mock(UserMapper.class);
+
+        ArticleBatchLoader loader = new ArticleBatchLoader();
+        ReflectionTestUtils.setField(loader, "articleMapper", articleMapper);
+        ReflectionTestUtils.setField(loader, "userMapper", userMapper);
+
+        articleService = new ArticleService();
+        ReflectionTestUtils.setField(articleService, "articleMapper", articleMapper);
+        ReflectionTestUtils.setField(articleService, "articleBatchLoader", loader);
+        ReflectionTestUtils.setField(articleService, "interactionCache", new ArticleInteractionCache());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void firstPageReturnsCursorOfLastRow() {
+        when(articleMapper.selectArticlesAfter(isNull(), isNull(), isNull(), eq(3))).thenReturn(articles(10, 3));
+
+        Map<String, Object> result = articleService.getArticlesByCursor(null, "", 2, false, null);
+
+        List<Article> page = (List<Article>) result.get("articles");
+        assertEquals(2, page.size());
+        assertEquals(Boolean.TRUE, result.get("hasMore"));
+        assertFalse(result.containsKey("total"));
+        verify(articleMapper, never()).countArticles(any(), any());
+
+        PageCursor cursor = PageCursor.decode((String) result.get("nextCursor"));
+        assertEquals(page.get(1).getCreatedAt(), cursor.getTime());
+        assertEquals(page.get(1).getId(), cursor.getId());
+    }
+
+    @Test
+    void nextPagePassesDecodedCursorToQuery() {
+        LocalDateTime time = BASE.minusMinutes(1);
+        String token = PageCursor.encode(time, 9L);
+        when(articleMapper.selectArticlesAfter(eq(5), eq(time), eq(9L), eq(3))).thenReturn(articles(8, 1));
+        when(articleMapper.countArticles(5, null)).thenReturn(7);
+
+        Map<String, Object> result = articleService.getArticlesByCursor(5, token, 2, true, null);
+
+        assertEquals(Boolean.FALSE, result.get("hasMore"));
+        assertNull(result.get("nextCursor"));
+        assertEquals(7, result.get("total"));
+    }
+
+    @Test
+    void invalidCursorIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode("not-a-cursor"));
+    }
+
+    private static List<Article> articles(long firstId, int count) {
+        List<Article> list = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Article article = new Article();
+            article.setId(firstId - i);
+            article.setCreatedAt(BASE.minusMinutes(10 - firstId + i));
+            list.add(article);
+        }
+        return list;
+    }
+}
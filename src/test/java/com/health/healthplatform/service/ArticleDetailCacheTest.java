@@ -0,0 +1,91 @@
+package com.health.healthplatform.service;
+
+import com.health.healthplatform.entity.Article;
+import com.health.healthplatform.entity.User;
+import com.health.healthplatform.mapper.ArticleMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ArticleDetailCacheTest {
+
+    private ArticleMapper articleMapper;
+    private SimpleMeterRegistry registry;
+    private ArticleDetailCache cache;
+
+    @BeforeEach
+    void setUp() {
+        articleMapper = mock(ArticleMapper.class);
+        registry = new SimpleMeterRegistry();
+        cache = new ArticleDetailCache();
+        ReflectionTestUtils.setField(cache, "articleMapper", articleMapper);
+        ReflectionTestUtils.setField(cache, "meterRegistry", registry);
+        cache.init();
+        when(articleMapper.selectById(1L)).thenAnswer(invocation -> article(1L, 10));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void repeatedReadsHitCacheAndReturnCopies() {
+        Article first = cache.get(1L);
+        first.setLikeCount(999);
+        first.getTags().add("改动");
+        first.getAuthor().setUsername("改动");
+
+        Article second = cache.get(1L);
+
+        assertEquals(10, second.getLikeCount());
+        assertEquals(List.of("跑步"), second.getTags());
+        assertEquals("alice", second.getAuthor().getUsername());
+        assertNotSame(first.getAuthor(), second.getAuthor());
+        verify(articleMapper, times(1)).selectById(1L);
+        assertEquals(1, registry.get("cache.gets").tag("cache", "article.detail").tag("result", "hit")
+                .functionCounter().count());
+    }
+
+    @Test
+    void changesInsideTransactionBypassCacheUntilCompletion() {
+        cache.get(1L);
+
+        TransactionSynchronizationManager.initSynchronization();
+        cache.markChanged(1L);
+        cache.get(1L);
+        verify(articleMapper, times(2)).selectById(1L);
+
+        // 事务结束后失效，下次读取重新加载
+        for (TransactionSynchronization sync : TransactionSynchronizationManager.getSynchronizations()) {
+            sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        }
+        TransactionSynchronizationManager.clearSynchronization();
+        assertEquals(0, cache.size());
+        cache.get(1L);
+        verify(articleMapper, times(3)).selectById(1L);
+    }
+
+    private static Article article(Long id, int likes) {
+        Article article = new Article();
+        article.setId(id);
+        article.setLikeCount(likes);
+        article.setTags(new ArrayList<>(List.of("跑步")));
+        User author = new User();
+        author.setUsername("alice");
+        article.setAuthor(author);
+        return article;
+    }
+}
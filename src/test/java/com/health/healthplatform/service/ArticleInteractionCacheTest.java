@@ -0,0 +1,104 @@
+package com.health.healthplatform.service;
+
+import com.health.healthplatform.entity.Article;
+import com.health.healthplatform.entity.ArticleInteraction;
+import com.health.healthplatform.mapper.ArticleMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ArticleInteractionCacheTest {
+
+    private ArticleMapper articleMapper;
+    private ArticleInteractionCache cache;
+
+    @BeforeEach
+    void setUp() {
+        articleMapper = mock(ArticleMapper.class);
+        cache = new ArticleInteractionCache();
+        ReflectionTestUtils.setField(cache, "articleMapper", articleMapper);
+    }
+
+    @Test
+    void warmCacheDecoratesWithoutQueries() {
+        when(articleMapper.selectInteractions(eq(7), anyCollection()))
+                .thenReturn(List.of(row(1L, 1), row(1L, 2), row(3L, 2)));
+
+        List<Article> page = page(1L, 2L, 3L);
+        cache.decorate(page, 7);
+        cache.decorate(page(1L, 2L, 3L), 7);
+
+        verify(articleMapper, times(1)).selectInteractions(eq(7), anyCollection());
+        verify(articleMapper, never()).checkUserLiked(any(), any());
+        verify(articleMapper, never()).checkUserFavorited(any(), any());
+        assertTrue(page.get(0).getIsLiked());
+        assertTrue(page.get(0).getIsFavorited());
+        assertFalse(page.get(1).getIsLiked());
+        assertTrue(page.get(2).getIsFavorited());
+    }
+
+    @Test
+    void likeAndFavoriteUpdateCachedState() {
+        when(articleMapper.selectInteractions(eq(7), anyCollection())).thenReturn(new ArrayList<>());
+        cache.decorate(page(1L), 7);
+
+        cache.setLiked(7, 1L, true);
+        cache.setFavorited(7, 1L, true);
+        assertTrue(cache.isLiked(7, 1L));
+        assertTrue(cache.isFavorited(7, 1L));
+
+        cache.setLiked(7, 1L, false);
+        assertFalse(cache.isLiked(7, 1L));
+        assertTrue(cache.isFavorited(7, 1L));
+        verify(articleMapper, times(1)).selectInteractions(eq(7), anyCollection());
+    }
+
+    @Test
+    void stateWrittenInsideRolledBackTransactionIsNotCached() {
+        // 缓存冷：事务内点赞后查到的是未提交的状态
+        when(articleMapper.selectInteractions(eq(7), anyCollection())).thenReturn(List.of(row(1L, 1)));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cache.setLiked(7, 1L, true);
+            assertTrue(cache.isLiked(7, 1L));
+            for (TransactionSynchronization sync : TransactionSynchronizationManager.getSynchronizations()) {
+                sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // 回滚后重新查库，不沿用事务里读到的状态
+        when(articleMapper.selectInteractions(eq(7), anyCollection())).thenReturn(new ArrayList<>());
+        assertFalse(cache.isLiked(7, 1L));
+        verify(articleMapper, times(2)).selectInteractions(eq(7), anyCollection());
+    }
+
+    private static List<Article> page(Long... ids) {
+        List<Article> articles = new ArrayList<>();
+        for (Long id : ids) {
+            Article article = new Article();
+            article.setId(id);
+            articles.add(article);
+        }
+        return articles;
+    }
+
+    private static ArticleInteraction row(Long articleId, int flag) {
+        ArticleInteraction row = new ArticleInteraction();
+        row.setArticleId(articleId);
+        row.setFlag(flag);
+        return row;
+    }
+}
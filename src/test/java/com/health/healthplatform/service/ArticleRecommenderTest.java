@@ -0,0 +1,86 @@
+package com.health.healthplatform.service;
+
+import com.health.healthplatform.entity.Article;
+import com.health.healthplatform.mapper.ArticleMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ArticleRecommenderTest {
+
+    private ArticleMapper articleMapper;
+    private ArticleRecommender recommender;
+
+    @BeforeEach
+    void setUp() {
+        articleMapper = mock(ArticleMapper.class);
+        HotArticleRanking ranking = mock(HotArticleRanking.class);
+        ArticleBatchLoader loader = mock(ArticleBatchLoader.class);
+
+        // 热度顺序 1..5，只有 4 号带“跑步”标签
+        List<Article> pool = new ArrayList<>();
+        for (long id = 1; id <= 5; id++) {
+            pool.add(article(id, 1, id == 4 ? "跑步" : "饮食"));
+        }
+        when(ranking.top(anyInt())).thenReturn(List.of(1L, 2L, 3L, 4L, 5L));
+        when(loader.loadByIds(anyList())).thenReturn(pool);
+
+        recommender = new ArticleRecommender();
+        ReflectionTestUtils.setField(recommender, "articleMapper", articleMapper);
+        ReflectionTestUtils.setField(recommender, "articleBatchLoader", loader);
+        ReflectionTestUtils.setField(recommender, "hotArticleRanking", ranking);
+        recommender.init();
+    }
+
+    @Test
+    void coldUserGetsHotArticles() {
+        when(articleMapper.selectRecentlyRead(eq(1), anyInt())).thenReturn(new ArrayList<>());
+
+        List<Article> result = recommender.recommend(1);
+
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), result.stream().map(Article::getId).toList());
+    }
+
+    @Test
+    void readsShiftRecommendationsTowardsPreferredTags() {
+        when(articleMapper.selectRecentlyRead(eq(2), anyInt())).thenReturn(new ArrayList<>());
+        recommender.recommend(2);
+
+        recommender.onRead(2, article(99L, 2, "跑步"));
+        List<Article> result = recommender.recommend(2);
+
+        assertEquals(4L, result.get(0).getId());
+        // 偏好只在首次访问时从数据库加载一次，之后都是内存读取
+        verify(articleMapper, times(1)).selectRecentlyRead(eq(2), anyInt());
+        verify(articleMapper, never()).batchInsertReadHistory(anyList());
+
+        recommender.flushReads();
+        verify(articleMapper).batchInsertReadHistory(argThat(reads -> reads.size() == 1));
+    }
+
+    @Test
+    void alreadyReadArticlesAreExcluded() {
+        when(articleMapper.selectRecentlyRead(eq(3), anyInt())).thenReturn(new ArrayList<>());
+        recommender.recommend(3);
+
+        recommender.onRead(3, article(4L, 1, "跑步"));
+        recommender.refresh();
+
+        assertTrue(recommender.recommend(3).stream().noneMatch(a -> a.getId() == 4L));
+    }
+
+    private static Article article(Long id, int categoryId, String tag) {
+        Article article = new Article();
+        article.setId(id);
+        article.setCategoryId(categoryId);
+        article.setTags(List.of(tag));
+        return article;
+    }
+}
@@ -0,0 +1,138 @@
+package com.health.healthplatform.service;
+
+import com.health.healthplatform.entity.Article;
+import com.health.healthplatform.entity.ArticleTag;
+import com.health.healthplatform.mapper.ArticleMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ArticleSearchIndexTest {
+
+    @TempDir
+    Path indexDir;
+
+    private ArticleMapper articleMapper;
+    private ArticleSearchIndex index;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        articleMapper = mock(ArticleMapper.class);
+        index = new ArticleSearchIndex();
+        ReflectionTestUtils.setField(index, "articleMapper", articleMapper);
+        index.open(indexDir);
+    }
+
+    @AfterEach
+    void tearDown() {
+        index.close();
+    }
+
+    @Test
+    void rebuildFromDatabaseAndRankByRelevance() throws Exception {
+        List<Article> published = List.of(
+                article(1L, 1, "高血压患者的饮食建议", "少盐少油，多吃蔬菜"),
+                article(2L, 2, "跑步入门", "每周三次慢跑有助于控制血压"),
+                article(3L, 1, "睡眠与健康", "保证七小时睡眠"));
+        when(articleMapper.selectPublishedAfterId(eq(0L), anyInt())).thenReturn(published);
+        when(articleMapper.selectPublishedAfterId(eq(3L), anyInt())).thenReturn(new ArrayList<>());
+        ArticleTag tag = new ArticleTag();
+        tag.setArticleId(3L);
+        tag.setName("血压");
+        when(articleMapper.selectTagsByArticleIds(anyCollection())).thenReturn(List.of(tag));
+
+        assertEquals(3, index.rebuild());
+        assertTrue(index.isAvailable());
+
+        ArticleSearchIndex.Hits hits = index.search("血压", null, null, 0, 10);
+        assertEquals(3, hits.getTotal());
+        // 标题命中排在正文命中之前
+        assertEquals(1L, hits.getIds().get(0));
+
+        assertEquals(List.of(2L), index.search("慢跑", null, null, 0, 10).getIds());
+        assertEquals(2, index.search("血压", 1, null, 0, 10).getTotal());
+        assertEquals(List.of(2L), index.search("血压", null, List.of(2L, 3L), 0, 1).getIds());
+        assertEquals(1, index.search("睡", null, null, 0, 10).getTotal());
+    }
+
+    @Test
+    void incrementalUpdatesAndPagination() throws Exception {
+        for (long id = 1; id <= 25; id++) {
+            index.index(article(id, 1, "健康饮食第" + id + "篇", "均衡营养"));
+        }
+        ArticleSearchIndex.Hits page = index.search("健康饮食", null, null, 20, 10);
+        assertEquals(25, page.getTotal());
+        assertEquals(5, page.getIds().size());
+
+        Article draft = article(5L, 1, "健康饮食", "");
+        draft.setStatus(0);
+        index.index(draft);
+        index.remove(6L);
+        index.index(article(7L, 1, "运动计划", "力量训练"));
+
+        assertEquals(22, index.search("健康饮食", null, null, 0, 10).getTotal());
+        assertEquals(List.of(7L), index.search("力量", null, null, 0, 10).getIds());
+    }
+
+    @Test
+    void incrementalUpdateDuringRebuildDoesNotPublishPartialIndex() throws Exception {
+        index.index(article(1L, 1, "高血压饮食", ""));
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(articleMapper.selectPublishedAfterId(eq(0L), anyInt())).thenAnswer(invocation -> {
+            reading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return List.of(article(1L, 1, "高血压饮食", ""));
+        });
+        when(articleMapper.selectPublishedAfterId(eq(1L), anyInt())).thenReturn(new ArrayList<>());
+        when(articleMapper.selectTagsByArticleIds(anyCollection())).thenReturn(new ArrayList<>());
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<Integer> rebuild = pool.submit(() -> index.rebuild());
+            assertTrue(reading.await(5, TimeUnit.SECONDS));
+            Future<?> update = pool.submit(() -> index.index(article(2L, 1, "运动计划", "")));
+
+            // 重建已 deleteAll 但未提交，增量更新等待重建完成，搜索仍看到旧索引
+            Thread.sleep(100);
+            assertFalse(update.isDone());
+            assertEquals(List.of(1L), index.search("血压", null, null, 0, 10).getIds());
+
+            release.countDown();
+            assertEquals(1, rebuild.get(5, TimeUnit.SECONDS));
+            update.get(5, TimeUnit.SECONDS);
+            assertEquals(List.of(1L), index.search("血压", null, null, 0, 10).getIds());
+            assertEquals(List.of(2L), index.search("运动", null, null, 0, 10).getIds());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static Article article(Long id, Integer categoryId, String title, String content) {
+        Article article = new Article();
+        article.setId(id);
+        article.setCategoryId(categoryId);
+        article.setStatus(1);
+        article.setTitle(title);
+        article.setContent(content);
+        return article;
+    }
+}
@@ -0,0 +1,114 @@
+package com.health.healthplatform.service;
+
+import com.health.healthplatform.entity.Article;
+import com.health.healthplatform.entity.ArticleInteraction;
+import com.health.healthplatform.entity.User;
+import com.health.healthplatform.mapper.ArticleMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ArticleServiceTest {
+
+    private ArticleMapper articleMapper;
+    private ArticleInteractionCache interactionCache;
+    private ArticleService service;
+    // 模拟数据库里的点赞记录
+    private final AtomicBoolean liked = new AtomicBoolean();
+
+    @BeforeEach
+    void setUp() {
+        articleMapper = mock(ArticleMapper.class);
+        when(articleMapper.checkUserLiked(1L, 7)).thenAnswer(i -> liked.get());
+        doAnswer(i -> {
+            liked.set(true);
+            return null;
+        }).when(articleMapper).insertLike(1L, 7);
+        doAnswer(i -> {
+            liked.set(false);
+            return null;
+        }).when(articleMapper).deleteLike(1L, 7);
+        when(articleMapper.selectInteractions(eq(7), anyCollection())).thenAnswer(i -> {
+            List<ArticleInteraction> rows = new ArrayList<>();
+            if (liked.get()) {
+                ArticleInteraction row = new ArticleInteraction();
+                row.setArticleId(1L);
+                row.setFlag(1);
+                rows.add(row);
+            }
+            return rows;
+        });
+
+        interactionCache = new ArticleInteractionCache();
+        ReflectionTestUtils.setField(interactionCache, "articleMapper", articleMapper);
+
+        ArticleDetailCache detailCache = mock(ArticleDetailCache.class);
+        when(detailCache.get(1L)).thenAnswer(i -> {
+            Article article = new Article();
+            article.setId(1L);
+            article.setUserId(3);
+            article.setTitle("跑步入门");
+            return article;
+        });
+        UserService userService = mock(UserService.class);
+        User user = new User();
+        user.setUsername("alice");
+        when(userService.selectById(7)).thenReturn(user);
+
+        service = new ArticleService();
+        ReflectionTestUtils.setField(service, "articleMapper", articleMapper);
+        ReflectionTestUtils.setField(service, "interactionCache", interactionCache);
+        ReflectionTestUtils.setField(service, "articleDetailCache", detailCache);
+        ReflectionTestUtils.setField(service, "userService", userService);
+        ReflectionTestUtils.setField(service, "notificationService", mock(NotificationService.class));
+        ReflectionTestUtils.setField(service, "hotArticleRanking", mock(HotArticleRanking.class));
+        ReflectionTestUtils.setField(service, "viewCounter", mock(ArticleViewCounter.class));
+        ReflectionTestUtils.setField(service, "articleRecommender", mock(ArticleRecommender.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void likeAndUnlikeResponsesReflectTheWriteInTheSameTransaction() {
+        // 缓存热，记着“未点赞”
+        assertFalse(service.getArticle(1L, 7).getIsLiked());
+
+        assertTrue(inTransaction(() -> service.likeArticle(1L, 7)).getIsLiked());
+        assertTrue(service.getArticle(1L, 7).getIsLiked());
+
+        assertFalse(inTransaction(() -> service.unlikeArticle(1L, 7)).getIsLiked());
+        assertFalse(service.getArticle(1L, 7).getIsLiked());
+    }
+
+    // 模拟 @Transactional：执行后触发提交回调
+    private static Article inTransaction(Supplier<Article> action) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            Article result = action.get();
+            List<TransactionSynchronization> syncs = TransactionSynchronizationManager.getSynchronizations();
+            syncs.forEach(TransactionSynchronization::afterCommit);
+            syncs.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+            return result;
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+}
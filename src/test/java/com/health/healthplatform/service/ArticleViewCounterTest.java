@@ -0,0 +1,108 @@
+package com.health.healthplatform.service;
+
+import com.health.healthplatform.mapper.ArticleMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.*;
+
+class ArticleViewCounterTest {
+
+    private ArticleMapper articleMapper;
+    private SimpleMeterRegistry registry;
+    private ArticleViewCounter counter;
+
+    @BeforeEach
+    void setUp() {
+        articleMapper = mock(ArticleMapper.class);
+        registry = new SimpleMeterRegistry();
+        counter = new ArticleViewCounter();
+        ReflectionTestUtils.setField(counter, "articleMapper", articleMapper);
+        ReflectionTestUtils.setField(counter, "meterRegistry", registry);
+        ArticleDetailCache detailCache = new ArticleDetailCache();
+        ReflectionTestUtils.setField(detailCache, "meterRegistry", registry);
+        detailCache.init();
+        ReflectionTestUtils.setField(counter, "articleDetailCache", detailCache);
+        counter.initMetrics();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void concurrentViewsAreFlushedInOneStatement() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 8; i++) {
+            pool.submit(() -> {
+                for (int j = 0; j < 1000; j++) {
+                    counter.increment(1L);
+                    counter.increment(2L);
+                }
+            });
+        }
+        pool.shutdown();
+        pool.awaitTermination(10, TimeUnit.SECONDS);
+        assertEquals(16000, registry.get("article.view.buffer.pending").gauge().value());
+
+        counter.flush();
+
+        ArgumentCaptor<Map<Long, Long>> captor = ArgumentCaptor.forClass(Map.class);
+        verify(articleMapper, times(1)).batchIncrementViewCount(captor.capture());
+        verify(articleMapper, never()).incrementViewCount(any());
+        assertEquals(Map.of(1L, 8000L, 2L, 8000L), captor.getValue());
+        assertEquals(0, counter.pendingTotal());
+        assertEquals(1, registry.get("article.view.flush").timer().count());
+    }
+
+    @Test
+    void failedFlushKeepsDeltasForRetry() {
+        when(articleMapper.batchIncrementViewCount(anyMap())).thenThrow(new RuntimeException("db down"));
+        counter.increment(1L);
+        counter.increment(1L);
+
+        counter.flush();
+
+        assertEquals(2, counter.pendingFor(1L));
+    }
+
+    @Test
+    void pendingViewsStayVisibleUntilWriteSucceeds() {
+        counter.increment(1L);
+        counter.increment(1L);
+        long[] seenDuringWrite = new long[1];
+        when(articleMapper.batchIncrementViewCount(anyMap())).thenAnswer(invocation -> {
+            // 写库期间读取详情的请求仍能看到这两次浏览，并发的新浏览也照常累加
+            seenDuringWrite[0] = counter.pendingFor(1L);
+            counter.increment(1L);
+            return 1;
+        });
+
+        counter.flush();
+
+        assertEquals(2, seenDuringWrite[0]);
+        assertEquals(1, counter.pendingFor(1L));
+        verify(articleMapper).batchIncrementViewCount(Map.of(1L, 2L));
+    }
+
+    @Test
+    void idleArticleIsEvictedAndLaterViewsAreStillCounted() {
+        counter.increment(1L);
+        counter.flush();
+        // 第二轮没有新浏览，移出缓冲
+        counter.flush();
+        assertEquals(0, registry.get("article.view.buffer.articles").gauge().value());
+
+        counter.increment(1L);
+        assertEquals(1, counter.pendingFor(1L));
+        counter.flush();
+        verify(articleMapper, times(2)).batchIncrementViewCount(Map.of(1L, 1L));
+    }
+}
@@ -0,0 +1,88 @@
+package com.health.healthplatform.service;
+
+import com.health.healthplatform.entity.Comment;
+import com.health.healthplatform.entity.User;
+import com.health.healthplatform.mapper.ArticleMapper;
+import com.health.healthplatform.mapper.UserMapper;
+import com.health.healthplatform.util.PageCursor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 评论分页：查询次数与线程大小无关，超出预览数的回复给出加载更多游标
+ */
+class CommentTreeLoaderTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 5, 1, 12, 0);
+
+    private ArticleMapper articleMapper;
+    private UserMapper userMapper;
+    private CommentTreeLoader loader;
+
+    @BeforeEach
+    void setUp() {
+        articleMapper = mock(ArticleMapper.class);
+        userMapper = mock(UserMapper.class);
+        loader = new CommentTreeLoader();
+        ReflectionTestUtils.setField(loader, "articleMapper", articleMapper);
+        ReflectionTestUtils.setField(loader, "userMapper", userMapper);
+    }
+
+    @Test
+    void pageOfRootsWithRepliesCostsThreeStatements() {
+        Comment busy = comment(1L, null, 100);
+        Comment quiet = comment(2L, null, 0);
+        when(articleMapper.selectRootComments(7L, 0, 2)).thenReturn(List.of(busy, quiet));
+
+        List<Comment> replies = new ArrayList<>();
+        for (long i = 0; i < CommentTreeLoader.PREVIEW_REPLIES + 1; i++) {
+            replies.add(comment(10 + i, 1L, 0));
+        }
+        when(articleMapper.selectFirstReplies(anyCollection(), eq(CommentTreeLoader.PREVIEW_REPLIES + 1)))
+                .thenReturn(replies);
+        when(userMapper.selectByIds(anyCollection())).thenAnswer(invocation -> {
+            List<User> users = new ArrayList<>();
+            for (Integer id : invocation.<Collection<Integer>>getArgument(0)) {
+                User user = new User();
+                user.setId(id);
+                users.add(user);
+            }
+            return users;
+        });
+
+        List<Comment> page = loader.loadPage(7L, 0, 2);
+
+        assertEquals(2, page.size());
+        assertEquals(CommentTreeLoader.PREVIEW_REPLIES, busy.getReplies().size());
+        assertTrue(quiet.getReplies().isEmpty());
+        assertNotNull(busy.getReplies().get(0).getUser());
+
+        PageCursor cursor = PageCursor.decode(busy.getRepliesCursor());
+        assertEquals(12L, cursor.getId());
+        assertNull(quiet.getRepliesCursor());
+
+        // 根评论 1 条、回复 1 条（预览回复都没有下级）、用户 1 条
+        assertEquals(3, mockingDetails(articleMapper).getInvocations().size()
+                + mockingDetails(userMapper).getInvocations().size());
+    }
+
+    private static Comment comment(Long id, Long parentId, int replyCount) {
+        Comment comment = new Comment();
+        comment.setId(id);
+        comment.setParentId(parentId);
+        comment.setUserId(id.intValue());
+        comment.setReplyCount(replyCount);
+        comment.setCreatedAt(BASE.plusMinutes(id));
+        return comment;
+    }
+}
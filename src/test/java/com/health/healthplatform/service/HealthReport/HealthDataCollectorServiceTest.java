@@ -0,0 +1,195 @@
+package com.health.healthplatform.service.HealthReport;
+
+import com.health.healthplatform.DTO.WeeklyStats;
+import com.health.healthplatform.entity.HealthReport.HealthMetrics;
+import com.health.healthplatform.entity.healthdata.HealthData;
+import com.health.healthplatform.entity.healthdata.UserDailyMetric;
+import com.health.healthplatform.service.health_data.ExerciseRecordService;
+import com.health.healthplatform.service.health_data.LatestVitalsCache;
+import com.health.healthplatform.service.health_data.UserDailyMetricsService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class HealthDataCollectorServiceTest {
+
+    private LatestVitalsCache latestVitalsCache;
+    private ExerciseRecordService exerciseRecordService;
+    private UserDailyMetricsService userDailyMetricsService;
+    private HealthDataCollectorService service;
+    // 不为空时，每个数据源查询都要等四个数据源全部开始后才返回
+    private CountDownLatch allStarted;
+    private final AtomicInteger overlapping = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        latestVitalsCache = mock(LatestVitalsCache.class);
+        exerciseRecordService = mock(ExerciseRecordService.class);
+        userDailyMetricsService = mock(UserDailyMetricsService.class);
+        service = create(8, 2000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void collectsAllSourcesConcurrently() {
+        stubSources();
+        allStarted = new CountDownLatch(4);
+
+        HealthMetrics metrics = service.collectHealthData(1);
+
+        // 四个数据源同时在查询：依次查询时第一个就会等到超时
+        assertEquals(4, overlapping.get());
+        verify(exerciseRecordService, times(1)).getWeeklyStats(1);
+
+        assertEquals(70.0, metrics.getWeight());
+        assertEquals(175.0, metrics.getHeight());
+        assertEquals(70.0 / (1.75 * 1.75), metrics.getBmi(), 1e-9);
+        assertEquals(120.0, metrics.getSystolic());
+        assertEquals(72.0, metrics.getHeartRate());
+        assertEquals(2.5, metrics.getWeeklyExerciseDuration());
+        assertEquals(3, metrics.getWeeklyExerciseCount());
+        assertEquals(600.0, metrics.getWeeklyCaloriesBurned());
+        assertEquals(8000, metrics.getDailySteps());
+        assertEquals(5.6, metrics.getDailyDistance());
+        // 两晚 7 和 8 小时；深睡 1.4 + 1.6 小时，占总时长 20%
+        assertEquals(7.5, metrics.getAverageSleepDuration());
+        assertEquals(20.0, metrics.getDeepSleepPercentage(), 1e-9);
+        assertEquals(55.0, metrics.getLightSleepPercentage(), 1e-9);
+        assertEquals(25.0, metrics.getRemSleepPercentage(), 1e-9);
+    }
+
+    @Test
+    void stepsAndSleepAreReadFromDailyAggregates() {
+        stubSources();
+
+        service.collectHealthData(1);
+
+        LocalDate today = LocalDate.now();
+        verify(userDailyMetricsService).findRange(1, UserDailyMetricsService.STEPS, today, today);
+        verify(userDailyMetricsService).findRange(1, UserDailyMetricsService.SLEEP, today.minusDays(7), today);
+    }
+
+    @Test
+    void slowSourceIsSkippedAfterTimeout() {
+        service.shutdown();
+        service = create(8, 100);
+        stubSources();
+        when(userDailyMetricsService.findRange(eq(1), eq(UserDailyMetricsService.SLEEP), any(), any()))
+                .thenAnswer(invocation -> {
+                    Thread.sleep(5000);
+                    return sleep();
+                });
+
+        HealthMetrics metrics = service.collectHealthData(1);
+
+        // 睡眠数据没等到：按缺失处理，其余数据源照常
+        assertNull(metrics.getAverageSleepDuration());
+        assertEquals(70.0, metrics.getWeight());
+        assertEquals(3, metrics.getWeeklyExerciseCount());
+        assertEquals(8000, metrics.getDailySteps());
+    }
+
+    @Test
+    void sourceFailureFailsCollection() {
+        stubSources();
+        when(userDailyMetricsService.findRange(eq(1), eq(UserDailyMetricsService.STEPS), any(), any()))
+                .thenThrow(new RuntimeException("连接失败"));
+
+        RuntimeException e = assertThrows(RuntimeException.class, () -> service.collectHealthData(1));
+        assertEquals("健康数据收集失败: 连接失败", e.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> service.collectHealthData(0));
+    }
+
+    private HealthDataCollectorService create(int threads, long timeoutMs) {
+        HealthDataCollectorService collector = new HealthDataCollectorService();
+        ReflectionTestUtils.setField(collector, "latestVitalsCache", latestVitalsCache);
+        ReflectionTestUtils.setField(collector, "exerciseRecordService", exerciseRecordService);
+        ReflectionTestUtils.setField(collector, "userDailyMetricsService", userDailyMetricsService);
+        ReflectionTestUtils.setField(collector, "collectorThreads", threads);
+        ReflectionTestUtils.setField(collector, "timeoutMs", timeoutMs);
+        collector.init();
+        return collector;
+    }
+
+    private void stubSources() {
+        HealthData data = new HealthData();
+        data.setWeight(70.0);
+        data.setHeight(175.0);
+        data.setBloodPressureSystolic(120);
+        data.setBloodPressureDiastolic(80);
+        data.setHeartRate(72);
+        when(latestVitalsCache.get(1)).thenAnswer(invocation -> arrive(data));
+        when(exerciseRecordService.getWeeklyStats(1)).thenAnswer(invocation -> arrive(new WeeklyStats(2.5, 600, 3)));
+
+        // 今天先记 6000 步，后记 8000 步：取最晚一条
+        Map<String, List<UserDailyMetric>> steps = Map.of(
+                UserDailyMetricsService.STEPS_COUNT, List.of(day(UserDailyMetricsService.STEPS_COUNT, 0, 2, 6000, 8000)),
+                UserDailyMetricsService.STEPS_DISTANCE, List.of(day(UserDailyMetricsService.STEPS_DISTANCE, 0, 2, 4.2, 5.6)));
+        when(userDailyMetricsService.findRange(eq(1), eq(UserDailyMetricsService.STEPS), any(), any()))
+                .thenAnswer(invocation -> arrive(steps));
+        when(userDailyMetricsService.findRange(eq(1), eq(UserDailyMetricsService.SLEEP), any(), any()))
+                .thenAnswer(invocation -> arrive(sleep()));
+    }
+
+    // 两晚的睡眠聚合，每晚一条记录
+    private static Map<String, List<UserDailyMetric>> sleep() {
+        return Map.of(
+                UserDailyMetricsService.SLEEP_DURATION, List.of(
+                        day(UserDailyMetricsService.SLEEP_DURATION, 2, 1, 7, 7),
+                        day(UserDailyMetricsService.SLEEP_DURATION, 1, 1, 8, 8)),
+                UserDailyMetricsService.SLEEP_DEEP, List.of(
+                        day(UserDailyMetricsService.SLEEP_DEEP, 2, 1, 1.4, 1.4),
+                        day(UserDailyMetricsService.SLEEP_DEEP, 1, 1, 1.6, 1.6)),
+                UserDailyMetricsService.SLEEP_LIGHT, List.of(
+                        day(UserDailyMetricsService.SLEEP_LIGHT, 2, 1, 3.85, 3.85),
+                        day(UserDailyMetricsService.SLEEP_LIGHT, 1, 1, 4.4, 4.4)),
+                UserDailyMetricsService.SLEEP_REM, List.of(
+                        day(UserDailyMetricsService.SLEEP_REM, 2, 1, 1.75, 1.75),
+                        day(UserDailyMetricsService.SLEEP_REM, 1, 1, 2.0, 2.0)));
+    }
+
+    // daysAgo 那天的聚合行：一条记录时取值为 first，两条记录时最早一条 first、最晚一条 last
+    private static UserDailyMetric day(String metric, int daysAgo, int count, double first, double last) {
+        LocalDate date = LocalDate.now().minusDays(daysAgo);
+        UserDailyMetric row = new UserDailyMetric();
+        row.setUserId(1);
+        row.setMetric(metric);
+        row.setRecordDate(date);
+        row.setSampleCount(count);
+        row.setSumValue(count == 1 ? first : first + last);
+        row.setMinValue(Math.min(first, last));
+        row.setMaxValue(Math.max(first, last));
+        row.setFirstValue(first);
+        row.setFirstTime(date.atTime(8, 0));
+        row.setLastValue(last);
+        row.setLastTime(date.atTime(20, 0));
+        return row;
+    }
+
+    private <T> T arrive(T result) throws InterruptedException {
+        CountDownLatch latch = allStarted;
+        if (latch != null) {
+            latch.countDown();
+            if (latch.await(1, TimeUnit.SECONDS)) {
+                overlapping.incrementAndGet();
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,303 @@
+package com.health.healthplatform.service.HealthReport;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.health.healthplatform.entity.HealthReport.HealthReport;
+import com.health.healthplatform.entity.HealthReport.HealthSyncCheckpoint;
+import com.health.healthplatform.entity.healthdata.HealthData;
+import com.health.healthplatform.mapper.HealthReport.HealthReportMapper;
+import com.health.healthplatform.mapper.HealthReport.HealthSyncCheckpointMapper;
+import com.health.healthplatform.mapper.health_data.HealthDataMapper;
+import org.apache.ibatis.cursor.Cursor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class HealthDataSyncServiceTest {
+
+    private static final LocalDate DATE = LocalDate.of(2024, 5, 1);
+
+    private HealthDataMapper healthDataMapper;
+    private HealthReportMapper healthReportMapper;
+    private HealthSyncCheckpointMapper checkpointMapper;
+    private HealthDataSyncService service;
+    // 每次 upsertBatch 写入的报告
+    private final List<List<HealthReport>> upserts = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        healthDataMapper = mock(HealthDataMapper.class);
+        healthReportMapper = mock(HealthReportMapper.class);
+        checkpointMapper = mock(HealthSyncCheckpointMapper.class);
+        service = new HealthDataSyncService();
+        ReflectionTestUtils.setField(service, "healthDataMapper", healthDataMapper);
+        ReflectionTestUtils.setField(service, "healthReportMapper", healthReportMapper);
+        ReflectionTestUtils.setField(service, "checkpointMapper", checkpointMapper);
+        ReflectionTestUtils.setField(service, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(service, "transactionTemplate",
+                new TransactionTemplate(mock(PlatformTransactionManager.class)));
+        ReflectionTestUtils.setField(service, "chunkSize", 2);
+        ReflectionTestUtils.setField(service, "syncThreads", 2);
+        service.init();
+        when(healthReportMapper.upsertBatch(anyList())).thenAnswer(invocation -> {
+            List<HealthReport> reports = invocation.getArgument(0);
+            upserts.add(new ArrayList<>(reports));
+            return reports.size();
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void usersAreWrittenInChunksWithOneUpsertEach() {
+        // 用户 1 有两行，同一天取最新一行、步数取最大
+        when(healthDataMapper.streamByDate(DATE, 0)).thenAnswer(i -> cursor(
+                data(1, 70, 3000), data(1, 75, 9000), data(2, 110, null), data(3, 65, 12000)));
+        HealthReport existing = new HealthReport();
+        existing.setId(42L);
+        existing.setUserId(2);
+        existing.setReportTime(DATE.atTime(23, 59, 59));
+        when(healthReportMapper.findByUserIdsAndTimeRange(anyCollection(), any(), any())).thenAnswer(invocation -> {
+            Collection<Integer> ids = invocation.getArgument(0);
+            return ids.contains(2) ? List.of(existing) : List.of();
+        });
+
+        assertEquals(3, service.syncDate(DATE));
+
+        assertEquals(2, upserts.size());
+        List<HealthReport> reports = upserts.stream().flatMap(List::stream).toList();
+        HealthReport first = reports.stream().filter(r -> r.getUserId() == 1).findFirst().get();
+        assertNull(first.getId());
+        assertEquals(75.0, first.getHeartRate());
+        assertEquals(9000, first.getDailySteps());
+        HealthReport second = reports.stream().filter(r -> r.getUserId() == 2).findFirst().get();
+        assertEquals(42L, second.getId());
+        assertEquals("偏高", second.getHeartRateStatus());
+        verify(healthReportMapper, times(2)).findByUserIdsAndTimeRange(anyCollection(), any(), any());
+        verify(checkpointMapper).save("health_report_daily", DATE, 3, true, null);
+    }
+
+    @Test
+    void unfinishedRunResumesAfterCheckpoint() {
+        HealthSyncCheckpoint checkpoint = new HealthSyncCheckpoint();
+        checkpoint.setLastUserId(2);
+        checkpoint.setFinished(false);
+        when(checkpointMapper.find("health_report_daily", DATE)).thenReturn(checkpoint);
+        when(healthDataMapper.streamByDate(DATE, 2)).thenAnswer(i -> cursor(data(3, 65, 12000)));
+
+        assertEquals(1, service.syncDate(DATE));
+        verify(healthDataMapper, never()).streamByDate(DATE, 0);
+        verify(checkpointMapper).save("health_report_daily", DATE, 3, true, null);
+    }
+
+    @Test
+    void nightlyJobResumesUnfinishedEarlierDates() {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        LocalDate crashed = yesterday.minusDays(3);
+        when(checkpointMapper.findUnfinishedDates("health_report_daily", yesterday.minusDays(7)))
+                .thenReturn(List.of(crashed, yesterday));
+        HealthSyncCheckpoint checkpoint = new HealthSyncCheckpoint();
+        checkpoint.setLastUserId(2);
+        checkpoint.setFinished(false);
+        when(checkpointMapper.find("health_report_daily", crashed)).thenReturn(checkpoint);
+        when(healthDataMapper.streamByDate(crashed, 2)).thenAnswer(i -> cursor(data(3, 65, 12000, crashed)));
+        when(healthDataMapper.streamByDate(yesterday, 0)).thenAnswer(i -> cursor(data(1, 70, 3000, yesterday)));
+
+        service.autoSyncHealthData();
+
+        // 中断的日期从断点继续并标记完成，昨天只同步一次
+        verify(checkpointMapper).save("health_report_daily", crashed, 3, true, null);
+        verify(healthDataMapper, times(1)).streamByDate(eq(yesterday), anyInt());
+        verify(checkpointMapper).save("health_report_daily", yesterday, 1, true, null);
+    }
+
+    @Test
+    void failedChunkIsRetriedPerUser() {
+        when(healthDataMapper.streamByDate(DATE, 0)).thenAnswer(i -> cursor(data(1, 70, 3000), data(2, 80, 5000)));
+        when(healthReportMapper.findByUserIdsAndTimeRange(anyCollection(), any(), any())).thenReturn(List.of());
+        doAnswer(invocation -> {
+            List<HealthReport> reports = invocation.getArgument(0);
+            if (reports.stream().anyMatch(r -> r.getUserId() == 2)) {
+                throw new IllegalStateException("坏数据");
+            }
+            upserts.add(new ArrayList<>(reports));
+            return reports.size();
+        }).when(healthReportMapper).upsertBatch(anyList());
+
+        assertEquals(2, service.syncDate(DATE));
+
+        // 整块失败后用户 1 单独写入成功，用户 2 记为失败；断点不越过这一块，日期不标记完成
+        assertEquals(1, upserts.size());
+        assertEquals(1, upserts.get(0).get(0).getUserId());
+        verify(checkpointMapper, atLeastOnce()).save("health_report_daily", DATE, 0, false, "2");
+        verify(checkpointMapper, never()).save(eq("health_report_daily"), eq(DATE), anyInt(), eq(true), any());
+    }
+
+    @Test
+    void checkpointStopsBeforeChunkWithFailedUsers() {
+        when(healthDataMapper.streamByDate(DATE, 0)).thenAnswer(i -> cursor(
+                data(1, 70, 3000), data(2, 70, 3000), data(3, 70, 3000), data(4, 70, 3000), data(5, 70, 3000)));
+        when(healthReportMapper.findByUserIdsAndTimeRange(anyCollection(), any(), any())).thenReturn(List.of());
+        doAnswer(invocation -> {
+            List<HealthReport> reports = invocation.getArgument(0);
+            if (reports.stream().anyMatch(r -> r.getUserId() == 3)) {
+                throw new IllegalStateException("坏数据");
+            }
+            return reports.size();
+        }).when(healthReportMapper).upsertBatch(anyList());
+
+        assertEquals(5, service.syncDate(DATE));
+
+        // 第三块（用户 5）成功也不能越过失败的第二块，下次从用户 2 之后重做
+        verify(checkpointMapper, atLeastOnce()).save("health_report_daily", DATE, 2, false, "3");
+        verify(checkpointMapper, never()).save(eq("health_report_daily"), eq(DATE), eq(5), anyBoolean(), any());
+    }
+
+    @Test
+    void rangeBuildsOneReportPerUserAndDay() {
+        LocalDate next = DATE.plusDays(1);
+        List<Integer> users = List.of(1);
+        when(healthDataMapper.findUserIdsByDateRange(DATE, next, users, 0, 2)).thenReturn(users);
+        when(healthDataMapper.findByUserIdsAndDateRange(users, DATE, next)).thenReturn(List.of(
+                data(1, 70, 3000, DATE), data(1, 72, 4000, DATE), data(1, 90, 11000, next)));
+        HealthReport existing = new HealthReport();
+        existing.setId(7L);
+        existing.setUserId(1);
+        existing.setReportTime(next.atTime(23, 59, 59));
+        when(healthReportMapper.findByUserIdsAndTimeRange(anyCollection(), any(), any())).thenReturn(List.of(existing));
+        List<int[]> chunks = new ArrayList<>();
+
+        assertEquals(1, service.syncRange(DATE, next, users, new HealthDataSyncService.ChunkListener() {
+            @Override
+            public void afterChunk(int users, int reports, List<Integer> failedUsers) {
+                chunks.add(new int[]{users, reports});
+            }
+        }));
+
+        assertEquals(1, upserts.size());
+        List<HealthReport> reports = upserts.get(0);
+        assertEquals(2, reports.size());
+        assertNull(reports.get(0).getId());
+        assertEquals(DATE.atTime(23, 59, 59), reports.get(0).getReportTime());
+        assertEquals(4000, reports.get(0).getDailySteps());
+        assertEquals(7L, reports.get(1).getId());
+        assertEquals(11000, reports.get(1).getDailySteps());
+        assertEquals(1, chunks.size());
+        assertArrayEquals(new int[]{1, 2}, chunks.get(0));
+    }
+
+    @Test
+    void rangePagesUsersByKeysetAndThrottlesBetweenQueries() {
+        LocalDate next = DATE.plusDays(1);
+        when(healthDataMapper.findUserIdsByDateRange(DATE, next, null, 0, 2)).thenReturn(List.of(1, 2));
+        when(healthDataMapper.findUserIdsByDateRange(DATE, next, null, 2, 2)).thenReturn(List.of(3));
+        when(healthDataMapper.findByUserIdsAndDateRange(anyCollection(), eq(DATE), eq(next))).thenAnswer(invocation -> {
+            Collection<Integer> ids = invocation.getArgument(0);
+            return ids.stream().map(id -> data(id, 70, 3000)).toList();
+        });
+        when(healthReportMapper.findByUserIdsAndTimeRange(anyCollection(), any(), any())).thenReturn(List.of());
+        List<Integer> sizes = new ArrayList<>();
+
+        assertEquals(3, service.syncRange(DATE, next, null, new HealthDataSyncService.ChunkListener() {
+            @Override
+            public void beforeChunk(int users, int reports) {
+                sizes.add(users);
+            }
+        }));
+
+        // 第二页不足一页即结束，不再多查一次
+        assertEquals(List.of(2, 1), sizes);
+        assertEquals(2, upserts.size());
+        verify(healthDataMapper, times(2)).findUserIdsByDateRange(any(), any(), any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void rangeReportsUsersThatStillFailAfterRetry() {
+        when(healthDataMapper.findUserIdsByDateRange(any(), any(), any(), eq(0), eq(2))).thenReturn(List.of(1, 2));
+        when(healthDataMapper.findByUserIdsAndDateRange(anyCollection(), any(), any())).thenAnswer(invocation -> {
+            Collection<Integer> ids = invocation.getArgument(0);
+            return ids.stream().map(id -> data(id, 70, 3000)).toList();
+        });
+        when(healthReportMapper.findByUserIdsAndTimeRange(anyCollection(), any(), any())).thenReturn(List.of());
+        doThrow(new IllegalStateException("坏数据")).when(healthReportMapper).upsertBatch(anyList());
+        List<Integer> failed = new ArrayList<>();
+        int[] written = new int[2];
+
+        service.syncRange(DATE, DATE, null, new HealthDataSyncService.ChunkListener() {
+            @Override
+            public void afterChunk(int users, int reports, List<Integer> failedUsers) {
+                written[0] += users;
+                written[1] += reports;
+                failed.addAll(failedUsers);
+            }
+        });
+
+        // 整块和逐个重试都失败：不计入写入数
+        assertEquals(List.of(1, 2), failed);
+        assertArrayEquals(new int[]{0, 0}, written);
+        // 单个用户同步失败时抛出
+        when(healthDataMapper.findUserIdsByDateRange(any(), any(), eq(List.of(1)), eq(0), eq(2))).thenReturn(List.of(1));
+        assertThrows(RuntimeException.class, () -> service.syncUserData(1));
+    }
+
+    private static HealthData data(int userId, Integer heartRate, Integer steps) {
+        return data(userId, heartRate, steps, DATE);
+    }
+
+    private static HealthData data(int userId, Integer heartRate, Integer steps, LocalDate date) {
+        HealthData data = new HealthData();
+        data.setUserId((long) userId);
+        data.setHeartRate(heartRate);
+        data.setSteps(steps);
+        data.setRecordDate(date);
+        return data;
+    }
+
+    private static Cursor<HealthData> cursor(HealthData... rows) {
+        List<HealthData> list = List.of(rows);
+        return new Cursor<>() {
+            boolean closed;
+
+            @Override
+            public boolean isOpen() {
+                return !closed;
+            }
+
+            @Override
+            public boolean isConsumed() {
+                return false;
+            }
+
+            @Override
+            public int getCurrentIndex() {
+                return -1;
+            }
+
+            @Override
+            public void close() {
+                closed = true;
+            }
+
+            @Override
+            public Iterator<HealthData> iterator() {
+                return list.iterator();
+            }
+        };
+    }
+}
@@ -0,0 +1,116 @@
+package com.health.healthplatform.service.HealthReport;
+
+import com.health.healthplatform.DTO.HealthReport.HealthReportBackfillStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class HealthReportBackfillServiceTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+    private static final LocalDate END = LocalDate.of(2024, 1, 31);
+
+    private HealthDataSyncService healthDataSyncService;
+    private HealthReportBackfillService service;
+
+    @BeforeEach
+    void setUp() {
+        healthDataSyncService = mock(HealthDataSyncService.class);
+        service = new HealthReportBackfillService();
+        ReflectionTestUtils.setField(service, "healthDataSyncService", healthDataSyncService);
+        ReflectionTestUtils.setField(service, "reportsPerSecond", 1000.0);
+        service.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void progressIsReportedPerChunk() throws Exception {
+        when(healthDataSyncService.syncRange(eq(START), eq(END), eq(List.of(1, 2, 3)), any())).thenAnswer(invocation -> {
+            HealthDataSyncService.ChunkListener listener = invocation.getArgument(3);
+            for (int i = 0; i < 3; i++) {
+                listener.beforeChunk(1, 31);
+                listener.afterChunk(1, 31, List.of());
+            }
+            return 3;
+        });
+
+        HealthReportBackfillStatus submitted = service.start(START, END, List.of(1, 2, 3));
+        assertNotNull(submitted.getJobId());
+
+        HealthReportBackfillStatus status = await(submitted.getJobId());
+        assertEquals("finished", status.getState());
+        assertEquals(3, status.getProcessedUsers());
+        assertEquals(93, status.getWrittenReports());
+        assertEquals(0, status.getFailedUsers());
+        assertNotNull(status.getFinishTime());
+    }
+
+    @Test
+    void failedUsersAreReportedAndKeepJobFromFinishing() throws Exception {
+        when(healthDataSyncService.syncRange(eq(START), eq(END), eq(List.of(1, 2, 3)), any())).thenAnswer(invocation -> {
+            HealthDataSyncService.ChunkListener listener = invocation.getArgument(3);
+            listener.beforeChunk(3, 93);
+            listener.afterChunk(2, 62, List.of(2));
+            return 3;
+        });
+
+        HealthReportBackfillStatus status = await(service.start(START, END, List.of(1, 2, 3)).getJobId());
+        assertEquals("partial", status.getState());
+        assertEquals(3, status.getProcessedUsers());
+        assertEquals(62, status.getWrittenReports());
+        assertEquals(1, status.getFailedUsers());
+        assertEquals(List.of(2), status.getFailedUserIds());
+    }
+
+    @Test
+    void jobWithNothingWrittenFails() throws Exception {
+        when(healthDataSyncService.syncRange(eq(START), eq(END), eq(List.of(1)), any())).thenAnswer(invocation -> {
+            HealthDataSyncService.ChunkListener listener = invocation.getArgument(3);
+            listener.afterChunk(0, 0, List.of(1));
+            return 1;
+        });
+
+        HealthReportBackfillStatus status = await(service.start(START, END, List.of(1)).getJobId());
+        assertEquals("failed", status.getState());
+        assertEquals(0, status.getWrittenReports());
+        assertEquals(List.of(1), status.getFailedUserIds());
+    }
+
+    @Test
+    void failureIsRecordedAndRangeIsValidated() throws Exception {
+        when(healthDataSyncService.syncRange(any(), any(), isNull(), any()))
+                .thenThrow(new RuntimeException("健康数据同步失败"));
+
+        HealthReportBackfillStatus status = await(service.start(START, END, List.of()).getJobId());
+        assertEquals("failed", status.getState());
+        assertEquals("健康数据同步失败", status.getError());
+
+        assertThrows(IllegalArgumentException.class, () -> service.start(END, START, null));
+        assertThrows(IllegalArgumentException.class, () -> service.start(START, START.plusYears(2), null));
+        assertNull(service.get("missing"));
+    }
+
+    private HealthReportBackfillStatus await(String jobId) throws InterruptedException {
+        for (int i = 0; i < 200; i++) {
+            HealthReportBackfillStatus status = service.get(jobId);
+            if (status.getFinishTime() != null) {
+                return status;
+            }
+            Thread.sleep(10);
+        }
+        fail("回填任务未结束");
+        return null;
+    }
+}
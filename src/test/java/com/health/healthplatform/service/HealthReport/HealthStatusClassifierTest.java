@@ -0,0 +1,139 @@
+package com.health.healthplatform.service.HealthReport;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.health.healthplatform.entity.HealthReport.HealthMetrics;
+import com.health.healthplatform.entity.HealthReport.HealthReport;
+import com.health.healthplatform.entity.healthdata.HealthData;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import static com.health.healthplatform.service.HealthReport.HealthStatusClassifier.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class HealthStatusClassifierTest {
+
+    @Test
+    void boundariesFollowTheRuleTable() {
+        assertEquals(BMI_UNDERWEIGHT, bmi(18.49));
+        assertEquals(NORMAL, bmi(18.5));
+        assertEquals(NORMAL, bmi(23.99));
+        assertEquals(BMI_OVERWEIGHT, bmi(24));
+        // 旧实现里 27.9 到 28 之间落回“正常”
+        assertEquals(BMI_OVERWEIGHT, bmi(27.95));
+        assertEquals(BMI_OBESE, bmi(28));
+
+        assertEquals(HR_LOW, heartRate(59));
+        assertEquals(HR_LOW, heartRate(59.9));
+        assertEquals(NORMAL, heartRate(60));
+        assertEquals(NORMAL, heartRate(100));
+        assertEquals(HR_HIGH, heartRate(100.5));
+        assertEquals(HR_HIGH, heartRate(101));
+
+        assertEquals(BP_LOW, bloodPressure(89, 70));
+        assertEquals(BP_LOW, bloodPressure(150, 59));
+        assertEquals(NORMAL, bloodPressure(90, 60));
+        assertEquals(NORMAL, bloodPressure(120, 80));
+        assertEquals(BP_ELEVATED, bloodPressure(120.5, 80));
+        assertEquals(BP_ELEVATED, bloodPressure(121, 79));
+        assertEquals(BP_ELEVATED, bloodPressure(119, 81));
+        assertEquals(BP_ELEVATED, bloodPressure(140, 90));
+        assertEquals(BP_HIGH, bloodPressure(141, 70));
+        assertEquals(BP_HIGH, bloodPressure(130, 91));
+    }
+
+    @Test
+    void lookupTableMatchesThresholdScan() {
+        HealthStatusClassifier.Rule rule = new HealthStatusClassifier.Rule(new double[]{60, Math.nextUp(100.0)},
+                new String[]{HR_LOW, NORMAL, HR_HIGH}, 300);
+        for (int tenths = -10; tenths <= 4000; tenths++) {
+            double value = tenths / 10.0;
+            assertEquals(rule.scan(value), rule.band(value), "取值 " + value);
+        }
+        assertThrows(IllegalArgumentException.class,
+                () -> new HealthStatusClassifier.Rule(new double[]{1, 2}, new String[]{"a", "b"}, 10));
+    }
+
+    @Test
+    void matchesFormerSqlTrigger() {
+        // 原 triggers.sql 的 CASE 表达式
+        for (int tenths = 100; tenths <= 450; tenths++) {
+            double value = tenths / 10.0;
+            String sql = value < 18.5 ? "偏瘦" : value < 24 ? "正常" : value < 28 ? "超重" : "肥胖";
+            assertEquals(sql, bmi(value), "BMI " + value);
+        }
+        for (int hr = 30; hr <= 220; hr++) {
+            String sql = hr < 60 ? "偏低" : hr <= 100 ? "正常" : "偏高";
+            assertEquals(sql, heartRate(hr), "心率 " + hr);
+        }
+        for (int systolic = 60; systolic <= 200; systolic++) {
+            for (int diastolic = 40; diastolic <= 130; diastolic++) {
+                String sql = systolic < 90 || diastolic < 60 ? "低血压"
+                        : systolic <= 120 && diastolic <= 80 ? "正常"
+                        : systolic <= 140 && diastolic <= 90 ? "偏高" : "高血压";
+                assertEquals(sql, bloodPressure(systolic, diastolic), "血压 " + systolic + "/" + diastolic);
+            }
+        }
+    }
+
+    @Test
+    void syncAndAnalysisPathsAgree() {
+        HealthDataSyncService sync = new HealthDataSyncService();
+        ReflectionTestUtils.setField(sync, "objectMapper", new ObjectMapper());
+        HealthReportAnalysisService analysis = new HealthReportAnalysisService(new ObjectMapper());
+
+        double[][] cases = {
+                {17.0, 85, 55, 55}, {18.45, 95, 65, 60}, {22.0, 118, 78, 72}, {25.0, 125, 82, 100},
+                {27.95, 135, 88, 101}, {30.0, 150, 95, 120}, {21.0, 160, 58, 40}
+        };
+        for (double[] c : cases) {
+            HealthData data = new HealthData();
+            data.setBmi(c[0]);
+            data.setBloodPressureSystolic((int) c[1]);
+            data.setBloodPressureDiastolic((int) c[2]);
+            data.setHeartRate((int) c[3]);
+            HealthReport synced = new HealthReport();
+            ReflectionTestUtils.invokeMethod(sync, "updateHealthReportFromData", synced, List.of(data));
+
+            HealthMetrics metrics = new HealthMetrics();
+            metrics.setBmi(c[0]);
+            metrics.setSystolic(c[1]);
+            metrics.setDiastolic(c[2]);
+            metrics.setHeartRate(c[3]);
+            HealthReport analyzed = analysis.analyzeHealthData(1, metrics, null);
+
+            String expectedBmi = bmi(c[0]);
+            String expectedBp = bloodPressure(c[1], c[2]);
+            String expectedHr = heartRate(c[3]);
+            assertEquals(expectedBmi, synced.getBmiStatus());
+            assertEquals(expectedBmi, analyzed.getBmiStatus());
+            assertEquals(expectedBp, synced.getBloodPressureStatus());
+            assertEquals(expectedBp, analyzed.getBloodPressureStatus());
+            assertEquals(expectedHr, synced.getHeartRateStatus());
+            assertEquals(expectedHr, analyzed.getHeartRateStatus());
+        }
+    }
+
+    @Test
+    void classificationsReturnSharedConstants() {
+        // 分级只返回常量，不拼接字符串：按引用比较
+        Set<String> constants = Collections.newSetFromMap(new IdentityHashMap<>());
+        constants.addAll(List.of(NORMAL, BMI_UNDERWEIGHT, BMI_OVERWEIGHT, BMI_OBESE,
+                BP_LOW, BP_ELEVATED, BP_HIGH, HR_LOW, HR_HIGH));
+        int normal = 0;
+        for (int i = 0; i < 100_000; i++) {
+            String bmi = bmi(15 + (i % 200) / 10.0);
+            String bp = bloodPressure(80 + i % 90, 50 + i % 50);
+            String hr = heartRate(40 + i % 100);
+            assertTrue(constants.contains(bmi) && constants.contains(bp) && constants.contains(hr));
+            if (bmi == NORMAL && bp == NORMAL && hr == NORMAL) {
+                normal++;
+            }
+        }
+        assertTrue(normal > 0);
+    }
+}
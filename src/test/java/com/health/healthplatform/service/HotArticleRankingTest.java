@@ -0,0 +1,227 @@
+package com.health.healthplatform.service;
+
+import com.health.healthplatform.entity.Article;
+import com.health.healthplatform.mapper.ArticleMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.*;
+
+class HotArticleRankingTest {
+
+    private static final Instant NOW = Instant.parse("2026-10-18T00:00:00Z");
+
+    private ArticleMapper articleMapper;
+    private HotArticleRanking ranking;
+
+    @BeforeEach
+    void setUp() {
+        articleMapper = mock(ArticleMapper.class);
+        ranking = new HotArticleRanking();
+        ReflectionTestUtils.setField(ranking, "articleMapper", articleMapper);
+        ReflectionTestUtils.setField(ranking, "clock", Clock.fixed(NOW, ZoneId.systemDefault()));
+    }
+
+    @Test
+    void eventsReorderRankingIncrementally() {
+        LocalDateTime now = LocalDateTime.ofInstant(NOW, ZoneId.systemDefault());
+        when(articleMapper.selectPublishedSince(any())).thenReturn(List.of(
+                article(1L, 100, 0, 0, now),
+                article(2L, 10, 0, 0, now),
+                article(3L, 0, 0, 0, now)));
+        ranking.init();
+        assertEquals(List.of(1L, 2L, 3L), ranking.top(10));
+
+        for (int i = 0; i < 21; i++) {
+            ranking.onComment(3L);
+        }
+        assertEquals(List.of(3L, 1L), ranking.top(2));
+        assertEquals(105, ranking.currentScore(3L));
+
+        ranking.onDelete(3L);
+        assertEquals(List.of(1L, 2L), ranking.top(10));
+        verify(articleMapper, never()).selectAll();
+    }
+
+    @Test
+    void scoresDecayByHalfLife() {
+        when(articleMapper.selectPublishedSince(any())).thenReturn(new ArrayList<>());
+        ranking.init();
+        ranking.onPublish(1L, LocalDateTime.ofInstant(NOW, ZoneId.systemDefault()));
+        for (int i = 0; i < 100; i++) {
+            ranking.onLike(1L);
+        }
+        assertEquals(300, ranking.currentScore(1L));
+
+        ReflectionTestUtils.setField(ranking, "clock",
+                Clock.fixed(NOW.plus(Duration.ofHours(24)), ZoneId.systemDefault()));
+        assertEquals(150, ranking.currentScore(1L));
+    }
+
+    @Test
+    void likesAndCommentsApplyOnlyAfterCommit() {
+        when(articleMapper.selectPublishedSince(any())).thenReturn(new ArrayList<>());
+        ranking.init();
+        ranking.onPublish(1L, LocalDateTime.ofInstant(NOW, ZoneId.systemDefault()));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            ranking.onLikeAfterCommit(1L);
+            ranking.onCommentAfterCommit(1L);
+            assertEquals(0, ranking.currentScore(1L));
+            // 回滚：不加分
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertEquals(0, ranking.currentScore(1L));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            ranking.onLikeAfterCommit(1L);
+            ranking.onCommentAfterCommit(1L);
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertEquals(8, ranking.currentScore(1L));
+    }
+
+    @Test
+    void topNeverReturnsAnArticleTwiceWhileScoresChange() throws Exception {
+        LocalDateTime now = LocalDateTime.ofInstant(NOW, ZoneId.systemDefault());
+        when(articleMapper.selectPublishedSince(any())).thenReturn(List.of(
+                article(1L, 0, 0, 0, now), article(2L, 0, 0, 0, now), article(3L, 0, 0, 0, now)));
+        ranking.init();
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread writer = new Thread(() -> {
+            for (long i = 0; running.get(); i++) {
+                ranking.onView(i % 3 + 1);
+            }
+        });
+        writer.start();
+        try {
+            for (int i = 0; i < 20_000; i++) {
+                List<Long> top = ranking.top(3);
+                assertEquals(top.size(), new HashSet<>(top).size());
+            }
+        } finally {
+            running.set(false);
+            writer.join();
+        }
+    }
+
+    @Test
+    void rebaseDoesNotResurrectDeletedArticles() throws Exception {
+        LocalDateTime now = LocalDateTime.ofInstant(NOW, ZoneId.systemDefault());
+        List<Article> recent = new ArrayList<>();
+        for (long id = 1; id <= 2000; id++) {
+            recent.add(article(id, 1, 0, 0, now));
+        }
+        when(articleMapper.selectPublishedSince(any())).thenReturn(recent);
+        ranking.init();
+
+        Thread deleter = new Thread(() -> {
+            for (long id = 1; id <= 2000; id++) {
+                ranking.onDelete(id);
+            }
+        });
+        deleter.start();
+        for (int i = 0; i < 20; i++) {
+            ReflectionTestUtils.invokeMethod(ranking, "rebase", NOW.toEpochMilli());
+        }
+        deleter.join();
+
+        assertEquals(0, ranking.size());
+        assertTrue(ranking.top(10).isEmpty());
+    }
+
+    @Test
+    void flushWritesScoresInBatches() {
+        LocalDateTime now = LocalDateTime.ofInstant(NOW, ZoneId.systemDefault());
+        List<Article> recent = new ArrayList<>();
+        for (long id = 1; id <= 1200; id++) {
+            recent.add(article(id, 1, 0, 0, now));
+        }
+        when(articleMapper.selectPublishedSince(any())).thenReturn(recent);
+        ranking.init();
+
+        ranking.flush();
+
+        verify(articleMapper, times(3)).batchUpdateHotScore(anyMap());
+        verify(articleMapper, never()).updateHotScore(any());
+    }
+
+    @Test
+    void incrementalTopMatchesFullRescore() {
+        LocalDateTime now = LocalDateTime.ofInstant(NOW, ZoneId.systemDefault());
+        for (int size : new int[]{10_000, 100_000}) {
+            List<Article> articles = new ArrayList<>(size);
+            for (long id = 1; id <= size; id++) {
+                // 浏览量两两不同，两条路径的前 10 名唯一
+                articles.add(article(id, (int) (id * 7919 % size), 0, 0, now));
+            }
+            HotArticleRanking incremental = new HotArticleRanking();
+            ReflectionTestUtils.setField(incremental, "articleMapper", articleMapper);
+            ReflectionTestUtils.setField(incremental, "clock", Clock.fixed(NOW, ZoneId.systemDefault()));
+            when(articleMapper.selectPublishedSince(any())).thenReturn(articles);
+            incremental.init();
+
+            long[] statements = new long[1];
+            List<Long> oldTop = fullRescore(articles, statements);
+            // 旧路径每次请求对每篇文章写一次，新路径取前 10 不访问数据库
+            assertEquals(size, statements[0]);
+            assertEquals(oldTop, incremental.top(10));
+        }
+        verify(articleMapper, never()).updateHotScore(any());
+        verify(articleMapper, never()).batchUpdateHotScore(anyMap());
+    }
+
+    // 原 getHotArticles 的做法：读出全部文章逐篇算分、逐条 UPDATE，再按 hot_score 取前 10（这里不计数据库往返耗时）
+    private static List<Long> fullRescore(List<Article> articles, long[] statements) {
+        List<Article> scored = new ArrayList<>(articles.size());
+        for (Article article : articles) {
+            int hotScore = article.getViewCount() + article.getLikeCount() * 3 + article.getCommentCount() * 5;
+            Article row = new Article();
+            row.setId(article.getId());
+            row.setHotScore(hotScore);
+            scored.add(row);
+            statements[0]++;
+        }
+        scored.sort(Comparator.comparing(Article::getHotScore).reversed().thenComparing(Article::getId));
+        List<Long> top = new ArrayList<>(10);
+        for (int i = 0; i < 10; i++) {
+            top.add(scored.get(i).getId());
+        }
+        return top;
+    }
+
+    private static Article article(Long id, int views, int likes, int comments, LocalDateTime publishTime) {
+        Article article = new Article();
+        article.setId(id);
+        article.setViewCount(views);
+        article.setLikeCount(likes);
+        article.setCommentCount(comments);
+        article.setPublishTime(publishTime);
+        return article;
+    }
+}
@@ -0,0 +1,122 @@
+package com.health.healthplatform.service;
+
+import com.health.healthplatform.entity.Notification;
+import com.health.healthplatform.mapper.NotificationMapper;
+import com.health.healthplatform.mapper.UserMapper;
+import com.health.healthplatform.service.impl.NotificationServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class NotificationArchiverTest {
+
+    private NotificationMapper notificationMapper;
+    private NotificationArchiver archiver;
+
+    @BeforeEach
+    void setUp() {
+        notificationMapper = mock(NotificationMapper.class);
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(new SimpleTransactionStatus()));
+
+        archiver = new NotificationArchiver();
+        ReflectionTestUtils.setField(archiver, "notificationMapper", notificationMapper);
+        ReflectionTestUtils.setField(archiver, "transactionTemplate", transactionTemplate);
+        ReflectionTestUtils.setField(archiver, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(archiver, "chunkSize", 2);
+        ReflectionTestUtils.setField(archiver, "pauseMs", 0L);
+        archiver.init();
+    }
+
+    @Test
+    void movesOldReadNotificationsInChunks() {
+        when(notificationMapper.selectArchivableIds(any(), eq(0L), eq(2))).thenReturn(List.of(1L, 2L));
+        when(notificationMapper.selectArchivableIds(any(), eq(2L), eq(2))).thenReturn(List.of(5L));
+        when(notificationMapper.deleteArchived(anyList())).thenAnswer(invocation -> invocation.<List<?>>getArgument(0).size());
+
+        archiver.archive();
+
+        verify(notificationMapper).copyToArchive(List.of(1L, 2L));
+        verify(notificationMapper).deleteArchived(List.of(1L, 2L));
+        verify(notificationMapper).copyToArchive(List.of(5L));
+        verify(notificationMapper).deleteArchived(List.of(5L));
+        // 最后一段不满，不再多查一次
+        verify(notificationMapper, times(2)).selectArchivableIds(any(), anyLong(), anyInt());
+    }
+
+    @Test
+    void scheduledRunDoesNotBlockSchedulerThread() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        when(notificationMapper.selectArchivableIds(any(), anyLong(), anyInt())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            done.countDown();
+            return List.of();
+        });
+
+        // 调度线程立即返回；上一次未结束时再次触发直接跳过
+        archiver.scheduleArchive();
+        archiver.scheduleArchive();
+        release.countDown();
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        archiver.shutdown();
+        verify(notificationMapper, times(1)).selectArchivableIds(any(), anyLong(), anyInt());
+    }
+
+    @Test
+    void pageContinuesIntoArchive() {
+        LocalDateTime now = LocalDateTime.now();
+        when(notificationMapper.selectPageByUserId(eq(7), any(), any(), eq(3)))
+                .thenReturn(List.of(notification(10L, now.minusDays(1)), notification(9L, now.minusDays(120))));
+        when(notificationMapper.selectArchivePageByUserId(eq(7), any(), any(), eq(3)))
+                .thenReturn(List.of(notification(8L, now.minusDays(100)), notification(3L, now.minusDays(200))));
+        when(notificationMapper.selectPageByUserId(eq(7), any(), any(), eq(2)))
+                .thenReturn(List.of(notification(20L, now), notification(19L, now)));
+        NotificationServiceImpl service = service();
+
+        Map<String, Object> page = service.getUserNotifications(7, null, 2);
+
+        List<Notification> notifications = (List<Notification>) page.get("notifications");
+        assertEquals(List.of(10L, 8L), notifications.stream().map(Notification::getId).toList());
+        assertTrue((Boolean) page.get("hasMore"));
+
+        // 主表整页都在保留期内，不查归档表
+        Map<String, Object> recent = service.getUserNotifications(7, null, 1);
+        assertTrue((Boolean) recent.get("hasMore"));
+        verify(notificationMapper, times(1)).selectArchivePageByUserId(anyInt(), any(), any(), anyInt());
+    }
+
+    private NotificationServiceImpl service() {
+        UserMapper userMapper = mock(UserMapper.class);
+        NotificationServiceImpl service = new NotificationServiceImpl();
+        ReflectionTestUtils.setField(service, "notificationMapper", notificationMapper);
+        ReflectionTestUtils.setField(service, "userMapper", userMapper);
+        ReflectionTestUtils.setField(service, "notificationArchiver", archiver);
+        return service;
+    }
+
+    private static Notification notification(Long id, LocalDateTime createTime) {
+        Notification notification = new Notification();
+        notification.setId(id);
+        notification.setUserId(7);
+        notification.setCreateTime(createTime);
+        return notification;
+    }
+}
@@ -0,0 +1,264 @@
+package com.health.healthplatform.service;
+
+import com.health.healthplatform.entity.Article;
+import com.health.healthplatform.entity.Notification;
+import com.health.healthplatform.entity.User;
+import com.health.healthplatform.mapper.NotificationMapper;
+import com.health.healthplatform.mapper.UserMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+class NotificationCoalescerTest {
+
+    private NotificationDispatcher dispatcher;
+    private NotificationMapper notificationMapper;
+    private NotificationCoalescer coalescer;
+    private final AtomicLong ids = new AtomicLong();
+
+    @BeforeEach
+    void setUp() {
+        dispatcher = mock(NotificationDispatcher.class);
+        notificationMapper = mock(NotificationMapper.class);
+        UserMapper userMapper = mock(UserMapper.class);
+        ArticleDetailCache articleDetailCache = mock(ArticleDetailCache.class);
+
+        // 入队即视为写库成功：回填 ID 并像写库线程一样调用写库回调
+        doAnswer(invocation -> {
+            Notification n = invocation.getArgument(0);
+            n.setId(ids.incrementAndGet());
+            coalescer.onWritten(List.of(n));
+            return null;
+        }).when(dispatcher).enqueue(any());
+
+        // 所有发送者都叫张三
+        when(userMapper.selectByIds(anyCollection())).thenAnswer(invocation -> {
+            Collection<Integer> senderIds = invocation.getArgument(0);
+            return senderIds.stream().map(id -> {
+                User sender = new User();
+                sender.setId(id);
+                sender.setUsername("张三");
+                return sender;
+            }).toList();
+        });
+        Article article = new Article();
+        article.setTitle("早睡早起");
+        when(articleDetailCache.get(10L)).thenReturn(article);
+
+        coalescer = new NotificationCoalescer();
+        ReflectionTestUtils.setField(coalescer, "notificationDispatcher", dispatcher);
+        ReflectionTestUtils.setField(coalescer, "notificationMapper", notificationMapper);
+        ReflectionTestUtils.setField(coalescer, "userMapper", userMapper);
+        ReflectionTestUtils.setField(coalescer, "articleDetailCache", articleDetailCache);
+        coalescer.init();
+        verify(dispatcher).addWriteListener(any());
+    }
+
+    @Test
+    void thousandLikesBecomeOneNotification() {
+        when(notificationMapper.updateUnreadAggregate(any())).thenReturn(1);
+
+        for (int i = 1; i <= 1000; i++) {
+            coalescer.offer(like(i));
+        }
+        coalescer.flush();
+
+        verify(dispatcher, times(1)).enqueue(any());
+        ArgumentCaptor<Notification> captor = ArgumentCaptor.forClass(Notification.class);
+        verify(notificationMapper, times(1)).updateUnreadAggregate(captor.capture());
+        assertEquals("张三 等 1000 人点赞了你的文章 《早睡早起》", captor.getValue().getMessage());
+        assertEquals(1L, captor.getValue().getId());
+        verify(dispatcher, times(1)).push(any());
+
+        // 没有新事件的窗口不写库
+        coalescer.flush();
+        verify(notificationMapper, times(1)).updateUnreadAggregate(any());
+    }
+
+    @Test
+    void otherTypesAreNotCoalesced() {
+        for (int i = 1; i <= 3; i++) {
+            Notification comment = like(i);
+            comment.setType("comment");
+            coalescer.offer(comment);
+        }
+
+        verify(dispatcher, times(3)).enqueue(any());
+        assertEquals(0, coalescer.trackedGroups());
+    }
+
+    @Test
+    void readingTheNotificationStartsANewOne() {
+        coalescer.offer(like(1));
+        coalescer.onRead(7, 1L);
+        coalescer.offer(like(2));
+
+        verify(dispatcher, times(2)).enqueue(any());
+        assertEquals(1, coalescer.trackedGroups());
+    }
+
+    @Test
+    void alreadyReadHeadIsReplacedByNewNotification() {
+        // 别的节点上已读，条件更新落空
+        when(notificationMapper.updateUnreadAggregate(any())).thenReturn(0);
+
+        coalescer.offer(like(1));
+        coalescer.offer(like(2));
+        coalescer.offer(like(3));
+        coalescer.flush();
+
+        ArgumentCaptor<Notification> captor = ArgumentCaptor.forClass(Notification.class);
+        verify(dispatcher, times(2)).enqueue(captor.capture());
+        assertEquals("张三 等 2 人点赞了你的文章 《早睡早起》", captor.getAllValues().get(1).getMessage());
+        verify(dispatcher, never()).push(any());
+        assertEquals(1, coalescer.trackedGroups());
+    }
+
+    @Test
+    void repeatedSenderIsCountedOnce() {
+        when(notificationMapper.updateUnreadAggregate(any())).thenReturn(1);
+
+        // 点赞、取消、再点赞
+        coalescer.offer(like(1));
+        coalescer.offer(like(2));
+        coalescer.offer(like(2));
+        coalescer.offer(like(1));
+        coalescer.flush();
+
+        ArgumentCaptor<Notification> captor = ArgumentCaptor.forClass(Notification.class);
+        verify(notificationMapper).updateUnreadAggregate(captor.capture());
+        assertEquals("张三 等 2 人点赞了你的文章 《早睡早起》", captor.getValue().getMessage());
+        assertNotNull(captor.getValue().getLastEventTime());
+
+        // 只有重复的发送者，没有需要写回的内容
+        coalescer.offer(like(2));
+        coalescer.flush();
+        verify(notificationMapper, times(1)).updateUnreadAggregate(any());
+    }
+
+    @Test
+    void failedHeadInsertIsRedeliveredAsNewNotification() {
+        // 第一条写库失败，ID 一直为空；之后的写库正常
+        doAnswer(invocation -> {
+            Notification n = invocation.getArgument(0);
+            if (ids.getAndIncrement() > 0) {
+                n.setId(ids.get());
+            }
+            coalescer.onWritten(List.of(n));
+            return null;
+        }).when(dispatcher).enqueue(any());
+        when(notificationMapper.updateUnreadAggregate(any())).thenReturn(1);
+
+        coalescer.offer(like(1));
+        coalescer.offer(like(2));
+        coalescer.offer(like(3));
+        coalescer.flush();
+        verify(dispatcher, times(1)).enqueue(any());
+
+        ageGroups(2 * 60 * 1000L);
+        coalescer.flush();
+
+        ArgumentCaptor<Notification> captor = ArgumentCaptor.forClass(Notification.class);
+        verify(dispatcher, times(2)).enqueue(captor.capture());
+        assertEquals("张三 等 3 人点赞了你的文章 《早睡早起》", captor.getAllValues().get(1).getMessage());
+        assertEquals(1, coalescer.trackedGroups());
+
+        // 新通知成为合并起点
+        coalescer.offer(like(4));
+        coalescer.flush();
+        ArgumentCaptor<Notification> update = ArgumentCaptor.forClass(Notification.class);
+        verify(notificationMapper).updateUnreadAggregate(update.capture());
+        assertEquals("张三 等 4 人点赞了你的文章 《早睡早起》", update.getValue().getMessage());
+    }
+
+    @Test
+    void failedUpdateKeepsEventsForNextWindow() {
+        when(notificationMapper.updateUnreadAggregate(any()))
+                .thenThrow(new IllegalStateException("deadlock"))
+                .thenReturn(1);
+
+        coalescer.offer(like(1));
+        coalescer.offer(like(2));
+        coalescer.offer(like(3));
+        coalescer.flush();
+        coalescer.flush();
+
+        ArgumentCaptor<Notification> captor = ArgumentCaptor.forClass(Notification.class);
+        verify(notificationMapper, times(2)).updateUnreadAggregate(captor.capture());
+        assertEquals("张三 等 3 人点赞了你的文章 《早睡早起》", captor.getAllValues().get(1).getMessage());
+        verify(dispatcher, times(1)).push(any());
+    }
+
+    @Test
+    void headIsNotUpdatedBeforeItsWriteIsPublished() {
+        // 写库线程还没回调：首条没有 ID，不做原地更新，读也匹配不到
+        doNothing().when(dispatcher).enqueue(any());
+        when(notificationMapper.updateUnreadAggregate(any())).thenReturn(1);
+
+        Notification head = like(1);
+        coalescer.offer(head);
+        coalescer.offer(like(2));
+        coalescer.flush();
+        verify(notificationMapper, never()).updateUnreadAggregate(any());
+
+        head.setId(5L);
+        coalescer.onWritten(List.of(head));
+        coalescer.flush();
+        ArgumentCaptor<Notification> captor = ArgumentCaptor.forClass(Notification.class);
+        verify(notificationMapper).updateUnreadAggregate(captor.capture());
+        assertEquals(5L, captor.getValue().getId());
+
+        coalescer.onRead(7, 5L);
+        assertEquals(0, coalescer.trackedGroups());
+    }
+
+    @Test
+    void eventsDuringReplacementMoveToTheNewGroup() {
+        // 条件更新落空的同时又来了一个点赞
+        when(notificationMapper.updateUnreadAggregate(any())).thenAnswer(invocation -> {
+            coalescer.offer(like(9));
+            return 0;
+        }).thenReturn(1);
+
+        coalescer.offer(like(1));
+        coalescer.offer(like(2));
+        coalescer.offer(like(3));
+        coalescer.flush();
+        coalescer.flush();
+
+        ArgumentCaptor<Notification> captor = ArgumentCaptor.forClass(Notification.class);
+        verify(notificationMapper, times(2)).updateUnreadAggregate(captor.capture());
+        assertEquals("张三 等 3 人点赞了你的文章 《早睡早起》", captor.getAllValues().get(1).getMessage());
+        assertEquals(2L, captor.getAllValues().get(1).getId());
+    }
+
+    // 把所有组的创建时间往前推
+    @SuppressWarnings("unchecked")
+    private void ageGroups(long millis) {
+        Map<Integer, Map<String, Object>> groups = (Map<Integer, Map<String, Object>>) ReflectionTestUtils.getField(coalescer, "groups");
+        groups.values().forEach(userGroups -> userGroups.values().forEach(group ->
+                ReflectionTestUtils.setField(group, "createdAt", System.currentTimeMillis() - millis)));
+    }
+
+    private static Notification like(int senderId) {
+        Notification notification = new Notification();
+        notification.setUserId(7);
+        notification.setSenderId(senderId);
+        notification.setType("like");
+        notification.setMessage("点赞了你的文章");
+        notification.setArticleId(10L);
+        return notification;
+    }
+}
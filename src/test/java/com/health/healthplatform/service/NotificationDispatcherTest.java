@@ -0,0 +1,130 @@
+package com.health.healthplatform.service;
+
+import com.health.healthplatform.entity.Notification;
+import com.health.healthplatform.mapper.NotificationMapper;
+import com.health.healthplatform.service.impl.NotificationServiceImpl;
+import com.health.healthplatform.websocket.NotificationWebSocketHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class NotificationDispatcherTest {
+
+    private NotificationMapper notificationMapper;
+    private NotificationWebSocketHandler webSocketHandler;
+    private SimpleMeterRegistry registry;
+    private NotificationDispatcher dispatcher;
+    private NotificationServiceImpl notificationService;
+
+    @BeforeEach
+    void setUp() {
+        notificationMapper = mock(NotificationMapper.class);
+        webSocketHandler = mock(NotificationWebSocketHandler.class);
+        registry = new SimpleMeterRegistry();
+
+        // 模拟数据库回填 ID
+        AtomicLong ids = new AtomicLong();
+        when(notificationMapper.batchInsert(anyList())).thenAnswer(invocation -> {
+            List<Notification> batch = invocation.getArgument(0);
+            batch.forEach(n -> n.setId(ids.incrementAndGet()));
+            return batch.size();
+        });
+
+        dispatcher = new NotificationDispatcher();
+        ReflectionTestUtils.setField(dispatcher, "notificationMapper", notificationMapper);
+        ReflectionTestUtils.setField(dispatcher, "webSocketHandler", webSocketHandler);
+        ReflectionTestUtils.setField(dispatcher, "meterRegistry", registry);
+        ReflectionTestUtils.setField(dispatcher, "unreadCounter", mock(NotificationUnreadCounter.class));
+
+        NotificationCoalescer coalescer = new NotificationCoalescer();
+        ReflectionTestUtils.setField(coalescer, "notificationDispatcher", dispatcher);
+        notificationService = new NotificationServiceImpl();
+        ReflectionTestUtils.setField(notificationService, "notificationCoalescer", coalescer);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.stop();
+    }
+
+    @Test
+    void createNotificationOnlyEnqueuesWhileWriterIsBlocked() throws Exception {
+        // 写库卡住，直到测试放行；记录调用 mapper 的线程
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch writing = new CountDownLatch(1);
+        Set<Thread> mapperThreads = ConcurrentHashMap.newKeySet();
+        AtomicLong ids = new AtomicLong();
+        when(notificationMapper.batchInsert(anyList())).thenAnswer(invocation -> {
+            mapperThreads.add(Thread.currentThread());
+            writing.countDown();
+            release.await();
+            List<Notification> batch = invocation.getArgument(0);
+            batch.forEach(n -> n.setId(ids.incrementAndGet()));
+            return batch.size();
+        });
+        dispatcher.start();
+
+        for (int i = 0; i < 20; i++) {
+            notificationService.createNotification(1, 2, "comment", "评论了你的文章", 10L);
+        }
+        assertTrue(writing.await(2, TimeUnit.SECONDS));
+
+        // 写入线程还卡着，20 次创建都已返回：调用方线程没有碰 mapper，也还没有推送
+        assertFalse(mapperThreads.contains(Thread.currentThread()));
+        verify(notificationMapper, never()).insert(any());
+        verify(webSocketHandler, never()).sendNotificationToUser(anyInt(), any());
+
+        // 放行后批量写库，条数远少于通知数，随后全部推送
+        release.countDown();
+        verify(webSocketHandler, timeout(5000).times(20)).sendNotificationToUser(eq(1), isA(Notification.class));
+        int statements = mockingDetails(notificationMapper).getInvocations().size();
+        assertTrue(statements < 20, "写库语句数 " + statements);
+        assertFalse(mapperThreads.contains(Thread.currentThread()));
+    }
+
+    @Test
+    void writeListenersSeeAssignedIds() throws Exception {
+        List<Long> written = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(2);
+        dispatcher.addWriteListener(batch -> batch.forEach(n -> {
+            written.add(n.getId());
+            done.countDown();
+        }));
+        dispatcher.start();
+
+        dispatcher.enqueue(new Notification());
+        dispatcher.enqueue(new Notification());
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(1L, 2L), written);
+    }
+
+    @Test
+    void fullQueueFallsBackToDirectInsert() {
+        ReflectionTestUtils.setField(dispatcher, "capacity", 1);
+        dispatcher.start();
+        dispatcher.stop();  // 停掉后台线程，让队列保持满
+
+        dispatcher.enqueue(new Notification());
+        dispatcher.enqueue(new Notification());
+
+        verify(notificationMapper, times(1)).insert(any());
+        assertEquals(1, registry.get("notification.queue.overflow").counter().count());
+    }
+}
@@ -0,0 +1,88 @@
+package com.health.healthplatform.service;
+
+import com.health.healthplatform.mapper.NotificationMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+class NotificationUnreadCounterTest {
+
+    private NotificationMapper notificationMapper;
+    private NotificationUnreadCounter counter;
+
+    @BeforeEach
+    void setUp() {
+        notificationMapper = mock(NotificationMapper.class);
+        counter = new NotificationUnreadCounter();
+        ReflectionTestUtils.setField(counter, "notificationMapper", notificationMapper);
+        ReflectionTestUtils.setField(counter, "meterRegistry", new SimpleMeterRegistry());
+        counter.init();
+    }
+
+    @Test
+    void badgePollsAreServedFromMemory() {
+        when(notificationMapper.selectUnreadCounter(7)).thenReturn(3);
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(3, counter.get(7));
+        }
+
+        verify(notificationMapper, times(1)).selectUnreadCounter(7);
+        verify(notificationMapper, never()).countUnread(anyInt());
+    }
+
+    @Test
+    void missingCounterIsSeededFromNotifications() {
+        when(notificationMapper.selectUnreadCounter(7)).thenReturn(null);
+        when(notificationMapper.countUnread(7)).thenReturn(5);
+
+        assertEquals(5, counter.get(7));
+        verify(notificationMapper).insertUnreadCounter(7, 5);
+    }
+
+    @Test
+    void changesUpdateBothDatabaseAndMemory() {
+        when(notificationMapper.selectUnreadCounter(7)).thenReturn(1);
+        counter.get(7);
+
+        Map<Integer, Integer> counts = counter.increment(Map.of(7, 2, 8, 1));
+        assertEquals(Map.of(7, 3), counts);  // 8 不在内存里，只改库
+        verify(notificationMapper).incrementUnreadCounters(Map.of(7, 2, 8, 1));
+
+        assertEquals(2, counter.decrement(7));
+        verify(notificationMapper).decrementUnreadCounter(7);
+
+        when(notificationMapper.selectUnreadCounter(7)).thenReturn(0);
+        assertEquals(0, counter.recount(7));
+        verify(notificationMapper).recountUnreadCounter(7);
+        assertEquals(0, counter.decrement(7));
+    }
+
+    @Test
+    void recountKeepsNotificationsWrittenDuringMarkAllAsRead() {
+        when(notificationMapper.selectUnreadCounter(7)).thenReturn(4);
+        counter.get(7);
+
+        // 全部已读的 UPDATE 之后又进来一条新通知，计数表按通知表重算为 1
+        counter.increment(Map.of(7, 1));
+        when(notificationMapper.selectUnreadCounter(7)).thenReturn(1);
+
+        assertEquals(1, counter.recount(7));
+        assertEquals(1, counter.get(7));
+        verify(notificationMapper).recountUnreadCounter(7);
+    }
+
+    @Test
+    void emptyBatchSkipsDatabase() {
+        assertTrue(counter.increment(Map.of()).isEmpty());
+        verifyNoInteractions(notificationMapper);
+    }
+}
@@ -0,0 +1,61 @@
+package com.health.healthplatform.service;
+
+import com.health.healthplatform.entity.Tag;
+import com.health.healthplatform.mapper.TagMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class TagDictionaryTest {
+
+    private TagMapper tagMapper;
+    private TagDictionary dictionary;
+
+    @BeforeEach
+    void setUp() {
+        tagMapper = mock(TagMapper.class);
+        when(tagMapper.selectAll()).thenReturn(List.of(tag(1L, "跑步"), tag(2L, "饮食")));
+        dictionary = new TagDictionary();
+        ReflectionTestUtils.setField(dictionary, "tagMapper", tagMapper);
+        dictionary.init();
+    }
+
+    @Test
+    void knownTagsResolveWithoutQueries() {
+        Map<String, Long> ids = dictionary.resolve(Arrays.asList(" 跑步 ", "饮食", "跑步", "", null));
+
+        assertEquals(Map.of("跑步", 1L, "饮食", 2L), ids);
+        verify(tagMapper, never()).batchInsertIgnore(anyCollection());
+        verify(tagMapper, never()).selectByNames(anyCollection());
+    }
+
+    @Test
+    void newTagsAreCreatedInOneBatchAndCached() {
+        when(tagMapper.selectByNames(anyCollection())).thenReturn(List.of(tag(3L, "睡眠"), tag(4L, "Yoga")));
+
+        Map<String, Long> ids = dictionary.resolve(List.of("跑步", "睡眠", "yoga"));
+
+        assertEquals(List.of(1L, 3L, 4L), List.copyOf(ids.values()));
+        verify(tagMapper).batchInsertIgnore(argThat(names -> names.size() == 2));
+
+        // 没有事务时立即进入缓存，再次解析不查库
+        dictionary.resolve(List.of("睡眠", "yoga"));
+        verify(tagMapper, times(1)).batchInsertIgnore(anyCollection());
+        assertEquals(4, dictionary.size());
+    }
+
+    private static Tag tag(Long id, String name) {
+        Tag tag = new Tag();
+        tag.setId(id);
+        tag.setName(name);
+        return tag;
+    }
+}
@@ -0,0 +1,202 @@
+package com.health.healthplatform.service.health_data;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.health.healthplatform.entity.healthdata.ExerciseRecord;
+import com.health.healthplatform.entity.healthdata.HeartRateHistory;
+import com.health.healthplatform.mapper.health_data.HealthExportMapper;
+import org.apache.ibatis.cursor.Cursor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class HealthExportServiceTest {
+
+    private HealthExportMapper healthExportMapper;
+    private HealthExportService service;
+
+    @BeforeEach
+    void setUp() {
+        healthExportMapper = mock(HealthExportMapper.class);
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(new SimpleTransactionStatus()));
+        // 默认各表都为空
+        when(healthExportMapper.streamHealthData(1)).thenAnswer(i -> cursor(0, n -> null));
+        when(healthExportMapper.streamHeartRates(1)).thenAnswer(i -> cursor(0, n -> null));
+        when(healthExportMapper.streamSteps(1)).thenAnswer(i -> cursor(0, n -> null));
+        when(healthExportMapper.streamSleep(1)).thenAnswer(i -> cursor(0, n -> null));
+        when(healthExportMapper.streamWeights(1)).thenAnswer(i -> cursor(0, n -> null));
+        when(healthExportMapper.streamBloodPressures(1)).thenAnswer(i -> cursor(0, n -> null));
+        when(healthExportMapper.streamExerciseRecords(1)).thenAnswer(i -> cursor(0, n -> null));
+
+        service = new HealthExportService();
+        ReflectionTestUtils.setField(service, "healthExportMapper", healthExportMapper);
+        ReflectionTestUtils.setField(service, "transactionTemplate", transactionTemplate);
+        ReflectionTestUtils.setField(service, "objectMapper", new ObjectMapper().findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS));
+    }
+
+    @Test
+    void ndjsonAndCsvOutput() {
+        FakeCursor heartRates = cursor(2, HealthExportServiceTest::heartRate);
+        when(healthExportMapper.streamHeartRates(1)).thenAnswer(i -> heartRates);
+        when(healthExportMapper.streamExerciseRecords(1)).thenAnswer(i -> cursor(1, n -> {
+            ExerciseRecord record = new ExerciseRecord();
+            record.setId(9L);
+            record.setExerciseType("跑步");
+            record.setNotes("轻松跑, 说\"不累\"");
+            return record;
+        }));
+
+        ByteArrayOutputStream ndjson = new ByteArrayOutputStream();
+        assertEquals(3, service.export(1, "ndjson", ndjson));
+        List<String> lines = ndjson.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(3, lines.size());
+        assertTrue(lines.get(0).startsWith("{\"table\":\"heart_rate_history\",\"id\":0,\"userId\":1,\"heartRate\":70.0,"
+                + "\"measurementTime\":\"2024-05-01T08:00:00\""), lines.get(0));
+        assertTrue(heartRates.closed);
+
+        when(healthExportMapper.streamHeartRates(1)).thenAnswer(i -> cursor(2, HealthExportServiceTest::heartRate));
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        service.export(1, "csv", csv);
+        List<String> csvLines = csv.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(List.of(
+                "table,id,userId,heartRate,measurementTime,createTime,updateTime",
+                "heart_rate_history,0,1,70.0,2024-05-01T08:00:00,,",
+                "heart_rate_history,1,1,71.0,2024-05-01T08:00:00,,"), csvLines.subList(0, 3));
+        assertTrue(csvLines.get(3).startsWith("table,id,userId,exerciseType,"));
+        assertTrue(csvLines.get(4).startsWith("exercise_records,9,,跑步,"));
+        assertTrue(csvLines.get(4).contains(",\"轻松跑, 说\"\"不累\"\"\","));
+    }
+
+    @Test
+    void rowsAreWrittenWhileStillBeingRead() {
+        AtomicLong written = new AtomicLong();
+        OutputStream counting = new OutputStream() {
+            @Override
+            public void write(int b) {
+                written.incrementAndGet();
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                written.addAndGet(len);
+            }
+        };
+        // 读到第 50 万行时，前面的行应该已经写出去了
+        int rows = 1_000_000;
+        long[] writtenAtHalf = new long[1];
+        when(healthExportMapper.streamHeartRates(1)).thenAnswer(i -> cursor(rows, n -> {
+            if (n == rows / 2) {
+                writtenAtHalf[0] = written.get();
+            }
+            return heartRate(n);
+        }));
+
+        assertEquals(rows, service.export(1, "csv", counting));
+        assertTrue(writtenAtHalf[0] > 0);
+        assertTrue(written.get() > writtenAtHalf[0]);
+    }
+
+    @Test
+    void eachTableIsReadInItsOwnReadOnlyTransaction() {
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        ReflectionTestUtils.setField(service, "transactionManager", transactionManager);
+        service.init();
+        when(healthExportMapper.streamHeartRates(1)).thenAnswer(i -> cursor(2, HealthExportServiceTest::heartRate));
+
+        assertEquals(2, service.export(1, "ndjson", new ByteArrayOutputStream()));
+
+        ArgumentCaptor<TransactionDefinition> definitions = ArgumentCaptor.forClass(TransactionDefinition.class);
+        verify(transactionManager, times(7)).getTransaction(definitions.capture());
+        assertTrue(definitions.getAllValues().stream().allMatch(TransactionDefinition::isReadOnly));
+        verify(transactionManager, times(7)).commit(any());
+    }
+
+    private static HeartRateHistory heartRate(int n) {
+        HeartRateHistory heartRate = new HeartRateHistory();
+        heartRate.setId((long) n);
+        heartRate.setUserId(1);
+        heartRate.setHeartRate(70.0 + n);
+        heartRate.setMeasurementTime(LocalDateTime.of(2024, 5, 1, 8, 0));
+        heartRate.setDeleted(0);
+        return heartRate;
+    }
+
+    private static FakeCursor cursor(int size, IntFunction<Object> rows) {
+        return new FakeCursor(size, rows);
+    }
+
+    // 按需生成行的游标，不预先持有数据
+    private static final class FakeCursor implements Cursor<Object> {
+        final int size;
+        final IntFunction<Object> rows;
+        int next;
+        boolean closed;
+
+        FakeCursor(int size, IntFunction<Object> rows) {
+            this.size = size;
+            this.rows = rows;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return !closed;
+        }
+
+        @Override
+        public boolean isConsumed() {
+            return next >= size;
+        }
+
+        @Override
+        public int getCurrentIndex() {
+            return next - 1;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+        @Override
+        public Iterator<Object> iterator() {
+            return new Iterator<>() {
+                @Override
+                public boolean hasNext() {
+                    return next < size;
+                }
+
+                @Override
+                public Object next() {
+                    if (next >= size) {
+                        throw new NoSuchElementException();
+                    }
+                    return rows.apply(next++);
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.health.healthplatform.service.health_data;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.health.healthplatform.DTO.HealthSampleDTO;
+import com.health.healthplatform.DTO.HealthSampleIngestResult;
+import com.health.healthplatform.mapper.health_data.HealthDataMapper;
+import com.health.healthplatform.mapper.health_data.HeartRateHistoryMapper;
+import com.health.healthplatform.mapper.health_data.StepsHistoryMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class HealthSampleIngestServiceTest {
+
+    private HeartRateHistoryMapper heartRateHistoryMapper;
+    private StepsHistoryMapper stepsHistoryMapper;
+    private HealthDataMapper healthDataMapper;
+    private HealthSampleIngestService service;
+
+    @BeforeEach
+    void setUp() {
+        heartRateHistoryMapper = mock(HeartRateHistoryMapper.class);
+        stepsHistoryMapper = mock(StepsHistoryMapper.class);
+        healthDataMapper = mock(HealthDataMapper.class);
+        service = new HealthSampleIngestService();
+        ReflectionTestUtils.setField(service, "heartRateHistoryMapper", heartRateHistoryMapper);
+        ReflectionTestUtils.setField(service, "stepsHistoryMapper", stepsHistoryMapper);
+        ReflectionTestUtils.setField(service, "healthDataMapper", healthDataMapper);
+        ReflectionTestUtils.setField(service, "heartRateTrendService", mock(HeartRateTrendService.class));
+        ReflectionTestUtils.setField(service, "latestVitalsCache", mock(LatestVitalsCache.class));
+        ReflectionTestUtils.setField(service, "userDailyMetricsService", mock(UserDailyMetricsService.class));
+        ReflectionTestUtils.setField(service, "objectMapper", new ObjectMapper().findAndRegisterModules());
+    }
+
+    @Test
+    void hundredThousandSamplesInBatches() {
+        LocalDateTime start = LocalDateTime.now().minusDays(2);
+        List<HealthSampleDTO> samples = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            boolean heartRate = i % 2 == 0;
+            samples.add(sample(heartRate ? "heart_rate" : "steps", heartRate ? 60 + i % 40 : i % 200, start.plusSeconds(i)));
+        }
+
+        HealthSampleIngestResult result = service.ingest(1, samples);
+
+        assertEquals(100_000, result.getAccepted());
+        // 每个指标 5 万条，每批 1000 条
+        verify(heartRateHistoryMapper, times(50)).batchInsert(anyList());
+        verify(stepsHistoryMapper, times(50)).batchInsert(anyList());
+        verify(heartRateHistoryMapper, never()).insert(any());
+        // 当前心率整批只更新一次
+        verify(healthDataMapper, times(1)).update(isNull(), any());
+    }
+
+    @Test
+    void failedBatchIsReportedAndOtherBatchesAreKept() {
+        ReflectionTestUtils.setField(service, "batchSize", 2);
+        LocalDateTime start = LocalDateTime.now().minusHours(1);
+        List<HealthSampleDTO> samples = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            samples.add(sample("heart_rate", 70 + i, start.plusMinutes(i)));
+        }
+        samples.add(sample("steps", 500, start));
+        // 第二批心率（第 3、4 条）写入失败
+        doReturn(2).doThrow(new IllegalStateException("deadlock")).doReturn(1)
+                .when(heartRateHistoryMapper).batchInsert(anyList());
+
+        HealthSampleIngestResult result = service.ingest(1, samples);
+
+        assertEquals(4, result.getAccepted());
+        assertEquals(2, result.getFailed());
+        assertEquals(0, result.getRejected());
+        assertEquals(1, result.getErrors().size());
+        assertTrue(result.getErrors().get(0).startsWith("heart_rate"));
+        verify(stepsHistoryMapper, times(1)).batchInsert(anyList());
+        // 最新心率取自已写入的最后一批
+        verify(healthDataMapper, times(1)).update(isNull(), any());
+    }
+
+    @Test
+    void ndjsonStreamRejectsBadLinesAndKeepsTheRest() throws Exception {
+        String body = "{\"type\":\"heart_rate\",\"value\":72,\"time\":\"2024-05-01T08:00:00\"}\n"
+                + "\n"
+                + "{\"type\":\"heart_rate\",\"value\":400}\n"
+                + "not json\n"
+                + "{\"type\":\"glucose\",\"value\":5.1}\n"
+                + "{\"type\":\"steps\",\"value\":1200,\"time\":\"2024-05-01T09:00:00\"}\n";
+
+        HealthSampleIngestResult result = service.ingest(1,
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(2, result.getAccepted());
+        assertEquals(3, result.getRejected());
+        assertEquals(3, result.getErrors().size());
+        verify(heartRateHistoryMapper, times(1)).batchInsert(argThat(rows -> rows.size() == 1));
+        verify(stepsHistoryMapper, times(1)).batchInsert(argThat(rows ->
+                rows.size() == 1 && rows.get(0).getCalories() == 48.0));
+    }
+
+    private static HealthSampleDTO sample(String type, double value, LocalDateTime time) {
+        HealthSampleDTO sample = new HealthSampleDTO();
+        sample.setType(type);
+        sample.setValue(value);
+        sample.setTime(time);
+        return sample;
+    }
+}
@@ -0,0 +1,110 @@
+package com.health.healthplatform.service.health_data;
+
+import com.health.healthplatform.DTO.HeartRateTrendDTO;
+import com.health.healthplatform.entity.healthdata.HeartRateHistory;
+import com.health.healthplatform.entity.healthdata.HeartRateRollup;
+import com.health.healthplatform.mapper.health_data.HeartRateRollupMapper;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class HeartRateTrendServiceTest {
+
+    @Test
+    void samplesAreFoldedIntoEveryResolution() {
+        HeartRateRollupMapper mapper = mock(HeartRateRollupMapper.class);
+        HeartRateTrendService service = new HeartRateTrendService();
+        ReflectionTestUtils.setField(service, "heartRateRollupMapper", mapper);
+
+        LocalDateTime base = LocalDateTime.of(2024, 5, 1, 8, 0);
+        service.accumulate(List.of(
+                sample(base.plusSeconds(10), 60),
+                sample(base.plusSeconds(50), 80),
+                sample(base.plusMinutes(1), 100)));
+
+        ArgumentCaptor<List<HeartRateRollup>> captor = ArgumentCaptor.forClass(List.class);
+        verify(mapper, times(1)).upsertBatch(captor.capture());
+        List<HeartRateRollup> rollups = captor.getValue();
+        // 两个分钟桶、一个小时桶、一个天桶
+        assertEquals(4, rollups.size());
+        HeartRateRollup firstMinute = rollups.get(0);
+        assertEquals(HeartRateTrendService.MINUTE, firstMinute.getResolution());
+        assertEquals(60.0, firstMinute.getMinRate());
+        assertEquals(80.0, firstMinute.getMaxRate());
+        assertEquals(2, firstMinute.getSampleCount());
+        HeartRateRollup day = rollups.stream().filter(r -> r.getResolution() == HeartRateTrendService.DAY).findFirst().get();
+        assertEquals(LocalDateTime.of(2024, 5, 1, 0, 0), day.getBucketStart());
+        assertEquals(240.0, day.getSumRate());
+        assertEquals(3, day.getSampleCount());
+    }
+
+    @Test
+    void rowsReadDoNotGrowWithRange() {
+        assertEquals(HeartRateTrendService.MINUTE, HeartRateTrendService.chooseResolution(Duration.ofDays(1), 2000));
+        assertEquals(HeartRateTrendService.HOUR, HeartRateTrendService.chooseResolution(Duration.ofDays(7), 2000));
+        assertEquals(HeartRateTrendService.HOUR, HeartRateTrendService.chooseResolution(Duration.ofDays(30), 2000));
+        assertEquals(HeartRateTrendService.DAY, HeartRateTrendService.chooseResolution(Duration.ofDays(365), 2000));
+    }
+
+    @Test
+    void mergeKeepsEnvelopeAndWeightedAverage() {
+        List<HeartRateTrendDTO> points = minuteSeries(1440);
+        points.get(700).setMax(190.0);  // 一个尖峰
+
+        List<HeartRateTrendDTO> merged = HeartRateTrendService.mergeBuckets(points, 100);
+
+        assertEquals(100, merged.size(), "点数 " + merged.size());
+        assertEquals(190.0, merged.stream().mapToDouble(HeartRateTrendDTO::getMax).max().getAsDouble());
+        assertEquals(1440 * 2, merged.stream().mapToInt(HeartRateTrendDTO::getCount).sum());
+        double total = points.stream().mapToDouble(p -> p.getAvg() * p.getCount()).sum();
+        double mergedTotal = merged.stream().mapToDouble(p -> p.getAvg() * p.getCount()).sum();
+        assertEquals(total, mergedTotal, 1e-6);
+    }
+
+    @Test
+    void lttbKeepsEndpointsAndPeaks() {
+        List<HeartRateTrendDTO> points = minuteSeries(1440);
+        points.get(700).setAvg(180.0);
+
+        List<HeartRateTrendDTO> sampled = HeartRateTrendService.lttb(points, 200);
+
+        assertEquals(200, sampled.size());
+        assertEquals(points.get(0), sampled.get(0));
+        assertEquals(points.get(1439), sampled.get(199));
+        assertEquals(true, sampled.contains(points.get(700)));
+        assertEquals(points, HeartRateTrendService.lttb(points, 2000));
+    }
+
+    private static List<HeartRateTrendDTO> minuteSeries(int size) {
+        LocalDateTime base = LocalDateTime.of(2024, 5, 1, 0, 0);
+        List<HeartRateTrendDTO> points = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            HeartRateTrendDTO point = new HeartRateTrendDTO();
+            point.setTime(base.plusMinutes(i));
+            double value = 70 + 10 * Math.sin(i / 60.0);
+            point.setAvg(value);
+            point.setMin(value - 5);
+            point.setMax(value + 5);
+            point.setCount(2);
+            points.add(point);
+        }
+        return points;
+    }
+
+    private static HeartRateHistory sample(LocalDateTime time, double rate) {
+        HeartRateHistory sample = new HeartRateHistory();
+        sample.setUserId(1);
+        sample.setHeartRate(rate);
+        sample.setMeasurementTime(time);
+        return sample;
+    }
+}
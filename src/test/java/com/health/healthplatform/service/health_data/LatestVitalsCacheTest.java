@@ -0,0 +1,86 @@
+package com.health.healthplatform.service.health_data;
+
+import com.health.healthplatform.entity.healthdata.HealthData;
+import com.health.healthplatform.mapper.health_data.HealthDataMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class LatestVitalsCacheTest {
+
+    private HealthDataMapper healthDataMapper;
+    private LatestVitalsCache cache;
+
+    @BeforeEach
+    void setUp() {
+        healthDataMapper = mock(HealthDataMapper.class);
+        cache = new LatestVitalsCache();
+        ReflectionTestUtils.setField(cache, "healthDataMapper", healthDataMapper);
+        ReflectionTestUtils.setField(cache, "meterRegistry", new SimpleMeterRegistry());
+        cache.init();
+        when(healthDataMapper.findLatestByUserId(1)).thenAnswer(invocation -> vitals(72, 65.0));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void readersShareOneQueryAndGetCopies() {
+        HealthData first = cache.get(1);
+        first.setHeartRate(200);
+
+        assertEquals(72, cache.get(1).getHeartRate());
+        assertNull(cache.get(2));
+        assertNull(cache.get(2));
+        verify(healthDataMapper, times(1)).findLatestByUserId(1);
+        verify(healthDataMapper, times(1)).findLatestByUserId(2);
+    }
+
+    @Test
+    void writesPatchSnapshotAfterCommit() {
+        cache.get(1);
+
+        TransactionSynchronizationManager.initSynchronization();
+        cache.update(1, data -> data.setWeight(70.0));
+        // 提交前仍是旧值
+        assertEquals(65.0, cache.get(1).getWeight());
+        for (TransactionSynchronization sync : TransactionSynchronizationManager.getSynchronizations()) {
+            sync.afterCommit();
+        }
+        TransactionSynchronizationManager.clearSynchronization();
+
+        HealthData updated = cache.get(1);
+        assertEquals(70.0, updated.getWeight());
+        assertEquals(72, updated.getHeartRate());
+        verify(healthDataMapper, times(1)).findLatestByUserId(1);
+    }
+
+    @Test
+    void invalidateReloadsFromDatabase() {
+        cache.get(1);
+        cache.invalidate(1);
+        assertEquals(0, cache.size());
+
+        cache.get(1);
+        verify(healthDataMapper, times(2)).findLatestByUserId(1);
+    }
+
+    private static HealthData vitals(int heartRate, double weight) {
+        HealthData data = new HealthData();
+        data.setUserId(1L);
+        data.setHeartRate(heartRate);
+        data.setWeight(weight);
+        return data;
+    }
+}
@@ -0,0 +1,204 @@
+package com.health.healthplatform.service.health_data;
+
+import com.health.healthplatform.entity.healthdata.ExerciseRecord;
+import com.health.healthplatform.entity.healthdata.HeartRateHistory;
+import com.health.healthplatform.entity.healthdata.SleepHistory;
+import com.health.healthplatform.entity.healthdata.UserDailyMetric;
+import com.health.healthplatform.mapper.health_data.ExerciseRecordMapper;
+import com.health.healthplatform.mapper.health_data.UserDailyMetricMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class UserDailyMetricsServiceTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 5, 1, 8, 0);
+
+    private UserDailyMetricMapper userDailyMetricMapper;
+    private ExerciseRecordMapper exerciseRecordMapper;
+    private UserDailyMetricsService service;
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        userDailyMetricMapper = mock(UserDailyMetricMapper.class);
+        exerciseRecordMapper = mock(ExerciseRecordMapper.class);
+        service = new UserDailyMetricsService();
+        ReflectionTestUtils.setField(service, "userDailyMetricMapper", userDailyMetricMapper);
+        ReflectionTestUtils.setField(service, "exerciseRecordMapper", exerciseRecordMapper);
+        transactionManager = mock(PlatformTransactionManager.class);
+        ReflectionTestUtils.setField(service, "transactionTemplate", new TransactionTemplate(transactionManager));
+    }
+
+    @Test
+    void samplesOfTheSameDayAreFoldedBeforeWriting() {
+        service.onHeartRates(List.of(
+                heartRate(BASE.plusHours(2), 90),
+                heartRate(BASE, 60),
+                heartRate(BASE.plusHours(1), 75),
+                heartRate(BASE.plusDays(1), 70)));
+
+        List<UserDailyMetric> rows = captureUpsert();
+        assertEquals(2, rows.size());
+        UserDailyMetric day = rows.get(0);
+        assertEquals(UserDailyMetricsService.HEART_RATE, day.getMetric());
+        assertEquals(BASE.toLocalDate(), day.getRecordDate());
+        assertEquals(3, day.getSampleCount());
+        assertEquals(225.0, day.getSumValue());
+        assertEquals(60.0, day.getMinValue());
+        assertEquals(90.0, day.getMaxValue());
+        assertEquals(60.0, day.getFirstValue());
+        assertEquals(BASE, day.getFirstTime());
+        assertEquals(90.0, day.getLastValue());
+        assertEquals(BASE.plusHours(2), day.getLastTime());
+        assertEquals(1, rows.get(1).getSampleCount());
+    }
+
+    @Test
+    void sleepQualityIsCountedPerValue() {
+        SleepHistory sleep = new SleepHistory();
+        sleep.setUserId(1);
+        sleep.setSleepStart(BASE.minusHours(9));
+        sleep.setSleepDuration(8.0);
+        sleep.setDeepSleep(1.6);
+        sleep.setLightSleep(4.4);
+        sleep.setRemSleep(2.0);
+        sleep.setSleepQuality("良好");
+        service.onSleep(sleep);
+
+        Map<String, UserDailyMetric> rows = captureUpsert().stream()
+                .collect(Collectors.toMap(UserDailyMetric::getMetric, row -> row));
+        assertEquals(5, rows.size());
+        assertEquals(8.0, rows.get(UserDailyMetricsService.SLEEP_DURATION).getSumValue());
+        assertEquals(1.0, rows.get(UserDailyMetricsService.SLEEP_QUALITY + "良好").getSumValue());
+        assertEquals(BASE.minusHours(9).toLocalDate(), rows.get(UserDailyMetricsService.SLEEP_REM).getRecordDate());
+    }
+
+    @Test
+    void exerciseDaysAreRebuiltFromRecords() {
+        LocalDate day = BASE.toLocalDate();
+        when(exerciseRecordMapper.findByDateRange(1, day, day))
+                .thenReturn(List.of(exercise(day, "跑步", 30, 300), exercise(day, "跑步", 20, 200)));
+        when(exerciseRecordMapper.findByDateRange(1, day.plusDays(1), day.plusDays(1))).thenReturn(List.of());
+
+        service.rebuildExercise(1, Arrays.asList(day, day, null, day.plusDays(1)));
+
+        verify(userDailyMetricMapper).deleteDay(1, day, UserDailyMetricsService.EXERCISE);
+        verify(userDailyMetricMapper).deleteDay(1, day.plusDays(1), UserDailyMetricsService.EXERCISE);
+        Map<String, UserDailyMetric> rows = captureUpsert().stream()
+                .collect(Collectors.toMap(UserDailyMetric::getMetric, row -> row));
+        assertEquals(50.0, rows.get(UserDailyMetricsService.EXERCISE_DURATION).getSumValue());
+        assertEquals(2, rows.get(UserDailyMetricsService.EXERCISE_CALORIES).getSampleCount());
+        assertEquals(2.0, rows.get(UserDailyMetricsService.EXERCISE_TYPE + "跑步").getSumValue());
+        verify(transactionManager, times(1)).commit(any());
+    }
+
+    @Test
+    void failedRebuildRollsBackTheDelete() {
+        LocalDate day = BASE.toLocalDate();
+        when(exerciseRecordMapper.findByDateRange(1, day, day)).thenReturn(List.of(exercise(day, "跑步", 30, 300)));
+        when(userDailyMetricMapper.upsertBatch(anyList())).thenThrow(new IllegalStateException("db down"));
+
+        assertThrows(IllegalStateException.class, () -> service.rebuildExercise(1, List.of(day)));
+
+        // 删除和重写在同一个事务里，失败时一起回滚
+        verify(userDailyMetricMapper).deleteDay(1, day, UserDailyMetricsService.EXERCISE);
+        verify(transactionManager).rollback(any());
+        verify(transactionManager, never()).commit(any());
+    }
+
+    @Test
+    void rangeSummaryMatchesScanOverSamples() {
+        // 30 天、每天 200 条心率，按天聚合后合并的结果与逐条计算一致
+        List<HeartRateHistory> samples = new ArrayList<>();
+        for (int d = 0; d < 30; d++) {
+            for (int i = 0; i < 200; i++) {
+                samples.add(heartRate(BASE.plusDays(d).plusMinutes(i * 4L), 50 + (d * 7 + i * 13) % 90));
+            }
+        }
+        service.onHeartRates(samples);
+        List<UserDailyMetric> days = captureUpsert();
+        assertEquals(30, days.size());
+
+        UserDailyMetric total = UserDailyMetricsService.combine(days);
+        assertEquals(samples.size(), total.getSampleCount());
+        assertEquals(samples.stream().mapToDouble(HeartRateHistory::getHeartRate).average().orElse(0),
+                UserDailyMetricsService.average(total), 1e-9);
+        assertEquals(samples.stream().mapToDouble(HeartRateHistory::getHeartRate).min().orElse(0), total.getMinValue());
+        assertEquals(samples.get(0).getHeartRate(), total.getFirstValue());
+        assertEquals(samples.get(samples.size() - 1).getHeartRate(), total.getLastValue());
+        assertNull(UserDailyMetricsService.combine(List.of()));
+        assertEquals(0.0, UserDailyMetricsService.average(null));
+    }
+
+    @Test
+    void distributionSumsCategoricalMetrics() {
+        when(userDailyMetricMapper.findByRange(eq(1), eq(UserDailyMetricsService.SLEEP), any(), any())).thenReturn(List.of(
+                row(UserDailyMetricsService.SLEEP_DURATION, 1, 7.5),
+                row(UserDailyMetricsService.SLEEP_QUALITY + "良好", 2, 2),
+                row(UserDailyMetricsService.SLEEP_QUALITY + "良好", 1, 1),
+                row(UserDailyMetricsService.SLEEP_QUALITY + "较差", 1, 1)));
+
+        Map<String, List<UserDailyMetric>> daily = service.findRange(1, UserDailyMetricsService.SLEEP,
+                BASE.toLocalDate().minusDays(30), BASE.toLocalDate());
+
+        assertEquals(Map.of("良好", 3L, "较差", 1L),
+                UserDailyMetricsService.distribution(daily, UserDailyMetricsService.SLEEP_QUALITY));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<UserDailyMetric> captureUpsert() {
+        ArgumentCaptor<List<UserDailyMetric>> captor = ArgumentCaptor.forClass(List.class);
+        verify(userDailyMetricMapper, atLeastOnce()).upsertBatch(captor.capture());
+        return captor.getAllValues().stream().flatMap(List::stream).toList();
+    }
+
+    private static HeartRateHistory heartRate(LocalDateTime time, double rate) {
+        HeartRateHistory row = new HeartRateHistory();
+        row.setUserId(1);
+        row.setHeartRate(rate);
+        row.setMeasurementTime(time);
+        return row;
+    }
+
+    private static ExerciseRecord exercise(LocalDate date, String type, int duration, int calories) {
+        ExerciseRecord row = new ExerciseRecord();
+        row.setUserId(1);
+        row.setRecordDate(date);
+        row.setExerciseType(type);
+        row.setDuration(duration);
+        row.setCalories(calories);
+        return row;
+    }
+
+    private static UserDailyMetric row(String metric, int count, double sum) {
+        UserDailyMetric row = new UserDailyMetric();
+        row.setUserId(1);
+        row.setMetric(metric);
+        row.setRecordDate(BASE.toLocalDate());
+        row.setSampleCount(count);
+        row.setSumValue(sum);
+        row.setMinValue(sum / count);
+        row.setMaxValue(sum / count);
+        row.setFirstValue(sum / count);
+        row.setFirstTime(BASE);
+        row.setLastValue(sum / count);
+        row.setLastTime(BASE);
+        return row;
+    }
+}
@@ -0,0 +1,75 @@
+package com.health.healthplatform.websocket;
+
+import com.health.healthplatform.websocket.bus.InProcessNotificationBus;
+import com.health.healthplatform.websocket.bus.LocalBrokerNotificationBus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.net.URI;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class NotificationWebSocketHandlerTest {
+
+    @Test
+    void everySessionOfUserReceivesNotification() throws Exception {
+        try (AnnotationConfigApplicationContext node = node(InProcessNotificationBus.class)) {
+            NotificationWebSocketHandler handler = node.getBean(NotificationWebSocketHandler.class);
+            WebSocketSession tab1 = session("a", 7);
+            WebSocketSession tab2 = session("b", 7);
+            handler.afterConnectionEstablished(tab1);
+            handler.afterConnectionEstablished(tab2);
+
+            handler.sendNotificationToUser(7, Map.of("message", "hi"));
+
+            verify(tab1, timeout(1000)).sendMessage(any(TextMessage.class));
+            verify(tab2, timeout(1000)).sendMessage(any(TextMessage.class));
+
+            // 关掉一个标签页，另一个仍能收到
+            handler.afterConnectionClosed(tab1, CloseStatus.NORMAL);
+            handler.sendNotificationToUser(7, Map.of("message", "again"));
+            verify(tab1, times(1)).sendMessage(any(TextMessage.class));
+            verify(tab2, timeout(1000).times(2)).sendMessage(any(TextMessage.class));
+        }
+    }
+
+    @Test
+    void notificationReachesSessionHeldByAnotherNode() throws Exception {
+        try (AnnotationConfigApplicationContext nodeA = node(LocalBrokerNotificationBus.class);
+             AnnotationConfigApplicationContext nodeB = node(LocalBrokerNotificationBus.class)) {
+            WebSocketSession onB = session("b1", 9);
+            nodeB.getBean(NotificationWebSocketHandler.class).afterConnectionEstablished(onB);
+
+            // 通知在 A 节点产生，用户连在 B 节点
+            nodeA.getBean(NotificationWebSocketHandler.class).sendNotificationToUser(9, Map.of("message", "hi"));
+
+            verify(onB, timeout(1000).times(1)).sendMessage(any(TextMessage.class));
+        }
+    }
+
+    // 每个上下文相当于一个应用实例
+    private static AnnotationConfigApplicationContext node(Class<?> busClass) {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        String bus = busClass == LocalBrokerNotificationBus.class ? "local-broker" : "in-process";
+        context.getEnvironment().getPropertySources()
+                .addFirst(new MapPropertySource("test", Map.of("notification.bus", bus)));
+        context.register(SimpleMeterRegistry.class, busClass, WebSocketSessionRegistry.class, NotificationWebSocketHandler.class);
+        context.refresh();
+        return context;
+    }
+
+    private static WebSocketSession session(String id, int userId) {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn(id);
+        when(session.isOpen()).thenReturn(true);
+        when(session.getUri()).thenReturn(URI.create("ws://localhost/ws/notifications/" + userId));
+        return session;
+    }
+}
@@ -0,0 +1,267 @@
+package com.health.healthplatform.websocket;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.PingMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.security.Principal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WebSocketSessionRegistryTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private WebSocketSessionRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        registry = new WebSocketSessionRegistry();
+        ReflectionTestUtils.setField(registry, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(registry, "queueCapacity", 4);
+        registry.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        registry.shutdown();
+    }
+
+    @Test
+    void stuckSessionDoesNotBlockCallerAndDropsOldest() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        StubSession stuck = new StubSession("stuck", release);
+        registry.register(1, stuck);
+
+        // 第一条已被发送线程取走、卡在写出上
+        assertEquals(1, registry.send(1, new TextMessage("m0")));
+        assertTrue(stuck.entered.await(2, TimeUnit.SECONDS));
+        for (int i = 1; i < 20; i++) {
+            assertEquals(1, registry.send(1, new TextMessage("m" + i)));
+        }
+        // 会话还卡着，所有 send 都已返回；队列只留最新的 4 条，其余 15 条丢弃
+        assertEquals(0, stuck.sent.get());
+        assertEquals(4, registry.queuedMessages());
+        assertEquals(15, meterRegistry.get("notification.ws.dropped").counter().count());
+
+        release.countDown();
+        assertTrue(stuck.awaitSent(5, 2000), "积压的消息在连接恢复后发出");
+        assertEquals(List.of("m0", "m16", "m17", "m18", "m19"),
+                stuck.messages.stream().map(m -> (String) m.getPayload()).toList());
+        assertEquals(0, registry.queuedMessages());
+        assertEquals(1, registry.sessionCount(1));
+    }
+
+    @Test
+    void overflowWithClosePolicyEvictsSession() throws Exception {
+        ReflectionTestUtils.setField(registry, "overflowPolicy", "close");
+        StubSession stuck = new StubSession("stuck", new CountDownLatch(1));
+        registry.register(1, stuck);
+
+        int queued = registry.send(1, new TextMessage("m0"));
+        assertTrue(stuck.entered.await(2, TimeUnit.SECONDS));
+        for (int i = 1; i < 20; i++) {
+            queued += registry.send(1, new TextMessage("m" + i));
+        }
+
+        // 卡住的一条加队列里的 4 条，第 6 条触发关闭，之后的消息不再入队，也不计为丢弃
+        assertEquals(5, queued);
+        assertEquals(0, registry.sessionCount(1));
+        assertEquals(0, registry.queuedMessages());
+        assertEquals(0, meterRegistry.get("notification.ws.dropped").counter().count());
+        assertTrue(stuck.closed.await(2, TimeUnit.SECONDS));
+        assertEquals(1, meterRegistry.get("notification.ws.evicted").counter().count());
+    }
+
+    @Test
+    void heartbeatPingsLiveSessionsAndEvictsIdleOnes() throws Exception {
+        StubSession live = new StubSession("live", null);
+        StubSession idle = new StubSession("idle", null);
+        registry.register(1, live);
+        registry.register(2, idle);
+
+        ReflectionTestUtils.setField(registry, "idleTimeoutMs", 50L);
+        Thread.sleep(100);
+        registry.touch(1, live);
+        registry.heartbeat();
+
+        assertTrue(live.awaitSent(1, 2000));
+        assertInstanceOf(PingMessage.class, live.messages.get(0));
+        assertEquals(0, registry.sessionCount(2));
+        assertTrue(idle.closed.await(2, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void broadcastToTenThousandSessions() throws Exception {
+        int sessions = 10_000;
+        CountDownLatch delivered = new CountDownLatch(sessions);
+        StubSession[] stubs = new StubSession[sessions];
+
+        for (int i = 0; i < sessions; i++) {
+            stubs[i] = new StubSession("s" + i, null, delivered);
+            registry.register(i, stubs[i]);
+        }
+
+        TextMessage message = new TextMessage("{\"type\":\"broadcast\"}");
+        int queued = 0;
+        for (int i = 0; i < sessions; i++) {
+            queued += registry.send(i, message);
+        }
+        assertEquals(sessions, queued);
+        assertTrue(delivered.await(10, TimeUnit.SECONDS));
+
+        // 每个会话恰好收到一次，没有丢弃、没有会话被关闭
+        for (StubSession stub : stubs) {
+            assertEquals(1, stub.sent.get());
+        }
+        assertEquals(sessions, registry.totalSessions());
+        assertEquals(0, registry.queuedMessages());
+        assertEquals(0, meterRegistry.get("notification.ws.dropped").counter().count());
+        assertEquals(0, meterRegistry.get("notification.ws.evicted").counter().count());
+    }
+
+    // 轻量会话桩：可选地在发送时卡住，直到 release 放行
+    private static final class StubSession implements WebSocketSession {
+        final String id;
+        final CountDownLatch release;
+        final CountDownLatch delivered;
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch closed = new CountDownLatch(1);
+        final List<WebSocketMessage<?>> messages = new CopyOnWriteArrayList<>();
+        final AtomicInteger sent = new AtomicInteger();
+        volatile boolean open = true;
+
+        StubSession(String id, CountDownLatch release) {
+            this(id, release, null);
+        }
+
+        StubSession(String id, CountDownLatch release, CountDownLatch delivered) {
+            this.id = id;
+            this.release = release;
+            this.delivered = delivered;
+        }
+
+        boolean awaitSent(int count, long timeoutMs) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + timeoutMs;
+            while (sent.get() < count && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            return sent.get() >= count;
+        }
+
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) throws IOException {
+            entered.countDown();
+            if (release != null) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+            }
+            if (delivered == null) {
+                messages.add(message);
+            } else {
+                delivered.countDown();
+            }
+            sent.incrementAndGet();
+        }
+
+        @Override
+        public void close(CloseStatus status) {
+            open = false;
+            closed.countDown();
+        }
+
+        @Override
+        public void close() {
+            close(CloseStatus.NORMAL);
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public String getId() {
+            return id;
+        }
+
+        @Override
+        public URI getUri() {
+            return null;
+        }
+
+        @Override
+        public HttpHeaders getHandshakeHeaders() {
+            return HttpHeaders.EMPTY;
+        }
+
+        @Override
+        public Map<String, Object> getAttributes() {
+            return Map.of();
+        }
+
+        @Override
+        public Principal getPrincipal() {
+            return null;
+        }
+
+        @Override
+        public InetSocketAddress getLocalAddress() {
+            return null;
+        }
+
+        @Override
+        public InetSocketAddress getRemoteAddress() {
+            return null;
+        }
+
+        @Override
+        public String getAcceptedProtocol() {
+            return null;
+        }
+
+        @Override
+        public void setTextMessageSizeLimit(int messageSizeLimit) {
+        }
+
+        @Override
+        public int getTextMessageSizeLimit() {
+            return 0;
+        }
+
+        @Override
+        public void setBinaryMessageSizeLimit(int messageSizeLimit) {
+        }
+
+        @Override
+        public int getBinaryMessageSizeLimit() {
+            return 0;
+        }
+
+        @Override
+        public List<WebSocketExtension> getExtensions() {
+            return List.of();
+        }
+    }
+}